@@ -1,9 +1,13 @@
 // JwtRequestFilter.java - JWT authentication filter
 package com.goldtech.timesheet_backend.config;
 
+import com.goldtech.timesheet_backend.entity.Role;
 import com.goldtech.timesheet_backend.entity.User;
-import com.goldtech.timesheet_backend.repository.UserRepository;
-import io.jsonwebtoken.ExpiredJwtException;
+import com.goldtech.timesheet_backend.service.DocumentSignedUrlService;
+import com.goldtech.timesheet_backend.service.SecurityStampService;
+import com.goldtech.timesheet_backend.service.TokenRevocationService;
+import com.goldtech.timesheet_backend.service.UserPrincipalCache;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -11,6 +15,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -20,9 +25,10 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
@@ -30,11 +36,27 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(JwtRequestFilter.class);
 
     @Autowired
-    private UserRepository userRepository;
+    private UserPrincipalCache principalCache;
+
+    @Autowired
+    private SecurityStampService stampService;
+
+    @Autowired
+    private TokenRevocationService revocationService;
 
     @Autowired
     private JwtUtils jwtUtils;
 
+    // Trust the claims of tokens whose security stamp is current instead of loading the user
+    @Value("${app.security.jwt-claims.enabled:true}")
+    private boolean claimsEnabled;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Also registered as a plain servlet filter, so skip signed document URLs here too
+        return request.getServletPath().startsWith(DocumentSignedUrlService.SIGNED_PATH_PREFIX);
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                     FilterChain chain) throws ServletException, IOException {
@@ -42,46 +64,89 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         final String requestTokenHeader = request.getHeader("Authorization");
 
         String email = null;
-        String jwtToken = null;
+        Claims claims = null;
 
         // JWT Token is in the form "Bearer token". Remove Bearer word and get only the Token
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
-            try {
-                email = jwtUtils.getEmailFromJwtToken(jwtToken);
-            } catch (IllegalArgumentException e) {
-                logger.error("Unable to get JWT Token");
-            } catch (ExpiredJwtException e) {
-                logger.error("JWT Token has expired");
+            // One signature check per token (repeat tokens are answered from the verified-token cache)
+            claims = jwtUtils.verifyJwtToken(requestTokenHeader.substring(7));
+            if (claims != null && revocationService.isRevoked(claims.getId())) {
+                logger.debug("Rejecting revoked token of: {}", claims.getSubject());
+            } else if (claims != null) {
+                email = claims.getSubject();
             }
         } else {
             logger.debug("JWT Token does not begin with Bearer String");
         }
 
-        // Once we get the token validate it.
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        // The token is verified; authenticate from its claims or from the user record
+        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null
+                && !(claimsEnabled && authenticateFromClaims(claims, request))) {
 
-            Optional<User> userOpt = userRepository.findByEmail(email);
+            // Served from the principal cache; a miss costs one user query
+            UserPrincipalCache.CachedPrincipal principal = principalCache.get(email);
 
             // if token is valid configure Spring Security to manually set authentication
-            if (userOpt.isPresent() && jwtUtils.validateJwtToken(jwtToken)) {
-                User user = userOpt.get();
-
-                // Create authorities from user roles
-                List<GrantedAuthority> authorities = user.getRoles().stream()
-                        .map(role -> new SimpleGrantedAuthority("ROLE_" + role.getName().toUpperCase()))
-                        .collect(Collectors.toList());
-
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(user, null, authorities);
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                // After setting the Authentication in the context, we specify
-                // that the current user is authenticated. So it passes the
-                // Spring Security Configurations successfully.
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+            if (principal != null && !principal.isActive()) {
+                logger.debug("Rejecting token of inactive user: {}", email);
+            } else if (principal != null) {
+                authenticate(principal.newUser(), principal.getAuthorities(), request);
             }
         }
         chain.doFilter(request, response);
     }
+
+    // Helper methods
+
+    /**
+     * Authenticate from the token alone when it carries an active status and the user's current
+     * security stamp. Older tokens, or any account change since issue, fall back to the lookup.
+     */
+    private boolean authenticateFromClaims(Claims claims, HttpServletRequest request) {
+        Number userId = claims.get(JwtUtils.CLAIM_USER_ID, Number.class);
+        String stamp = claims.get(JwtUtils.CLAIM_STAMP, String.class);
+        if (userId == null || stamp == null
+                || !User.UserStatus.ACTIVE.name().equals(claims.get(JwtUtils.CLAIM_STATUS, String.class))
+                || !stampService.isCurrent(userId.longValue(), stamp)) {
+            return false;
+        }
+
+        // Detached principal with the fields controllers read (id, email, site, name, roles)
+        User user = new User();
+        user.setId(userId.longValue());
+        user.setEmail(claims.getSubject());
+        user.setFullName(claims.get(JwtUtils.CLAIM_NAME, String.class));
+        user.setProjectSite(claims.get(JwtUtils.CLAIM_SITE, String.class));
+        user.setStatus(User.UserStatus.ACTIVE);
+        user.setSecurityStamp(stamp);
+
+        Set<Role> roles = new HashSet<>();
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        Object roleNames = claims.get(JwtUtils.CLAIM_ROLES);
+        if (roleNames instanceof List<?> names) {
+            for (Object name : names) {
+                if (name != null) {
+                    Role role = new Role();
+                    role.setName(name.toString());
+                    roles.add(role);
+                    authorities.add(new SimpleGrantedAuthority("ROLE_" + name.toString().toUpperCase()));
+                }
+            }
+        }
+        user.setRoles(roles);
+
+        authenticate(user, authorities, request);
+        return true;
+    }
+
+    private void authenticate(User user, List<GrantedAuthority> authorities, HttpServletRequest request) {
+        UsernamePasswordAuthenticationToken authToken =
+                new UsernamePasswordAuthenticationToken(user, null, authorities);
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+        // After setting the Authentication in the context, we specify
+        // that the current user is authenticated. So it passes the
+        // Spring Security Configurations successfully.
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+    }
 }
@@ -1,15 +1,19 @@
 //config/JwtUtils.java
 package com.goldtech.timesheet_backend.config;
 
+import com.goldtech.timesheet_backend.entity.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
-import java.util.Date;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 public class JwtUtils {
@@ -22,45 +26,158 @@ public class JwtUtils {
     @Value("${jwt.expiration}")
     private int jwtExpirationMs;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    // Verified tokens are remembered (by signature segment) until they expire
+    @Value("${app.security.token-cache.enabled:true}")
+    private boolean tokenCacheEnabled;
+
+    @Value("${app.security.token-cache.max-entries:10000}")
+    private int tokenCacheMaxEntries;
+
+    // Claim names of self-contained tokens (see JwtRequestFilter)
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLES = "roles";
+    public static final String CLAIM_STATUS = "status";
+    public static final String CLAIM_STAMP = "stamp";
+    public static final String CLAIM_NAME = "name";
+    public static final String CLAIM_SITE = "site";
+
+    // Built once; both are immutable and thread-safe
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    private final ConcurrentHashMap<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+
+    private final AtomicLong verifications = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong parses = new AtomicLong();
+    private final AtomicLong parseNanos = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
     }
 
     public String generateJwtToken(String email) {
         return Jwts.builder()
-                .setSubject(email)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(getSigningKey())
+                .subject(email)
+                .id(UUID.randomUUID().toString())
+                .issuedAt(new Date())
+                .expiration(new Date((new Date()).getTime() + jwtExpirationMs))
+                .signWith(signingKey)
                 .compact();
     }
 
-    public String getEmailFromJwtToken(String token) {
-        return Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+    /**
+     * Token carrying what the filter needs to authenticate without loading the user
+     */
+    public String generateJwtToken(User user) {
+        List<String> roles = user.getRoles().stream().map(role -> role.getName()).toList();
+        return Jwts.builder()
+                .subject(user.getEmail())
+                .id(UUID.randomUUID().toString())
+                .claim(CLAIM_USER_ID, user.getId())
+                .claim(CLAIM_ROLES, roles)
+                .claim(CLAIM_STATUS, user.getStatus().name())
+                .claim(CLAIM_STAMP, user.getSecurityStamp())
+                .claim(CLAIM_NAME, user.getFullName())
+                .claim(CLAIM_SITE, user.getProjectSite())
+                .issuedAt(new Date())
+                .expiration(new Date((new Date()).getTime() + jwtExpirationMs))
+                .signWith(signingKey)
+                .compact();
     }
 
-    public boolean validateJwtToken(String authToken) {
+    /**
+     * Verify signature and expiry and return the claims, or null if the token is not valid.
+     * A token seen before is answered from the verified-token cache until it expires.
+     */
+    public Claims verifyJwtToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        verifications.incrementAndGet();
+        long now = System.currentTimeMillis();
+
+        // The HMAC already digests the whole token, so its segment is a ready-made key; the full
+        // token is still compared so a forged payload reusing a signature never hits
+        String key = tokenCacheEnabled ? signatureOf(token) : null;
+        if (key != null) {
+            VerifiedToken cached = verifiedTokens.get(key);
+            if (cached != null && now < cached.expiresAt && cached.token.equals(token)) {
+                cacheHits.incrementAndGet();
+                return cached.claims;
+            }
+        }
+
+        Claims claims;
+        long start = System.nanoTime();
         try {
-            Jwts.parser()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(authToken);
-            return true;
-        } catch (MalformedJwtException e) {
-            logger.error("Invalid JWT token: {}", e.getMessage());
+            claims = parser.parseSignedClaims(token).getPayload();
         } catch (ExpiredJwtException e) {
-            logger.error("JWT token is expired: {}", e.getMessage());
-        } catch (UnsupportedJwtException e) {
-            logger.error("JWT token is unsupported: {}", e.getMessage());
-        } catch (IllegalArgumentException e) {
-            logger.error("JWT claims string is empty: {}", e.getMessage());
+            logger.debug("JWT token is expired: {}", e.getMessage());
+            rejected.incrementAndGet();
+            return null;
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.error("Invalid JWT token: {}", e.getMessage());
+            rejected.incrementAndGet();
+            return null;
+        } finally {
+            parses.incrementAndGet();
+            parseNanos.addAndGet(System.nanoTime() - start);
+        }
+
+        // Tokens without an expiry are verified every time
+        if (key != null && claims.getExpiration() != null) {
+            if (verifiedTokens.size() >= tokenCacheMaxEntries) {
+                evict(now);
+            }
+            verifiedTokens.put(key, new VerifiedToken(token, claims, claims.getExpiration().getTime()));
         }
+        return claims;
+    }
+
+    public boolean validateJwtToken(String authToken) {
+        return verifyJwtToken(authToken) != null;
+    }
 
-        return false;
+    /**
+     * Counters for the auth metrics endpoint
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long parseCount = parses.get();
+        stats.put("cacheEnabled", tokenCacheEnabled);
+        stats.put("cachedTokens", verifiedTokens.size());
+        stats.put("verifications", verifications.get());
+        stats.put("cacheHits", cacheHits.get());
+        stats.put("signatureChecks", parseCount);
+        stats.put("avgSignatureCheckMicros", parseCount == 0 ? 0.0 : parseNanos.get() / 1000.0 / parseCount);
+        stats.put("rejected", rejected.get());
+        return stats;
     }
-}
\ No newline at end of file
+
+    // Helper methods
+
+    private String signatureOf(String token) {
+        int dot = token.lastIndexOf('.');
+        return dot >= 0 && dot < token.length() - 1 ? token.substring(dot + 1) : null;
+    }
+
+    /**
+     * Drop expired tokens; if still full, drop arbitrary ones down to 90% of the limit
+     */
+    private void evict(long now) {
+        verifiedTokens.values().removeIf(verified -> now >= verified.expiresAt);
+        Iterator<String> iterator = verifiedTokens.keySet().iterator();
+        while (verifiedTokens.size() > tokenCacheMaxEntries * 9 / 10 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private record VerifiedToken(String token, Claims claims, long expiresAt) {}
+}
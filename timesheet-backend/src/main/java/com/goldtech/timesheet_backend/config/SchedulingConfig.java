@@ -0,0 +1,10 @@
+// SchedulingConfig.java - Enable background jobs (storage housekeeping etc.)
+package com.goldtech.timesheet_backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,11 +1,13 @@
 // Updated SecurityConfig.java with timesheet endpoints
 package com.goldtech.timesheet_backend.config;
 
+import com.goldtech.timesheet_backend.service.DocumentSignedUrlService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -37,6 +39,12 @@ public class SecurityConfig {
         return new BCryptPasswordEncoder(10);
     }
 
+    @Bean
+    public WebSecurityCustomizer webSecurityCustomizer() {
+        // Signed document URLs carry their own HMAC authorization - skip the security chain entirely
+        return web -> web.ignoring().requestMatchers(DocumentSignedUrlService.SIGNED_PATH_PREFIX + "**");
+    }
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http.cors().and().csrf().disable()
@@ -46,7 +54,7 @@ public class SecurityConfig {
                 .and()
                 .authorizeHttpRequests(authorize -> authorize
                         // Public endpoints
-                        .requestMatchers("/auth/login", "/auth/validate").permitAll()
+                        .requestMatchers("/auth/login", "/auth/refresh", "/auth/logout", "/auth/validate").permitAll()
                         .requestMatchers("/health").permitAll()
                         .requestMatchers("/test/**").permitAll()  // For testing
 
@@ -1,19 +1,34 @@
 //controller/AuthController
 package com.goldtech.timesheet_backend.controller;
 
+import com.goldtech.timesheet_backend.config.JwtUtils;
 import com.goldtech.timesheet_backend.dto.auth.LoginRequest;
 import com.goldtech.timesheet_backend.dto.auth.LoginResponse;
 import com.goldtech.timesheet_backend.dto.auth.LogoutResponse;
+import com.goldtech.timesheet_backend.dto.auth.RefreshTokenRequest;
 import com.goldtech.timesheet_backend.dto.user.UserDto;
 import com.goldtech.timesheet_backend.service.AuthService;
+import com.goldtech.timesheet_backend.service.LoginAdmissionService;
+import com.goldtech.timesheet_backend.service.LoginAuditService;
+import com.goldtech.timesheet_backend.service.RefreshTokenService;
+import com.goldtech.timesheet_backend.service.SecurityStampService;
+import com.goldtech.timesheet_backend.service.TokenRevocationService;
+import com.goldtech.timesheet_backend.service.UserPrincipalCache;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/auth")
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"}, allowCredentials = "true")
@@ -24,32 +39,80 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private UserPrincipalCache principalCache;
+
+    @Autowired
+    private SecurityStampService stampService;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private TokenRevocationService revocationService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private LoginAdmissionService loginAdmission;
+
+    @Autowired
+    private LoginAuditService loginAuditService;
+
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<LoginResponse>> login(@Valid @RequestBody LoginRequest loginRequest,
+                                                                  HttpServletRequest request) {
         logger.debug("Login request received for: {}", loginRequest.getEmail());
 
-        LoginResponse response = authService.login(loginRequest);
-
-        if (response.isSuccess()) {
-            return ResponseEntity.ok(response);
-        } else {
-            return ResponseEntity.badRequest().body(response);
+        // Read on the request thread; the login itself runs on the bounded login pool
+        String clientIp = request.getRemoteAddr();
+        String userAgent = request.getHeader(HttpHeaders.USER_AGENT);
+        try {
+            return loginAdmission.submit(loginRequest.getEmail(), clientIp,
+                    () -> authService.login(loginRequest, clientIp, userAgent))
+                    .thenApply(response -> {
+                        if (response.isSuccess()) {
+                            return ResponseEntity.ok(response);
+                        } else {
+                            return ResponseEntity.badRequest().body(response);
+                        }
+                    });
+        } catch (LoginAdmissionService.LoginRejectedException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(LoginResponse.failure(e.getMessage())));
         }
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<LogoutResponse> logout(HttpServletRequest request) {
+    public ResponseEntity<LogoutResponse> logout(HttpServletRequest request,
+                                                 @RequestBody(required = false) RefreshTokenRequest body) {
         String token = extractTokenFromRequest(request);
+        String refreshToken = body != null ? body.getRefreshToken() : null;
 
-        if (token != null && authService.validateToken(token)) {
-            String email = authService.getEmailFromToken(token);
-            LogoutResponse response = authService.logout(email);
+        if (token != null || refreshToken != null) {
+            LogoutResponse response = authService.logout(token, refreshToken);
             return ResponseEntity.ok(response);
         }
 
         return ResponseEntity.ok(LogoutResponse.success());
     }
 
+    /**
+     * Renew an access token with a refresh token; the refresh token is rotated on every use
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<LoginResponse> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        LoginResponse response = authService.refresh(request.getRefreshToken());
+
+        if (response.isSuccess()) {
+            return ResponseEntity.ok(response);
+        } else {
+            return ResponseEntity.status(401).body(response);
+        }
+    }
+
     @GetMapping("/me")
     public ResponseEntity<?> getCurrentUser(HttpServletRequest request) {
         String token = extractTokenFromRequest(request);
@@ -92,6 +155,24 @@ public class AuthController {
         }
     }
 
+    /**
+     * Authentication performance counters (caches, revocation, refresh tokens, login pool)
+     */
+    @GetMapping("/metrics")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("principalCache", principalCache.getStats());
+        response.put("securityStamps", stampService.getStats());
+        response.put("tokenVerification", jwtUtils.getStats());
+        response.put("revocation", revocationService.getStats());
+        response.put("refreshTokens", refreshTokenService.getStats());
+        response.put("login", loginAdmission.getStats());
+        response.put("loginAudit", loginAuditService.getStats());
+        return ResponseEntity.ok(response);
+    }
+
     private String extractTokenFromRequest(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
@@ -1,22 +1,50 @@
 // DocumentController.java - For testing document uploads
 package com.goldtech.timesheet_backend.controller;
 
+import com.goldtech.timesheet_backend.entity.DayEntry;
 import com.goldtech.timesheet_backend.entity.DayEntryDocument;
+import com.goldtech.timesheet_backend.entity.StorageUsage;
+import com.goldtech.timesheet_backend.entity.User;
 import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository;
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository.DocumentExportRow;
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository.DocumentMetadataRow;
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository.DocumentSigningRow;
+import com.goldtech.timesheet_backend.repository.DayEntryRepository;
+import com.goldtech.timesheet_backend.repository.UserRepository;
+import com.goldtech.timesheet_backend.service.DocumentContentCache;
+import com.goldtech.timesheet_backend.service.DocumentExportService;
+import com.goldtech.timesheet_backend.service.DocumentImageService;
+import com.goldtech.timesheet_backend.service.DocumentPrefetchService;
+import com.goldtech.timesheet_backend.service.DocumentReconciliationService;
+import com.goldtech.timesheet_backend.service.DocumentSignedUrlService;
+import com.goldtech.timesheet_backend.service.DocumentTieringService;
+import com.goldtech.timesheet_backend.service.DocumentValidationService;
 import com.goldtech.timesheet_backend.service.DocumentStorageService;
+import com.goldtech.timesheet_backend.service.DurableFileWriter;
+import com.goldtech.timesheet_backend.service.StorageUsageService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
 
 @RestController
 @RequestMapping("/documents")
@@ -31,6 +59,42 @@ public class DocumentController {
     @Autowired
     private DocumentStorageService documentStorageService;
 
+    @Autowired
+    private DocumentReconciliationService reconciliationService;
+
+    @Autowired
+    private DocumentExportService documentExportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DayEntryRepository dayEntryRepository;
+
+    @Autowired
+    private DurableFileWriter durableFileWriter;
+
+    @Autowired
+    private DocumentSignedUrlService signedUrlService;
+
+    @Autowired
+    private DocumentContentCache contentCache;
+
+    @Autowired
+    private DocumentPrefetchService documentPrefetchService;
+
+    @Autowired
+    private DocumentTieringService tieringService;
+
+    @Autowired
+    private StorageUsageService storageUsageService;
+
+    @Autowired
+    private DocumentValidationService validationService;
+
+    @Autowired
+    private DocumentImageService imageService;
+
     /**
      * Download a document by ID
      */
@@ -71,6 +135,107 @@ public class DocumentController {
         }
     }
 
+    /**
+     * Issue a short-lived signed URL for a document (streamed without JWT or database work)
+     */
+    @GetMapping("/{documentId}/signed-url")
+    public ResponseEntity<?> getSignedUrl(
+            @PathVariable Long documentId,
+            Authentication authentication
+    ) {
+        try {
+            Map<Long, Map<String, Object>> urls = buildSignedUrls(List.of(documentId), authentication);
+            if (!urls.containsKey(documentId)) {
+                return ResponseEntity.notFound().build();
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", urls.get(documentId));
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("Error issuing signed URL for document: {}", documentId, e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to issue signed URL: " + e.getMessage());
+            return ResponseEntity.status(500).body(errorResponse);
+        }
+    }
+
+    /**
+     * Small JPEG preview of an image document (404 until it has been processed)
+     */
+    @GetMapping("/{documentId}/thumbnail")
+    public ResponseEntity<?> getThumbnail(
+            @PathVariable Long documentId,
+            Authentication authentication
+    ) {
+        try {
+            User requester = (User) authentication.getPrincipal();
+            boolean isAdmin = authentication.getAuthorities().stream()
+                    .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+
+            // Owners, their supervisor and admins may view a document
+            boolean allowed = signedUrlService.findSigningRows(List.of(documentId)).stream()
+                    .anyMatch(row -> isAdmin || requester.getId().equals(row.getUserId())
+                            || requester.getId().equals(row.getSupervisorId()));
+            Optional<DayEntryDocument> documentOpt = documentRepository.findById(documentId);
+            if (!allowed || documentOpt.isEmpty() || documentOpt.get().getThumbnailPath() == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            Path thumbnailPath = Paths.get(documentOpt.get().getThumbnailPath());
+            if (!Files.isRegularFile(thumbnailPath)) {
+                return ResponseEntity.notFound().build();
+            }
+
+            return ResponseEntity.ok()
+                    .contentType(MediaType.IMAGE_JPEG)
+                    .cacheControl(CacheControl.maxAge(Duration.ofDays(1)).cachePrivate())
+                    .body(contentCache.read(thumbnailPath));
+
+        } catch (Exception e) {
+            logger.error("Error getting thumbnail for document: {}", documentId, e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to get thumbnail: " + e.getMessage());
+            return ResponseEntity.status(500).body(errorResponse);
+        }
+    }
+
+    /**
+     * Issue signed URLs for many documents at once (approval screens, thumbnails).
+     * Body: {"documentIds": [1, 2, 3]}. Documents the caller may not view are left out.
+     */
+    @PostMapping("/signed-urls")
+    public ResponseEntity<?> getSignedUrls(
+            @RequestBody Map<String, List<Long>> request,
+            Authentication authentication
+    ) {
+        List<Long> documentIds = request.get("documentIds");
+        if (documentIds == null || documentIds.isEmpty() || documentIds.size() > 500) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "documentIds must contain between 1 and 500 ids");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", buildSignedUrls(documentIds, authentication));
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("Error issuing signed URLs for {} documents", documentIds.size(), e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to issue signed URLs: " + e.getMessage());
+            return ResponseEntity.status(500).body(errorResponse);
+        }
+    }
+
     /**
      * Get document metadata by ID
      */
@@ -147,6 +312,204 @@ public class DocumentController {
         }
     }
 
+    /**
+     * List document metadata for a whole month grouped by date (one query instead of one call per entry).
+     * Linked days list their primary day's documents, as in the timesheet view.
+     * Supports If-None-Match; defaults to the current user, supervisors/admins may pass userId.
+     */
+    @GetMapping("/month/{year}/{month}")
+    public ResponseEntity<?> getDocumentsByMonth(
+            @PathVariable Integer year,
+            @PathVariable Integer month,
+            @RequestParam(required = false) Long userId,
+            WebRequest webRequest,
+            Authentication authentication
+    ) {
+        try {
+            User requester = (User) authentication.getPrincipal();
+            Long targetUserId = userId != null ? userId : requester.getId();
+
+            if (!targetUserId.equals(requester.getId()) && !canViewUserDocuments(requester, targetUserId, authentication)) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("success", false);
+                errorResponse.put("message", "You are not authorized to view these documents");
+                return ResponseEntity.status(403).body(errorResponse);
+            }
+
+            LocalDate start = DocumentExportService.monthStart(year, month);
+            Map<LocalDate, List<DocumentMetadataRow>> byDate = loadMonthDocuments(targetUserId, start);
+
+            String etag = buildMonthEtag(targetUserId, year, month, byDate);
+            if (webRequest.checkNotModified(etag)) {
+                return null; // 304 with the ETag already written
+            }
+
+            Map<String, List<Map<String, Object>>> data = new LinkedHashMap<>();
+            byDate.forEach((date, rows) -> {
+                List<Map<String, Object>> documents = new ArrayList<>(rows.size());
+                for (DocumentMetadataRow row : rows) {
+                    Map<String, Object> map = new LinkedHashMap<>();
+                    map.put("id", row.getId());
+                    map.put("name", row.getOriginalFilename());
+                    map.put("type", row.getMimeType());
+                    map.put("size", row.getFileSize());
+                    documents.add(map);
+                }
+                data.put(date.toString(), documents);
+            });
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", data);
+
+            return ResponseEntity.ok().eTag(etag).body(response);
+
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        } catch (Exception e) {
+            logger.error("Error getting documents for {}/{}", year, month, e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to get documents: " + e.getMessage());
+            return ResponseEntity.status(500).body(errorResponse);
+        }
+    }
+
+    /**
+     * Export all supporting documents for a month as a streamed ZIP.
+     * Defaults to the supervisor's team; pass projectSite to export a whole site.
+     */
+    @GetMapping("/export/{year}/{month}")
+    @PreAuthorize("hasRole('SUPERVISOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> exportMonthDocuments(
+            @PathVariable Integer year,
+            @PathVariable Integer month,
+            @RequestParam(required = false) String projectSite,
+            Authentication authentication
+    ) {
+        try {
+            User requester = (User) authentication.getPrincipal();
+            boolean isAdmin = authentication.getAuthorities().stream()
+                    .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+
+            List<DocumentExportRow> rows;
+            String scope;
+            if (projectSite != null && !projectSite.isBlank()) {
+                // Supervisors may only export their own project site
+                if (!isAdmin && !projectSite.equals(requester.getProjectSite())) {
+                    Map<String, Object> errorResponse = new HashMap<>();
+                    errorResponse.put("success", false);
+                    errorResponse.put("message", "You are not authorized to export documents for this project site");
+                    return ResponseEntity.status(403).body(errorResponse);
+                }
+                rows = documentExportService.getProjectSiteExportRows(projectSite, year, month);
+                scope = projectSite;
+            } else {
+                rows = documentExportService.getTeamExportRows(requester.getId(), year, month);
+                scope = "team";
+            }
+
+            logger.info("Exporting {} documents for {} - {}/{} requested by {}",
+                    rows.size(), scope, year, month, requester.getEmail());
+
+            String filename = String.format("documents_%s_%d-%02d.zip", scope.replaceAll("[^A-Za-z0-9_-]", "_"), year, month);
+            StreamingResponseBody body = outputStream -> documentExportService.writeArchive(rows, outputStream);
+
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                    .contentType(MediaType.parseMediaType("application/zip"))
+                    .body(body);
+
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        } catch (Exception e) {
+            logger.error("Error exporting documents for {}/{}", year, month, e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to export documents: " + e.getMessage());
+            return ResponseEntity.status(500).body(errorResponse);
+        }
+    }
+
+    /**
+     * Storage usage counters of one scope (USER, SITE, MONTH or USER_MONTH), largest first
+     */
+    @GetMapping("/usage")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getStorageUsage(@RequestParam(defaultValue = "SITE") String scope) {
+        try {
+            StorageUsage.Scope usageScope = StorageUsage.Scope.valueOf(scope.toUpperCase());
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("scope", usageScope);
+            response.put("data", storageUsageService.getUsage(usageScope));
+            response.put("totals", storageUsageService.getTotals());
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Invalid scope: " + scope);
+            return ResponseEntity.badRequest().body(errorResponse);
+        } catch (Exception e) {
+            logger.error("Error getting storage usage", e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to get storage usage: " + e.getMessage());
+            return ResponseEntity.status(500).body(errorResponse);
+        }
+    }
+
+    /**
+     * A user's storage usage, in total and per month
+     */
+    @GetMapping("/usage/users/{userId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getUserStorageUsage(@PathVariable Long userId) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", storageUsageService.getUserUsage(userId));
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("Error getting storage usage for user {}", userId, e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to get storage usage: " + e.getMessage());
+            return ResponseEntity.status(500).body(errorResponse);
+        }
+    }
+
+    /**
+     * Recompute the usage counters from the document table
+     */
+    @PostMapping("/usage/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> rebuildStorageUsage() {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", storageUsageService.rebuild());
+            response.put("message", "Storage usage rebuilt");
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("Error rebuilding storage usage", e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Failed to rebuild storage usage: " + e.getMessage());
+            return ResponseEntity.status(500).body(errorResponse);
+        }
+    }
+
     /**
      * Test endpoint to check document storage status
      */
@@ -158,6 +521,14 @@ public class DocumentController {
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("totalDocuments", totalDocuments);
+            response.put("reconciliation", reconciliationService.getStatus());
+            response.put("durableWrites", durableFileWriter.getStats());
+            response.put("contentCache", contentCache.getStats());
+            response.put("prefetch", documentPrefetchService.getStats());
+            response.put("tiering", tieringService.getStats());
+            response.put("usage", storageUsageService.getTotals());
+            response.put("validation", validationService.getStats());
+            response.put("images", imageService.getStats());
             response.put("message", "Document storage is working");
 
             return ResponseEntity.ok(response);
@@ -170,4 +541,109 @@ public class DocumentController {
             return ResponseEntity.status(500).body(errorResponse);
         }
     }
-}
\ No newline at end of file
+
+    // Helper methods
+
+    private Map<Long, Map<String, Object>> buildSignedUrls(List<Long> documentIds, Authentication authentication)
+            throws IOException {
+        User requester = (User) authentication.getPrincipal();
+        boolean isAdmin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+
+        // Owners, their supervisor and admins may view a document
+        List<DocumentSigningRow> allowed = signedUrlService.findSigningRows(documentIds).stream()
+                .filter(row -> isAdmin || requester.getId().equals(row.getUserId())
+                        || requester.getId().equals(row.getSupervisorId()))
+                .toList();
+
+        String baseUrl = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path(DocumentSignedUrlService.SIGNED_PATH_PREFIX).toUriString();
+
+        Map<Long, Map<String, Object>> urls = new LinkedHashMap<>();
+        signedUrlService.sign(allowed).forEach((id, signed) -> {
+            Map<String, Object> map = new HashMap<>();
+            map.put("url", baseUrl + signed.getToken());
+            map.put("expiresAt", signed.getExpiresAt());
+            urls.put(id, map);
+        });
+        return urls;
+    }
+
+    private boolean canViewUserDocuments(User requester, Long targetUserId, Authentication authentication) {
+        boolean isAdmin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        if (isAdmin) {
+            return true;
+        }
+
+        return userRepository.findById(targetUserId)
+                .map(target -> target.getSupervisor() != null && target.getSupervisor().getId().equals(requester.getId()))
+                .orElse(false);
+    }
+
+    /**
+     * Documents listed per day of the month: a linked day shows its primary day's documents,
+     * falling back to its own (older entries stored copies)
+     */
+    private Map<LocalDate, List<DocumentMetadataRow>> loadMonthDocuments(Long userId, LocalDate start) {
+        LocalDate end = start.plusMonths(1).minusDays(1);
+        Map<LocalDate, List<DocumentMetadataRow>> own = new HashMap<>();
+        for (DocumentMetadataRow row : documentRepository.findMetadataByUserIdAndDateBetween(userId, start, end)) {
+            own.computeIfAbsent(row.getEntryDate(), date -> new ArrayList<>()).add(row);
+        }
+
+        Map<LocalDate, LocalDate> primaryDays = new HashMap<>();
+        for (DayEntry entry : dayEntryRepository.findByUserIdAndDateBetween(userId, start, end)) {
+            if (entry.isLinkedDocumentEntry()) {
+                primaryDays.put(entry.getDate(), entry.getPrimaryDocumentDay());
+            }
+        }
+        Set<LocalDate> outside = new HashSet<>();
+        for (LocalDate primaryDay : primaryDays.values()) {
+            if (primaryDay.isBefore(start) || primaryDay.isAfter(end)) {
+                outside.add(primaryDay);
+            }
+        }
+        if (!outside.isEmpty()) {
+            for (DocumentMetadataRow row : documentRepository.findMetadataByUserIdAndEntryDateIn(userId, outside)) {
+                own.computeIfAbsent(row.getEntryDate(), date -> new ArrayList<>()).add(row);
+            }
+        }
+
+        Map<LocalDate, List<DocumentMetadataRow>> byDate = new LinkedHashMap<>();
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            List<DocumentMetadataRow> rows = null;
+            LocalDate primaryDay = primaryDays.get(date);
+            if (primaryDay != null) {
+                rows = own.get(primaryDay);
+            }
+            if (rows == null) {
+                rows = own.get(date);
+            }
+            if (rows != null) {
+                byDate.put(date, rows);
+            }
+        }
+        return byDate;
+    }
+
+    // Covers everything the listing shows plus the stored content, so a replaced or reprocessed file changes it
+    private String buildMonthEtag(Long userId, int year, int month,
+                                  Map<LocalDate, List<DocumentMetadataRow>> byDate) throws Exception {
+        StringBuilder key = new StringBuilder().append(userId).append(':').append(year).append('-').append(month);
+        byDate.forEach((date, rows) -> {
+            key.append('\n').append(date);
+            for (DocumentMetadataRow row : rows) {
+                key.append('|').append(row.getId())
+                        .append(':').append(row.getContentHash())
+                        .append(':').append(row.getFileSize())
+                        .append(':').append(row.getFilePath())
+                        .append(':').append(row.getOriginalFilename())
+                        .append(':').append(row.getMimeType());
+            }
+        });
+
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.toString().getBytes(StandardCharsets.UTF_8));
+        return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+    }
+}
@@ -0,0 +1,178 @@
+// DocumentUploadController.java - Resumable chunked uploads for large supporting documents
+package com.goldtech.timesheet_backend.controller;
+
+import com.goldtech.timesheet_backend.entity.User;
+import com.goldtech.timesheet_backend.service.ChunkedUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Protocol: POST to initiate, PUT chunks with ?offset= and an X-Chunk-Checksum (SHA-256 hex) header,
+ * GET to query the offset to resume from, POST /complete when done. The returned uploadId is then
+ * sent as supportingDocuments[].uploadId when saving the day entry.
+ */
+@RestController
+@RequestMapping("/documents/uploads")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"}, allowCredentials = "true")
+public class DocumentUploadController {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentUploadController.class);
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    /**
+     * Initiate a chunked upload
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> initiateUpload(
+            @RequestBody Map<String, Object> request,
+            Authentication authentication
+    ) {
+        try {
+            User user = (User) authentication.getPrincipal();
+            String name = (String) request.get("name");
+            String type = (String) request.get("type");
+            Long size = request.get("size") != null ? Long.valueOf(request.get("size").toString()) : null;
+            String sha256 = (String) request.get("sha256");
+
+            ChunkedUploadService.UploadStatus status = chunkedUploadService.initiate(user, name, type, size, sha256);
+            return ResponseEntity.ok(createSuccessResponse(status, "Upload initiated"));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage(), null));
+        } catch (Exception e) {
+            logger.error("Error initiating upload", e);
+            return ResponseEntity.status(500).body(createErrorResponse("Failed to initiate upload: " + e.getMessage(), null));
+        }
+    }
+
+    /**
+     * Upload one chunk at the given offset (raw request body)
+     */
+    @PutMapping("/{uploadId}")
+    public ResponseEntity<Map<String, Object>> uploadChunk(
+            @PathVariable String uploadId,
+            @RequestParam long offset,
+            @RequestHeader(value = "X-Chunk-Checksum", required = false) String checksum,
+            HttpServletRequest request,
+            Authentication authentication
+    ) {
+        User user = (User) authentication.getPrincipal();
+        try {
+            ChunkedUploadService.UploadStatus status = chunkedUploadService.appendChunk(
+                    user.getId(), uploadId, offset, checksum, request.getInputStream());
+            return ResponseEntity.ok(createSuccessResponse(status, "Chunk stored"));
+
+        } catch (IllegalStateException e) {
+            // Tell the client where to resume from
+            return ResponseEntity.status(409).body(createErrorResponse(e.getMessage(), currentStatus(user, uploadId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage(), null));
+        } catch (Exception e) {
+            logger.error("Error storing chunk for upload {}", uploadId, e);
+            return ResponseEntity.status(500).body(createErrorResponse("Failed to store chunk: " + e.getMessage(), null));
+        }
+    }
+
+    /**
+     * Query upload status (offset to resume from)
+     */
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<Map<String, Object>> getUploadStatus(
+            @PathVariable String uploadId,
+            Authentication authentication
+    ) {
+        try {
+            User user = (User) authentication.getPrincipal();
+            return ResponseEntity.ok(createSuccessResponse(
+                    chunkedUploadService.getStatus(user.getId(), uploadId), "Upload status retrieved"));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(404).body(createErrorResponse(e.getMessage(), null));
+        } catch (Exception e) {
+            logger.error("Error getting status for upload {}", uploadId, e);
+            return ResponseEntity.status(500).body(createErrorResponse("Failed to get upload status: " + e.getMessage(), null));
+        }
+    }
+
+    /**
+     * Complete an upload once all bytes have been received
+     */
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<Map<String, Object>> completeUpload(
+            @PathVariable String uploadId,
+            Authentication authentication
+    ) {
+        User user = (User) authentication.getPrincipal();
+        try {
+            return ResponseEntity.ok(createSuccessResponse(
+                    chunkedUploadService.complete(user.getId(), uploadId), "Upload completed"));
+
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(createErrorResponse(e.getMessage(), currentStatus(user, uploadId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage(), null));
+        } catch (Exception e) {
+            logger.error("Error completing upload {}", uploadId, e);
+            return ResponseEntity.status(500).body(createErrorResponse("Failed to complete upload: " + e.getMessage(), null));
+        }
+    }
+
+    /**
+     * Abort an upload and discard received chunks
+     */
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Map<String, Object>> abortUpload(
+            @PathVariable String uploadId,
+            Authentication authentication
+    ) {
+        try {
+            User user = (User) authentication.getPrincipal();
+            chunkedUploadService.abort(user.getId(), uploadId);
+            return ResponseEntity.ok(createSuccessResponse(null, "Upload aborted"));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(404).body(createErrorResponse(e.getMessage(), null));
+        } catch (Exception e) {
+            logger.error("Error aborting upload {}", uploadId, e);
+            return ResponseEntity.status(500).body(createErrorResponse("Failed to abort upload: " + e.getMessage(), null));
+        }
+    }
+
+    // Helper methods for response formatting
+
+    private ChunkedUploadService.UploadStatus currentStatus(User user, String uploadId) {
+        try {
+            return chunkedUploadService.getStatus(user.getId(), uploadId);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private Map<String, Object> createSuccessResponse(Object data, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", message);
+        response.put("data", data);
+        response.put("timestamp", java.time.Instant.now().toString());
+        return response;
+    }
+
+    private Map<String, Object> createErrorResponse(String message, Object data) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        response.put("data", data);
+        response.put("timestamp", java.time.Instant.now().toString());
+        return response;
+    }
+}
@@ -0,0 +1,87 @@
+// SignedDocumentController.java - Serve documents from signed URLs (no JWT, no database)
+package com.goldtech.timesheet_backend.controller;
+
+import com.goldtech.timesheet_backend.service.DocumentContentCache;
+import com.goldtech.timesheet_backend.service.DocumentSignedUrlService;
+import com.goldtech.timesheet_backend.service.DocumentSignedUrlService.VerifiedDocument;
+import com.goldtech.timesheet_backend.service.DocumentValidationService;
+import com.goldtech.timesheet_backend.service.DocumentValidationService.DetectedType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Excluded from the security filter chain: the HMAC in the token is the authorization.
+ * Resource responses support Range requests; large files are streamed by the container.
+ */
+@RestController
+@RequestMapping(DocumentSignedUrlService.SIGNED_PATH_PREFIX)
+public class SignedDocumentController {
+
+    @Autowired
+    private DocumentSignedUrlService signedUrlService;
+
+    @Autowired
+    private DocumentContentCache contentCache;
+
+    @Autowired
+    private DocumentValidationService validationService;
+
+    @GetMapping("/{token}")
+    public ResponseEntity<Resource> getSignedDocument(
+            @PathVariable String token,
+            WebRequest webRequest
+    ) throws IOException {
+        VerifiedDocument document = signedUrlService.verify(token);
+        if (document == null) {
+            return ResponseEntity.status(403).build();
+        }
+
+        // The content hash is signed, so it doubles as a strong validator
+        String etag = "\"" + document.getContentHash() + "\"";
+        CacheControl cacheControl = CacheControl
+                .maxAge(Duration.ofSeconds(Math.max(0, document.getExpiresAt() - Instant.now().getEpochSecond())))
+                .cachePrivate();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+
+        if (!Files.isRegularFile(document.getFilePath())) {
+            return ResponseEntity.notFound().build();
+        }
+
+        // Small files come from the shared byte cache, larger ones are streamed from disk
+        Resource body = contentCache.admits(Files.size(document.getFilePath()))
+                ? new ByteArrayResource(contentCache.read(document.getFilePath()))
+                : new FileSystemResource(document.getFilePath());
+
+        // Only types upload validation recognises are rendered inline; anything else is a download
+        DetectedType type = validationService.forMimeType(document.getMimeType());
+        ContentDisposition.Builder disposition = type != null ? ContentDisposition.inline() : ContentDisposition.attachment();
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(type != null ? MediaType.parseMediaType(type.getMimeType()) : MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition
+                        .filename(document.getFilename(), StandardCharsets.UTF_8)
+                        .build().toString())
+                .header("X-Content-Type-Options", "nosniff")
+                .body(body);
+    }
+}
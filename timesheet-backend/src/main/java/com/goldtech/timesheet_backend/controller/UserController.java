@@ -5,6 +5,9 @@ import com.goldtech.timesheet_backend.dto.user.CreateUserRequest;
 import com.goldtech.timesheet_backend.dto.user.UpdateUserRequest;
 import com.goldtech.timesheet_backend.dto.user.UserDto;
 import com.goldtech.timesheet_backend.dto.user.UserResponse;
+import com.goldtech.timesheet_backend.service.UserFilterOptionsService;
+import com.goldtech.timesheet_backend.service.UserFilterOptionsService.FilterOptions;
+import com.goldtech.timesheet_backend.service.UserSearchIndex;
 import com.goldtech.timesheet_backend.service.UserService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
@@ -14,9 +17,12 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -31,7 +37,13 @@ public class UserController {
     @Autowired
     private UserService userService;
 
-    // Get all users with pagination and filtering
+    @Autowired
+    private UserSearchIndex searchIndex;
+
+    @Autowired
+    private UserFilterOptionsService filterOptionsService;
+
+    // Get all users with pagination and filtering (sortBy=relevance ranks search matches by relevance)
     @GetMapping
     @PreAuthorize("hasRole('ADMIN') or hasRole('SUPERVISOR')")
     public ResponseEntity<UserResponse> getAllUsers(
@@ -226,6 +238,19 @@ public class UserController {
         }
     }
 
+    // Search index statistics
+    @GetMapping("/search-index")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UserResponse> getSearchIndexStats() {
+        try {
+            return ResponseEntity.ok(UserResponse.success(searchIndex.getStats()));
+        } catch (Exception e) {
+            logger.error("Error getting search index stats", e);
+            return ResponseEntity.status(500)
+                    .body(UserResponse.error("Failed to retrieve search index statistics: " + e.getMessage()));
+        }
+    }
+
     // Bulk update users
     @PatchMapping("/bulk")
     @PreAuthorize("hasRole('ADMIN')")
@@ -277,6 +302,28 @@ public class UserController {
 
     // ========== HIERARCHICAL FILTER ENDPOINTS ==========
 
+    // Get all filter options as one site -> department -> position -> role tree with user counts
+    @GetMapping("/filter-options")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('SUPERVISOR')")
+    public ResponseEntity<UserResponse> getFilterOptions(WebRequest webRequest) {
+        try {
+            FilterOptions options = filterOptionsService.getFilterOptions();
+            // Cached by the client, but revalidated on every use
+            CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+            if (webRequest.checkNotModified(options.etag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(options.etag()).cacheControl(cacheControl).build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(options.etag())
+                    .cacheControl(cacheControl)
+                    .body(UserResponse.success(options.tree()));
+        } catch (Exception e) {
+            logger.error("Error getting filter options", e);
+            return ResponseEntity.status(500)
+                    .body(UserResponse.error("Failed to retrieve filter options: " + e.getMessage()));
+        }
+    }
+
     // Get all project sites
     @GetMapping("/filter-options/project-sites")
     @PreAuthorize("hasRole('ADMIN') or hasRole('SUPERVISOR')")
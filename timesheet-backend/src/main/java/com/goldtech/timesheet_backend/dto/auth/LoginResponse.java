@@ -9,6 +9,7 @@ public class LoginResponse {
     private boolean success;
     private String message;
     private String token;
+    private String refreshToken;
     private UserDto user;
 
     // Constructors
@@ -31,6 +32,12 @@ public class LoginResponse {
         return new LoginResponse(true, "Login successful", token, user);
     }
 
+    public static LoginResponse success(String token, String refreshToken, UserDto user) {
+        LoginResponse response = new LoginResponse(true, "Login successful", token, user);
+        response.setRefreshToken(refreshToken);
+        return response;
+    }
+
     public static LoginResponse failure(String message) {
         return new LoginResponse(false, message);
     }
@@ -60,6 +67,14 @@ public class LoginResponse {
         this.token = token;
     }
 
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+
     public UserDto getUser() {
         return user;
     }
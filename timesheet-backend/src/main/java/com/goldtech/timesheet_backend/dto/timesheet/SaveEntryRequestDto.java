@@ -62,6 +62,7 @@ public class SaveEntryRequestDto {
         private String type;
         private Long size;
         private String base64Data; // Base64 encoded file content
+        private String uploadId;   // Completed chunked upload (alternative to base64Data)
 
         public SupportingDocumentDto() {}
 
@@ -76,5 +77,8 @@ public class SaveEntryRequestDto {
 
         public String getBase64Data() { return base64Data; }
         public void setBase64Data(String base64Data) { this.base64Data = base64Data; }
+
+        public String getUploadId() { return uploadId; }
+        public void setUploadId(String uploadId) { this.uploadId = uploadId; }
     }
 }
\ No newline at end of file
@@ -142,4 +142,14 @@ public class DayEntry {
 
     public List<DayEntryDocument> getDocuments() { return documents; }
     public void setDocuments(List<DayEntryDocument> documents) { this.documents = documents; }
+
+    /**
+     * Whether this entry references another day's documents instead of owning its own
+     * (e.g. days 2-5 of a medical leave pointing at day 1's certificate)
+     */
+    public boolean isLinkedDocumentEntry() {
+        return primaryDocumentDay != null
+                && !primaryDocumentDay.equals(date)
+                && !Boolean.TRUE.equals(isPrimaryDocument);
+    }
 }
\ No newline at end of file
@@ -8,7 +8,10 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "day_entry_documents")
+@Table(name = "day_entry_documents", indexes = {
+        @Index(name = "idx_day_entry_documents_day_entry", columnList = "day_entry_id"),
+        @Index(name = "idx_day_entry_documents_file_path", columnList = "file_path")
+})
 public class DayEntryDocument {
 
     @Id
@@ -34,6 +37,18 @@ public class DayEntryDocument {
     @Column(name = "file_size", nullable = false)
     private Long fileSize;
 
+    @Column(name = "content_hash", length = 64)
+    private String contentHash; // SHA-256 hex of the stored file
+
+    @Column(name = "thumbnail_path", length = 500)
+    private String thumbnailPath; // Small JPEG preview (images only)
+
+    @Column(name = "original_path", length = 500)
+    private String originalPath; // Unprocessed upload, kept only when app.upload.images.keep-original is set
+
+    @Column(name = "image_processed_at")
+    private LocalDateTime imageProcessedAt;
+
     @CreationTimestamp
     @Column(name = "uploaded_at", nullable = false, updatable = false)
     private LocalDateTime uploadedAt;
@@ -63,6 +78,18 @@ public class DayEntryDocument {
     public Long getFileSize() { return fileSize; }
     public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
 
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public String getThumbnailPath() { return thumbnailPath; }
+    public void setThumbnailPath(String thumbnailPath) { this.thumbnailPath = thumbnailPath; }
+
+    public String getOriginalPath() { return originalPath; }
+    public void setOriginalPath(String originalPath) { this.originalPath = originalPath; }
+
+    public LocalDateTime getImageProcessedAt() { return imageProcessedAt; }
+    public void setImageProcessedAt(LocalDateTime imageProcessedAt) { this.imageProcessedAt = imageProcessedAt; }
+
     public LocalDateTime getUploadedAt() { return uploadedAt; }
     public void setUploadedAt(LocalDateTime uploadedAt) { this.uploadedAt = uploadedAt; }
 }
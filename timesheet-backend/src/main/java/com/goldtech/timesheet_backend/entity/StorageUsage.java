@@ -0,0 +1,70 @@
+// Storage Usage Entity - running byte/file counters for stored documents
+// src/main/java/com/goldtech/timesheet_backend/entity/StorageUsage.java
+package com.goldtech.timesheet_backend.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "storage_usage", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_storage_usage_scope_key", columnNames = {"scope", "scope_key"})
+})
+public class StorageUsage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "scope", nullable = false, length = 20)
+    private Scope scope;
+
+    // USER: user id, SITE: project site, MONTH: yyyy-MM, USER_MONTH: {userId}:yyyy-MM
+    @Column(name = "scope_key", nullable = false, length = 150)
+    private String scopeKey;
+
+    @Column(name = "file_count", nullable = false)
+    private Long fileCount = 0L;
+
+    @Column(name = "total_bytes", nullable = false)
+    private Long totalBytes = 0L;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum Scope {
+        USER, SITE, MONTH, USER_MONTH
+    }
+
+    // Constructors
+    public StorageUsage() {}
+
+    public StorageUsage(Scope scope, String scopeKey, Long fileCount, Long totalBytes) {
+        this.scope = scope;
+        this.scopeKey = scopeKey;
+        this.fileCount = fileCount;
+        this.totalBytes = totalBytes;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Scope getScope() { return scope; }
+    public void setScope(Scope scope) { this.scope = scope; }
+
+    public String getScopeKey() { return scopeKey; }
+    public void setScopeKey(String scopeKey) { this.scopeKey = scopeKey; }
+
+    public Long getFileCount() { return fileCount; }
+    public void setFileCount(Long fileCount) { this.fileCount = fileCount; }
+
+    public Long getTotalBytes() { return totalBytes; }
+    public void setTotalBytes(Long totalBytes) { this.totalBytes = totalBytes; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
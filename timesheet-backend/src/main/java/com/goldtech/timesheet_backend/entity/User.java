@@ -60,10 +60,21 @@ public class User {
     @Column(name = "status", nullable = false)
     private UserStatus status = UserStatus.ACTIVE;
 
-    // Login tracking
-    @Column(name = "last_login_at")
+    // Login tracking: written only by LoginAuditService's batched update, never by entity saves
+    // (a user loaded before a login and saved after it would otherwise put back the older values)
+    @Column(name = "last_login_at", insertable = false, updatable = false)
     private LocalDateTime lastLoginAt;
 
+    @Column(name = "last_login_ip", length = 45, insertable = false, updatable = false)
+    private String lastLoginIp;
+
+    @Column(name = "last_login_user_agent", insertable = false, updatable = false)
+    private String lastLoginUserAgent;
+
+    // Changes whenever status, roles, password or profile change; embedded in issued tokens
+    @Column(name = "security_stamp", length = 36)
+    private String securityStamp;
+
     // Audit
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
@@ -209,6 +220,30 @@ public class User {
         this.lastLoginAt = lastLoginAt;
     }
 
+    public String getLastLoginIp() {
+        return lastLoginIp;
+    }
+
+    public void setLastLoginIp(String lastLoginIp) {
+        this.lastLoginIp = lastLoginIp;
+    }
+
+    public String getLastLoginUserAgent() {
+        return lastLoginUserAgent;
+    }
+
+    public void setLastLoginUserAgent(String lastLoginUserAgent) {
+        this.lastLoginUserAgent = lastLoginUserAgent;
+    }
+
+    public String getSecurityStamp() {
+        return securityStamp;
+    }
+
+    public void setSecurityStamp(String securityStamp) {
+        this.securityStamp = securityStamp;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -8,8 +8,8 @@ import com.goldtech.timesheet_backend.repository.DayEntryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.Map;
+import java.time.LocalDate;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,6 +28,22 @@ public class TimesheetMapper {
      * Convert DayEntry entity to DTO
      */
     public DayEntryDto convertToDto(DayEntry entry) {
+        return convertToDtos(List.of(entry)).get(0);
+    }
+
+    /**
+     * Convert DayEntry entities to DTOs, loading own and linked (primary day) documents in one query per user
+     */
+    public List<DayEntryDto> convertToDtos(List<DayEntry> entries) {
+        Map<Long, Map<LocalDate, List<DocumentDto>>> documentsByUser = loadDocuments(entries);
+
+        return entries.stream()
+                .map(entry -> convertToDto(entry,
+                        documentsByUser.getOrDefault(entry.getUser().getId(), Collections.emptyMap())))
+                .collect(Collectors.toList());
+    }
+
+    private DayEntryDto convertToDto(DayEntry entry, Map<LocalDate, List<DocumentDto>> documentsByDate) {
         DayEntryDto dto = new DayEntryDto();
         dto.setId(entry.getId());
         dto.setDate(entry.getDate().toString());
@@ -49,18 +65,43 @@ public class TimesheetMapper {
         dto.setCreatedAt(entry.getCreatedAt());
         dto.setUpdatedAt(entry.getUpdatedAt());
 
-        // Load and convert documents
-        List<DayEntryDocument> documents = dayEntryDocumentRepository.findByDayEntryId(entry.getId());
-        if (!documents.isEmpty()) {
-            List<DocumentDto> documentDtos = documents.stream()
-                    .map(this::convertDocumentToDto)
-                    .collect(Collectors.toList());
-            dto.setSupportingDocuments(documentDtos);
+        // Linked days show the primary day's documents; fall back to their own (older entries stored copies)
+        List<DocumentDto> documents = null;
+        if (entry.isLinkedDocumentEntry()) {
+            documents = documentsByDate.get(entry.getPrimaryDocumentDay());
+        }
+        if (documents == null) {
+            documents = documentsByDate.get(entry.getDate());
+        }
+        if (documents != null) {
+            dto.setSupportingDocuments(new ArrayList<>(documents));
         }
 
         return dto;
     }
 
+    /**
+     * Documents per user and entry date, covering both the entries' own days and the primary days they link to
+     */
+    private Map<Long, Map<LocalDate, List<DocumentDto>>> loadDocuments(List<DayEntry> entries) {
+        Map<Long, Set<LocalDate>> datesByUser = new HashMap<>();
+        for (DayEntry entry : entries) {
+            Set<LocalDate> dates = datesByUser.computeIfAbsent(entry.getUser().getId(), id -> new HashSet<>());
+            dates.add(entry.getDate());
+            if (entry.isLinkedDocumentEntry()) {
+                dates.add(entry.getPrimaryDocumentDay());
+            }
+        }
+
+        Map<Long, Map<LocalDate, List<DocumentDto>>> documentsByUser = new HashMap<>();
+        datesByUser.forEach((userId, dates) -> documentsByUser.put(userId,
+                dayEntryDocumentRepository.findByUserIdAndEntryDateIn(userId, dates).stream()
+                        .collect(Collectors.groupingBy(
+                                doc -> doc.getDayEntry().getDate(),
+                                Collectors.mapping(this::convertDocumentToDto, Collectors.toList())))));
+        return documentsByUser;
+    }
+
     /**
      * Convert DayEntryDocument to DTO
      */
@@ -140,12 +181,9 @@ public class TimesheetMapper {
         response.setApprovedAt(monthlyTimesheet.getApprovedAt());
         response.setApprovalComments(monthlyTimesheet.getApprovalComments());
 
-        // Convert day entries to map
-        Map<String, DayEntryDto> entriesMap = dayEntries.stream()
-                .collect(Collectors.toMap(
-                        entry -> entry.getDate().toString(),
-                        this::convertToDto
-                ));
+        // Convert day entries to map (documents for the whole month in one query)
+        Map<String, DayEntryDto> entriesMap = convertToDtos(dayEntries).stream()
+                .collect(Collectors.toMap(DayEntryDto::getDate, dto -> dto));
         response.setEntries(entriesMap);
 
         // Calculate statistics
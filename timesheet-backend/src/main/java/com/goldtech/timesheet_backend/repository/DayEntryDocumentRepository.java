@@ -2,10 +2,17 @@
 // src/main/java/com/goldtech/timesheet_backend/repository/DayEntryDocumentRepository.java
 package com.goldtech.timesheet_backend.repository;
 
+import com.goldtech.timesheet_backend.entity.DayEntry;
 import com.goldtech.timesheet_backend.entity.DayEntryDocument;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -19,4 +26,168 @@ public interface DayEntryDocumentRepository extends JpaRepository<DayEntryDocume
 
     // Delete documents by day entry
     void deleteByDayEntryId(Long dayEntryId);
+
+    // Check if a day entry owns any documents
+    boolean existsByDayEntryId(Long dayEntryId);
+
+    // Documents of a user's entries on the given days (own and linked primary days in one query)
+    @Query("SELECT d FROM DayEntryDocument d JOIN FETCH d.dayEntry de " +
+            "WHERE de.user.id = :userId AND de.date IN :dates " +
+            "ORDER BY de.date ASC, d.id ASC")
+    List<DayEntryDocument> findByUserIdAndEntryDateIn(@Param("userId") Long userId,
+                                                      @Param("dates") Collection<LocalDate> dates);
+
+    // Move documents to another day entry without touching the stored files
+    // (clears the persistence context so no loaded entry still holds the documents in its collection)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE DayEntryDocument d SET d.dayEntry = :target WHERE d.dayEntry.id = :sourceId")
+    int reassignDayEntry(@Param("sourceId") Long sourceId, @Param("target") DayEntry target);
+
+    // Of the given physical paths, return those still referenced by a document row
+    @Query("SELECT d.filePath FROM DayEntryDocument d WHERE d.filePath IN :filePaths")
+    List<String> findExistingFilePaths(@Param("filePaths") Collection<String> filePaths);
+
+    // Document metadata for a user's month in one query (attachment badges)
+    @Query("SELECT d.id AS id, de.date AS entryDate, d.originalFilename AS originalFilename, " +
+            "d.mimeType AS mimeType, d.fileSize AS fileSize, d.contentHash AS contentHash, d.filePath AS filePath " +
+            "FROM DayEntryDocument d JOIN d.dayEntry de " +
+            "WHERE de.user.id = :userId AND de.date BETWEEN :startDate AND :endDate " +
+            "ORDER BY de.date ASC, d.id ASC")
+    List<DocumentMetadataRow> findMetadataByUserIdAndDateBetween(@Param("userId") Long userId,
+                                                                 @Param("startDate") LocalDate startDate,
+                                                                 @Param("endDate") LocalDate endDate);
+
+    // Document metadata of a user's entries on the given days (primary days outside the listed month)
+    @Query("SELECT d.id AS id, de.date AS entryDate, d.originalFilename AS originalFilename, " +
+            "d.mimeType AS mimeType, d.fileSize AS fileSize, d.contentHash AS contentHash, d.filePath AS filePath " +
+            "FROM DayEntryDocument d JOIN d.dayEntry de " +
+            "WHERE de.user.id = :userId AND de.date IN :dates " +
+            "ORDER BY de.date ASC, d.id ASC")
+    List<DocumentMetadataRow> findMetadataByUserIdAndEntryDateIn(@Param("userId") Long userId,
+                                                                 @Param("dates") Collection<LocalDate> dates);
+
+    // Physical paths of a user's documents in a date range (approval prefetch)
+    @Query("SELECT d.filePath FROM DayEntryDocument d JOIN d.dayEntry de " +
+            "WHERE de.user.id = :userId AND de.date BETWEEN :startDate AND :endDate " +
+            "ORDER BY de.date ASC, d.id ASC")
+    List<String> findFilePathsByUserIdAndDateBetween(@Param("userId") Long userId,
+                                                     @Param("startDate") LocalDate startDate,
+                                                     @Param("endDate") LocalDate endDate);
+
+    // Projection used by the month listing
+    interface DocumentMetadataRow {
+        Long getId();
+        LocalDate getEntryDate();
+        String getOriginalFilename();
+        String getMimeType();
+        Long getFileSize();
+        String getContentHash();
+        String getFilePath();
+    }
+
+    // ========== STORAGE USAGE REBUILD ==========
+
+    // Per user and month: user id, project site, year, month, file count, bytes
+    @Query("SELECT u.id, u.projectSite, YEAR(de.date), MONTH(de.date), COUNT(d), COALESCE(SUM(d.fileSize), 0) " +
+            "FROM DayEntryDocument d JOIN d.dayEntry de JOIN de.user u " +
+            "GROUP BY u.id, u.projectSite, YEAR(de.date), MONTH(de.date)")
+    List<Object[]> aggregateUsageByUserAndMonth();
+
+    // ========== HOT/COLD TIERING ==========
+
+    // Documents of entries before a date still stored under a root, in id order (keyset paging).
+    // pathPrefix is a LIKE pattern with '!' as the escape character
+    @Query("SELECT d.id AS id, d.filePath AS filePath FROM DayEntryDocument d JOIN d.dayEntry de " +
+            "WHERE d.id > :afterId AND de.date < :before AND d.filePath LIKE :pathPrefix ESCAPE '!' " +
+            "ORDER BY d.id ASC")
+    List<DocumentPathRow> findTieringCandidates(@Param("afterId") Long afterId,
+                                                @Param("before") LocalDate before,
+                                                @Param("pathPrefix") String pathPrefix,
+                                                Pageable pageable);
+
+    // Re-point a document at its new physical location (stored paths are unique)
+    @Modifying
+    @Query("UPDATE DayEntryDocument d SET d.filePath = :newPath, d.storedFilename = :storedFilename " +
+            "WHERE d.filePath = :oldPath")
+    int updateFilePath(@Param("oldPath") String oldPath, @Param("newPath") String newPath,
+                       @Param("storedFilename") String storedFilename);
+
+    interface DocumentPathRow {
+        Long getId();
+        String getFilePath();
+    }
+
+    // ========== IMAGE PROCESSING ==========
+
+    // Image documents not yet downscaled/thumbnailed, in id order (keyset paging)
+    @Query("SELECT d.id AS id, d.filePath AS filePath FROM DayEntryDocument d " +
+            "WHERE d.imageProcessedAt IS NULL AND d.id > :afterId AND d.mimeType IN :mimeTypes " +
+            "ORDER BY d.id ASC")
+    List<DocumentPathRow> findUnprocessedImages(@Param("afterId") Long afterId,
+                                                @Param("mimeTypes") Collection<String> mimeTypes,
+                                                Pageable pageable);
+
+    // Of the given physical paths, the thumbnails and kept originals still referenced by a document row
+    @Query("SELECT d.thumbnailPath AS thumbnailPath, d.originalPath AS originalPath FROM DayEntryDocument d " +
+            "WHERE d.thumbnailPath IN :filePaths OR d.originalPath IN :filePaths")
+    List<DocumentDerivedPathRow> findExistingDerivedPaths(@Param("filePaths") Collection<String> filePaths);
+
+    interface DocumentDerivedPathRow {
+        String getThumbnailPath();
+        String getOriginalPath();
+    }
+
+    // ========== SIGNED DOWNLOAD URLS ==========
+
+    @Query("SELECT d.id AS id, d.filePath AS filePath, d.originalFilename AS originalFilename, " +
+            "d.mimeType AS mimeType, d.contentHash AS contentHash, u.id AS userId, s.id AS supervisorId " +
+            "FROM DayEntryDocument d JOIN d.dayEntry de JOIN de.user u LEFT JOIN u.supervisor s " +
+            "WHERE d.id IN :ids")
+    List<DocumentSigningRow> findSigningRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Backfill the content hash of documents stored before it was recorded
+    @Modifying
+    @Query("UPDATE DayEntryDocument d SET d.contentHash = :contentHash WHERE d.id = :id AND d.contentHash IS NULL")
+    int updateContentHash(@Param("id") Long id, @Param("contentHash") String contentHash);
+
+    // Projection used when issuing signed URLs (includes owner and supervisor for the access check)
+    interface DocumentSigningRow {
+        Long getId();
+        String getFilePath();
+        String getOriginalFilename();
+        String getMimeType();
+        String getContentHash();
+        Long getUserId();
+        Long getSupervisorId();
+    }
+
+    // ========== MONTH EXPORT (metadata only, ordered by employee and date) ==========
+
+    @Query("SELECT d.filePath AS filePath, d.originalFilename AS originalFilename, de.date AS entryDate, " +
+            "u.id AS userId, u.employeeId AS employeeId, u.fullName AS employeeName " +
+            "FROM DayEntryDocument d JOIN d.dayEntry de JOIN de.user u " +
+            "WHERE u.supervisor.id = :supervisorId AND de.date BETWEEN :startDate AND :endDate " +
+            "ORDER BY u.fullName ASC, u.id ASC, de.date ASC, d.id ASC")
+    List<DocumentExportRow> findExportRowsBySupervisor(@Param("supervisorId") Long supervisorId,
+                                                       @Param("startDate") LocalDate startDate,
+                                                       @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT d.filePath AS filePath, d.originalFilename AS originalFilename, de.date AS entryDate, " +
+            "u.id AS userId, u.employeeId AS employeeId, u.fullName AS employeeName " +
+            "FROM DayEntryDocument d JOIN d.dayEntry de JOIN de.user u " +
+            "WHERE u.projectSite = :projectSite AND de.date BETWEEN :startDate AND :endDate " +
+            "ORDER BY u.fullName ASC, u.id ASC, de.date ASC, d.id ASC")
+    List<DocumentExportRow> findExportRowsByProjectSite(@Param("projectSite") String projectSite,
+                                                        @Param("startDate") LocalDate startDate,
+                                                        @Param("endDate") LocalDate endDate);
+
+    // Projection used by the ZIP export
+    interface DocumentExportRow {
+        String getFilePath();
+        String getOriginalFilename();
+        LocalDate getEntryDate();
+        Long getUserId();
+        String getEmployeeId();
+        String getEmployeeName();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+// Document Deletion Repository
+// src/main/java/com/goldtech/timesheet_backend/repository/DocumentDeletionRepository.java
+package com.goldtech.timesheet_backend.repository;
+
+import com.goldtech.timesheet_backend.entity.DocumentDeletion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DocumentDeletionRepository extends JpaRepository<DocumentDeletion, Long> {
+
+    // Find tombstones left behind by a crash or a failed after-commit delete
+    @Query("SELECT dd FROM DocumentDeletion dd WHERE dd.requestedAt < :before " +
+            "AND dd.attempts < :maxAttempts ORDER BY dd.id ASC")
+    List<DocumentDeletion> findPendingBefore(@Param("before") LocalDateTime before,
+                                             @Param("maxAttempts") int maxAttempts,
+                                             Pageable pageable);
+}
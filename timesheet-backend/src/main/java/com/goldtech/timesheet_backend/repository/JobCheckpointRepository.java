@@ -0,0 +1,11 @@
+// Job Checkpoint Repository
+// src/main/java/com/goldtech/timesheet_backend/repository/JobCheckpointRepository.java
+package com.goldtech.timesheet_backend.repository;
+
+import com.goldtech.timesheet_backend.entity.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+}
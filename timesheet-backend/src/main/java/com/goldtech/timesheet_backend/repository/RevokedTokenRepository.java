@@ -0,0 +1,37 @@
+// Revoked Token Repository
+// src/main/java/com/goldtech/timesheet_backend/repository/RevokedTokenRepository.java
+package com.goldtech.timesheet_backend.repository;
+
+import com.goldtech.timesheet_backend.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    // Idempotent: a token revoked twice (retried logout, two instances) keeps its first row
+    @Modifying
+    @Query(value = "INSERT INTO revoked_tokens (jti, user_id, expires_at, revoked_at) " +
+            "VALUES (:jti, :userId, :expiresAt, NOW(6)) " +
+            "ON DUPLICATE KEY UPDATE jti = jti", nativeQuery = true)
+    int insertIfAbsent(@Param("jti") String jti,
+                       @Param("userId") Long userId,
+                       @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Deny-list entries that still matter (token not yet expired)
+    List<RevokedToken> findByExpiresAtAfter(LocalDateTime now);
+
+    // Entries written since the last poll, including those from other instances
+    @Query("SELECT r FROM RevokedToken r WHERE r.revokedAt >= :since AND r.expiresAt > :now")
+    List<RevokedToken> findRevokedSince(@Param("since") LocalDateTime since, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
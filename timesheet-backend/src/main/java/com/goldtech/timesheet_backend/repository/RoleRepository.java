@@ -3,8 +3,10 @@ package com.goldtech.timesheet_backend.repository;
 
 import com.goldtech.timesheet_backend.entity.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,4 +17,8 @@ public interface RoleRepository extends JpaRepository<Role, Long> {
 
     // Check if role exists by name
     boolean existsByName(String name);
-}
\ No newline at end of file
+
+    // Role name and number of users holding it, including roles nobody holds
+    @Query("SELECT r.name, COUNT(u) FROM Role r LEFT JOIN r.users u GROUP BY r.id, r.name")
+    List<Object[]> countUsersByRole();
+}
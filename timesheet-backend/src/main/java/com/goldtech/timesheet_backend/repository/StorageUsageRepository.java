@@ -0,0 +1,40 @@
+// Storage Usage Repository
+// src/main/java/com/goldtech/timesheet_backend/repository/StorageUsageRepository.java
+package com.goldtech.timesheet_backend.repository;
+
+import com.goldtech.timesheet_backend.entity.StorageUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StorageUsageRepository extends JpaRepository<StorageUsage, Long> {
+
+    Optional<StorageUsage> findByScopeAndScopeKey(StorageUsage.Scope scope, String scopeKey);
+
+    List<StorageUsage> findByScopeOrderByTotalBytesDesc(StorageUsage.Scope scope);
+
+    // Counters of one scope whose key starts with a prefix (a user's months: "<userId>:")
+    List<StorageUsage> findByScopeAndScopeKeyStartingWithOrderByTotalBytesDesc(StorageUsage.Scope scope, String prefix);
+
+    // Atomic increment (or create) of one counter row, in the caller's transaction
+    @Modifying
+    @Query(value = "INSERT INTO storage_usage (scope, scope_key, file_count, total_bytes, updated_at) " +
+            "VALUES (:scope, :scopeKey, :files, :bytes, NOW(6)) " +
+            "ON DUPLICATE KEY UPDATE file_count = file_count + :files, total_bytes = total_bytes + :bytes, " +
+            "updated_at = NOW(6)", nativeQuery = true)
+    int addUsage(@Param("scope") String scope,
+                 @Param("scopeKey") String scopeKey,
+                 @Param("files") long files,
+                 @Param("bytes") long bytes);
+
+    // Totals over all documents (sum of per-site rows)
+    @Query("SELECT COALESCE(SUM(su.fileCount), 0), COALESCE(SUM(su.totalBytes), 0) FROM StorageUsage su " +
+            "WHERE su.scope = com.goldtech.timesheet_backend.entity.StorageUsage.Scope.SITE")
+    List<Object[]> sumSiteTotals();
+}
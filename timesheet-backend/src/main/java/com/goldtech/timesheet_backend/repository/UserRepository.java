@@ -3,12 +3,16 @@ package com.goldtech.timesheet_backend.repository;
 
 import com.goldtech.timesheet_backend.entity.User;
 import com.goldtech.timesheet_backend.entity.User.UserStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,13 +22,9 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
     // Find by email
     Optional<User> findByEmail(String email);
 
-    // Find by employee ID
+    // Find by employee ID (login tries this first for identifiers without '@')
     Optional<User> findByEmployeeId(String employeeId);
 
-    // Find by email or employee ID (for login)
-    @Query("SELECT u FROM User u WHERE u.email = :identifier OR u.employeeId = :identifier")
-    Optional<User> findByEmailOrEmployeeId(@Param("identifier") String identifier);
-
     // Check if email exists
     boolean existsByEmail(String email);
 
@@ -34,6 +34,10 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
     // Count by status
     long countByStatus(UserStatus status);
 
+    // User counts per status in one grouped query (dashboard statistics)
+    @Query("SELECT u.status, COUNT(u) FROM User u GROUP BY u.status")
+    List<Object[]> countGroupedByStatus();
+
     // Find by status
     List<User> findByStatus(UserStatus status);
 
@@ -139,4 +143,69 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
             "(:department IS NULL OR u.department = :department) " +
             "ORDER BY r.name")
     List<String> findRolesByProjectSiteAndDepartment(@Param("projectSite") String projectSite, @Param("department") String department);
-}
\ No newline at end of file
+
+    // Security stamps for the token claims check: all users, or those changed since a point in time
+    @Query("SELECT u.id, u.securityStamp FROM User u")
+    List<Object[]> findAllSecurityStamps();
+
+    @Query("SELECT u.id, u.securityStamp FROM User u WHERE u.updatedAt >= :since")
+    List<Object[]> findSecurityStampsUpdatedSince(@Param("since") LocalDateTime since);
+
+    // ========== PASSWORD MIGRATION ==========
+
+    // Ids and stored passwords in id order (keyset paging)
+    @Query("SELECT u.id AS id, u.password AS password FROM User u WHERE u.id > :afterId ORDER BY u.id ASC")
+    List<UserPasswordRow> findPasswordsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Replace a password only if it has not changed since it was read
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newPassword WHERE u.id = :id AND u.password = :oldPassword")
+    int replacePassword(@Param("id") Long id, @Param("oldPassword") String oldPassword,
+                        @Param("newPassword") String newPassword);
+
+    interface UserPasswordRow {
+        Long getId();
+        String getPassword();
+    }
+
+    // ========== USER SEARCH INDEX ==========
+
+    // Searchable columns in id order (keyset paging for the full rebuild)
+    @Query("SELECT u.id AS id, u.fullName AS fullName, u.email AS email, u.employeeId AS employeeId, " +
+            "u.position AS position, u.department AS department, u.projectSite AS projectSite, u.status AS status " +
+            "FROM User u WHERE u.id > :afterId ORDER BY u.id ASC")
+    List<UserSearchRow> findSearchRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Searchable columns of specific users (incremental updates; missing ids were deleted)
+    @Query("SELECT u.id AS id, u.fullName AS fullName, u.email AS email, u.employeeId AS employeeId, " +
+            "u.position AS position, u.department AS department, u.projectSite AS projectSite, u.status AS status " +
+            "FROM User u WHERE u.id IN :ids")
+    List<UserSearchRow> findSearchRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // (user id, role name) pairs of specific users
+    @Query("SELECT u.id, r.name FROM User u JOIN u.roles r WHERE u.id IN :ids")
+    List<Object[]> findRoleNamesByUserIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT u.id FROM User u WHERE u.updatedAt >= :since")
+    List<Long> findIdsUpdatedSince(@Param("since") LocalDateTime since);
+
+    // Facet counts for the filter options tree while the search index is not built yet
+    @Query("SELECT u.projectSite, u.department, u.position, COUNT(u) FROM User u " +
+            "GROUP BY u.projectSite, u.department, u.position")
+    List<Object[]> countGroupedByProjectSiteDepartmentPosition();
+
+    @Query("SELECT u.projectSite, u.department, u.position, r.name, COUNT(u) FROM User u JOIN u.roles r " +
+            "GROUP BY u.projectSite, u.department, u.position, r.name")
+    List<Object[]> countRolesGroupedByProjectSiteDepartmentPosition();
+
+    interface UserSearchRow {
+        Long getId();
+        String getFullName();
+        String getEmail();
+        String getEmployeeId();
+        String getPosition();
+        String getDepartment();
+        String getProjectSite();
+        UserStatus getStatus();
+    }
+}
@@ -9,6 +9,7 @@ import com.goldtech.timesheet_backend.dto.user.UserDto;
 import com.goldtech.timesheet_backend.entity.User;
 import com.goldtech.timesheet_backend.mapper.UserMapper;
 import com.goldtech.timesheet_backend.repository.UserRepository;
+import io.jsonwebtoken.Claims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -37,12 +38,24 @@ public class AuthService {
     @Autowired
     private JwtUtils jwtUtils;
 
-    public LoginResponse login(LoginRequest loginRequest) {
+    @Autowired
+    private SecurityStampService stampService;
+
+    @Autowired
+    private TokenRevocationService revocationService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private LoginAuditService loginAuditService;
+
+    public LoginResponse login(LoginRequest loginRequest, String clientIp, String userAgent) {
         try {
             logger.debug("Attempting login for: {}", loginRequest.getEmail());
 
             // Find user by email or employee ID
-            Optional<User> userOptional = userRepository.findByEmailOrEmployeeId(loginRequest.getEmail());
+            Optional<User> userOptional = findLoginUser(loginRequest.getEmail());
 
             if (userOptional.isEmpty()) {
                 logger.warn("User not found: {}", loginRequest.getEmail());
@@ -63,18 +76,25 @@ public class AuthService {
                 return LoginResponse.failure("Invalid credentials");
             }
 
-            // Update last login time
-            user.setLastLoginAt(LocalDateTime.now());
-            userRepository.save(user);
+            // Last login time and client are written behind in batches; the users row is not
+            // touched here (except once, to give a user without one a security stamp)
+            LocalDateTime loginAt = LocalDateTime.now();
+            loginAuditService.record(user.getId(), loginAt, clientIp, userAgent);
+            if (user.getSecurityStamp() == null) {
+                stampService.ensureStamp(user);
+                userRepository.save(user);
+            }
 
-            // Generate JWT token
-            String token = jwtUtils.generateJwtToken(user.getEmail());
+            // Generate JWT token (carries id, roles, status and security stamp)
+            String token = jwtUtils.generateJwtToken(user);
+            String refreshToken = refreshTokenService.issue(user.getId());
 
             // Convert to DTO
             UserDto userDto = userMapper.toDto(user);
+            userDto.setLastLoginAt(loginAt);
 
             logger.info("User logged in successfully: {}", user.getEmail());
-            return LoginResponse.success(token, userDto);
+            return LoginResponse.success(token, refreshToken, userDto);
 
         } catch (Exception e) {
             logger.error("Error during login process", e);
@@ -82,18 +102,53 @@ public class AuthService {
         }
     }
 
-    public LogoutResponse logout(String userEmail) {
+    /**
+     * Exchange a refresh token for a new access token and a rotated refresh token (no password check)
+     */
+    public LoginResponse refresh(String refreshToken) {
         try {
-            logger.debug("Logging out user: {}", userEmail);
+            RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+            if (rotation == null) {
+                return LoginResponse.failure("Invalid or expired refresh token");
+            }
+
+            Optional<User> userOptional = userRepository.findById(rotation.userId());
+            if (userOptional.isEmpty() || userOptional.get().getStatus() != User.UserStatus.ACTIVE) {
+                refreshTokenService.revokeAllForUser(rotation.userId());
+                return LoginResponse.failure("Account is inactive");
+            }
+
+            User user = userOptional.get();
+            stampService.ensureStamp(user);
+            String token = jwtUtils.generateJwtToken(user);
+
+            logger.debug("Token refreshed for user: {}", user.getEmail());
+            return LoginResponse.success(token, rotation.refreshToken(), userMapper.toDto(user));
+
+        } catch (Exception e) {
+            logger.error("Error during token refresh", e);
+            return LoginResponse.failure("Token refresh failed. Please log in again.");
+        }
+    }
 
-            // In a stateless JWT system, logout is mainly handled on the frontend
-            // by removing the token. However, we can log the event here.
+    public LogoutResponse logout(String token, String refreshToken) {
+        try {
+            // Ends the session's refresh chain even if the access token has already expired
+            refreshTokenService.revokeFamily(refreshToken);
 
-            Optional<User> userOptional = userRepository.findByEmail(userEmail);
-            if (userOptional.isPresent()) {
-                logger.info("User logged out: {}", userEmail);
+            Claims claims = jwtUtils.verifyJwtToken(token);
+            if (claims == null || revocationService.isRevoked(claims.getId())) {
+                return LogoutResponse.success();
             }
 
+            String userEmail = claims.getSubject();
+            logger.debug("Logging out user: {}", userEmail);
+
+            // Deny this token until it expires; the client drops it as well
+            Number userId = claims.get(JwtUtils.CLAIM_USER_ID, Number.class);
+            revocationService.revoke(claims.getId(), userId != null ? userId.longValue() : null, claims.getExpiration());
+            logger.info("User logged out: {}", userEmail);
+
             return LogoutResponse.success();
 
         } catch (Exception e) {
@@ -120,10 +175,31 @@ public class AuthService {
     }
 
     public boolean validateToken(String token) {
-        return jwtUtils.validateJwtToken(token);
+        Claims claims = jwtUtils.verifyJwtToken(token);
+        return claims != null && !revocationService.isRevoked(claims.getId());
     }
 
     public String getEmailFromToken(String token) {
-        return jwtUtils.getEmailFromJwtToken(token);
+        Claims claims = jwtUtils.verifyJwtToken(token);
+        return claims != null ? claims.getSubject() : null;
+    }
+
+    // Helper methods
+
+    /**
+     * Look the identifier up through the unique index it most likely belongs to (an '@' means
+     * email), then the other one. Each is a single-column equality the index serves directly,
+     * unlike "email = ? OR employee_id = ?".
+     */
+    private Optional<User> findLoginUser(String identifier) {
+        if (identifier == null || identifier.isBlank()) {
+            return Optional.empty();
+        }
+        if (identifier.indexOf('@') >= 0) {
+            Optional<User> byEmail = userRepository.findByEmail(identifier);
+            return byEmail.isPresent() ? byEmail : userRepository.findByEmployeeId(identifier);
+        }
+        Optional<User> byEmployeeId = userRepository.findByEmployeeId(identifier);
+        return byEmployeeId.isPresent() ? byEmployeeId : userRepository.findByEmail(identifier);
     }
-}
\ No newline at end of file
+}
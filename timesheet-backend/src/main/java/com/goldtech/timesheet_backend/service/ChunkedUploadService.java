@@ -0,0 +1,491 @@
+// ChunkedUploadService.java - Resumable chunked uploads staged under the upload directory
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Stream;
+
+@Service
+public class ChunkedUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedUploadService.class);
+
+    private static final String STAGING_DIR = ".chunked";
+    private static final String DATA_FILE = "data.part";
+    private static final String SESSION_FILE = "session.properties";
+    private static final int LOCK_STRIPES = 64;
+
+    @Autowired
+    private DocumentValidationService validationService;
+
+    @Autowired
+    private StorageUsageService storageUsageService;
+
+    @Value("${app.upload.dir:${user.home}/timesheet-uploads}")
+    private String uploadDir;
+
+    @Value("${app.upload.chunked.chunk-size:1048576}")
+    private int chunkSize;
+
+    @Value("${app.upload.chunked.session-ttl-hours:24}")
+    private long sessionTtlHours;
+
+    // Striped session locks so concurrent retries of the same chunk cannot interleave. Stripes are
+    // never removed, so a thread waiting on one always shares it with the thread that holds it.
+    private final Object[] sessionLocks = Stream.generate(Object::new).limit(LOCK_STRIPES).toArray();
+
+    /**
+     * Start a new upload session
+     */
+    public UploadStatus initiate(User user, String name, String type, Long size, String sha256) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("File name is required");
+        }
+        if (size == null || size <= 0) {
+            throw new IllegalArgumentException("File size is required");
+        }
+        validationService.checkSize(size);
+        // Fail before any bytes are sent; the entry month is only known when the document is saved
+        storageUsageService.checkQuota(user, null, size);
+
+        String uploadId = UUID.randomUUID().toString();
+        Path sessionDir = sessionDir(uploadId);
+
+        Properties session = new Properties();
+        session.setProperty("userId", user.getId().toString());
+        session.setProperty("name", name);
+        session.setProperty("type", type != null ? type : "application/octet-stream");
+        session.setProperty("size", size.toString());
+        session.setProperty("received", "0");
+        session.setProperty("chunks", "0");
+        session.setProperty("completed", "false");
+        if (sha256 != null && !sha256.isBlank()) {
+            session.setProperty("sha256", sha256.toLowerCase());
+        }
+
+        try {
+            Files.createDirectories(sessionDir);
+            Files.createFile(sessionDir.resolve(DATA_FILE));
+            writeSession(sessionDir, session);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create upload session", e);
+        }
+
+        logger.info("Chunked upload {} started by user {}: {} ({} bytes)", uploadId, user.getId(), name, size);
+        return toStatus(uploadId, session);
+    }
+
+    /**
+     * Append one chunk. The offset must match the bytes received so far and the SHA-256
+     * of the chunk must match the client's checksum, otherwise nothing is kept.
+     */
+    public UploadStatus appendChunk(Long userId, String uploadId, long offset, String checksum, InputStream content) {
+        if (checksum == null || checksum.isBlank()) {
+            throw new IllegalArgumentException("Chunk checksum is required");
+        }
+
+        synchronized (lockFor(uploadId)) {
+            Path sessionDir = sessionDir(uploadId);
+            Properties session = loadOwnedSession(userId, uploadId);
+            if (Boolean.parseBoolean(session.getProperty("completed"))) {
+                throw new IllegalStateException("Upload is already completed");
+            }
+
+            long received = Long.parseLong(session.getProperty("received"));
+            long size = Long.parseLong(session.getProperty("size"));
+            if (offset != received) {
+                throw new IllegalStateException("Offset mismatch: expected " + received);
+            }
+
+            IllegalArgumentException rejection = null;
+            try (FileChannel channel = FileChannel.open(sessionDir.resolve(DATA_FILE),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // Drop any tail left by an append that crashed before the session was updated
+                channel.truncate(received);
+                channel.position(received);
+
+                MessageDigest digest = sha256();
+                long written = 0;
+                byte[] buffer = new byte[64 * 1024];
+                try (InputStream in = new DigestInputStream(content, digest)) {
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        written += read;
+                        if (written > chunkSize || received + written > size) {
+                            channel.truncate(received);
+                            throw new IllegalArgumentException("Chunk exceeds the allowed size");
+                        }
+                        channel.write(ByteBuffer.wrap(buffer, 0, read));
+                    }
+                }
+
+                String actual = HexFormat.of().formatHex(digest.digest());
+                if (written == 0 || !actual.equalsIgnoreCase(checksum)) {
+                    channel.truncate(received);
+                    throw new IllegalArgumentException("Chunk checksum mismatch");
+                }
+                channel.force(false);
+
+                // Reject disallowed content as soon as its header is in (normally the first chunk) instead of
+                // after the whole file arrived; a file shorter than the sniff window is checked when it ends
+                long total = received + written;
+                if (session.getProperty("detectedType") == null
+                        && total >= Math.min(size, DocumentValidationService.SNIFF_BYTES)) {
+                    try {
+                        session.setProperty("detectedType", sniff(channel, total, session.getProperty("name")));
+                    } catch (IllegalArgumentException e) {
+                        rejection = e;
+                    }
+                }
+
+                if (rejection == null) {
+                    int chunkIndex = Integer.parseInt(session.getProperty("chunks"));
+                    session.setProperty("chunk." + chunkIndex, received + ":" + written + ":" + actual);
+                    session.setProperty("chunks", String.valueOf(chunkIndex + 1));
+                    session.setProperty("received", String.valueOf(received + written));
+                    writeSession(sessionDir, session);
+                }
+
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to store chunk", e);
+            }
+
+            if (rejection != null) {
+                // Nothing of a disallowed file is kept
+                deleteSession(uploadId);
+                throw rejection;
+            }
+
+            return toStatus(uploadId, session);
+        }
+    }
+
+    /**
+     * Current state of an upload session (used by clients to resume)
+     */
+    public UploadStatus getStatus(Long userId, String uploadId) {
+        synchronized (lockFor(uploadId)) {
+            return toStatus(uploadId, loadOwnedSession(userId, uploadId));
+        }
+    }
+
+    /**
+     * Mark an upload as complete once every byte has arrived (and the whole-file hash matches, if given)
+     */
+    public UploadStatus complete(Long userId, String uploadId) {
+        synchronized (lockFor(uploadId)) {
+            Path sessionDir = sessionDir(uploadId);
+            Properties session = loadOwnedSession(userId, uploadId);
+
+            long received = Long.parseLong(session.getProperty("received"));
+            long size = Long.parseLong(session.getProperty("size"));
+            if (received != size) {
+                throw new IllegalStateException("Upload incomplete: " + received + " of " + size + " bytes received");
+            }
+
+            // Sessions started before type detection existed are checked now
+            if (session.getProperty("detectedType") == null) {
+                try (FileChannel channel = FileChannel.open(sessionDir.resolve(DATA_FILE), StandardOpenOption.READ)) {
+                    session.setProperty("detectedType", sniff(channel, size, session.getProperty("name")));
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to read upload", e);
+                }
+            }
+
+            // Hash the whole file even without a client checksum; storage keeps it as the content hash
+            String expected = session.getProperty("sha256");
+            String actual = hashFile(sessionDir.resolve(DATA_FILE));
+            if (expected != null && !expected.equalsIgnoreCase(actual)) {
+                throw new IllegalArgumentException("File checksum mismatch");
+            }
+
+            session.setProperty("sha256", actual);
+            session.setProperty("completed", "true");
+            writeSession(sessionDir, session);
+
+            logger.info("Chunked upload {} completed ({} bytes)", uploadId, size);
+            return toStatus(uploadId, session);
+        }
+    }
+
+    /**
+     * Abandon an upload session
+     */
+    public void abort(Long userId, String uploadId) {
+        synchronized (lockFor(uploadId)) {
+            loadOwnedSession(userId, uploadId);
+            deleteSession(uploadId);
+        }
+    }
+
+    /**
+     * Metadata of a completed upload owned by the user
+     */
+    public CompletedUpload getCompletedUpload(Long userId, String uploadId) {
+        synchronized (lockFor(uploadId)) {
+            Properties session = loadOwnedSession(userId, uploadId);
+            if (!Boolean.parseBoolean(session.getProperty("completed"))) {
+                throw new IllegalStateException("Upload " + uploadId + " is not completed");
+            }
+            // The detected type replaces the one the client declared
+            return new CompletedUpload(session.getProperty("name"), session.getProperty("detectedType"),
+                    Long.parseLong(session.getProperty("size")), session.getProperty("sha256"));
+        }
+    }
+
+    /**
+     * Hand a completed upload to document storage: hard-link (or copy) the staged file to its final path.
+     * The staged file is never moved, and the session stays in place until {@link #release(String)},
+     * so a rolled back save can be retried.
+     */
+    public void claim(Long userId, String uploadId, Path target) throws IOException {
+        synchronized (lockFor(uploadId)) {
+            getCompletedUpload(userId, uploadId);
+
+            Path source = sessionDir(uploadId).resolve(DATA_FILE);
+            Files.createDirectories(target.getParent());
+            try {
+                Files.createLink(target, source);
+            } catch (FileAlreadyExistsException e) {
+                throw e;
+            } catch (UnsupportedOperationException | IOException e) {
+                // No hard links here (other file store, or not supported): copy and flush the copy
+                Files.copy(source, target);
+                try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove a session whose file has been committed to storage
+     */
+    public void release(String uploadId) {
+        synchronized (lockFor(uploadId)) {
+            deleteSession(uploadId);
+        }
+    }
+
+    /**
+     * Garbage-collect sessions that have been idle longer than the TTL
+     */
+    @Scheduled(fixedDelayString = "${app.upload.chunked.cleanup-interval-ms:900000}",
+            initialDelayString = "${app.upload.chunked.cleanup-interval-ms:900000}")
+    public void cleanupAbandonedSessions() {
+        Path stagingRoot = Paths.get(uploadDir, STAGING_DIR);
+        if (!Files.isDirectory(stagingRoot)) {
+            return;
+        }
+
+        Instant cutoff = Instant.now().minus(sessionTtlHours, ChronoUnit.HOURS);
+        int removed = 0;
+
+        try (Stream<Path> sessions = Files.list(stagingRoot)) {
+            for (Path sessionDir : sessions.toList()) {
+                Path sessionFile = sessionDir.resolve(SESSION_FILE);
+                Path lastTouched = Files.exists(sessionFile) ? sessionFile : sessionDir;
+                if (Files.getLastModifiedTime(lastTouched).toInstant().isBefore(cutoff)) {
+                    String uploadId = sessionDir.getFileName().toString();
+                    synchronized (lockFor(uploadId)) {
+                        deleteSession(uploadId);
+                    }
+                    removed++;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to clean up chunked upload sessions", e);
+        }
+
+        if (removed > 0) {
+            logger.info("Removed {} abandoned chunked upload sessions", removed);
+        }
+    }
+
+    // Helper methods
+
+    private Path sessionDir(String uploadId) {
+        try {
+            // Reject anything that is not one of our ids before it touches the filesystem
+            UUID.fromString(uploadId);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid upload id");
+        }
+        return Paths.get(uploadDir, STAGING_DIR, uploadId);
+    }
+
+    private Object lockFor(String uploadId) {
+        sessionDir(uploadId);
+        return sessionLocks[Math.floorMod(uploadId.hashCode(), LOCK_STRIPES)];
+    }
+
+    private Properties loadOwnedSession(Long userId, String uploadId) {
+        Path sessionFile = sessionDir(uploadId).resolve(SESSION_FILE);
+        if (!Files.exists(sessionFile)) {
+            throw new IllegalArgumentException("Upload not found");
+        }
+
+        Properties session = new Properties();
+        try (Reader reader = Files.newBufferedReader(sessionFile, StandardCharsets.UTF_8)) {
+            session.load(reader);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read upload session", e);
+        }
+
+        if (!userId.toString().equals(session.getProperty("userId"))) {
+            throw new IllegalArgumentException("Upload not found");
+        }
+        return session;
+    }
+
+    private void writeSession(Path sessionDir, Properties session) {
+        // Write-then-rename so a crash never leaves a half-written session file
+        Path tmp = sessionDir.resolve(SESSION_FILE + ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                session.store(out, null);
+            }
+            Files.move(tmp, sessionDir.resolve(SESSION_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write upload session", e);
+        }
+    }
+
+    private void deleteSession(String uploadId) {
+        Path sessionDir = sessionDir(uploadId);
+        try {
+            if (Files.isDirectory(sessionDir)) {
+                try (Stream<Path> files = Files.list(sessionDir)) {
+                    for (Path file : files.toList()) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+                Files.deleteIfExists(sessionDir);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to delete upload session {}", uploadId, e);
+        }
+    }
+
+    /**
+     * Detect the content type from the head of the staged file. Disallowed content throws
+     * IllegalArgumentException; the caller's session is then dropped.
+     */
+    private String sniff(FileChannel channel, long available, String name) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate((int) Math.min(available, DocumentValidationService.SNIFF_BYTES));
+        while (head.hasRemaining() && channel.read(head, head.position()) > 0) {
+            // Fill the sniff window
+        }
+        return validationService.checkContent(name, head.array(), head.position()).getMimeType();
+    }
+
+    private String hashFile(Path file) {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            while (in.read(buffer) != -1) {
+                // Reading drives the digest
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to hash upload", e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private UploadStatus toStatus(String uploadId, Properties session) {
+        return new UploadStatus(
+                uploadId,
+                session.getProperty("name"),
+                Long.parseLong(session.getProperty("size")),
+                Long.parseLong(session.getProperty("received")),
+                Integer.parseInt(session.getProperty("chunks")),
+                chunkSize,
+                Boolean.parseBoolean(session.getProperty("completed"))
+        );
+    }
+
+    /**
+     * Upload session state returned to clients
+     */
+    public static class UploadStatus {
+        private final String uploadId;
+        private final String name;
+        private final long size;
+        private final long offset;
+        private final int chunks;
+        private final int chunkSize;
+        private final boolean completed;
+
+        public UploadStatus(String uploadId, String name, long size, long offset,
+                            int chunks, int chunkSize, boolean completed) {
+            this.uploadId = uploadId;
+            this.name = name;
+            this.size = size;
+            this.offset = offset;
+            this.chunks = chunks;
+            this.chunkSize = chunkSize;
+            this.completed = completed;
+        }
+
+        // Getters
+        public String getUploadId() { return uploadId; }
+        public String getName() { return name; }
+        public long getSize() { return size; }
+        public long getOffset() { return offset; }
+        public int getChunks() { return chunks; }
+        public int getChunkSize() { return chunkSize; }
+        public boolean isCompleted() { return completed; }
+    }
+
+    /**
+     * Metadata of a completed upload claimed by document storage
+     */
+    public static class CompletedUpload {
+        private final String name;
+        private final String type;
+        private final long size;
+        private final String sha256;
+
+        public CompletedUpload(String name, String type, long size, String sha256) {
+            this.name = name;
+            this.type = type;
+            this.size = size;
+            this.sha256 = sha256;
+        }
+
+        // Getters
+        public String getName() { return name; }
+        public String getType() { return type; }
+        public long getSize() { return size; }
+        public String getSha256() { return sha256; }
+    }
+}
@@ -0,0 +1,252 @@
+// DocumentContentCache.java - Size-bounded LRU cache of small document files
+package com.goldtech.timesheet_backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keyed by physical path. Changed content is written under a new filename and the document row is
+ * re-pointed (image optimisation, tiering), so cached bytes for a path stay valid until the old file
+ * is deleted; every deletion goes through a tombstone and invalidates the path. A disk read that
+ * overlaps an invalidation of its path is returned to its caller but not cached.
+ * Weight is the byte length; files above the admission threshold are always read from disk.
+ */
+@Service
+public class DocumentContentCache {
+
+    @Value("${app.upload.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.upload.cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${app.upload.cache.max-entry-bytes:1048576}")
+    private long maxEntryBytes;
+
+    // Access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, CachedFile> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentBytes;
+
+    // Disk reads in progress per path (guarded by entries); invalidate() marks them stale
+    private final Map<String, PendingLoad> loads = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong prefetchLoads = new AtomicLong();
+    private final AtomicLong prefetchHits = new AtomicLong();
+    private final AtomicLong prefetchWasted = new AtomicLong();
+
+    /**
+     * Read a stored file, from memory when cached. The disk read happens outside the lock.
+     * The returned array may be shared - callers must not modify it.
+     */
+    public byte[] read(Path filePath) throws IOException {
+        if (!enabled) {
+            return Files.readAllBytes(filePath);
+        }
+
+        String key = filePath.toString();
+        byte[] cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        PendingLoad load = beginLoad(key);
+        byte[] content;
+        try {
+            content = Files.readAllBytes(filePath);
+        } catch (IOException | RuntimeException e) {
+            endLoad(key, load, null, false);
+            throw e;
+        }
+        endLoad(key, load, content, false);
+        return content;
+    }
+
+    /**
+     * Load a file ahead of use (approval prefetch). Returns false if it was already cached or is too large.
+     * The first real read of a prefetched entry counts as a prefetch hit.
+     */
+    public boolean prefetch(Path filePath) throws IOException {
+        if (!enabled) {
+            return false;
+        }
+
+        String key = filePath.toString();
+        synchronized (entries) {
+            if (entries.containsKey(key)) {
+                return false;
+            }
+        }
+        if (!admits(Files.size(filePath))) {
+            return false;
+        }
+
+        PendingLoad load = beginLoad(key);
+        byte[] content;
+        try {
+            content = Files.readAllBytes(filePath);
+        } catch (IOException | RuntimeException e) {
+            endLoad(key, load, null, true);
+            throw e;
+        }
+        if (!endLoad(key, load, content, true)) {
+            return false;
+        }
+        prefetchLoads.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Whether a file of this size would be admitted
+     */
+    public boolean admits(long size) {
+        return enabled && size <= maxEntryBytes && size <= maxBytes;
+    }
+
+    /**
+     * Drop a path (file deleted, moved or replaced)
+     */
+    public void invalidate(String filePath) {
+        if (filePath == null) {
+            return;
+        }
+        synchronized (entries) {
+            CachedFile removed = entries.remove(filePath);
+            if (removed != null) {
+                currentBytes -= removed.content.length;
+            }
+            // Reads already under way may hold the old bytes; reads starting now get a fresh load
+            PendingLoad load = loads.remove(filePath);
+            if (load != null) {
+                load.stale = true;
+            }
+        }
+    }
+
+    /**
+     * Counters for the storage status endpoint
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        stats.put("enabled", enabled);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictions", evictions.get());
+        stats.put("rejectedTooLarge", rejected.get());
+        stats.put("prefetchLoads", prefetchLoads.get());
+        stats.put("prefetchHits", prefetchHits.get());
+        stats.put("prefetchEvictedUnused", prefetchWasted.get());
+        synchronized (entries) {
+            stats.put("entries", entries.size());
+            stats.put("usedBytes", currentBytes);
+        }
+        stats.put("maxBytes", maxBytes);
+        stats.put("maxEntryBytes", maxEntryBytes);
+        return stats;
+    }
+
+    // Helper methods
+
+    private byte[] get(String key) {
+        byte[] content = null;
+        boolean prefetched = false;
+        synchronized (entries) {
+            CachedFile cached = entries.get(key);
+            if (cached != null) {
+                content = cached.content;
+                prefetched = cached.prefetched;
+                cached.prefetched = false;
+            }
+        }
+        if (content != null) {
+            hits.incrementAndGet();
+            if (prefetched) {
+                prefetchHits.incrementAndGet();
+            }
+        } else {
+            misses.incrementAndGet();
+        }
+        return content;
+    }
+
+    private PendingLoad beginLoad(String key) {
+        synchronized (entries) {
+            PendingLoad load = loads.computeIfAbsent(key, k -> new PendingLoad());
+            load.readers++;
+            return load;
+        }
+    }
+
+    /**
+     * Finish a disk read started with beginLoad and cache its bytes unless the path was invalidated
+     * meanwhile. Returns whether the bytes were cached.
+     */
+    private boolean endLoad(String key, PendingLoad load, byte[] content, boolean prefetched) {
+        if (content != null && !admits(content.length)) {
+            rejected.incrementAndGet();
+            content = null;
+        }
+
+        synchronized (entries) {
+            if (--load.readers == 0 && loads.get(key) == load) {
+                loads.remove(key);
+            }
+            if (content == null || load.stale) {
+                return false;
+            }
+            put(key, content, prefetched);
+            return true;
+        }
+    }
+
+    // Called with the entries lock held
+    private void put(String key, byte[] content, boolean prefetched) {
+        CachedFile previous = entries.put(key, new CachedFile(content, prefetched));
+        currentBytes += content.length - (previous != null ? previous.content.length : 0);
+
+        // Evict least recently used entries until back under budget
+        Iterator<Map.Entry<String, CachedFile>> iterator = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, CachedFile> eldest = iterator.next();
+            if (eldest.getKey().equals(key)) {
+                continue;
+            }
+            currentBytes -= eldest.getValue().content.length;
+            if (eldest.getValue().prefetched) {
+                prefetchWasted.incrementAndGet();
+            }
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static class PendingLoad {
+        private int readers;    // guarded by entries
+        private boolean stale;  // guarded by entries
+    }
+
+    private static class CachedFile {
+        private final byte[] content;
+        private boolean prefetched; // loaded ahead of use and not read since (guarded by entries)
+
+        CachedFile(byte[] content, boolean prefetched) {
+            this.content = content;
+            this.prefetched = prefetched;
+        }
+    }
+}
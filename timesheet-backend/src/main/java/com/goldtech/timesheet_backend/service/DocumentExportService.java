@@ -0,0 +1,149 @@
+// DocumentExportService.java - Stream a month's supporting documents as a ZIP archive
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository;
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository.DocumentExportRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+@Service
+public class DocumentExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentExportService.class);
+
+    // Formats that are already compressed - deflating them again only burns CPU
+    private static final Set<String> ALREADY_COMPRESSED_EXTENSIONS = Set.of(
+            "jpg", "jpeg", "png", "gif", "webp", "heic", "docx", "xlsx", "pptx", "zip", "gz"
+    );
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private DayEntryDocumentRepository documentRepository;
+
+    /**
+     * Document metadata for a supervisor's team in a month
+     */
+    @Transactional(readOnly = true)
+    public List<DocumentExportRow> getTeamExportRows(Long supervisorId, int year, int month) {
+        LocalDate start = monthStart(year, month);
+        return documentRepository.findExportRowsBySupervisor(supervisorId, start, start.plusMonths(1).minusDays(1));
+    }
+
+    /**
+     * Document metadata for a project site in a month
+     */
+    @Transactional(readOnly = true)
+    public List<DocumentExportRow> getProjectSiteExportRows(String projectSite, int year, int month) {
+        LocalDate start = monthStart(year, month);
+        return documentRepository.findExportRowsByProjectSite(projectSite, start, start.plusMonths(1).minusDays(1));
+    }
+
+    /**
+     * Write the documents as a ZIP, one file at a time with a fixed-size buffer.
+     * Layout: {employee}/{date}/{original filename}
+     */
+    public void writeArchive(List<DocumentExportRow> rows, OutputStream outputStream) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(outputStream, StandardCharsets.UTF_8);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        Set<String> usedNames = new HashSet<>();
+        List<String> missingFiles = new ArrayList<>();
+
+        for (DocumentExportRow row : rows) {
+            Path filePath = Paths.get(row.getFilePath());
+            String entryName = uniqueEntryName(usedNames, employeeFolder(row) + "/" + row.getEntryDate() + "/"
+                    + sanitize(row.getOriginalFilename()));
+
+            if (!Files.isRegularFile(filePath)) {
+                missingFiles.add(entryName);
+                continue;
+            }
+
+            // Already-compressed formats are deflated at level 0 rather than STORED: size and CRC are
+            // then taken from the bytes as they stream, so a file changing meanwhile cannot corrupt the entry
+            zip.setLevel(ALREADY_COMPRESSED_EXTENSIONS.contains(getFileExtension(row.getFilePath()))
+                    ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+            zip.putNextEntry(new ZipEntry(entryName));
+            try (InputStream in = Files.newInputStream(filePath)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    zip.write(buffer, 0, read);
+                }
+            }
+            zip.closeEntry();
+        }
+
+        if (!missingFiles.isEmpty()) {
+            zip.putNextEntry(new ZipEntry("MISSING_FILES.txt"));
+            zip.write(String.join("\n", missingFiles).getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+            logger.warn("Document export skipped {} missing files", missingFiles.size());
+        }
+
+        zip.finish();
+        zip.flush();
+    }
+
+    /**
+     * First day of a month given as path values; out-of-range values are rejected as bad input
+     */
+    public static LocalDate monthStart(int year, int month) {
+        if (month < 1 || month > 12 || year < 1900 || year > 9999) {
+            throw new IllegalArgumentException("Invalid month: " + year + "/" + month);
+        }
+        return LocalDate.of(year, month, 1);
+    }
+
+    // Helper methods
+
+    private String employeeFolder(DocumentExportRow row) {
+        String id = row.getEmployeeId() != null ? row.getEmployeeId() : "user_" + row.getUserId();
+        return sanitize(id + "_" + row.getEmployeeName());
+    }
+
+    private String uniqueEntryName(Set<String> usedNames, String name) {
+        if (usedNames.add(name)) {
+            return name;
+        }
+
+        int dot = name.lastIndexOf('.');
+        String base = dot > name.lastIndexOf('/') ? name.substring(0, dot) : name;
+        String extension = dot > name.lastIndexOf('/') ? name.substring(dot) : "";
+        int counter = 2;
+        String candidate;
+        do {
+            candidate = base + " (" + counter++ + ")" + extension;
+        } while (!usedNames.add(candidate));
+        return candidate;
+    }
+
+    private String sanitize(String value) {
+        if (value == null || value.isBlank()) {
+            return "unnamed";
+        }
+        return value.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").trim();
+    }
+
+    private String getFileExtension(String filename) {
+        if (filename == null || !filename.contains(".")) {
+            return "";
+        }
+        return filename.substring(filename.lastIndexOf(".") + 1).toLowerCase();
+    }
+}
@@ -0,0 +1,581 @@
+// DocumentImageService.java - Downscale, recompress and thumbnail uploaded photos in the background
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.DayEntry;
+import com.goldtech.timesheet_backend.entity.DayEntryDocument;
+import com.goldtech.timesheet_backend.entity.DocumentDeletion;
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository;
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository.DocumentPathRow;
+import com.goldtech.timesheet_backend.repository.DocumentDeletionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Phone photos of certificates are far larger than needed to read them. After an image document
+ * commits, a bounded worker pool downscales it to app.upload.images.max-dimension, re-encodes it
+ * without metadata (EXIF orientation is applied first) and writes a small JPEG thumbnail.
+ * The optimized file gets a new name and the row is re-pointed in one transaction, like a tiering
+ * move; it only replaces the original when it is smaller or metadata had to be stripped.
+ * Path and content hash change together, so the path-keyed content cache, the month listing's ETag
+ * and signed-URL ETags (the signed hash belongs to the signed path) never describe the old bytes.
+ * Jobs dropped because the pool was full are picked up by the periodic sweep.
+ */
+@Service
+public class DocumentImageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentImageService.class);
+
+    public static final Set<String> IMAGE_MIME_TYPES = Set.of("image/jpeg", "image/png");
+
+    @Autowired
+    private DayEntryDocumentRepository documentRepository;
+
+    @Autowired
+    private DocumentDeletionRepository deletionRepository;
+
+    @Autowired
+    private DocumentReconciliationService reconciliationService;
+
+    @Autowired
+    private DurableFileWriter durableFileWriter;
+
+    @Autowired
+    private StorageUsageService storageUsageService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.upload.images.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.upload.images.max-dimension:2000}")
+    private int maxDimension;
+
+    @Value("${app.upload.images.jpeg-quality:0.82}")
+    private float jpegQuality;
+
+    @Value("${app.upload.images.recompress-above-bytes:524288}")
+    private long recompressAboveBytes;
+
+    @Value("${app.upload.images.thumbnail-size:320}")
+    private int thumbnailSize;
+
+    @Value("${app.upload.images.keep-original:false}")
+    private boolean keepOriginal;
+
+    @Value("${app.upload.images.max-pixels:50000000}")
+    private long maxPixels;
+
+    @Value("${app.upload.images.threads:2}")
+    private int threads;
+
+    @Value("${app.upload.images.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${app.upload.images.sweep-batch:200}")
+    private int sweepBatch;
+
+    private TransactionTemplate transactionTemplate;
+    private ThreadPoolExecutor executor;
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong optimized = new AtomicLong();
+    private final AtomicLong thumbnails = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "document-image");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        ImageIO.setUseCache(false);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queue an image document for processing. Returns false if it is not an image or the pool is full.
+     */
+    public boolean submit(Long documentId, String filePath, String mimeType) {
+        if (!enabled || !IMAGE_MIME_TYPES.contains(mimeType)) {
+            return false;
+        }
+        return enqueue(documentId, filePath);
+    }
+
+    /**
+     * Queue unprocessed images (uploads dropped while the pool was full, and older documents)
+     */
+    @Scheduled(fixedDelayString = "${app.upload.images.sweep-interval-ms:300000}",
+            initialDelayString = "${app.upload.images.sweep-initial-delay-ms:120000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+
+        long afterId = 0;
+        int queued = 0;
+        sweep:
+        while (true) {
+            List<DocumentPathRow> rows = documentRepository.findUnprocessedImages(
+                    afterId, IMAGE_MIME_TYPES, PageRequest.of(0, sweepBatch));
+            if (rows.isEmpty()) {
+                break;
+            }
+            for (DocumentPathRow row : rows) {
+                // Leave room for fresh uploads; the rest waits for the next sweep
+                if (executor.getQueue().remainingCapacity() <= queueCapacity / 2) {
+                    break sweep;
+                }
+                afterId = row.getId();
+                if (enqueue(row.getId(), row.getFilePath())) {
+                    queued++;
+                }
+            }
+        }
+        if (queued > 0) {
+            logger.info("Queued {} image documents for processing", queued);
+        }
+    }
+
+    /**
+     * Counters for the storage status endpoint
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("processed", processed.get());
+        stats.put("optimized", optimized.get());
+        stats.put("thumbnails", thumbnails.get());
+        stats.put("bytesSaved", bytesSaved.get());
+        stats.put("rejected", rejected.get());
+        stats.put("failures", failures.get());
+        stats.put("activeThreads", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        return stats;
+    }
+
+    // Helper methods
+
+    private boolean enqueue(Long documentId, String filePath) {
+        if (!pending.add(documentId)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    process(documentId, Paths.get(filePath));
+                } finally {
+                    pending.remove(documentId);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            // Pool saturated - the sweep will retry
+            pending.remove(documentId);
+            rejected.incrementAndGet();
+            return false;
+        }
+    }
+
+    private void process(Long documentId, Path source) {
+        Path optimizedPath = null;
+        Path thumbnailPath = null;
+        try {
+            if (!Files.isRegularFile(source)) {
+                return; // Deleted or moved meanwhile; a later sweep sees the new path
+            }
+
+            long originalSize = Files.size(source);
+            byte[] header = readHeader(source);
+            String format = header.length > 1 && (header[0] & 0xFF) == 0xFF ? "jpeg" : "png";
+            int orientation = "jpeg".equals(format) ? ExifOrientation.read(source) : 1;
+            boolean hasMetadata = "jpeg".equals(format) && ExifOrientation.hasExif(source);
+
+            BufferedImage image = readImage(source);
+            if (image == null) {
+                markProcessed(documentId, source, null, null, null);
+                return;
+            }
+
+            // Optimized copy: only when too large (pixels or bytes) or carrying metadata
+            byte[] optimizedBytes = null;
+            // Scaling happens before orientation is applied; the longest side is the same either way
+            boolean oversized = Math.max(image.getWidth(), image.getHeight()) > maxDimension;
+            if (oversized || originalSize > recompressAboveBytes || hasMetadata || orientation != 1) {
+                BufferedImage scaled = ExifOrientation.apply(scaleToFit(image, maxDimension), orientation);
+                byte[] encoded = "jpeg".equals(format) ? encodeJpeg(scaled, jpegQuality) : encodePng(scaled);
+                if (encoded.length < originalSize || hasMetadata || orientation != 1) {
+                    optimizedBytes = encoded;
+                }
+            }
+
+            // Thumbnail for the approval view (always JPEG)
+            byte[] thumbnailBytes = encodeJpeg(ExifOrientation.apply(scaleToFit(image, thumbnailSize), orientation), 0.75f);
+
+            String baseName = UUID.randomUUID().toString();
+            thumbnailPath = source.resolveSibling(baseName + "_thumb.jpg");
+            durableFileWriter.write(thumbnailPath, thumbnailBytes);
+            if (optimizedBytes != null) {
+                optimizedPath = source.resolveSibling(baseName + "." + ("jpeg".equals(format) ? "jpg" : "png"));
+                durableFileWriter.write(optimizedPath, optimizedBytes);
+            }
+
+            if (markProcessed(documentId, source, optimizedPath, thumbnailPath, optimizedBytes)) {
+                thumbnails.incrementAndGet();
+                if (optimizedBytes != null) {
+                    optimized.incrementAndGet();
+                    bytesSaved.addAndGet(originalSize - optimizedBytes.length);
+                }
+            } else {
+                deleteQuietly(optimizedPath);
+                deleteQuietly(thumbnailPath);
+            }
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            logger.warn("Image processing failed for document {}: {}", documentId, e.toString());
+            deleteQuietly(optimizedPath);
+            deleteQuietly(thumbnailPath);
+            // Do not retry undecodable images on every sweep
+            try {
+                markProcessed(documentId, source, null, null, null);
+            } catch (Exception ignored) {
+                // Left for the next sweep
+            }
+        } finally {
+            processed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Re-point the row at the optimized file (written from optimizedBytes) and record the thumbnail,
+     * in one transaction. Returns false if the document was deleted or moved since processing started.
+     */
+    private boolean markProcessed(Long documentId, Path source, Path optimizedPath, Path thumbnailPath,
+                                  byte[] optimizedBytes) {
+        // Hashed before the transaction, from the bytes just written
+        String optimizedHash = optimizedPath != null ? sha256Hex(optimizedBytes) : null;
+        long optimizedSize = optimizedPath != null ? optimizedBytes.length : 0L;
+
+        List<Long> tombstoneIds = transactionTemplate.execute(status -> {
+            DayEntryDocument document = documentRepository.findById(documentId).orElse(null);
+            if (document == null || !source.toString().equals(document.getFilePath())) {
+                return null;
+            }
+
+            List<DocumentDeletion> tombstones = new ArrayList<>();
+            if (optimizedPath != null) {
+                // Usage counts the served file only (thumbnails and kept originals are not counted)
+                DayEntry dayEntry = document.getDayEntry();
+                long previousSize = document.getFileSize() != null ? document.getFileSize() : 0L;
+                storageUsageService.recordRemoved(dayEntry.getUser(), dayEntry.getDate(), 0, previousSize - optimizedSize);
+
+                if (keepOriginal) {
+                    document.setOriginalPath(source.toString());
+                } else {
+                    tombstones.add(new DocumentDeletion(source.toString()));
+                }
+                document.setFilePath(optimizedPath.toString());
+                document.setStoredFilename(optimizedPath.getFileName().toString());
+                document.setFileSize(optimizedSize);
+                document.setContentHash(optimizedHash);
+            }
+            if (thumbnailPath != null) {
+                if (document.getThumbnailPath() != null) {
+                    tombstones.add(new DocumentDeletion(document.getThumbnailPath()));
+                }
+                document.setThumbnailPath(thumbnailPath.toString());
+            }
+            document.setImageProcessedAt(LocalDateTime.now());
+            documentRepository.save(document);
+
+            return deletionRepository.saveAll(tombstones).stream().map(DocumentDeletion::getId).toList();
+        });
+
+        if (tombstoneIds == null) {
+            return false;
+        }
+        if (!tombstoneIds.isEmpty()) {
+            reconciliationService.processDeletions(tombstoneIds);
+        }
+        return true;
+    }
+
+    private BufferedImage readImage(Path source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    logger.info("Skipping image {} ({}x{}): above the pixel limit", source, width, height);
+                    return null;
+                }
+
+                // Decode very large images subsampled, still at least twice the target size
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.max(width, height) / (maxDimension * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Fit within size x size, halving repeatedly before the final bilinear step so text stays legible
+     */
+    private BufferedImage scaleToFit(BufferedImage image, int size) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (Math.max(width, height) <= size) {
+            return toRgb(image);
+        }
+
+        double scale = (double) size / Math.max(width, height);
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage current = toRgb(image);
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = resize(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        return resize(current, targetWidth, targetHeight);
+    }
+
+    private BufferedImage resize(BufferedImage image, int width, int height) {
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    /**
+     * Flatten onto white (transparent PNG areas would otherwise turn black in JPEG)
+     */
+    private BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = rgb.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+            graphics.drawImage(image, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return rgb;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            // No metadata is passed, so EXIF (GPS, camera, timestamps) is not written
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private byte[] readHeader(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.readNBytes(4);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.debug("Could not delete {}: {}", path, e.toString());
+        }
+    }
+
+    private String sha256Hex(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Minimal reader for the EXIF orientation tag of a JPEG (APP1 segment, IFD0 tag 0x0112)
+     */
+    static final class ExifOrientation {
+
+        private static final int MAX_SCAN_BYTES = 128 * 1024;
+
+        private ExifOrientation() {}
+
+        static boolean hasExif(Path file) throws IOException {
+            return findExif(file) != null;
+        }
+
+        static int read(Path file) throws IOException {
+            byte[] tiff = findExif(file);
+            if (tiff == null || tiff.length < 8) {
+                return 1;
+            }
+
+            boolean littleEndian = tiff[0] == 'I' && tiff[1] == 'I';
+            int ifdOffset = readInt(tiff, 4, littleEndian);
+            if (ifdOffset < 8 || ifdOffset + 2 > tiff.length) {
+                return 1;
+            }
+            int entries = readShort(tiff, ifdOffset, littleEndian);
+            for (int i = 0; i < entries; i++) {
+                int entry = ifdOffset + 2 + i * 12;
+                if (entry + 12 > tiff.length) {
+                    break;
+                }
+                if (readShort(tiff, entry, littleEndian) == 0x0112) {
+                    int orientation = readShort(tiff, entry + 8, littleEndian);
+                    return orientation >= 1 && orientation <= 8 ? orientation : 1;
+                }
+            }
+            return 1;
+        }
+
+        /**
+         * Rotate/flip pixels so the image displays upright without the tag
+         */
+        static BufferedImage apply(BufferedImage image, int orientation) {
+            if (orientation <= 1 || orientation > 8) {
+                return image;
+            }
+
+            int width = image.getWidth();
+            int height = image.getHeight();
+            boolean swap = orientation >= 5;
+            BufferedImage oriented = new BufferedImage(swap ? height : width, swap ? width : height,
+                    BufferedImage.TYPE_INT_RGB);
+            for (int y = 0; y < oriented.getHeight(); y++) {
+                for (int x = 0; x < oriented.getWidth(); x++) {
+                    int rgb = switch (orientation) {
+                        case 2 -> image.getRGB(width - 1 - x, y);
+                        case 3 -> image.getRGB(width - 1 - x, height - 1 - y);
+                        case 4 -> image.getRGB(x, height - 1 - y);
+                        case 5 -> image.getRGB(y, x);
+                        case 6 -> image.getRGB(y, height - 1 - x);
+                        case 7 -> image.getRGB(width - 1 - y, height - 1 - x);
+                        default -> image.getRGB(width - 1 - y, x); // 8
+                    };
+                    oriented.setRGB(x, y, rgb);
+                }
+            }
+            return oriented;
+        }
+
+        // TIFF block of the Exif APP1 segment, or null
+        private static byte[] findExif(Path file) throws IOException {
+            try (InputStream in = Files.newInputStream(file)) {
+                byte[] head = in.readNBytes(MAX_SCAN_BYTES);
+                if (head.length < 4 || (head[0] & 0xFF) != 0xFF || (head[1] & 0xFF) != 0xD8) {
+                    return null;
+                }
+                int pos = 2;
+                while (pos + 4 <= head.length && (head[pos] & 0xFF) == 0xFF) {
+                    int marker = head[pos + 1] & 0xFF;
+                    int length = ((head[pos + 2] & 0xFF) << 8) | (head[pos + 3] & 0xFF);
+                    if (marker == 0xDA || length < 2) {
+                        return null; // Start of scan: no more metadata segments
+                    }
+                    if (marker == 0xE1 && pos + 4 + length - 2 <= head.length && length >= 8
+                            && head[pos + 4] == 'E' && head[pos + 5] == 'x' && head[pos + 6] == 'i'
+                            && head[pos + 7] == 'f') {
+                        return Arrays.copyOfRange(head, pos + 10, pos + 2 + length);
+                    }
+                    pos += 2 + length;
+                }
+                return null;
+            }
+        }
+
+        private static int readShort(byte[] data, int offset, boolean littleEndian) {
+            int b0 = data[offset] & 0xFF;
+            int b1 = data[offset + 1] & 0xFF;
+            return littleEndian ? (b1 << 8) | b0 : (b0 << 8) | b1;
+        }
+
+        private static int readInt(byte[] data, int offset, boolean littleEndian) {
+            int high = readShort(data, littleEndian ? offset + 2 : offset, littleEndian);
+            int low = readShort(data, littleEndian ? offset : offset + 2, littleEndian);
+            return (high << 16) | low;
+        }
+    }
+}
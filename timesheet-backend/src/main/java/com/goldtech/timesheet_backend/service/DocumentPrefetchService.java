@@ -0,0 +1,207 @@
+// DocumentPrefetchService.java - Warm document caches when a supervisor opens a timesheet
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small files are loaded into {@link DocumentContentCache}; larger ones are read once and discarded
+ * so the OS page cache holds them. At most one job runs per supervisor - opening another timesheet
+ * cancels the previous one - and each job stops at the configured file and byte caps.
+ */
+@Service
+public class DocumentPrefetchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentPrefetchService.class);
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private DayEntryDocumentRepository documentRepository;
+
+    @Autowired
+    private DocumentContentCache contentCache;
+
+    @Value("${app.upload.prefetch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.upload.prefetch.threads:2}")
+    private int threads;
+
+    @Value("${app.upload.prefetch.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Value("${app.upload.prefetch.max-files:20}")
+    private int maxFiles;
+
+    @Value("${app.upload.prefetch.max-bytes:16777216}")
+    private long maxBytes;
+
+    private ThreadPoolExecutor executor;
+    private final ConcurrentHashMap<Long, Future<?>> jobsBySupervisor = new ConcurrentHashMap<>();
+
+    private final AtomicLong jobsSubmitted = new AtomicLong();
+    private final AtomicLong jobsRejected = new AtomicLong();
+    private final AtomicLong jobsCancelled = new AtomicLong();
+    private final AtomicLong filesCached = new AtomicLong();
+    private final AtomicLong filesPageCached = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "document-prefetch");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Start warming the documents of a user's month for the given supervisor.
+     * Only metadata is read here (on the caller's transaction); file I/O happens on the prefetch pool.
+     */
+    public void prefetchMonth(Long supervisorId, Long userId, int year, int month) {
+        if (!enabled) {
+            return;
+        }
+
+        LocalDate start = LocalDate.of(year, month, 1);
+        List<String> filePaths = documentRepository.findFilePathsByUserIdAndDateBetween(
+                userId, start, start.plusMonths(1).minusDays(1));
+        if (filePaths.isEmpty()) {
+            cancel(supervisorId);
+            return;
+        }
+
+        List<String> capped = filePaths.size() > maxFiles ? filePaths.subList(0, maxFiles) : filePaths;
+        List<Path> paths = capped.stream().map(Paths::get).toList();
+
+        // Registered before it can run, so a finished job always finds (and removes) its own entry
+        FutureTask<Void> job = new FutureTask<>(() -> warm(paths), null) {
+            @Override
+            protected void done() {
+                jobsBySupervisor.remove(supervisorId, this);
+            }
+        };
+        Future<?> previous = jobsBySupervisor.put(supervisorId, job);
+        if (previous != null && previous.cancel(true)) {
+            jobsCancelled.incrementAndGet();
+        }
+
+        try {
+            executor.execute(job);
+            jobsSubmitted.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            // Pool saturated - prefetch is best effort
+            jobsBySupervisor.remove(supervisorId, job);
+            jobsRejected.incrementAndGet();
+        }
+    }
+
+    /**
+     * Cancel the supervisor's running prefetch, if any
+     */
+    public void cancel(Long supervisorId) {
+        Future<?> job = jobsBySupervisor.remove(supervisorId);
+        if (job != null && job.cancel(true)) {
+            jobsCancelled.incrementAndGet();
+        }
+    }
+
+    /**
+     * Prefetch counters for the storage status endpoint (hit effectiveness is reported by the cache)
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("jobsSubmitted", jobsSubmitted.get());
+        stats.put("jobsRejected", jobsRejected.get());
+        stats.put("jobsCancelled", jobsCancelled.get());
+        stats.put("filesCached", filesCached.get());
+        stats.put("filesPageCached", filesPageCached.get());
+        stats.put("bytesRead", bytesRead.get());
+        stats.put("pendingJobs", jobsBySupervisor.size());
+        stats.put("activeThreads", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        return stats;
+    }
+
+    // Helper methods
+
+    private void warm(List<Path> paths) {
+        long budget = maxBytes;
+        ByteBuffer buffer = null;
+
+        for (Path path : paths) {
+            if (Thread.currentThread().isInterrupted() || budget <= 0) {
+                return;
+            }
+            try {
+                long size = Files.size(path);
+                if (size > budget) {
+                    continue;
+                }
+
+                if (contentCache.admits(size)) {
+                    if (contentCache.prefetch(path)) {
+                        filesCached.incrementAndGet();
+                        bytesRead.addAndGet(size);
+                        budget -= size;
+                    }
+                } else {
+                    if (buffer == null) {
+                        buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+                    }
+                    long read = readThrough(path, buffer);
+                    filesPageCached.incrementAndGet();
+                    bytesRead.addAndGet(read);
+                    budget -= read;
+                }
+            } catch (IOException e) {
+                // Missing or unreadable files are reported when actually opened
+                logger.debug("Prefetch skipped {}: {}", path, e.toString());
+            }
+        }
+    }
+
+    private long readThrough(Path path, ByteBuffer buffer) throws IOException {
+        long total = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            int read;
+            while ((read = channel.read(buffer.clear())) != -1) {
+                total += read;
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+            }
+        }
+        return total;
+    }
+}
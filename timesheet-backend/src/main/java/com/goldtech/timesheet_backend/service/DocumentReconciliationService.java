@@ -0,0 +1,354 @@
+// DocumentReconciliationService.java - Deferred file deletes and orphan reconciliation for the upload directory
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.DocumentDeletion;
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository;
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository.DocumentDerivedPathRow;
+import com.goldtech.timesheet_backend.repository.DocumentDeletionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+@Service
+public class DocumentReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentReconciliationService.class);
+
+    private static final String CHECKPOINT_FILE = ".reconcile-checkpoint";
+    private static final int LOOKUP_BATCH_SIZE = 500;
+    private static final int TOMBSTONE_BATCH_SIZE = 500;
+
+    @Autowired
+    private DayEntryDocumentRepository documentRepository;
+
+    @Autowired
+    private DocumentDeletionRepository deletionRepository;
+
+    @Autowired
+    private DocumentContentCache contentCache;
+
+    @Value("${app.upload.dir:${user.home}/timesheet-uploads}")
+    private String uploadDir;
+
+    @Value("${app.upload.cold-dir:}")
+    private String coldDir;
+
+    @Value("${app.upload.reconcile.delete-orphans:false}")
+    private boolean deleteOrphans;
+
+    @Value("${app.upload.reconcile.files-per-run:5000}")
+    private int filesPerRun;
+
+    @Value("${app.upload.reconcile.files-per-second:500}")
+    private int filesPerSecond;
+
+    @Value("${app.upload.reconcile.orphan-grace-minutes:60}")
+    private long orphanGraceMinutes;
+
+    @Value("${app.upload.reconcile.max-delete-attempts:10}")
+    private int maxDeleteAttempts;
+
+    private volatile Map<String, Object> lastReport = Collections.emptyMap();
+
+    /**
+     * Delete the physical files behind the given tombstones.
+     * Called after the owning transaction committed, so it needs its own transaction.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void processDeletions(List<Long> deletionIds) {
+        executeDeletions(deletionRepository.findAllById(deletionIds));
+    }
+
+    /**
+     * Retry tombstones whose after-commit delete never ran (crash, I/O error)
+     */
+    @Scheduled(fixedDelayString = "${app.upload.reconcile.tombstone-interval-ms:60000}",
+            initialDelayString = "${app.upload.reconcile.tombstone-interval-ms:60000}")
+    @Transactional
+    public void sweepTombstones() {
+        // Leave fresh tombstones to their after-commit hook
+        LocalDateTime before = LocalDateTime.now().minusMinutes(1);
+        List<DocumentDeletion> pending = deletionRepository.findPendingBefore(
+                before, maxDeleteAttempts, PageRequest.of(0, TOMBSTONE_BATCH_SIZE));
+
+        if (!pending.isEmpty()) {
+            logger.info("Retrying {} pending document deletions", pending.size());
+            executeDeletions(pending);
+        }
+    }
+
+    /**
+     * Walk the upload directory and the cold root incrementally and remove or report files without a
+     * document row. Each run resumes after the last fully scanned user directory of each root and stops
+     * there once that root's file budget is used.
+     */
+    @Scheduled(fixedDelayString = "${app.upload.reconcile.interval-ms:3600000}",
+            initialDelayString = "${app.upload.reconcile.initial-delay-ms:300000}")
+    public void reconcileUploadDirectory() {
+        long startedAt = System.currentTimeMillis();
+        List<OrphanScanner> scanners = new ArrayList<>();
+        Map<String, String> checkpoints = new LinkedHashMap<>();
+        for (String dir : coldDir == null || coldDir.isBlank() ? List.of(uploadDir) : List.of(uploadDir, coldDir)) {
+            OrphanScanner scanner = new OrphanScanner();
+            String checkpoint = reconcileRoot(Paths.get(dir), scanner);
+            if (checkpoint != null) {
+                scanners.add(scanner);
+                checkpoints.put(dir, checkpoint);
+            }
+        }
+        if (scanners.isEmpty()) {
+            return;
+        }
+
+        int dirsScanned = scanners.stream().mapToInt(scanner -> scanner.directories).sum();
+        int filesScanned = scanners.stream().mapToInt(scanner -> scanner.scanned).sum();
+        int orphans = scanners.stream().mapToInt(scanner -> scanner.orphans).sum();
+        int deleted = scanners.stream().mapToInt(scanner -> scanner.deleted).sum();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("finishedAt", LocalDateTime.now());
+        report.put("durationMs", System.currentTimeMillis() - startedAt);
+        report.put("directoriesScanned", dirsScanned);
+        report.put("filesScanned", filesScanned);
+        report.put("orphansFound", orphans);
+        report.put("orphansDeleted", deleted);
+        report.put("deleteOrphans", deleteOrphans);
+        report.put("checkpoints", checkpoints);
+        lastReport = Collections.unmodifiableMap(report);
+
+        logger.info("Upload reconciliation: {} files in {} directories, {} orphans ({} deleted)",
+                filesScanned, dirsScanned, orphans, deleted);
+    }
+
+    /**
+     * Summary of the last reconciliation run plus outstanding tombstones (for the storage status endpoint)
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("pendingDeletions", deletionRepository.count());
+        status.put("lastReconciliation", lastReport);
+        return status;
+    }
+
+    // Helper methods
+
+    /**
+     * Scan one storage root from its checkpoint on. Returns the new checkpoint ("" if none yet),
+     * or null if the root has no user directories.
+     */
+    private String reconcileRoot(Path root, OrphanScanner scanner) {
+        if (!Files.isDirectory(root)) {
+            return null;
+        }
+
+        List<Path> userDirs;
+        try {
+            userDirs = listUserDirectories(root);
+        } catch (IOException e) {
+            logger.warn("Failed to list upload directory: {}", root, e);
+            return null;
+        }
+        if (userDirs.isEmpty()) {
+            return null;
+        }
+
+        String checkpoint = readCheckpoint(root);
+        int start = 0;
+        if (checkpoint != null) {
+            while (start < userDirs.size() && userDirs.get(start).getFileName().toString().compareTo(checkpoint) <= 0) {
+                start++;
+            }
+            if (start == userDirs.size()) {
+                start = 0; // Full pass done, wrap around
+            }
+        }
+
+        String lastCompleted = checkpoint;
+
+        for (int i = 0; i < userDirs.size() && scanner.scanned < filesPerRun; i++) {
+            Path userDir = userDirs.get((start + i) % userDirs.size());
+            try {
+                Files.walkFileTree(userDir, scanner);
+                scanner.flush();
+            } catch (IOException e) {
+                logger.warn("Failed to scan upload directory: {}", userDir, e);
+                break;
+            }
+            lastCompleted = userDir.getFileName().toString();
+            writeCheckpoint(root, lastCompleted);
+            scanner.directories++;
+        }
+        return lastCompleted != null ? lastCompleted : "";
+    }
+
+    private void executeDeletions(List<DocumentDeletion> deletions) {
+        // A path can be in use again by the time its tombstone is retried (a file moved back to where
+        // it was tombstoned): such tombstones are dropped without touching the file
+        Set<String> referenced = referencedPaths(deletions.stream().map(DocumentDeletion::getFilePath).toList());
+        for (DocumentDeletion deletion : deletions) {
+            if (referenced.contains(deletion.getFilePath())) {
+                deletionRepository.delete(deletion);
+                logger.warn("Tombstoned file is referenced again, not deleted: {}", deletion.getFilePath());
+                continue;
+            }
+            try {
+                Files.deleteIfExists(Paths.get(deletion.getFilePath()));
+                contentCache.invalidate(deletion.getFilePath());
+                deletionRepository.delete(deletion);
+                logger.info("Physical file deleted: {}", deletion.getFilePath());
+            } catch (IOException e) {
+                deletion.setAttempts(deletion.getAttempts() + 1);
+                deletion.setLastError(truncate(e.toString()));
+                deletionRepository.save(deletion);
+                logger.warn("Failed to delete physical file (attempt {}): {}",
+                        deletion.getAttempts(), deletion.getFilePath(), e);
+            }
+        }
+    }
+
+    // Paths among these that a document row uses as its file, thumbnail or original
+    private Set<String> referencedPaths(List<String> paths) {
+        if (paths.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> referenced = new HashSet<>(documentRepository.findExistingFilePaths(paths));
+        for (DocumentDerivedPathRow row : documentRepository.findExistingDerivedPaths(paths)) {
+            referenced.add(row.getThumbnailPath());
+            referenced.add(row.getOriginalPath());
+        }
+        return referenced;
+    }
+
+    private List<Path> listUserDirectories(Path root) throws IOException {
+        try (Stream<Path> children = Files.list(root)) {
+            return children
+                    .filter(Files::isDirectory)
+                    .filter(path -> path.getFileName().toString().startsWith("user_"))
+                    .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                    .toList();
+        }
+    }
+
+    private String readCheckpoint(Path root) {
+        try {
+            Path checkpointFile = root.resolve(CHECKPOINT_FILE);
+            if (Files.exists(checkpointFile)) {
+                String value = Files.readString(checkpointFile, StandardCharsets.UTF_8).trim();
+                return value.isEmpty() ? null : value;
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to read reconciliation checkpoint", e);
+        }
+        return null;
+    }
+
+    private void writeCheckpoint(Path root, String userDirName) {
+        try {
+            Files.writeString(root.resolve(CHECKPOINT_FILE), userDirName, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.warn("Failed to write reconciliation checkpoint", e);
+        }
+    }
+
+    private String truncate(String value) {
+        return value.length() > 500 ? value.substring(0, 500) : value;
+    }
+
+    /**
+     * File visitor that batches candidate paths, checks them against the database and paces its own I/O
+     */
+    private class OrphanScanner extends SimpleFileVisitor<Path> {
+
+        private final List<String> batch = new ArrayList<>();
+        private final Instant graceCutoff = Instant.now().minusSeconds(orphanGraceMinutes * 60);
+        private long windowStart = System.nanoTime();
+        private int directories;
+        private int scanned;
+        private int orphans;
+        private int deleted;
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            if (!attrs.isRegularFile()) {
+                return FileVisitResult.CONTINUE;
+            }
+
+            scanned++;
+            throttle();
+
+            // Skip files young enough to belong to a transaction that has not committed yet
+            if (attrs.lastModifiedTime().toInstant().isBefore(graceCutoff)) {
+                batch.add(file.toString());
+                if (batch.size() >= LOOKUP_BATCH_SIZE) {
+                    flush();
+                }
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException exc) {
+            logger.warn("Cannot read upload file: {}", file, exc);
+            return FileVisitResult.CONTINUE;
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            Set<String> referenced = referencedPaths(batch);
+            for (String path : batch) {
+                if (referenced.contains(path)) {
+                    continue;
+                }
+
+                orphans++;
+                if (deleteOrphans) {
+                    try {
+                        Files.deleteIfExists(Paths.get(path));
+                        contentCache.invalidate(path);
+                        deleted++;
+                        logger.info("Orphan file deleted: {}", path);
+                    } catch (IOException e) {
+                        logger.warn("Failed to delete orphan file: {}", path, e);
+                    }
+                } else {
+                    logger.warn("Orphan file found (not referenced by any document): {}", path);
+                }
+            }
+            batch.clear();
+        }
+
+        private void throttle() {
+            if (filesPerSecond <= 0 || scanned % filesPerSecond != 0) {
+                return;
+            }
+
+            long elapsedMs = (System.nanoTime() - windowStart) / 1_000_000;
+            if (elapsedMs < 1000) {
+                try {
+                    Thread.sleep(1000 - elapsedMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            windowStart = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+// DocumentSignedUrlService.java - Short-lived HMAC-signed document download URLs
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository;
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository.DocumentSigningRow;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Signed tokens carry everything needed to serve a file: the storage tier and path relative to
+ * its root, expiry, content hash, MIME type and filename. The download handler only checks
+ * the HMAC and expiry, so it needs neither the database nor an authenticated user.
+ * Stored files are never rewritten in place (image optimisation and tiering write a new path and
+ * hash), so the signed hash stays a strong validator for the signed path.
+ */
+@Service
+public class DocumentSignedUrlService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentSignedUrlService.class);
+
+    public static final String SIGNED_PATH_PREFIX = "/documents/signed/";
+
+    private static final String VERSION = "v2";
+    private static final String HOT = "hot";
+    private static final String COLD = "cold";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    @Autowired
+    private DayEntryDocumentRepository documentRepository;
+
+    @Value("${app.upload.dir:${user.home}/timesheet-uploads}")
+    private String uploadDir;
+
+    @Value("${app.upload.cold-dir:}")
+    private String coldDir;
+
+    @Value("${app.upload.signed-url.secret:${jwt.secret}}")
+    private String secret;
+
+    @Value("${app.upload.signed-url.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private Path uploadRoot;
+    private Path coldRoot;
+    private ThreadLocal<Mac> macs;
+
+    @PostConstruct
+    public void init() {
+        uploadRoot = Paths.get(uploadDir).toAbsolutePath().normalize();
+        coldRoot = coldDir == null || coldDir.isBlank() ? null : Paths.get(coldDir).toAbsolutePath().normalize();
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot initialise " + HMAC_ALGORITHM, e);
+            }
+        });
+    }
+
+    /**
+     * Documents to sign, with owner and supervisor ids so the caller can check access
+     */
+    @Transactional(readOnly = true)
+    public List<DocumentSigningRow> findSigningRows(Collection<Long> documentIds) {
+        if (documentIds == null || documentIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return documentRepository.findSigningRowsByIdIn(documentIds);
+    }
+
+    /**
+     * Issue a signed token per document. Documents without a recorded content hash get it computed and stored.
+     */
+    @Transactional
+    public Map<Long, SignedDocument> sign(List<DocumentSigningRow> rows) throws IOException {
+        long expiresAt = Instant.now().getEpochSecond() + ttlSeconds;
+        Map<Long, SignedDocument> signed = new LinkedHashMap<>();
+
+        for (DocumentSigningRow row : rows) {
+            Path filePath = Paths.get(row.getFilePath()).toAbsolutePath().normalize();
+            String tier = filePath.startsWith(uploadRoot) ? HOT
+                    : coldRoot != null && filePath.startsWith(coldRoot) ? COLD : null;
+            if (tier == null || !Files.isRegularFile(filePath)) {
+                logger.warn("Not signing document {}: file missing or outside the storage roots", row.getId());
+                continue;
+            }
+            Path root = HOT.equals(tier) ? uploadRoot : coldRoot;
+
+            String contentHash = row.getContentHash();
+            if (contentHash == null) {
+                contentHash = hashFile(filePath);
+                documentRepository.updateContentHash(row.getId(), contentHash);
+            }
+
+            String payload = String.join("\n", VERSION, tier,
+                    root.relativize(filePath).toString().replace('\\', '/'),
+                    Long.toString(expiresAt), contentHash, row.getMimeType(), row.getOriginalFilename());
+            String token = encode(payload.getBytes(StandardCharsets.UTF_8)) + "." + encode(hmac(payload));
+            signed.put(row.getId(), new SignedDocument(token, expiresAt));
+        }
+        return signed;
+    }
+
+    /**
+     * Check signature and expiry and resolve the file. Returns null for any invalid or expired token.
+     */
+    public VerifiedDocument verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+
+        String payload;
+        byte[] signature;
+        try {
+            payload = new String(Base64.getUrlDecoder().decode(token.substring(0, dot)), StandardCharsets.UTF_8);
+            signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        if (!MessageDigest.isEqual(hmac(payload), signature)) {
+            return null;
+        }
+
+        String[] fields = payload.split("\n", 7);
+        if (fields.length != 7 || !VERSION.equals(fields[0])) {
+            return null;
+        }
+
+        long expiresAt = Long.parseLong(fields[3]);
+        if (Instant.now().getEpochSecond() > expiresAt) {
+            return null;
+        }
+
+        // Signed paths come from us, but never serve anything outside the storage roots
+        Path root = HOT.equals(fields[1]) ? uploadRoot : COLD.equals(fields[1]) ? coldRoot : null;
+        if (root == null) {
+            return null;
+        }
+        Path filePath = root.resolve(fields[2]).normalize();
+        if (!filePath.startsWith(root)) {
+            return null;
+        }
+
+        return new VerifiedDocument(filePath, expiresAt, fields[4], fields[5], fields[6]);
+    }
+
+    // Helper methods
+
+    private byte[] hmac(String payload) {
+        return macs.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private String hashFile(Path file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+                while (in.read(buffer) != -1) {
+                    // Reading drives the digest
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Token handed to the client
+     */
+    public static class SignedDocument {
+        private final String token;
+        private final long expiresAt;
+
+        public SignedDocument(String token, long expiresAt) {
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+
+        // Getters
+        public String getToken() { return token; }
+        public long getExpiresAt() { return expiresAt; }
+    }
+
+    /**
+     * Contents of a valid token
+     */
+    public static class VerifiedDocument {
+        private final Path filePath;
+        private final long expiresAt;
+        private final String contentHash;
+        private final String mimeType;
+        private final String filename;
+
+        public VerifiedDocument(Path filePath, long expiresAt, String contentHash, String mimeType, String filename) {
+            this.filePath = filePath;
+            this.expiresAt = expiresAt;
+            this.contentHash = contentHash;
+            this.mimeType = mimeType;
+            this.filename = filename;
+        }
+
+        // Getters
+        public Path getFilePath() { return filePath; }
+        public long getExpiresAt() { return expiresAt; }
+        public String getContentHash() { return contentHash; }
+        public String getMimeType() { return mimeType; }
+        public String getFilename() { return filename; }
+    }
+}
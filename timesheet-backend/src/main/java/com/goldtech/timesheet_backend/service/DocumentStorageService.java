@@ -3,21 +3,31 @@ package com.goldtech.timesheet_backend.service;
 
 import com.goldtech.timesheet_backend.entity.DayEntry;
 import com.goldtech.timesheet_backend.entity.DayEntryDocument;
+import com.goldtech.timesheet_backend.entity.DocumentDeletion;
 import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository;
+import com.goldtech.timesheet_backend.repository.DocumentDeletionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.YearMonth;
 import java.util.Base64;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -28,6 +38,33 @@ public class DocumentStorageService {
     @Autowired
     private DayEntryDocumentRepository documentRepository;
 
+    @Autowired
+    private DocumentDeletionRepository deletionRepository;
+
+    @Autowired
+    private DocumentReconciliationService reconciliationService;
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @Autowired
+    private DurableFileWriter durableFileWriter;
+
+    @Autowired
+    private DocumentContentCache contentCache;
+
+    @Autowired
+    private DocumentTieringService tieringService;
+
+    @Autowired
+    private StorageUsageService storageUsageService;
+
+    @Autowired
+    private DocumentValidationService validationService;
+
+    @Autowired
+    private DocumentImageService imageService;
+
     // Configure upload directory in application.properties
     @Value("${app.upload.dir:${user.home}/timesheet-uploads}")
     private String uploadDir;
@@ -40,12 +77,21 @@ public class DocumentStorageService {
             return;
         }
 
+        // Validate every document before writing any: size from the encoded length, type from the leading bytes
+        List<DocumentValidationService.DetectedType> detectedTypes = documents.stream()
+                .map(this::validateDocument)
+                .toList();
+
         // Create upload directory if it doesn't exist
         createUploadDirectory();
 
-        for (DocumentUploadDto documentDto : documents) {
+        for (int i = 0; i < documents.size(); i++) {
+            DocumentUploadDto documentDto = documents.get(i);
             try {
-                saveDocument(dayEntry, documentDto);
+                saveDocument(dayEntry, documentDto, detectedTypes.get(i));
+            } catch (IllegalArgumentException e) {
+                // Validation and quota rejections surface to the client as-is
+                throw e;
             } catch (Exception e) {
                 logger.error("Failed to save document: {}", documentDto.getName(), e);
                 throw new RuntimeException("Failed to save document: " + documentDto.getName(), e);
@@ -56,25 +102,31 @@ public class DocumentStorageService {
     /**
      * Save a single document
      */
-    private void saveDocument(DayEntry dayEntry, DocumentUploadDto documentDto) throws IOException {
+    private void saveDocument(DayEntry dayEntry, DocumentUploadDto documentDto,
+                              DocumentValidationService.DetectedType detectedType) throws IOException {
+        if (documentDto.getUploadId() != null && !documentDto.getUploadId().isEmpty()) {
+            saveChunkedDocument(dayEntry, documentDto.getUploadId());
+            return;
+        }
+
         // Decode base64 content
         byte[] fileContent = Base64.getDecoder().decode(documentDto.getBase64Data());
+        storageUsageService.checkQuota(dayEntry.getUser(), dayEntry.getDate(), fileContent.length);
 
-        // Generate unique filename
-        String fileExtension = getFileExtension(documentDto.getName());
-        String storedFilename = UUID.randomUUID().toString() + "." + fileExtension;
+        // Generate unique filename (extension follows the detected content, not the client's name)
+        String storedFilename = UUID.randomUUID().toString() + "." + detectedType.getExtension();
 
         // Create file path
-        Path filePath = Paths.get(uploadDir, "user_" + dayEntry.getUser().getId(),
-                dayEntry.getDate().getYear() + "",
-                dayEntry.getDate().getMonthValue() + "",
-                storedFilename);
+        Path filePath = buildStoragePath(dayEntry, storedFilename);
 
         // Create directories if they don't exist
         Files.createDirectories(filePath.getParent());
 
-        // Write file to disk
-        Files.write(filePath, fileContent);
+        // Write file to disk (fsync + atomic rename, group-committed with concurrent uploads)
+        durableFileWriter.write(filePath, fileContent);
+
+        // Remove the file again if the surrounding transaction rolls back
+        registerRollbackCleanup(filePath);
 
         // Save document metadata to database
         DayEntryDocument document = new DayEntryDocument();
@@ -82,36 +134,111 @@ public class DocumentStorageService {
         document.setOriginalFilename(documentDto.getName());
         document.setStoredFilename(storedFilename);
         document.setFilePath(filePath.toString());
-        document.setMimeType(documentDto.getType());
-        document.setFileSize(documentDto.getSize());
+        document.setMimeType(detectedType.getMimeType());
+        document.setFileSize((long) fileContent.length);
+        document.setContentHash(sha256Hex(fileContent));
 
         documentRepository.save(document);
+        storageUsageService.recordAdded(dayEntry.getUser(), dayEntry.getDate(), fileContent.length);
+
+        // Photos are downscaled and thumbnailed in the background once the row is visible
+        runAfterCommit(() -> imageService.submit(document.getId(), document.getFilePath(), document.getMimeType()));
 
         logger.info("Document saved: {} -> {}", documentDto.getName(), storedFilename);
     }
 
     /**
-     * Delete documents for a day entry
+     * Save a document that was uploaded through the chunked upload protocol
+     */
+    private void saveChunkedDocument(DayEntry dayEntry, String uploadId) throws IOException {
+        Long userId = dayEntry.getUser().getId();
+        ChunkedUploadService.CompletedUpload upload = chunkedUploadService.getCompletedUpload(userId, uploadId);
+        storageUsageService.checkQuota(dayEntry.getUser(), dayEntry.getDate(), upload.getSize());
+
+        // Chunked uploads record the detected type when their first chunk arrives
+        DocumentValidationService.DetectedType detectedType = validationService.forMimeType(upload.getType());
+        String fileExtension = detectedType != null ? detectedType.getExtension() : getFileExtension(upload.getName());
+        String storedFilename = UUID.randomUUID().toString() + "." + fileExtension;
+        Path filePath = buildStoragePath(dayEntry, storedFilename);
+
+        // Link the staged file into place; the session is only dropped once the save commits
+        chunkedUploadService.claim(userId, uploadId, filePath);
+        registerRollbackCleanup(filePath);
+        durableFileWriter.syncDirectoryOf(filePath);
+        runAfterCommit(() -> chunkedUploadService.release(uploadId));
+
+        DayEntryDocument document = new DayEntryDocument();
+        document.setDayEntry(dayEntry);
+        document.setOriginalFilename(upload.getName());
+        document.setStoredFilename(storedFilename);
+        document.setFilePath(filePath.toString());
+        document.setMimeType(upload.getType());
+        document.setFileSize(upload.getSize());
+        document.setContentHash(upload.getSha256());
+
+        documentRepository.save(document);
+        storageUsageService.recordAdded(dayEntry.getUser(), dayEntry.getDate(), upload.getSize());
+        runAfterCommit(() -> imageService.submit(document.getId(), document.getFilePath(), document.getMimeType()));
+
+        logger.info("Chunked document saved: {} -> {}", upload.getName(), storedFilename);
+    }
+
+    /**
+     * Delete documents for a day entry.
+     * Physical files are tombstoned and only removed once the transaction commits.
      */
     public void deleteDocuments(Long dayEntryId) {
         List<DayEntryDocument> documents = documentRepository.findByDayEntryId(dayEntryId);
-
-        for (DayEntryDocument document : documents) {
-            try {
-                // Delete physical file
-                Path filePath = Paths.get(document.getFilePath());
-                if (Files.exists(filePath)) {
-                    Files.delete(filePath);
-                    logger.info("Physical file deleted: {}", document.getStoredFilename());
-                }
-            } catch (IOException e) {
-                logger.warn("Failed to delete physical file: {}", document.getStoredFilename(), e);
-            }
+        if (documents.isEmpty()) {
+            return;
         }
 
+        // Record tombstones in the same transaction as the row delete
+        // Thumbnails and kept originals go with the document
+        List<DocumentDeletion> tombstones = documents.stream()
+                .flatMap(document -> Stream.of(document.getFilePath(), document.getThumbnailPath(), document.getOriginalPath()))
+                .filter(Objects::nonNull)
+                .map(DocumentDeletion::new)
+                .toList();
+        List<Long> tombstoneIds = deletionRepository.saveAll(tombstones).stream()
+                .map(DocumentDeletion::getId)
+                .toList();
+
         // Delete database records
         documentRepository.deleteByDayEntryId(dayEntryId);
+        tombstones.forEach(tombstone -> contentCache.invalidate(tombstone.getFilePath()));
+
+        DayEntry dayEntry = documents.get(0).getDayEntry();
+        long bytes = documents.stream().mapToLong(this::sizeOf).sum();
+        storageUsageService.recordRemoved(dayEntry.getUser(), dayEntry.getDate(), documents.size(), bytes);
         logger.info("Deleted {} documents for day entry {}", documents.size(), dayEntryId);
+
+        // Physical files go after commit; leftovers are retried by the tombstone sweeper
+        runAfterCommit(() -> reconciliationService.processDeletions(tombstoneIds));
+    }
+
+    /**
+     * Check if a day entry owns any documents
+     */
+    public boolean hasDocuments(Long dayEntryId) {
+        return documentRepository.existsByDayEntryId(dayEntryId);
+    }
+
+    /**
+     * Move all documents of one day entry to another (metadata only, files stay where they are)
+     */
+    public int transferDocuments(DayEntry source, DayEntry target) {
+        // Same user; only the month counters change when the entries fall in different months
+        if (!YearMonth.from(source.getDate()).equals(YearMonth.from(target.getDate()))) {
+            List<DayEntryDocument> documents = documentRepository.findByDayEntryId(source.getId());
+            long bytes = documents.stream().mapToLong(this::sizeOf).sum();
+            storageUsageService.recordRemoved(source.getUser(), source.getDate(), documents.size(), bytes);
+            documents.forEach(document -> storageUsageService.recordAdded(target.getUser(), target.getDate(), sizeOf(document)));
+        }
+
+        int moved = documentRepository.reassignDayEntry(source.getId(), target);
+        logger.info("Moved {} documents from day entry {} to {}", moved, source.getId(), target.getId());
+        return moved;
     }
 
     /**
@@ -126,10 +253,69 @@ public class DocumentStorageService {
             throw new RuntimeException("Physical file not found: " + document.getStoredFilename());
         }
 
-        byte[] fileContent = Files.readAllBytes(filePath);
+        // Small files are served from memory after the first read
+        byte[] fileContent = contentCache.read(filePath);
+
+        // Cold files that are being read again may move back to the hot root (in the background)
+        tieringService.requestPromotion(filePath);
         return Base64.getEncoder().encodeToString(fileContent);
     }
 
+    /**
+     * Run an action once the current transaction has committed (immediately if there is none)
+     */
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    action.run();
+                } catch (Exception e) {
+                    logger.warn("After-commit storage action failed, leaving it to the sweeper", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Delete a freshly written file if the current transaction does not commit
+     */
+    private void registerRollbackCleanup(Path filePath) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    return;
+                }
+                try {
+                    Files.deleteIfExists(filePath);
+                    logger.info("Removed file written by rolled back transaction: {}", filePath);
+                } catch (IOException e) {
+                    logger.warn("Failed to remove file after rollback: {}", filePath, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Physical location for a stored file: {uploadDir}/user_{id}/{year}/{month}/{storedFilename}
+     */
+    private Path buildStoragePath(DayEntry dayEntry, String storedFilename) {
+        return Paths.get(uploadDir, "user_" + dayEntry.getUser().getId(),
+                dayEntry.getDate().getYear() + "",
+                dayEntry.getDate().getMonthValue() + "",
+                storedFilename);
+    }
+
     /**
      * Create upload directory
      */
@@ -145,6 +331,24 @@ public class DocumentStorageService {
         }
     }
 
+    private String sha256Hex(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Check size and content type of a base64 document; chunked uploads were checked on arrival
+     */
+    private DocumentValidationService.DetectedType validateDocument(DocumentUploadDto documentDto) {
+        if (documentDto.getUploadId() != null && !documentDto.getUploadId().isEmpty()) {
+            return null; // Validated while the chunks were received
+        }
+        return validationService.checkBase64(documentDto.getName(), documentDto.getBase64Data());
+    }
+
     /**
      * Extract file extension from filename
      */
@@ -155,6 +359,10 @@ public class DocumentStorageService {
         return filename.substring(filename.lastIndexOf(".") + 1).toLowerCase();
     }
 
+    private long sizeOf(DayEntryDocument document) {
+        return document.getFileSize() != null ? document.getFileSize() : 0L;
+    }
+
     /**
      * DTO for document upload
      */
@@ -163,6 +371,7 @@ public class DocumentStorageService {
         private String type;
         private Long size;
         private String base64Data;
+        private String uploadId; // Completed chunked upload (instead of base64Data)
 
         public DocumentUploadDto(String name, String type, Long size, String base64Data) {
             this.name = name;
@@ -171,10 +380,16 @@ public class DocumentStorageService {
             this.base64Data = base64Data;
         }
 
+        public DocumentUploadDto(String name, String type, Long size, String base64Data, String uploadId) {
+            this(name, type, size, base64Data);
+            this.uploadId = uploadId;
+        }
+
         // Getters
         public String getName() { return name; }
         public String getType() { return type; }
         public Long getSize() { return size; }
         public String getBase64Data() { return base64Data; }
+        public String getUploadId() { return uploadId; }
     }
 }
\ No newline at end of file
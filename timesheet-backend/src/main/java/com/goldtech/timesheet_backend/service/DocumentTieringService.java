@@ -0,0 +1,281 @@
+// DocumentTieringService.java - Move document files between the hot and cold storage roots
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.DocumentDeletion;
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository;
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository.DocumentPathRow;
+import com.goldtech.timesheet_backend.repository.DocumentDeletionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The hot root is app.upload.dir; the cold root mirrors its layout (user_{id}/{year}/{month}/...).
+ * A move copies the file (fsync + atomic rename), re-points the document row and tombstones the
+ * old file in one transaction, and deletes the old file after commit - so filePath always names
+ * a complete file, and a crash at any step leaves at most an orphan copy for the reconciler.
+ * Promotions are written under a new filename: the hot path the file was demoted from may still
+ * have a pending tombstone.
+ */
+@Service
+public class DocumentTieringService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentTieringService.class);
+
+    @Autowired
+    private DayEntryDocumentRepository documentRepository;
+
+    @Autowired
+    private DocumentDeletionRepository deletionRepository;
+
+    @Autowired
+    private DocumentReconciliationService reconciliationService;
+
+    @Autowired
+    private DurableFileWriter durableFileWriter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.upload.dir:${user.home}/timesheet-uploads}")
+    private String uploadDir;
+
+    @Value("${app.upload.cold-dir:}")
+    private String coldDir;
+
+    @Value("${app.upload.tiering.hot-months:2}")
+    private int hotMonths;
+
+    @Value("${app.upload.tiering.min-hot-days:30}")
+    private long minHotDays;
+
+    @Value("${app.upload.tiering.files-per-run:1000}")
+    private int filesPerRun;
+
+    @Value("${app.upload.tiering.promote-on-read:false}")
+    private boolean promoteOnRead;
+
+    private Path hotRoot;
+    private Path coldRoot;
+    private TransactionTemplate transactionTemplate;
+    private ThreadPoolExecutor promoter;
+    private final Set<String> pendingPromotions = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong demoted = new AtomicLong();
+    private final AtomicLong promoted = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile Map<String, Object> lastRun = Collections.emptyMap();
+
+    @PostConstruct
+    public void init() {
+        // Same form as the paths DocumentStorageService stores, so prefixes and relativize line up
+        hotRoot = Paths.get(uploadDir);
+        coldRoot = coldDir == null || coldDir.isBlank() ? null : Paths.get(coldDir);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // One background mover for promotions; reads never wait for it
+        promoter = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(100), runnable -> {
+            Thread thread = new Thread(runnable, "document-promoter");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        promoter.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void stop() {
+        promoter.shutdownNow();
+    }
+
+    /**
+     * Whether a cold root is configured
+     */
+    public boolean isEnabled() {
+        return coldRoot != null;
+    }
+
+    /**
+     * Whether a stored path lives on the cold root
+     */
+    public boolean isCold(Path filePath) {
+        return coldRoot != null && filePath.startsWith(coldRoot);
+    }
+
+    /**
+     * Demote files of entries older than the hot window from the hot to the cold root
+     */
+    @Scheduled(fixedDelayString = "${app.upload.tiering.interval-ms:3600000}",
+            initialDelayString = "${app.upload.tiering.initial-delay-ms:600000}")
+    public void demoteOldDocuments() {
+        if (coldRoot == null) {
+            return;
+        }
+
+        long startedAt = System.currentTimeMillis();
+        // Entries before the first day of the oldest hot month (2 = current and previous month)
+        LocalDate before = LocalDate.now().withDayOfMonth(1).minusMonths(Math.max(hotMonths - 1, 0));
+        Instant minAge = Instant.now().minus(minHotDays, ChronoUnit.DAYS);
+        String pathPrefix = likePrefix(hotRoot.toString() + File.separator);
+
+        long afterId = 0;
+        int examined = 0;
+        int moved = 0;
+        while (examined < filesPerRun) {
+            List<DocumentPathRow> rows = documentRepository.findTieringCandidates(
+                    afterId, before, pathPrefix, PageRequest.of(0, Math.min(200, filesPerRun - examined)));
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            for (DocumentPathRow row : rows) {
+                afterId = row.getId();
+                examined++;
+
+                Path source = Paths.get(row.getFilePath());
+                try {
+                    // Recently written or promoted files stay hot for a while
+                    if (!source.startsWith(hotRoot) || !Files.isRegularFile(source)
+                            || Files.getLastModifiedTime(source).toInstant().isAfter(minAge)) {
+                        continue;
+                    }
+                    if (move(source, coldRoot.resolve(hotRoot.relativize(source)))) {
+                        demoted.incrementAndGet();
+                        moved++;
+                    }
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                    logger.warn("Failed to demote document file: {}", source, e);
+                }
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("finishedAt", LocalDateTime.now());
+        report.put("durationMs", System.currentTimeMillis() - startedAt);
+        report.put("entriesBefore", before);
+        report.put("examined", examined);
+        report.put("demoted", moved);
+        lastRun = Collections.unmodifiableMap(report);
+
+        if (moved > 0) {
+            logger.info("Demoted {} of {} examined document files to cold storage", moved, examined);
+        }
+    }
+
+    /**
+     * Queue a cold file to be copied back to the hot root (no-op unless promote-on-read is enabled).
+     * The path must be the stored filePath, since the row is matched on it.
+     */
+    public void requestPromotion(Path filePath) {
+        if (!promoteOnRead || !isCold(filePath)) {
+            return;
+        }
+
+        String key = filePath.toString();
+        if (!pendingPromotions.add(key)) {
+            return;
+        }
+        try {
+            promoter.execute(() -> {
+                try {
+                    if (move(filePath, freshName(hotRoot.resolve(coldRoot.relativize(filePath))))) {
+                        promoted.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                    logger.warn("Failed to promote document file: {}", filePath, e);
+                } finally {
+                    pendingPromotions.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Promotion queue full - the file simply stays cold for now
+            pendingPromotions.remove(key);
+        }
+    }
+
+    /**
+     * Counters for the storage status endpoint
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("coldRoot", coldRoot != null ? coldRoot.toString() : null);
+        stats.put("promoteOnRead", promoteOnRead);
+        stats.put("demoted", demoted.get());
+        stats.put("promoted", promoted.get());
+        stats.put("failures", failures.get());
+        stats.put("pendingPromotions", pendingPromotions.size());
+        stats.put("lastRun", lastRun);
+        return stats;
+    }
+
+    // Helper methods
+
+    // LIKE pattern matching everything that starts with the literal prefix ('_' and '%' occur in paths)
+    static String likePrefix(String prefix) {
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+
+    // Same directory and extension, new random name
+    private static Path freshName(Path path) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return path.resolveSibling(UUID.randomUUID() + (dot > 0 ? name.substring(dot) : ""));
+    }
+
+    /**
+     * Copy durably, re-point the row and tombstone the source. Returns false if no document uses the source anymore.
+     */
+    private boolean move(Path source, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.copy(source, temp);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        durableFileWriter.syncDirectoryOf(target);
+
+        Long tombstoneId = transactionTemplate.execute(status -> {
+            if (documentRepository.updateFilePath(source.toString(), target.toString(),
+                    target.getFileName().toString()) == 0) {
+                return null;
+            }
+            return deletionRepository.save(new DocumentDeletion(source.toString())).getId();
+        });
+
+        if (tombstoneId == null) {
+            // Document deleted (or moved) meanwhile - drop our copy
+            Files.deleteIfExists(target);
+            return false;
+        }
+
+        reconciliationService.processDeletions(List.of(tombstoneId));
+        return true;
+    }
+}
@@ -0,0 +1,217 @@
+// DocumentValidationService.java - Enforce allowed types and size limits on uploaded documents
+package com.goldtech.timesheet_backend.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The type of a document is decided by its leading magic bytes, never by the client's filename or
+ * MIME type. Only the first {@link #SNIFF_BYTES} are inspected, so base64 uploads are checked
+ * (size from the encoded length, type from a decoded prefix) before the full body is decoded,
+ * and chunked uploads are checked once their first SNIFF_BYTES (or the whole, shorter file) arrived.
+ */
+@Service
+public class DocumentValidationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentValidationService.class);
+
+    public static final int SNIFF_BYTES = 8192;
+
+    // Base64 characters encoding SNIFF_BYTES (a multiple of 4, so the prefix decodes on its own)
+    private static final int SNIFF_BASE64_CHARS = (SNIFF_BYTES + 2) / 3 * 4;
+
+    @Value("${app.upload.allowed-types:pdf,jpg,jpeg,png,doc,docx}")
+    private String allowedTypesProperty;
+
+    @Value("${app.upload.max-file-size:5242880}")
+    private long maxFileSize;
+
+    private Set<String> allowedExtensions;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejectedSize = new AtomicLong();
+    private final AtomicLong rejectedType = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        allowedExtensions = new HashSet<>();
+        for (String type : allowedTypesProperty.split(",")) {
+            if (!type.isBlank()) {
+                allowedExtensions.add(type.trim().toLowerCase());
+            }
+        }
+    }
+
+    /**
+     * Reject a size above app.upload.max-file-size
+     */
+    public void checkSize(long size) {
+        if (size > maxFileSize) {
+            rejectedSize.incrementAndGet();
+            throw new IllegalArgumentException(String.format("File exceeds the maximum size of %.1f MB",
+                    maxFileSize / 1048576.0));
+        }
+    }
+
+    /**
+     * Validate base64 content without decoding all of it: the size comes from the encoded
+     * length, the type from a decoded prefix.
+     */
+    public DetectedType checkBase64(String name, String base64Data) {
+        if (base64Data == null || base64Data.isEmpty()) {
+            throw new IllegalArgumentException("Document content is missing: " + name);
+        }
+        long size = decodedLength(base64Data);
+        if (size == 0) {
+            throw new IllegalArgumentException("Document is empty: " + name);
+        }
+        checkSize(size);
+
+        byte[] head;
+        try {
+            head = Base64.getDecoder().decode(base64Data.length() > SNIFF_BASE64_CHARS
+                    ? base64Data.substring(0, SNIFF_BASE64_CHARS) : base64Data);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Document content is not valid base64: " + name);
+        }
+        return checkContent(name, head, head.length);
+    }
+
+    /**
+     * Detect the type from the leading bytes and check it against app.upload.allowed-types
+     */
+    public DetectedType checkContent(String name, byte[] head, int length) {
+        DetectedType detected = detect(head, length);
+        if (detected == null || !isAllowed(detected)) {
+            rejectedType.incrementAndGet();
+            throw new IllegalArgumentException("File type not allowed: " + name
+                    + " (allowed: " + String.join(", ", new TreeSet<>(allowedExtensions)) + ")");
+        }
+
+        String declared = extensionOf(name);
+        if (declared != null && !detected.matchesExtension(declared)) {
+            logger.debug("Upload {} declared as .{} but contains {}", name, declared, detected.getMimeType());
+        }
+        accepted.incrementAndGet();
+        return detected;
+    }
+
+    /**
+     * Re-resolve a MIME type recorded by an earlier detection
+     */
+    public DetectedType forMimeType(String mimeType) {
+        for (DetectedType type : DetectedType.values()) {
+            if (type.getMimeType().equals(mimeType)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Counters for the storage status endpoint
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("allowedTypes", new TreeSet<>(allowedExtensions));
+        stats.put("maxFileSize", maxFileSize);
+        stats.put("accepted", accepted.get());
+        stats.put("rejectedSize", rejectedSize.get());
+        stats.put("rejectedType", rejectedType.get());
+        return stats;
+    }
+
+    // Helper methods
+
+    private boolean isAllowed(DetectedType type) {
+        return type.getExtensions().stream().anyMatch(allowedExtensions::contains);
+    }
+
+    private DetectedType detect(byte[] head, int length) {
+        if (startsWith(head, length, 0x25, 0x50, 0x44, 0x46, 0x2D)) { // %PDF-
+            return DetectedType.PDF;
+        }
+        if (startsWith(head, length, 0xFF, 0xD8, 0xFF)) {
+            return DetectedType.JPEG;
+        }
+        if (startsWith(head, length, 0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return DetectedType.PNG;
+        }
+        if (startsWith(head, length, 0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1)) { // OLE2 compound file
+            return DetectedType.DOC;
+        }
+        if (startsWith(head, length, 0x50, 0x4B, 0x03, 0x04)) { // ZIP: accept only Word (OOXML) packages
+            String entries = new String(head, 0, length, StandardCharsets.ISO_8859_1);
+            boolean ooxml = entries.contains("[Content_Types].xml") || entries.contains("word/");
+            boolean otherOffice = entries.contains("xl/") || entries.contains("ppt/");
+            return ooxml && !otherOffice ? DetectedType.DOCX : null;
+        }
+        return null;
+    }
+
+    private boolean startsWith(byte[] head, int length, int... signature) {
+        if (length < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((head[i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long decodedLength(String base64Data) {
+        int length = base64Data.length();
+        int padding = 0;
+        if (base64Data.endsWith("==")) {
+            padding = 2;
+        } else if (base64Data.endsWith("=")) {
+            padding = 1;
+        }
+        return (long) length / 4 * 3 + (length % 4 == 0 ? 0 : length % 4 - 1) - padding;
+    }
+
+    private String extensionOf(String filename) {
+        if (filename == null || !filename.contains(".")) {
+            return null;
+        }
+        return filename.substring(filename.lastIndexOf(".") + 1).toLowerCase();
+    }
+
+    /**
+     * Content types recognised by their signature
+     */
+    public enum DetectedType {
+        PDF("application/pdf", "pdf"),
+        JPEG("image/jpeg", "jpg", "jpeg"),
+        PNG("image/png", "png"),
+        DOC("application/msword", "doc"),
+        DOCX("application/vnd.openxmlformats-officedocument.wordprocessingml.document", "docx");
+
+        private final String mimeType;
+        private final List<String> extensions;
+
+        DetectedType(String mimeType, String... extensions) {
+            this.mimeType = mimeType;
+            this.extensions = List.of(extensions);
+        }
+
+        public String getMimeType() { return mimeType; }
+        public List<String> getExtensions() { return extensions; }
+
+        // Extension used for the stored filename
+        public String getExtension() { return extensions.get(0); }
+
+        public boolean matchesExtension(String extension) {
+            return extensions.contains(extension);
+        }
+    }
+}
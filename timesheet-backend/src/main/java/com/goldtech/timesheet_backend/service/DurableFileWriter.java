@@ -0,0 +1,281 @@
+// DurableFileWriter.java - Crash-safe file writes with group-committed fsyncs
+package com.goldtech.timesheet_backend.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Each caller writes and fsyncs a temp file in the target directory on its own thread (concurrent
+ * fsyncs are coalesced by the filesystem journal). A single background stage then collects every
+ * file submitted within a short window, renames them into place and fsyncs each distinct parent
+ * directory once. Callers block until their file is durable, so the guarantee matches
+ * write+fsync+rename+dir-fsync done inline, but concurrent uploads share the directory syncs.
+ * File fsyncs stay on the callers: each must finish before its rename, and on a single committer
+ * thread they would run one after another instead of overlapping.
+ */
+@Service
+public class DurableFileWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DurableFileWriter.class);
+
+    @Value("${app.upload.durable.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.upload.durable.group-window-ms:2}")
+    private long groupWindowMs;
+
+    @Value("${app.upload.durable.max-batch:64}")
+    private int maxBatch;
+
+    @Value("${app.upload.durable.await-timeout-ms:30000}")
+    private long awaitTimeoutMs;
+
+    private final BlockingQueue<PendingSync> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedEntries = new AtomicLong();
+    private final AtomicLong filesSynced = new AtomicLong();
+    private final AtomicLong directoriesSynced = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    // Guards running together with the queue, so nothing is added once stop() has drained it
+    private final Object lifecycleLock = new Object();
+    private volatile boolean running;
+    private Thread committer;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (lifecycleLock) {
+            running = true;
+        }
+        committer = new Thread(this::runCommitLoop, "document-group-commit");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        synchronized (lifecycleLock) {
+            running = false;
+        }
+        if (committer != null) {
+            committer.interrupt();
+            committer.join(5000);
+        }
+        // Nothing can be queued any more; whatever is left was never renamed and fails
+        List<PendingSync> leftovers = new ArrayList<>();
+        queue.drainTo(leftovers);
+        fail(leftovers, new IOException("Durable file writer stopped"));
+    }
+
+    /**
+     * Durably write content to target: temp file + fsync + atomic rename + directory fsync
+     */
+    public void write(Path target, byte[] content) throws IOException {
+        if (!enabled) {
+            Files.write(target, content);
+            return;
+        }
+
+        Path temp = target.resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            filesSynced.incrementAndGet();
+            await(submit(new PendingSync(temp, target)));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Make a directory entry created by rename/link (e.g. a claimed chunked upload) durable
+     */
+    public void syncDirectoryOf(Path file) throws IOException {
+        if (!enabled) {
+            return;
+        }
+        await(submit(new PendingSync(null, file)));
+    }
+
+    /**
+     * Counters for the storage status endpoint
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long batchCount = batches.get();
+        long fileCount = filesSynced.get();
+        long entryCount = batchedEntries.get();
+        stats.put("enabled", enabled);
+        stats.put("batches", batchCount);
+        stats.put("filesSynced", fileCount);
+        stats.put("directoriesSynced", directoriesSynced.get());
+        stats.put("averageBatchSize", batchCount == 0 ? 0.0 : (double) entryCount / batchCount);
+        stats.put("failedBatches", failedBatches.get());
+        stats.put("timeouts", timeouts.get());
+        return stats;
+    }
+
+    // Helper methods
+
+    private CompletableFuture<Void> submit(PendingSync pending) throws IOException {
+        synchronized (lifecycleLock) {
+            if (!running) {
+                throw new IOException("Durable file writer is not running");
+            }
+            queue.add(pending);
+        }
+        return pending.done;
+    }
+
+    private void await(CompletableFuture<Void> done) throws IOException {
+        try {
+            done.get(awaitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // A batch that has not reached this entry yet skips it; the caller removes its temp file
+            if (done.completeExceptionally(e)) {
+                timeouts.incrementAndGet();
+                throw new IOException("Timed out waiting for durable write", e);
+            }
+            await(done); // Finished just now
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for durable write");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Durable write failed", cause);
+        }
+    }
+
+    private void runCommitLoop() {
+        List<PendingSync> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                PendingSync first = queue.take();
+                batch.add(first);
+
+                // Gather whatever else arrives within the window
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(groupWindowMs);
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingSync next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                commitBatch(batch);
+            } catch (InterruptedException e) {
+                // Interrupted while gathering: the batch was never renamed
+                fail(batch, new InterruptedIOException("Durable file writer interrupted"));
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                // Keep the committer alive; only this batch's callers see the failure
+                failedBatches.incrementAndGet();
+                logger.error("Durable write batch of {} failed", batch.size(), e);
+                fail(batch, new IOException("Durable write failed", e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void fail(List<PendingSync> pending, IOException failure) {
+        for (PendingSync sync : pending) {
+            sync.done.completeExceptionally(failure);
+        }
+    }
+
+    private void commitBatch(List<PendingSync> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // Publish under the final name (contents were already flushed by the caller)
+        Set<Path> directories = new LinkedHashSet<>();
+        for (PendingSync pending : batch) {
+            if (pending.done.isDone()) {
+                continue; // Caller gave up waiting and removes its temp file
+            }
+            try {
+                if (pending.temp != null) {
+                    Files.move(pending.temp, pending.target, StandardCopyOption.ATOMIC_MOVE);
+                }
+                directories.add(pending.target.getParent());
+            } catch (IOException e) {
+                pending.done.completeExceptionally(e);
+            }
+        }
+
+        // One fsync per directory covers every rename in it
+        Map<Path, IOException> failedDirectories = new HashMap<>();
+        for (Path directory : directories) {
+            try {
+                syncDirectory(directory);
+                directoriesSynced.incrementAndGet();
+            } catch (IOException e) {
+                failedDirectories.put(directory, e);
+            }
+        }
+
+        for (PendingSync pending : batch) {
+            if (pending.done.isDone()) {
+                continue;
+            }
+            IOException failure = failedDirectories.get(pending.target.getParent());
+            if (failure != null) {
+                pending.done.completeExceptionally(failure);
+            } else {
+                pending.done.complete(null);
+            }
+        }
+        batches.incrementAndGet();
+        batchedEntries.addAndGet(batch.size());
+    }
+
+    private void syncDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (AccessDeniedException | UnsupportedOperationException e) {
+            // Some platforms (Windows) cannot open directories; renames are durable there without it
+            logger.debug("Directory fsync not supported for {}", directory);
+        }
+    }
+
+    private static class PendingSync {
+        private final Path temp;   // null when only the directory entry needs syncing
+        private final Path target;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        PendingSync(Path temp, Path target) {
+            this.temp = temp;
+            this.target = target;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+// LoginAdmissionService.java - Bounded executor and sliding-window throttles for password logins
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.dto.auth.LoginResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Password verification (BCrypt) runs on a small dedicated pool instead of request threads, so a
+ * burst of logins can use at most that many cores. When the pool and its queue are full the login
+ * is refused straight away with a retry hint. Before that, two in-memory sliding windows throttle
+ * failed attempts: per client IP, and per login identifier from that IP (cleared by a successful
+ * login). Only failures count, so users behind one NAT or proxy address are not throttled by each
+ * other's successful logins, and scoping the identifier lockout to the IP keeps someone else from
+ * locking an account out by failing on purpose; guessing from many addresses still meets the
+ * per-IP limit at each of them. An attempt holds a slot in both windows from admission until it
+ * succeeds, so a concurrent burst cannot get more guesses in than the limits while BCrypt runs.
+ */
+@Service
+public class LoginAdmissionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginAdmissionService.class);
+
+    // 0 = half the available cores
+    @Value("${app.security.login.threads:0}")
+    private int threads;
+
+    @Value("${app.security.login.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${app.security.login.busy-retry-after-seconds:2}")
+    private long busyRetryAfterSeconds;
+
+    @Value("${app.security.login.ip-max-failures:30}")
+    private int ipMaxFailures;
+
+    @Value("${app.security.login.ip-window-seconds:60}")
+    private long ipWindowSeconds;
+
+    @Value("${app.security.login.identifier-max-failures:5}")
+    private int identifierMaxFailures;
+
+    @Value("${app.security.login.identifier-window-seconds:900}")
+    private long identifierWindowSeconds;
+
+    @Value("${app.security.login.max-tracked-keys:100000}")
+    private int maxTrackedKeys;
+
+    private ThreadPoolExecutor executor;
+
+    private final ConcurrentHashMap<String, SlidingWindow> ipFailures = new ConcurrentHashMap<>();
+    // Keyed by identifier and client IP
+    private final ConcurrentHashMap<String, SlidingWindow> identifierFailures = new ConcurrentHashMap<>();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong saturated = new AtomicLong();
+    private final AtomicLong throttledByIp = new AtomicLong();
+    private final AtomicLong throttledByIdentifier = new AtomicLong();
+    private final AtomicLong untracked = new AtomicLong();
+    private final AtomicLong verified = new AtomicLong();
+    private final AtomicLong queueWaitNanos = new AtomicLong();
+    private final AtomicLong verifyNanos = new AtomicLong();
+    private final AtomicLong maxVerifyNanos = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "login-verify");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Run a login on the verification pool after the throttle checks.
+     * Throws LoginRejectedException (with a Retry-After in seconds) when throttled or saturated.
+     */
+    public CompletableFuture<LoginResponse> submit(String identifier, String clientIp, Supplier<LoginResponse> login) {
+        String ipKey = clientIp != null ? clientIp : "";
+        String identifierKey = (identifier != null ? identifier.trim().toLowerCase(Locale.ROOT) : "") + "|" + ipKey;
+        long now = System.currentTimeMillis();
+
+        // Reserve a slot in each window; a failure keeps it, a success gives it back
+        SlidingWindow ipWindow = window(ipFailures, ipKey, ipMaxFailures);
+        long ipRetryAfter = ipWindow != null ? ipWindow.tryReserve(now, ipWindowSeconds * 1000, ipMaxFailures) : 0;
+        if (ipRetryAfter > 0) {
+            throttledByIp.incrementAndGet();
+            logger.warn("Login throttled for client {}", ipKey);
+            throw new LoginRejectedException(ipRetryAfter, "Too many login attempts. Please try again later.");
+        }
+        SlidingWindow identifierWindow = window(identifierFailures, identifierKey, identifierMaxFailures);
+        long identifierRetryAfter = identifierWindow != null
+                ? identifierWindow.tryReserve(now, identifierWindowSeconds * 1000, identifierMaxFailures) : 0;
+        if (identifierRetryAfter > 0) {
+            release(ipWindow);
+            throttledByIdentifier.incrementAndGet();
+            logger.warn("Login throttled for identifier: {}", identifierKey);
+            throw new LoginRejectedException(identifierRetryAfter, "Too many failed login attempts. Please try again later.");
+        }
+
+        long queuedAt = System.nanoTime();
+        try {
+            CompletableFuture<LoginResponse> result = CompletableFuture.supplyAsync(() -> {
+                long startedAt = System.nanoTime();
+                queueWaitNanos.addAndGet(startedAt - queuedAt);
+                try {
+                    return login.get();
+                } finally {
+                    long elapsed = System.nanoTime() - startedAt;
+                    verified.incrementAndGet();
+                    verifyNanos.addAndGet(elapsed);
+                    maxVerifyNanos.accumulateAndGet(elapsed, Math::max);
+                }
+            }, executor);
+            submitted.incrementAndGet();
+
+            return result.whenComplete((response, error) -> {
+                if (response != null && response.isSuccess()) {
+                    release(ipWindow);
+                    if (identifierWindow != null) {
+                        identifierWindow.succeed();
+                    }
+                } else {
+                    long failedAt = System.currentTimeMillis();
+                    if (ipWindow != null) {
+                        ipWindow.fail(failedAt, ipWindowSeconds * 1000);
+                    }
+                    if (identifierWindow != null) {
+                        identifierWindow.fail(failedAt, identifierWindowSeconds * 1000);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            release(ipWindow);
+            release(identifierWindow);
+            saturated.incrementAndGet();
+            throw new LoginRejectedException(busyRetryAfterSeconds, "Server is busy. Please try again shortly.");
+        }
+    }
+
+    /**
+     * Drop windows with no attempts left inside them
+     */
+    @Scheduled(fixedDelayString = "${app.security.login.cleanup-interval-ms:60000}")
+    public void cleanup() {
+        long now = System.currentTimeMillis();
+        ipFailures.values().removeIf(window -> window.isEmpty(now, ipWindowSeconds * 1000));
+        identifierFailures.values().removeIf(window -> window.isEmpty(now, identifierWindowSeconds * 1000));
+    }
+
+    /**
+     * Counters for the auth metrics endpoint
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long verifiedCount = verified.get();
+        stats.put("threads", executor.getMaximumPoolSize());
+        stats.put("activeThreads", executor.getActiveCount());
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("submitted", submitted.get());
+        stats.put("verified", verifiedCount);
+        stats.put("saturated", saturated.get());
+        stats.put("throttledByIp", throttledByIp.get());
+        stats.put("throttledByIdentifier", throttledByIdentifier.get());
+        stats.put("untrackedAttempts", untracked.get());
+        stats.put("trackedIps", ipFailures.size());
+        stats.put("trackedIdentifiers", identifierFailures.size());
+        stats.put("avgQueueWaitMs", verifiedCount == 0 ? 0.0 : queueWaitNanos.get() / 1_000_000.0 / verifiedCount);
+        stats.put("avgVerifyMs", verifiedCount == 0 ? 0.0 : verifyNanos.get() / 1_000_000.0 / verifiedCount);
+        stats.put("maxVerifyMs", maxVerifyNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    // Helper methods
+
+    // The key's window, or null when too many keys are tracked already
+    private SlidingWindow window(ConcurrentHashMap<String, SlidingWindow> windows, String key, int limit) {
+        SlidingWindow window = windows.get(key);
+        if (window == null) {
+            if (windows.size() >= maxTrackedKeys) {
+                untracked.incrementAndGet(); // Fail open rather than grow without bound
+                return null;
+            }
+            window = windows.computeIfAbsent(key, k -> new SlidingWindow(limit));
+        }
+        return window;
+    }
+
+    private static void release(SlidingWindow window) {
+        if (window != null) {
+            window.release();
+        }
+    }
+
+    /**
+     * Timestamps of the last {@code limit} failures plus the attempts still being verified; the key is
+     * throttled while those fill the limit
+     */
+    private static class SlidingWindow {
+        private final long[] times;
+        private int count;
+        private int next;
+        private int inFlight;
+
+        SlidingWindow(int limit) {
+            this.times = new long[Math.max(1, limit)];
+        }
+
+        /**
+         * Take a slot for an attempt, or return seconds to wait (1 if only attempts in flight fill the window)
+         */
+        synchronized long tryReserve(long now, long windowMs, int limit) {
+            prune(now, windowMs);
+            int max = Math.min(limit, times.length);
+            if (count >= max) {
+                long oldest = times[(next - count + times.length) % times.length];
+                return Math.max(1, (oldest + windowMs - now + 999) / 1000);
+            }
+            if (count + inFlight >= max) {
+                return 1;
+            }
+            inFlight++;
+            return 0;
+        }
+
+        // The reserved attempt failed
+        synchronized void fail(long now, long windowMs) {
+            inFlight--;
+            prune(now, windowMs);
+            times[next] = now;
+            next = (next + 1) % times.length;
+            count = Math.min(count + 1, times.length);
+        }
+
+        // The reserved attempt succeeded; failures stay counted
+        synchronized void release() {
+            inFlight--;
+        }
+
+        // The reserved attempt succeeded and clears the recorded failures
+        synchronized void succeed() {
+            inFlight--;
+            count = 0;
+        }
+
+        synchronized boolean isEmpty(long now, long windowMs) {
+            prune(now, windowMs);
+            return count == 0 && inFlight == 0;
+        }
+
+        private void prune(long now, long windowMs) {
+            while (count > 0 && times[(next - count + times.length) % times.length] <= now - windowMs) {
+                count--;
+            }
+        }
+    }
+
+    /**
+     * Login refused before verification; the caller answers 429 with Retry-After
+     */
+    public static class LoginRejectedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final long retryAfterSeconds;
+
+        public LoginRejectedException(long retryAfterSeconds, String message) {
+            super(message);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+}
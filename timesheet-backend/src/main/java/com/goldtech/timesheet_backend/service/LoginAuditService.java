@@ -0,0 +1,122 @@
+// LoginAuditService.java - Write-behind buffer for last login time, IP and user agent
+package com.goldtech.timesheet_backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logins record their audit data here instead of updating the users row. Entries are coalesced
+ * per user (latest login wins) and written every few seconds as one JDBC batch; the update skips
+ * rows that already hold a later login (another instance) and leaves updated_at alone, since
+ * this is not an account change. A failed flush puts its entries back; shutdown flushes once more.
+ */
+@Service
+public class LoginAuditService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginAuditService.class);
+
+    private static final int MAX_USER_AGENT_LENGTH = 255;
+    private static final int MAX_IP_LENGTH = 45;
+
+    private static final String UPDATE_SQL = "UPDATE users SET last_login_at = ?, last_login_ip = ?, " +
+            "last_login_user_agent = ? WHERE id = ? AND (last_login_at IS NULL OR last_login_at < ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentHashMap<Long, LoginAudit> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile long lastFlushMillis;
+
+    /**
+     * Buffer a successful login; it reaches the database with the next flush
+     */
+    public void record(Long userId, LocalDateTime loginAt, String ip, String userAgent) {
+        LoginAudit audit = new LoginAudit(loginAt, truncate(ip, MAX_IP_LENGTH), truncate(userAgent, MAX_USER_AGENT_LENGTH));
+        recorded.incrementAndGet();
+        pending.merge(userId, audit, (existing, latest) -> {
+            coalesced.incrementAndGet();
+            return latest.loginAt().isAfter(existing.loginAt()) ? latest : existing;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.login-audit.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // Drain what is buffered now; logins arriving meanwhile wait for the next flush
+        Map<Long, LoginAudit> batch = new HashMap<>();
+        for (Long userId : new ArrayList<>(pending.keySet())) {
+            LoginAudit audit = pending.remove(userId);
+            if (audit != null) {
+                batch.put(userId, audit);
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            List<Object[]> args = new ArrayList<>(batch.size());
+            batch.forEach((userId, audit) -> {
+                Timestamp loginAt = Timestamp.valueOf(audit.loginAt());
+                args.add(new Object[]{loginAt, audit.ip(), audit.userAgent(), userId, loginAt});
+            });
+            int[] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+
+            flushes.incrementAndGet();
+            rowsWritten.addAndGet(Arrays.stream(counts).filter(count -> count > 0).count());
+            lastFlushMillis = System.currentTimeMillis() - start;
+            logger.debug("Flushed login audit of {} users in {} ms", batch.size(), lastFlushMillis);
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            batch.forEach((userId, audit) -> pending.merge(userId, audit,
+                    (existing, failed) -> existing.loginAt().isAfter(failed.loginAt()) ? existing : failed));
+            logger.warn("Login audit flush failed, {} entries kept for retry: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Counters for the auth metrics endpoint
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", pending.size());
+        stats.put("recorded", recorded.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("flushes", flushes.get());
+        stats.put("rowsWritten", rowsWritten.get());
+        stats.put("failures", failures.get());
+        stats.put("lastFlushMs", lastFlushMillis);
+        return stats;
+    }
+
+    // Helper methods
+
+    private String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+
+    private record LoginAudit(LocalDateTime loginAt, String ip, String userAgent) {}
+}
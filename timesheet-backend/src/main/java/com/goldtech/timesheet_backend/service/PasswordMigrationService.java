@@ -1,60 +1,168 @@
-// PasswordMigrationService.java - Automatically hash plaintext passwords on startup
+// PasswordMigrationService.java - Hash plaintext passwords in the background after startup
 package com.goldtech.timesheet_backend.service;
 
-import com.goldtech.timesheet_backend.entity.User;
+import com.goldtech.timesheet_backend.entity.JobCheckpoint;
+import com.goldtech.timesheet_backend.repository.JobCheckpointRepository;
 import com.goldtech.timesheet_backend.repository.UserRepository;
+import com.goldtech.timesheet_backend.repository.UserRepository.UserPasswordRow;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.*;
 
+/**
+ * Runs once per start on a background thread, so startup does not wait for it. Users are read
+ * in keyset pages of (id, password); plaintext passwords are BCrypted on a small pool and
+ * written back in short transactions of batch-size rows, each only if the password is unchanged
+ * since it was read. The last committed id is checkpointed so an interrupted pass resumes where
+ * it stopped; a completed pass clears the checkpoint.
+ */
 @Service
 public class PasswordMigrationService implements ApplicationRunner {
 
     private static final Logger logger = LoggerFactory.getLogger(PasswordMigrationService.class);
 
+    private static final String CHECKPOINT = "password-migration";
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private JobCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.security.password-migration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.security.password-migration.page-size:500}")
+    private int pageSize;
+
+    @Value("${app.security.password-migration.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.security.password-migration.threads:2}")
+    private int threads;
+
     @Override
-    @Transactional
     public void run(ApplicationArguments args) {
-        logger.info("Starting password migration - checking for plaintext passwords...");
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::migrate, "password-migration");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
 
-        List<User> allUsers = userRepository.findAll();
-        int migratedCount = 0;
+    // Helper methods
 
-        for (User user : allUsers) {
-            String currentPassword = user.getPassword();
+    private void migrate() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ExecutorService hashers = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "password-hash");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
 
-            // Check if password is NOT already hashed (BCrypt hashes start with $2a$, $2b$, or $2y$)
-            if (!isAlreadyHashed(currentPassword)) {
-                logger.info("Migrating plaintext password for user: {}", user.getEmail());
+        long started = System.currentTimeMillis();
+        long scanned = 0;
+        int migrated = 0;
+        try {
+            long afterId = checkpointRepository.findById(CHECKPOINT).map(JobCheckpoint::getPosition).orElse(0L);
+            if (afterId > 0) {
+                logger.info("Resuming password migration after user id {}", afterId);
+            } else {
+                logger.info("Starting password migration - checking for plaintext passwords...");
+            }
+
+            while (true) {
+                List<UserPasswordRow> page = userRepository.findPasswordsAfter(afterId, PageRequest.of(0, pageSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                scanned += page.size();
+
+                List<UserPasswordRow> plaintext = page.stream()
+                        .filter(row -> row.getPassword() != null && !isAlreadyHashed(row.getPassword()))
+                        .toList();
+                for (int from = 0; from < plaintext.size(); from += batchSize) {
+                    migrated += migrateBatch(plaintext.subList(from, Math.min(from + batchSize, plaintext.size())),
+                            hashers, transactionTemplate);
+                }
 
-                // Hash the plaintext password
-                String hashedPassword = passwordEncoder.encode(currentPassword);
-                user.setPassword(hashedPassword);
-                userRepository.save(user);
+                afterId = page.get(page.size() - 1).getId();
+                long checkpoint = afterId;
+                transactionTemplate.executeWithoutResult(status -> saveCheckpoint(checkpoint));
+            }
 
-                migratedCount++;
-                logger.info("Password migrated for user: {} (hash: {})", user.getEmail(), hashedPassword);
+            transactionTemplate.executeWithoutResult(status -> checkpointRepository.deleteById(CHECKPOINT));
+            if (migrated > 0) {
+                logger.info("Password migration completed. {} passwords were hashed ({} users scanned in {} ms).",
+                        migrated, scanned, System.currentTimeMillis() - started);
+            } else {
+                logger.info("No plaintext passwords found. All passwords are already hashed.");
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.info("Password migration interrupted after {} passwords; it resumes on next start", migrated);
+        } catch (Exception e) {
+            logger.error("Password migration stopped after {} passwords; it resumes on next start", migrated, e);
+        } finally {
+            hashers.shutdownNow();
         }
+    }
 
-        if (migratedCount > 0) {
-            logger.info("Password migration completed. {} passwords were hashed.", migratedCount);
-        } else {
-            logger.info("No plaintext passwords found. All passwords are already hashed.");
+    /**
+     * Hash one batch in parallel, then write it and the checkpoint in one short transaction
+     */
+    private int migrateBatch(List<UserPasswordRow> batch, ExecutorService hashers,
+                             TransactionTemplate transactionTemplate) throws InterruptedException, ExecutionException {
+        List<Callable<String>> tasks = new ArrayList<>(batch.size());
+        for (UserPasswordRow row : batch) {
+            tasks.add(() -> passwordEncoder.encode(row.getPassword()));
         }
+        List<Future<String>> hashes = hashers.invokeAll(tasks);
+
+        List<String> hashed = new ArrayList<>(hashes.size());
+        for (Future<String> hash : hashes) {
+            hashed.add(hash.get());
+        }
+
+        Integer updated = transactionTemplate.execute(status -> {
+            int count = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                UserPasswordRow row = batch.get(i);
+                count += userRepository.replacePassword(row.getId(), row.getPassword(), hashed.get(i));
+            }
+            saveCheckpoint(batch.get(batch.size() - 1).getId());
+            return count;
+        });
+        logger.debug("Hashed {} plaintext passwords up to user id {}", updated, batch.get(batch.size() - 1).getId());
+        return updated != null ? updated : 0;
+    }
+
+    private void saveCheckpoint(long afterId) {
+        JobCheckpoint checkpoint = checkpointRepository.findById(CHECKPOINT)
+                .orElseGet(() -> new JobCheckpoint(CHECKPOINT, 0L));
+        checkpoint.setPosition(afterId);
+        checkpointRepository.save(checkpoint);
     }
 
     private boolean isAlreadyHashed(String password) {
@@ -65,4 +173,4 @@ public class PasswordMigrationService implements ApplicationRunner {
                         password.startsWith("$2y$")) &&
                 password.length() == 60; // BCrypt hashes are always 60 characters
     }
-}
\ No newline at end of file
+}
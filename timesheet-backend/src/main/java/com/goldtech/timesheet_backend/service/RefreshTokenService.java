@@ -0,0 +1,160 @@
+// RefreshTokenService.java - Issue and rotate opaque refresh tokens (stored as SHA-256 hashes)
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.RefreshToken;
+import com.goldtech.timesheet_backend.repository.RefreshTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Refresh tokens let clients renew their access token without sending the password again, so a
+ * renewal costs one indexed lookup and a SHA-256 instead of a BCrypt verification. Each token is
+ * single use: refreshing spends it and issues a successor in the same family. Presenting a spent
+ * or revoked token means it was copied, so the whole family is revoked and the user must log in.
+ *
+ * Methods join the caller's transaction and report failure by returning null rather than
+ * throwing, so a family revocation is committed together with the rejected refresh.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int TOKEN_BYTES = 32;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Value("${app.security.refresh.ttl-days:14}")
+    private long ttlDays;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong rotated = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong reuseDetected = new AtomicLong();
+
+    /**
+     * Start a new token family for a fresh login; returns the raw token for the client
+     */
+    public String issue(Long userId) {
+        return create(userId, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Spend a refresh token and issue its successor, or null if the token is unknown,
+     * expired, revoked or already spent (the last two revoke the token's family)
+     */
+    public Rotation rotate(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            rejected.incrementAndGet();
+            return null;
+        }
+
+        Optional<RefreshToken> tokenOpt = refreshTokenRepository.findByTokenHashForUpdate(hash(rawToken));
+        if (tokenOpt.isEmpty()) {
+            rejected.incrementAndGet();
+            return null;
+        }
+
+        RefreshToken token = tokenOpt.get();
+        LocalDateTime now = LocalDateTime.now();
+        if (token.getUsedAt() != null || token.getRevokedAt() != null) {
+            reuseDetected.incrementAndGet();
+            int revoked = refreshTokenRepository.revokeFamily(token.getFamilyId(), now);
+            logger.warn("Refresh token reuse for user {}; revoked {} tokens of its family", token.getUserId(), revoked);
+            return null;
+        }
+        if (!token.getExpiresAt().isAfter(now)) {
+            rejected.incrementAndGet();
+            return null;
+        }
+
+        token.setUsedAt(now);
+        refreshTokenRepository.save(token);
+        rotated.incrementAndGet();
+        return new Rotation(token.getUserId(), create(token.getUserId(), token.getFamilyId()));
+    }
+
+    /**
+     * Revoke the family of a token (logout); unknown tokens are ignored
+     */
+    public void revokeFamily(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            return;
+        }
+        refreshTokenRepository.findByTokenHashForUpdate(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId(), LocalDateTime.now()));
+    }
+
+    /**
+     * Revoke every refresh token of a user (password reset, deactivation)
+     */
+    public void revokeAllForUser(Long userId) {
+        refreshTokenRepository.revokeAllForUser(userId, LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.refresh.cleanup-interval-ms:3600000}",
+            initialDelayString = "${app.security.refresh.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void cleanup() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            logger.info("Deleted {} expired refresh tokens", deleted);
+        }
+    }
+
+    /**
+     * Counters for the auth metrics endpoint
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ttlDays", ttlDays);
+        stats.put("issued", issued.get());
+        stats.put("rotated", rotated.get());
+        stats.put("rejected", rejected.get());
+        stats.put("reuseDetected", reuseDetected.get());
+        return stats;
+    }
+
+    // Helper methods
+
+    private String create(Long userId, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        refreshTokenRepository.save(new RefreshToken(hash(rawToken), userId, familyId,
+                LocalDateTime.now().plusDays(ttlDays)));
+        issued.incrementAndGet();
+        return rawToken;
+    }
+
+    private String hash(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Outcome of a successful refresh: whose token it was and the successor for the client
+     */
+    public record Rotation(Long userId, String refreshToken) {}
+}
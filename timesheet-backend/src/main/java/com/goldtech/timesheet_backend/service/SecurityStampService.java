@@ -0,0 +1,166 @@
+// SecurityStampService.java - In-memory table of user security stamps for self-contained tokens
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.User;
+import com.goldtech.timesheet_backend.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Every user has a random security stamp that is replaced whenever their account changes
+ * (status, roles, password, profile). Tokens carry the stamp they were issued with; a token whose
+ * stamp is no longer current is not trusted on its claims alone. Local changes update the table
+ * after commit; changes made by other instances are picked up by polling users.updated_at.
+ */
+@Service
+public class SecurityStampService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SecurityStampService.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${app.security.jwt-claims.stamp-refresh-ms:10000}")
+    private long refreshIntervalMs;
+
+    private final ConcurrentHashMap<Long, String> stamps = new ConcurrentHashMap<>();
+    private volatile LocalDateTime lastRefresh;
+    private volatile LocalDateTime lastFullReload;
+
+    private final AtomicLong current = new AtomicLong();
+    private final AtomicLong stale = new AtomicLong();
+    private final AtomicLong rotations = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        reloadAll();
+    }
+
+    /**
+     * Whether a token's stamp is still the user's current one
+     */
+    public boolean isCurrent(Long userId, String stamp) {
+        String expected = userId != null ? stamps.get(userId) : null;
+        if (expected != null && expected.equals(stamp)) {
+            current.incrementAndGet();
+            return true;
+        }
+        stale.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Give the user a stamp if they have none yet (tokens need one). The caller saves the user.
+     */
+    public String ensureStamp(User user) {
+        if (user.getSecurityStamp() == null) {
+            rotate(user);
+        }
+        return user.getSecurityStamp();
+    }
+
+    /**
+     * Replace the user's stamp, invalidating the claims of every token issued so far.
+     * The caller saves the user; the table follows once the transaction commits.
+     */
+    public void rotate(User user) {
+        String stamp = UUID.randomUUID().toString();
+        user.setSecurityStamp(stamp);
+        rotations.incrementAndGet();
+
+        if (user.getId() == null) {
+            return; // New user: picked up by the next refresh
+        }
+        Long userId = user.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Stop trusting old tokens right away; publish the new stamp only if it is committed
+            stamps.remove(userId);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    stamps.put(userId, stamp);
+                }
+            });
+        } else {
+            stamps.put(userId, stamp);
+        }
+    }
+
+    /**
+     * Forget a deleted user
+     */
+    public void remove(Long userId) {
+        stamps.remove(userId);
+    }
+
+    /**
+     * Pick up stamps changed on other instances; a full reload every 30 refreshes drops deleted users
+     */
+    @Scheduled(fixedDelayString = "${app.security.jwt-claims.stamp-refresh-ms:10000}",
+            initialDelayString = "${app.security.jwt-claims.stamp-refresh-ms:10000}")
+    public void refresh() {
+        if (lastFullReload == null || lastFullReload.isBefore(LocalDateTime.now().minusNanos(refreshIntervalMs * 30_000_000L))) {
+            reloadAll();
+            return;
+        }
+
+        // Overlap the previous poll so rows committed late (or with a skewed clock) are not missed
+        LocalDateTime since = lastRefresh.minusNanos(refreshIntervalMs * 2_000_000L);
+        LocalDateTime startedAt = LocalDateTime.now();
+        apply(userRepository.findSecurityStampsUpdatedSince(since));
+        lastRefresh = startedAt;
+    }
+
+    /**
+     * Counters for the auth metrics endpoint
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", stamps.size());
+        stats.put("currentStamps", current.get());
+        stats.put("staleStamps", stale.get());
+        stats.put("rotations", rotations.get());
+        stats.put("lastRefresh", lastRefresh);
+        stats.put("lastFullReload", lastFullReload);
+        return stats;
+    }
+
+    // Helper methods
+
+    private void reloadAll() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        List<Object[]> rows = userRepository.findAllSecurityStamps();
+        stamps.keySet().retainAll(rows.stream().map(row -> ((Number) row[0]).longValue()).toList());
+        apply(rows);
+        lastRefresh = startedAt;
+        lastFullReload = startedAt;
+        logger.debug("Loaded security stamps of {} users", stamps.size());
+    }
+
+    private void apply(List<Object[]> rows) {
+        for (Object[] row : rows) {
+            Long userId = ((Number) row[0]).longValue();
+            String stamp = (String) row[1];
+            if (stamp == null) {
+                stamps.remove(userId);
+            } else {
+                stamps.put(userId, stamp);
+            }
+        }
+    }
+}
@@ -0,0 +1,318 @@
+// StorageUsageService.java - Running per-user, per-site and per-month document storage counters
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.StorageUsage;
+import com.goldtech.timesheet_backend.entity.User;
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository;
+import com.goldtech.timesheet_backend.repository.StorageUsageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Counters live in storage_usage, one row per scope key. Changes made during a transaction are
+ * collected and applied as atomic upserts just before it commits, so the hot rows (current month,
+ * busy sites) are only locked for the commit itself rather than for the whole upload.
+ */
+@Service
+@Transactional
+public class StorageUsageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageUsageService.class);
+
+    private static final String UNASSIGNED_SITE = "unassigned";
+
+    @Autowired
+    private StorageUsageRepository usageRepository;
+
+    @Autowired
+    private DayEntryDocumentRepository documentRepository;
+
+    // Quotas in bytes, 0 = unlimited
+    @Value("${app.upload.quota.user-bytes:0}")
+    private long userQuotaBytes;
+
+    @Value("${app.upload.quota.user-month-bytes:0}")
+    private long userMonthQuotaBytes;
+
+    @Value("${app.upload.quota.site-bytes:0}")
+    private long siteQuotaBytes;
+
+    /**
+     * Count a stored file for its owner, site and entry month
+     */
+    public void recordAdded(User user, LocalDate entryDate, long bytes) {
+        pendingDeltas().add(user, entryDate, 1, bytes);
+    }
+
+    /**
+     * Remove stored files from the counters
+     */
+    public void recordRemoved(User user, LocalDate entryDate, long files, long bytes) {
+        pendingDeltas().add(user, entryDate, -files, -bytes);
+    }
+
+    /**
+     * Move a user's stored files from the previous project site's counter to the current one.
+     * Site counters attribute files to the owner's site at upload time; without this, a user who
+     * changes site leaves their bytes on the old site and later deletions drive the new one down.
+     * Uploads racing the change can still drift by a file; rebuild() recomputes from scratch.
+     */
+    public void recordSiteChange(User user, String previousSite) {
+        String from = siteKey(previousSite);
+        String to = siteKey(user.getProjectSite());
+        if (from.equals(to)) {
+            return;
+        }
+        usageRepository.findByScopeAndScopeKey(StorageUsage.Scope.USER, userKey(user))
+                .filter(total -> total.getFileCount() != 0 || total.getTotalBytes() != 0)
+                .ifPresent(total -> {
+                    UsageDeltas deltas = pendingDeltas();
+                    deltas.addSite(from, -total.getFileCount(), -total.getTotalBytes());
+                    deltas.addSite(to, total.getFileCount(), total.getTotalBytes());
+                });
+    }
+
+    /**
+     * Reject an upload that would exceed a configured quota. Reads the committed counters plus
+     * this transaction's pending changes; concurrent uploads may overshoot by one file each.
+     */
+    public void checkQuota(User user, LocalDate entryDate, long incomingBytes) {
+        if (userQuotaBytes > 0) {
+            long used = currentBytes(StorageUsage.Scope.USER, userKey(user));
+            if (used + incomingBytes > userQuotaBytes) {
+                throw new IllegalArgumentException(quotaMessage("your storage quota", used, userQuotaBytes));
+            }
+        }
+        if (userMonthQuotaBytes > 0 && entryDate != null) {
+            long used = currentBytes(StorageUsage.Scope.USER_MONTH, userMonthKey(user, entryDate));
+            if (used + incomingBytes > userMonthQuotaBytes) {
+                throw new IllegalArgumentException(quotaMessage("your monthly storage quota", used, userMonthQuotaBytes));
+            }
+        }
+        if (siteQuotaBytes > 0) {
+            long used = currentBytes(StorageUsage.Scope.SITE, siteKey(user.getProjectSite()));
+            if (used + incomingBytes > siteQuotaBytes) {
+                throw new IllegalArgumentException(quotaMessage("the project site storage quota", used, siteQuotaBytes));
+            }
+        }
+    }
+
+    /**
+     * All counters of one scope, largest first
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getUsage(StorageUsage.Scope scope) {
+        return usageRepository.findByScopeOrderByTotalBytesDesc(scope).stream()
+                .map(this::toMap)
+                .toList();
+    }
+
+    /**
+     * A user's total and per-month usage plus the applicable quotas
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getUserUsage(Long userId) {
+        Map<String, Object> usage = new LinkedHashMap<>();
+        StorageUsage total = usageRepository.findByScopeAndScopeKey(StorageUsage.Scope.USER, userId.toString())
+                .orElse(new StorageUsage(StorageUsage.Scope.USER, userId.toString(), 0L, 0L));
+        usage.put("userId", userId);
+        usage.put("fileCount", total.getFileCount());
+        usage.put("totalBytes", total.getTotalBytes());
+        usage.put("months", usageRepository
+                .findByScopeAndScopeKeyStartingWithOrderByTotalBytesDesc(StorageUsage.Scope.USER_MONTH, userId + ":")
+                .stream()
+                .map(this::toMap)
+                .toList());
+        usage.put("quotas", getQuotas());
+        return usage;
+    }
+
+    /**
+     * Totals over all stored documents (for the storage status endpoint)
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getTotals() {
+        Object[] sums = usageRepository.sumSiteTotals().get(0);
+        Map<String, Object> totals = new LinkedHashMap<>();
+        totals.put("fileCount", ((Number) sums[0]).longValue());
+        totals.put("totalBytes", ((Number) sums[1]).longValue());
+        totals.put("quotas", getQuotas());
+        return totals;
+    }
+
+    /**
+     * Recompute every counter from the document table (initial backfill, after manual file surgery,
+     * or to correct site drift). Sites are attributed to each user's current project site.
+     */
+    public Map<String, Object> rebuild() {
+        Map<String, long[]> counters = new HashMap<>();
+        for (Object[] row : documentRepository.aggregateUsageByUserAndMonth()) {
+            Long userId = ((Number) row[0]).longValue();
+            String site = row[1] != null && !((String) row[1]).isBlank() ? (String) row[1] : UNASSIGNED_SITE;
+            String month = String.format("%04d-%02d", ((Number) row[2]).intValue(), ((Number) row[3]).intValue());
+            long files = ((Number) row[4]).longValue();
+            long bytes = ((Number) row[5]).longValue();
+
+            accumulate(counters, StorageUsage.Scope.USER, userId.toString(), files, bytes);
+            accumulate(counters, StorageUsage.Scope.SITE, site, files, bytes);
+            accumulate(counters, StorageUsage.Scope.MONTH, month, files, bytes);
+            accumulate(counters, StorageUsage.Scope.USER_MONTH, userId + ":" + month, files, bytes);
+        }
+
+        usageRepository.deleteAllInBatch();
+        List<StorageUsage> rows = counters.entrySet().stream()
+                .map(entry -> {
+                    String[] scopeAndKey = entry.getKey().split("\\|", 2);
+                    return new StorageUsage(StorageUsage.Scope.valueOf(scopeAndKey[0]), scopeAndKey[1],
+                            entry.getValue()[0], entry.getValue()[1]);
+                })
+                .toList();
+        usageRepository.saveAll(rows);
+
+        logger.info("Storage usage rebuilt: {} counter rows", rows.size());
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("counterRows", rows.size());
+        return result;
+    }
+
+    // Helper methods
+
+    private long currentBytes(StorageUsage.Scope scope, String key) {
+        long committed = usageRepository.findByScopeAndScopeKey(scope, key)
+                .map(StorageUsage::getTotalBytes)
+                .orElse(0L);
+        UsageDeltas deltas = TransactionSynchronizationManager.isSynchronizationActive()
+                ? (UsageDeltas) TransactionSynchronizationManager.getResource(this) : null;
+        return committed + (deltas != null ? deltas.bytes(scope, key) : 0);
+    }
+
+    /**
+     * Deltas of the current transaction, flushed before commit (applied immediately without one)
+     */
+    private UsageDeltas pendingDeltas() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new UsageDeltas() {
+                @Override
+                void add(User user, LocalDate entryDate, long files, long bytes) {
+                    super.add(user, entryDate, files, bytes);
+                    flush();
+                }
+
+                @Override
+                void addSite(String site, long files, long bytes) {
+                    super.addSite(site, files, bytes);
+                    flush();
+                }
+            };
+        }
+
+        UsageDeltas deltas = (UsageDeltas) TransactionSynchronizationManager.getResource(this);
+        if (deltas == null) {
+            UsageDeltas created = new UsageDeltas();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    created.flush();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(StorageUsageService.this);
+                }
+            });
+            deltas = created;
+        }
+        return deltas;
+    }
+
+    private void accumulate(Map<String, long[]> counters, StorageUsage.Scope scope, String key, long files, long bytes) {
+        long[] counter = counters.computeIfAbsent(scope.name() + "|" + key, k -> new long[2]);
+        counter[0] += files;
+        counter[1] += bytes;
+    }
+
+    private Map<String, Object> toMap(StorageUsage usage) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("scope", usage.getScope());
+        map.put("key", usage.getScopeKey());
+        map.put("fileCount", usage.getFileCount());
+        map.put("totalBytes", usage.getTotalBytes());
+        map.put("updatedAt", usage.getUpdatedAt());
+        return map;
+    }
+
+    private Map<String, Object> getQuotas() {
+        Map<String, Object> quotas = new LinkedHashMap<>();
+        quotas.put("userBytes", userQuotaBytes);
+        quotas.put("userMonthBytes", userMonthQuotaBytes);
+        quotas.put("siteBytes", siteQuotaBytes);
+        return quotas;
+    }
+
+    private String quotaMessage(String quota, long used, long limit) {
+        return String.format("Upload would exceed %s (%.1f MB of %.1f MB used)",
+                quota, used / 1048576.0, limit / 1048576.0);
+    }
+
+    private static String userKey(User user) {
+        return user.getId().toString();
+    }
+
+    private static String siteKey(String site) {
+        return site != null && !site.isBlank() ? site : UNASSIGNED_SITE;
+    }
+
+    private static String userMonthKey(User user, LocalDate date) {
+        return user.getId() + ":" + monthKey(date);
+    }
+
+    private static String monthKey(LocalDate date) {
+        return String.format("%04d-%02d", date.getYear(), date.getMonthValue());
+    }
+
+    /**
+     * Per-transaction counter changes keyed by scope and key. Flushed in a fixed order
+     * (scope, then key) so concurrent commits lock the rows in the same sequence.
+     */
+    private class UsageDeltas {
+        private final TreeMap<String, long[]> deltas = new TreeMap<>();
+
+        void add(User user, LocalDate entryDate, long files, long bytes) {
+            accumulate(deltas, StorageUsage.Scope.USER, userKey(user), files, bytes);
+            accumulate(deltas, StorageUsage.Scope.SITE, siteKey(user.getProjectSite()), files, bytes);
+            accumulate(deltas, StorageUsage.Scope.MONTH, monthKey(entryDate), files, bytes);
+            accumulate(deltas, StorageUsage.Scope.USER_MONTH, userMonthKey(user, entryDate), files, bytes);
+        }
+
+        void addSite(String site, long files, long bytes) {
+            accumulate(deltas, StorageUsage.Scope.SITE, site, files, bytes);
+        }
+
+        long bytes(StorageUsage.Scope scope, String key) {
+            long[] delta = deltas.get(scope.name() + "|" + key);
+            return delta != null ? delta[1] : 0;
+        }
+
+        void flush() {
+            for (Map.Entry<String, long[]> entry : deltas.entrySet()) {
+                long[] delta = entry.getValue();
+                if (delta[0] == 0 && delta[1] == 0) {
+                    continue;
+                }
+                String[] scopeAndKey = entry.getKey().split("\\|", 2);
+                usageRepository.addUsage(scopeAndKey[0], scopeAndKey[1], delta[0], delta[1]);
+            }
+            deltas.clear();
+        }
+    }
+}
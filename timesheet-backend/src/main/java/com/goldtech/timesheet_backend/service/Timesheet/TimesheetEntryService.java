@@ -12,6 +12,7 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -83,9 +84,16 @@ public class TimesheetEntryService {
      */
     public void saveDocuments(DayEntry dayEntry, List<SaveEntryRequestDto.SupportingDocumentDto> documents) {
         if (documents != null && !documents.isEmpty()) {
+            // Linked days reuse the primary day's files instead of storing another copy
+            if (hasDocumentPrimary(dayEntry)) {
+                logger.debug("Skipping {} documents for {}: linked to primary day {}",
+                        documents.size(), dayEntry.getDate(), dayEntry.getPrimaryDocumentDay());
+                return;
+            }
+
             List<DocumentStorageService.DocumentUploadDto> uploadDtos = documents.stream()
                     .map(doc -> new DocumentStorageService.DocumentUploadDto(
-                            doc.getName(), doc.getType(), doc.getSize(), doc.getBase64Data()))
+                            doc.getName(), doc.getType(), doc.getSize(), doc.getBase64Data(), doc.getUploadId()))
                     .collect(Collectors.toList());
 
             documentStorageService.saveDocuments(dayEntry, uploadDtos);
@@ -99,23 +107,87 @@ public class TimesheetEntryService {
         Optional<DayEntry> entry = dayEntryRepository.findByUserIdAndDate(userId, date);
         if (entry.isPresent()) {
             DayEntry dayEntry = entry.get();
-            documentStorageService.deleteDocuments(dayEntry.getId());
+            deleteExistingDocuments(dayEntry);
             dayEntryRepository.delete(dayEntry);
             logger.info("Day entry deleted for user {} on {}", userId, date);
         }
     }
 
     /**
-     * Delete existing documents for an entry (for updates)
+     * Delete existing documents for an entry that is being removed.
+     * If other days link to this one, the documents are handed to the earliest of them instead.
      */
     public void deleteExistingDocuments(DayEntry dayEntry) {
-        if (dayEntry.getId() != null) {
+        if (dayEntry.getId() != null && !handOffDocuments(dayEntry)) {
             documentStorageService.deleteDocuments(dayEntry.getId());
         }
     }
 
+    /**
+     * Delete existing documents for an entry (for updates).
+     * Documents are only handed off when the update stops this day being the primary.
+     */
+    public void deleteExistingDocuments(DayEntry dayEntry, SaveEntryRequestDto request) {
+        if (dayEntry.getId() == null) {
+            return;
+        }
+        if (stopsOwningDocuments(dayEntry, request) && handOffDocuments(dayEntry)) {
+            return;
+        }
+        documentStorageService.deleteDocuments(dayEntry.getId());
+    }
+
     // Helper methods
 
+    private boolean hasDocumentPrimary(DayEntry dayEntry) {
+        if (!dayEntry.isLinkedDocumentEntry()) {
+            return false;
+        }
+        return dayEntryRepository.findByUserIdAndDate(dayEntry.getUser().getId(), dayEntry.getPrimaryDocumentDay())
+                .map(primary -> documentStorageService.hasDocuments(primary.getId()))
+                .orElse(false);
+    }
+
+    private boolean stopsOwningDocuments(DayEntry dayEntry, SaveEntryRequestDto request) {
+        if (DayEntry.EntryType.working_hours.name().equals(request.getType())) {
+            return true;
+        }
+        String primaryDay = request.getPrimaryDocumentDay();
+        return primaryDay != null && !primaryDay.isEmpty()
+                && !LocalDate.parse(primaryDay).equals(dayEntry.getDate())
+                && !Boolean.TRUE.equals(request.getIsPrimaryDocument());
+    }
+
+    /**
+     * Move a primary day's documents to the earliest day linked to it and re-point the other linked days.
+     * Returns false when nothing links to the entry (or it owns no documents), so the caller deletes as usual.
+     */
+    private boolean handOffDocuments(DayEntry primary) {
+        List<DayEntry> linked = dayEntryRepository
+                .findByUserIdAndPrimaryDocumentDay(primary.getUser().getId(), primary.getDate()).stream()
+                .filter(entry -> !entry.getId().equals(primary.getId()))
+                .sorted(Comparator.comparing(DayEntry::getDate))
+                .toList();
+        if (linked.isEmpty() || !documentStorageService.hasDocuments(primary.getId())) {
+            return false;
+        }
+
+        DayEntry newPrimary = linked.get(0);
+        documentStorageService.deleteDocuments(newPrimary.getId()); // drop any copy it stored itself
+        documentStorageService.transferDocuments(primary, newPrimary);
+
+        newPrimary.setIsPrimaryDocument(true);
+        newPrimary.setPrimaryDocumentDay(newPrimary.getDate());
+        for (DayEntry entry : linked.subList(1, linked.size())) {
+            entry.setPrimaryDocumentDay(newPrimary.getDate());
+        }
+        dayEntryRepository.saveAll(linked);
+
+        logger.info("Documents of {} handed to {} ({} linked days re-pointed)",
+                primary.getDate(), newPrimary.getDate(), linked.size() - 1);
+        return true;
+    }
+
     private void setOptionalField(String value, java.util.function.Consumer<String> setter) {
         if (value != null && !value.isEmpty()) {
             setter.accept(value);
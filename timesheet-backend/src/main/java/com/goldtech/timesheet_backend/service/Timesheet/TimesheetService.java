@@ -104,9 +104,9 @@ public class TimesheetService {
         DayEntry dayEntry = entryService.getOrCreateDayEntry(user, date);
         boolean isNewEntry = dayEntry.getId() == null;
 
-        // Delete existing documents if updating
+        // Delete existing documents if updating (or hand them to linked days)
         if (!isNewEntry) {
-            entryService.deleteExistingDocuments(dayEntry);
+            entryService.deleteExistingDocuments(dayEntry, request);
         }
 
         // Update entry
@@ -148,7 +148,7 @@ public class TimesheetService {
             DayEntry dayEntry = entryService.getOrCreateDayEntry(user, date);
 
             if (dayEntry.getId() != null) {
-                entryService.deleteExistingDocuments(dayEntry);
+                entryService.deleteExistingDocuments(dayEntry, request);
             }
 
             entryService.updateDayEntryFromRequest(dayEntry, request);
@@ -158,9 +158,16 @@ public class TimesheetService {
         // Save all entries
         savedEntries = dayEntryRepository.saveAll(savedEntries);
 
-        // Save documents
+        // Save documents - primary days first so linked days can reference them
+        for (int i = 0; i < requests.size(); i++) {
+            if (!savedEntries.get(i).isLinkedDocumentEntry()) {
+                entryService.saveDocuments(savedEntries.get(i), requests.get(i).getSupportingDocuments());
+            }
+        }
         for (int i = 0; i < requests.size(); i++) {
-            entryService.saveDocuments(savedEntries.get(i), requests.get(i).getSupportingDocuments());
+            if (savedEntries.get(i).isLinkedDocumentEntry()) {
+                entryService.saveDocuments(savedEntries.get(i), requests.get(i).getSupportingDocuments());
+            }
         }
 
         // Update timesheet status
@@ -170,9 +177,7 @@ public class TimesheetService {
         }
 
         logger.info("Saved {} bulk entries for user {}", savedEntries.size(), userId);
-        return savedEntries.stream()
-                .map(timesheetMapper::convertToDto)
-                .collect(Collectors.toList());
+        return timesheetMapper.convertToDtos(savedEntries);
     }
 
     /**
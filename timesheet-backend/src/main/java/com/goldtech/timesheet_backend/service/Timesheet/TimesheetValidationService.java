@@ -134,7 +134,9 @@ public class TimesheetValidationService {
             throw new IllegalArgumentException("Document name is required");
         }
 
-        if (doc.getBase64Data() == null || doc.getBase64Data().trim().isEmpty()) {
+        boolean hasContent = doc.getBase64Data() != null && !doc.getBase64Data().trim().isEmpty();
+        boolean hasUpload = doc.getUploadId() != null && !doc.getUploadId().trim().isEmpty();
+        if (!hasContent && !hasUpload) {
             throw new IllegalArgumentException("Document content is required");
         }
 
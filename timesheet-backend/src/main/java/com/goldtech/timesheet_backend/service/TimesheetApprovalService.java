@@ -44,6 +44,9 @@ public class TimesheetApprovalService {
     @Autowired
     private TimesheetBusinessRulesService businessRulesService;
 
+    @Autowired
+    private DocumentPrefetchService documentPrefetchService;
+
     /**
      * Get pending timesheets for a supervisor - UPDATED for versioning (only current versions)
      */
@@ -156,6 +159,10 @@ public class TimesheetApprovalService {
             throw new IllegalArgumentException("You are not authorized to view this timesheet");
         }
 
+        // Warm the attachments in the background; the supervisor usually opens them next
+        documentPrefetchService.prefetchMonth(supervisorId, timesheet.getUser().getId(),
+                timesheet.getYear(), timesheet.getMonth());
+
         // Return full timesheet details - this will get the current version data
         // but the specific timesheet version data will be from the requested ID
         TimesheetResponseDto response = timesheetService.getTimesheet(
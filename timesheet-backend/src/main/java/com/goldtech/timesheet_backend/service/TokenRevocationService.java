@@ -0,0 +1,251 @@
+// TokenRevocationService.java - Persisted JWT deny-list mirrored in a Bloom filter and exact set
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.RevokedToken;
+import com.goldtech.timesheet_backend.repository.RevokedTokenRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Revoked token ids (jti) are stored in revoked_tokens until the token's own expiry and mirrored
+ * in memory: a Bloom filter answers "not revoked" for almost every request without a lookup, and
+ * the exact set confirms the rare positives. Expired entries are pruned from both the table and
+ * memory, and the filter is rebuilt, so memory is bounded by the tokens revoked within one
+ * token lifetime. Revocations made on other instances are picked up by polling.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Value("${app.security.revocation.bloom-bits:2097152}")
+    private int bloomBits;
+
+    @Value("${app.security.revocation.bloom-hashes:7}")
+    private int bloomHashes;
+
+    @Value("${app.security.revocation.refresh-ms:10000}")
+    private long refreshIntervalMs;
+
+    // jti -> token expiry (epoch millis)
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+    private volatile LocalDateTime lastRefresh;
+
+    // Writers (revoke, poll, rebuild) serialize on this; isRevoked never blocks
+    private final Object writeLock = new Object();
+
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong bloomNegatives = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private final AtomicLong revokedHits = new AtomicLong();
+    private final AtomicLong revocations = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        filter = new BloomFilter(bloomBits, bloomHashes);
+        LocalDateTime startedAt = LocalDateTime.now();
+        load(revokedTokenRepository.findByExpiresAtAfter(startedAt));
+        lastRefresh = startedAt;
+        logger.debug("Loaded {} revoked tokens", revoked.size());
+    }
+
+    /**
+     * Whether a token id has been revoked (tokens without an id cannot be revoked)
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        checks.incrementAndGet();
+        if (!filter.mightContain(jti)) {
+            bloomNegatives.incrementAndGet();
+            return false;
+        }
+
+        Long expiresAt = revoked.get(jti);
+        if (expiresAt == null) {
+            falsePositives.incrementAndGet();
+            return false;
+        }
+        revokedHits.incrementAndGet();
+        return System.currentTimeMillis() < expiresAt;
+    }
+
+    /**
+     * Revoke a token until its expiry. The row is written first and memory updated once it has
+     * committed, so this instance never denies a token the other instances will not learn about.
+     * Takes effect here when the call returns, on other instances within one refresh interval.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void revoke(String jti, Long userId, Date expiration) {
+        if (jti == null || expiration == null || expiration.getTime() <= System.currentTimeMillis()) {
+            return; // Nothing to deny: no id, or the token is already unusable
+        }
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(expiration.toInstant(), ZoneId.systemDefault());
+        revokedTokenRepository.insertIfAbsent(jti, userId, expiresAt);
+
+        long expiresAtMillis = expiration.getTime();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(jti, expiresAtMillis);
+                    revocations.incrementAndGet();
+                }
+            });
+        } else {
+            add(jti, expiresAtMillis);
+            revocations.incrementAndGet();
+        }
+    }
+
+    /**
+     * Pick up revocations written by other instances since the last poll
+     */
+    @Scheduled(fixedDelayString = "${app.security.revocation.refresh-ms:10000}",
+            initialDelayString = "${app.security.revocation.refresh-ms:10000}")
+    public void refresh() {
+        // Overlap the previous poll so rows committed late are not missed
+        LocalDateTime startedAt = LocalDateTime.now();
+        load(revokedTokenRepository.findRevokedSince(lastRefresh.minusNanos(refreshIntervalMs * 2_000_000L), startedAt));
+        lastRefresh = startedAt;
+    }
+
+    /**
+     * Forget expired entries: delete their rows and rebuild the filter from what is left
+     */
+    @Scheduled(fixedDelayString = "${app.security.revocation.cleanup-interval-ms:3600000}",
+            initialDelayString = "${app.security.revocation.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void cleanup() {
+        int deleted = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+
+        long now = System.currentTimeMillis();
+        synchronized (writeLock) {
+            revoked.values().removeIf(expiresAt -> expiresAt <= now);
+            BloomFilter rebuilt = new BloomFilter(bloomBits, bloomHashes);
+            revoked.keySet().forEach(rebuilt::put);
+            filter = rebuilt;
+        }
+        if (deleted > 0) {
+            logger.info("Pruned {} expired revoked tokens, {} still denied", deleted, revoked.size());
+        }
+    }
+
+    /**
+     * Counters for the auth metrics endpoint
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("revokedTokens", revoked.size());
+        stats.put("bloomBits", bloomBits);
+        stats.put("bloomHashes", bloomHashes);
+        stats.put("bloomFill", filter.fillRatio());
+        stats.put("checks", checks.get());
+        stats.put("bloomNegatives", bloomNegatives.get());
+        stats.put("falsePositives", falsePositives.get());
+        stats.put("revokedHits", revokedHits.get());
+        stats.put("revocations", revocations.get());
+        stats.put("lastRefresh", lastRefresh);
+        return stats;
+    }
+
+    // Helper methods
+
+    private void load(List<RevokedToken> rows) {
+        for (RevokedToken row : rows) {
+            add(row.getJti(), row.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+    }
+
+    private void add(String jti, long expiresAt) {
+        synchronized (writeLock) {
+            revoked.put(jti, expiresAt);
+            filter.put(jti);
+        }
+    }
+
+    /**
+     * Fixed-size Bloom filter over strings; k bit positions from double hashing of a 64-bit FNV-1a hash
+     */
+    private static class BloomFilter {
+        private final AtomicLongArray words;
+        private final int bits;
+        private final int hashes;
+
+        BloomFilter(int bits, int hashes) {
+            this.bits = Math.max(64, bits);
+            this.hashes = Math.max(1, hashes);
+            this.words = new AtomicLongArray((this.bits + 63) / 64);
+        }
+
+        void put(String value) {
+            long hash = hash(value);
+            for (int i = 0; i < hashes; i++) {
+                int bit = index(hash, i);
+                int word = bit >>> 6;
+                long mask = 1L << (bit & 63);
+                long current;
+                do {
+                    current = words.get(word);
+                } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash(value);
+            for (int i = 0; i < hashes; i++) {
+                int bit = index(hash, i);
+                if ((words.get(bit >>> 6) & (1L << (bit & 63))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        double fillRatio() {
+            long set = 0;
+            for (int i = 0; i < words.length(); i++) {
+                set += Long.bitCount(words.get(i));
+            }
+            return (double) set / bits;
+        }
+
+        private int index(long hash, int i) {
+            int combined = (int) hash + i * (int) (hash >>> 32);
+            return (combined & Integer.MAX_VALUE) % bits;
+        }
+
+        private static long hash(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+// UserFilterOptionsService.java - Site → department → position → role filter options with user counts
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.repository.UserRepository;
+import com.goldtech.timesheet_backend.service.UserSearchIndex.FacetCounts;
+import com.goldtech.timesheet_backend.service.UserSearchIndex.FacetKey;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * All user filter options as one tree, built from the facet counts the user search index keeps
+ * up to date, so serving it reads no rows. The tree is rebuilt only when a count has changed;
+ * its ETag is a hash of the content, so it is the same on every instance and survives restarts.
+ * Until the index is built the counts come from two grouped queries instead.
+ *
+ * Users without a value at some level (no department, say) count toward the levels above only,
+ * and their roles are listed there. This matches the single-level endpoints: they leave out null
+ * values but list "" like any other value, and they include inactive users.
+ */
+@Service
+public class UserFilterOptionsService {
+
+    // Case-insensitive like the database ordering, but values differing in case stay apart
+    private static final Comparator<String> VALUE_ORDER =
+            String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+
+    @Autowired
+    private UserSearchIndex searchIndex;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private volatile FilterOptions cached;
+
+    /**
+     * The current tree and its ETag
+     */
+    public FilterOptions getFilterOptions() {
+        long version = searchIndex.facetVersion();
+        FilterOptions current = cached;
+        if (current != null && version >= 0 && current.version() == version) {
+            return current;
+        }
+
+        FacetCounts counts = searchIndex.facetCounts();
+        if (counts == null) {
+            return build(-1, countsFromDatabase()); // Not cached: the index takes over shortly
+        }
+        FilterOptions built = build(counts.version(), counts.counts());
+        cached = built;
+        return built;
+    }
+
+    // Helper methods
+
+    private FilterOptions build(long version, Map<FacetKey, Integer> counts) {
+        long total = 0;
+        Map<String, Long> roleTotals = new TreeMap<>(VALUE_ORDER);
+        Map<String, Node> sites = new TreeMap<>(VALUE_ORDER);
+
+        // User counts first, so every position exists before its roles are added
+        for (Map.Entry<FacetKey, Integer> entry : counts.entrySet()) {
+            FacetKey key = entry.getKey();
+            long count = entry.getValue();
+            if (key.role() != null) {
+                continue;
+            }
+            total += count;
+            if (key.projectSite() == null) {
+                continue;
+            }
+            Node site = sites.computeIfAbsent(key.projectSite(), value -> new Node());
+            site.count += count;
+            if (key.department() == null) {
+                continue;
+            }
+            Node department = site.child(key.department());
+            department.count += count;
+            if (key.position() != null) {
+                department.child(key.position()).count += count;
+            }
+        }
+
+        for (Map.Entry<FacetKey, Integer> entry : counts.entrySet()) {
+            FacetKey key = entry.getKey();
+            if (key.role() == null) {
+                continue;
+            }
+            long count = entry.getValue();
+            roleTotals.merge(key.role(), count, Long::sum);
+            if (key.projectSite() == null) {
+                continue;
+            }
+            // The database fallback reads users and roles in two queries, so a site may only show up here
+            Node site = sites.computeIfAbsent(key.projectSite(), value -> new Node());
+            site.roles.merge(key.role(), count, Long::sum);
+            if (key.department() == null) {
+                continue;
+            }
+            Node department = site.child(key.department());
+            department.roles.merge(key.role(), count, Long::sum);
+            if (key.position() != null) {
+                department.child(key.position()).roles.merge(key.role(), count, Long::sum);
+            }
+        }
+
+        StringBuilder canonical = new StringBuilder();
+        Map<String, Object> tree = new LinkedHashMap<>();
+        tree.put("total", total);
+        tree.put("roles", options(roleTotals, canonical, "r"));
+        tree.put("projectSites", sites(sites, canonical));
+        canonical.append("total:").append(total);
+
+        return new FilterOptions(version, etag(canonical), Collections.unmodifiableMap(tree));
+    }
+
+    private List<Map<String, Object>> sites(Map<String, Node> sites, StringBuilder canonical) {
+        List<Map<String, Object>> siteList = new ArrayList<>(sites.size());
+        sites.forEach((siteName, site) -> {
+            canonical.append("s:").append(siteName).append('=').append(site.count).append('\n');
+            List<Map<String, Object>> departments = new ArrayList<>(site.children.size());
+            site.children.forEach((departmentName, department) -> {
+                canonical.append("d:").append(departmentName).append('=').append(department.count).append('\n');
+                List<Map<String, Object>> positions = new ArrayList<>(department.children.size());
+                department.children.forEach((positionName, position) -> {
+                    canonical.append("p:").append(positionName).append('=').append(position.count).append('\n');
+                    Map<String, Object> positionOption = option(positionName, position.count);
+                    positionOption.put("roles", options(position.roles, canonical, "pr"));
+                    positions.add(positionOption);
+                });
+                Map<String, Object> departmentOption = option(departmentName, department.count);
+                departmentOption.put("roles", options(department.roles, canonical, "dr"));
+                departmentOption.put("positions", positions);
+                departments.add(departmentOption);
+            });
+            Map<String, Object> siteOption = option(siteName, site.count);
+            siteOption.put("roles", options(site.roles, canonical, "sr"));
+            siteOption.put("departments", departments);
+            siteList.add(siteOption);
+        });
+        return siteList;
+    }
+
+    private List<Map<String, Object>> options(Map<String, Long> counts, StringBuilder canonical, String level) {
+        List<Map<String, Object>> options = new ArrayList<>(counts.size());
+        counts.forEach((value, count) -> {
+            canonical.append(level).append(':').append(value).append('=').append(count).append('\n');
+            options.add(option(value, count));
+        });
+        return options;
+    }
+
+    private Map<String, Object> option(String value, long count) {
+        Map<String, Object> option = new LinkedHashMap<>();
+        option.put("value", value);
+        option.put("count", count);
+        return option;
+    }
+
+    private Map<FacetKey, Integer> countsFromDatabase() {
+        Map<FacetKey, Integer> counts = new HashMap<>();
+        for (Object[] row : userRepository.countGroupedByProjectSiteDepartmentPosition()) {
+            counts.put(new FacetKey((String) row[0], (String) row[1], (String) row[2], null),
+                    ((Number) row[3]).intValue());
+        }
+        for (Object[] row : userRepository.countRolesGroupedByProjectSiteDepartmentPosition()) {
+            counts.put(new FacetKey((String) row[0], (String) row[1], (String) row[2], (String) row[3]),
+                    ((Number) row[4]).intValue());
+        }
+        return counts;
+    }
+
+    private String etag(CharSequence canonical) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static class Node {
+        long count;
+        final Map<String, Node> children = new TreeMap<>(VALUE_ORDER);
+        final Map<String, Long> roles = new TreeMap<>(VALUE_ORDER);
+
+        Node child(String value) {
+            return children.computeIfAbsent(value, key -> new Node());
+        }
+    }
+
+    /**
+     * The tree as served (unmodifiable), its ETag, and the facet version it was built from (-1: from the database)
+     */
+    public record FilterOptions(long version, String etag, Map<String, Object> tree) {}
+}
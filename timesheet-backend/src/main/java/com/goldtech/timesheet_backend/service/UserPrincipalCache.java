@@ -0,0 +1,221 @@
+// UserPrincipalCache.java - Short-lived cache of authenticated users for the JWT filter
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.Role;
+import com.goldtech.timesheet_backend.entity.User;
+import com.goldtech.timesheet_backend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keyed by email (the token subject). Entries hold an immutable snapshot of the fields controllers
+ * read (never the loaded entity, which requests could modify or lazily initialise concurrently);
+ * each request gets its own detached User built from it. Entries expire
+ * after app.security.principal-cache.ttl-seconds. UserService invalidates a user after every
+ * committed change, so deactivation takes effect on the next request on this instance; the TTL
+ * bounds staleness for changes made elsewhere (other instances, direct SQL).
+ */
+@Service
+public class UserPrincipalCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${app.security.principal-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.security.principal-cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Value("${app.security.principal-cache.max-entries:10000}")
+    private int maxEntries;
+
+    private final ConcurrentHashMap<String, CachedPrincipal> entries = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation; a load that overlapped one is not cached
+    private final AtomicLong invalidationEpoch = new AtomicLong();
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * The user for a token subject, or null if unknown. Inactive users are returned too;
+     * the caller decides what to do with them.
+     */
+    public CachedPrincipal get(String email) {
+        lookups.incrementAndGet();
+        long now = System.nanoTime();
+
+        if (enabled) {
+            CachedPrincipal cached = entries.get(email);
+            if (cached != null && now < cached.expiresAt) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+
+        long epoch = invalidationEpoch.get();
+        loads.incrementAndGet();
+        Optional<User> userOpt = userRepository.findByEmail(email);
+        if (userOpt.isEmpty()) {
+            entries.remove(email);
+            return null;
+        }
+
+        CachedPrincipal loaded = new CachedPrincipal(userOpt.get(), now + ttlSeconds * 1_000_000_000L);
+        if (enabled && invalidationEpoch.get() == epoch) {
+            if (entries.size() >= maxEntries) {
+                evict(now);
+            }
+            entries.put(email, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Drop cached users by id, now and again once the current transaction commits
+     * (so a request that reloads the old row in between cannot re-cache it)
+     */
+    public void invalidate(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = new HashSet<>(userIds);
+        removeUsers(ids);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    removeUsers(ids);
+                }
+            });
+        }
+    }
+
+    public void invalidate(Long userId) {
+        invalidate(List.of(userId));
+    }
+
+    /**
+     * Counters for the auth metrics endpoint. Each hit is one user query the filter did not run.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long lookupCount = lookups.get();
+        long hitCount = hits.get();
+        stats.put("enabled", enabled);
+        stats.put("ttlSeconds", ttlSeconds);
+        stats.put("entries", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("lookups", lookupCount);
+        stats.put("hits", hitCount);
+        stats.put("userQueries", loads.get());
+        stats.put("queriesSavedPerRequest", lookupCount == 0 ? 0.0 : (double) hitCount / lookupCount);
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    // Helper methods
+
+    private void removeUsers(Set<Long> ids) {
+        invalidationEpoch.incrementAndGet();
+        invalidations.addAndGet(ids.size());
+        entries.values().removeIf(cached -> ids.contains(cached.id));
+    }
+
+    /**
+     * Drop expired entries; if still full, drop arbitrary ones down to 90% of the limit
+     */
+    private void evict(long now) {
+        int before = entries.size();
+        entries.values().removeIf(cached -> now >= cached.expiresAt);
+        Iterator<String> iterator = entries.keySet().iterator();
+        while (entries.size() > maxEntries * 9 / 10 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+        evictions.addAndGet(Math.max(0, before - entries.size()));
+    }
+
+    /**
+     * Immutable copy of a user's principal fields and granted authorities, shared between requests
+     */
+    public static class CachedPrincipal {
+        private final Long id;
+        private final String employeeId;
+        private final String email;
+        private final String fullName;
+        private final String position;
+        private final String department;
+        private final String projectSite;
+        private final User.UserStatus status;
+        private final String securityStamp;
+        private final List<String> roleNames;
+        private final List<GrantedAuthority> authorities;
+        private final long expiresAt;
+
+        CachedPrincipal(User user, long expiresAt) {
+            this.id = user.getId();
+            this.employeeId = user.getEmployeeId();
+            this.email = user.getEmail();
+            this.fullName = user.getFullName();
+            this.position = user.getPosition();
+            this.department = user.getDepartment();
+            this.projectSite = user.getProjectSite();
+            this.status = user.getStatus();
+            this.securityStamp = user.getSecurityStamp();
+            this.roleNames = user.getRoles().stream().map(Role::getName).toList();
+            this.authorities = roleNames.stream()
+                    .map(name -> (GrantedAuthority) new SimpleGrantedAuthority("ROLE_" + name.toUpperCase()))
+                    .toList();
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * A new detached User for one request (callers may modify it freely)
+         */
+        public User newUser() {
+            User user = new User();
+            user.setId(id);
+            user.setEmployeeId(employeeId);
+            user.setEmail(email);
+            user.setFullName(fullName);
+            user.setPosition(position);
+            user.setDepartment(department);
+            user.setProjectSite(projectSite);
+            user.setStatus(status);
+            user.setSecurityStamp(securityStamp);
+            Set<Role> roles = new HashSet<>();
+            for (String name : roleNames) {
+                Role role = new Role();
+                role.setName(name);
+                roles.add(role);
+            }
+            user.setRoles(roles);
+            return user;
+        }
+
+        // Getters
+        public Long getId() { return id; }
+        public String getEmail() { return email; }
+        public List<GrantedAuthority> getAuthorities() { return authorities; }
+
+        public boolean isActive() {
+            return status == User.UserStatus.ACTIVE;
+        }
+    }
+}
@@ -0,0 +1,705 @@
+// UserSearchIndex.java - In-memory trigram/prefix index behind the /users admin search
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.User.UserStatus;
+import com.goldtech.timesheet_backend.repository.UserRepository;
+import com.goldtech.timesheet_backend.repository.UserRepository.UserSearchRow;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Answers the admin user search from memory instead of a LIKE '%term%' scan. Every user is a
+ * document of employee id, email, name, position and department (lowercased); terms of three or
+ * more characters are looked up through a trigram index and may match anywhere in a field, shorter
+ * terms match the start of a field or of a word in it. All terms must match; a document is ranked
+ * by how well (exact, prefix, word prefix, substring) and in which field each term matched.
+ *
+ * All changes are applied on one background thread: a full build at startup and periodically
+ * (which also drops users deleted by other instances), the users changed by this instance after
+ * their transaction commits, and users whose updated_at moved since the last poll. Searches run
+ * under a read lock and never touch the database; until the first build is done, and for sorts
+ * the index cannot order, callers get null and use the database query.
+ *
+ * The index also counts users per (site, department, position) and role for the filter options
+ * tree (UserFilterOptionsService).
+ */
+@Service
+public class UserSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    // Searchable fields in document order, with their ranking weights
+    private static final int[] FIELD_WEIGHTS = {5, 4, 3, 1, 1}; // employeeId, email, fullName, position, department
+
+    private static final Map<String, Function<Doc, Comparable<?>>> SORT_FIELDS = Map.of(
+            "id", Doc::userId,
+            "fullName", Doc::fullName,
+            "email", Doc::email,
+            "employeeId", Doc::employeeId,
+            "position", Doc::position,
+            "department", Doc::department,
+            "projectSite", Doc::projectSite,
+            "status", doc -> doc.status() != null ? doc.status().name() : null
+    );
+
+    public static final String SORT_RELEVANCE = "relevance";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${app.users.search-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.users.search-index.page-size:1000}")
+    private int pageSize;
+
+    @Value("${app.users.search-index.refresh-interval-ms:10000}")
+    private long refreshIntervalMs;
+
+    @Value("${app.users.search-index.rebuild-interval-minutes:60}")
+    private long rebuildIntervalMinutes;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index(); // guarded by lock
+    private volatile boolean ready;
+
+    private ExecutorService updater;
+    private final Set<Long> pendingIds = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean drainQueued = new AtomicBoolean();
+    private final AtomicBoolean pollQueued = new AtomicBoolean();
+    private volatile LocalDateTime lastPoll;
+    private volatile LocalDateTime lastRebuild;
+    private volatile long lastRebuildMillis;
+
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong searchNanos = new AtomicLong();
+    private final AtomicLong maxSearchNanos = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private final AtomicLong reindexed = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        updater = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            updater.execute(this::rebuild);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        updater.shutdownNow();
+    }
+
+    /**
+     * One page of the users matching the search and filters, in the requested order, or null when
+     * the index cannot answer (not built yet, disabled, or a sort on a field it does not hold).
+     * Filters take the same values as the /users query parameters; null or "all" means any.
+     */
+    public SearchResult search(String search, String status, String role, String department,
+                               String position, String projectSite, Pageable pageable) {
+        Sort sort = pageable.getSort();
+        if (!ready || !isSortable(sort)) {
+            fallbacks.incrementAndGet();
+            return null;
+        }
+        String[] terms = search != null ? search.trim().toLowerCase(Locale.ROOT).split("\\s+") : new String[0];
+        if (terms.length == 1 && terms[0].isEmpty()) {
+            terms = new String[0];
+        }
+
+        long start = System.nanoTime();
+        List<Hit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            BitSet candidates = index.candidates(terms);
+            for (int docId = candidates.nextSetBit(0); docId >= 0; docId = candidates.nextSetBit(docId + 1)) {
+                Doc doc = index.docs.get(docId);
+                if (!matchesFilters(doc, status, role, department, position, projectSite)) {
+                    continue;
+                }
+                int score = score(doc, terms);
+                if (score > 0 || terms.length == 0) {
+                    hits.add(new Hit(doc, score));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Only the hits up to the end of the requested page need ordering
+        long end = Math.min(hits.size(), pageable.getOffset() + pageable.getPageSize());
+        List<Long> ids = List.of();
+        if (end > pageable.getOffset()) {
+            Comparator<Hit> comparator = comparator(sort);
+            PriorityQueue<Hit> top = new PriorityQueue<>((int) end + 1, comparator.reversed());
+            for (Hit hit : hits) {
+                if (top.size() < end) {
+                    top.add(hit);
+                } else if (comparator.compare(hit, top.peek()) < 0) {
+                    top.poll();
+                    top.add(hit);
+                }
+            }
+            Long[] ordered = new Long[top.size()];
+            for (int i = ordered.length - 1; i >= 0; i--) {
+                ordered[i] = top.poll().doc().userId();
+            }
+            ids = List.of(ordered).subList((int) pageable.getOffset(), ordered.length);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        searches.incrementAndGet();
+        searchNanos.addAndGet(elapsed);
+        maxSearchNanos.accumulateAndGet(elapsed, Math::max);
+        return new SearchResult(hits.size(), ids);
+    }
+
+    /**
+     * Version of the facet counts, or -1 until the index is built; it changes whenever a count does
+     */
+    public long facetVersion() {
+        if (!ready) {
+            return -1;
+        }
+        lock.readLock().lock();
+        try {
+            return index.facetVersion;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copy of the facet counts with their version, or null until the index is built
+     */
+    public FacetCounts facetCounts() {
+        if (!ready) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            return new FacetCounts(index.facetVersion, new HashMap<>(index.facetCounts));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Re-read these users once the current transaction commits (immediately without one)
+     */
+    public void reindexAfterCommit(Collection<Long> userIds) {
+        if (!enabled || userIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(userIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    queue(ids);
+                }
+            });
+        } else {
+            queue(ids);
+        }
+    }
+
+    /**
+     * Pick up users changed on other instances; a full rebuild every rebuild-interval drops deleted ones
+     */
+    @Scheduled(fixedDelayString = "${app.users.search-index.refresh-interval-ms:10000}",
+            initialDelayString = "${app.users.search-index.refresh-interval-ms:10000}")
+    public void refresh() {
+        if (enabled && ready && pollQueued.compareAndSet(false, true)) {
+            updater.execute(this::poll);
+        }
+    }
+
+    /**
+     * Counters for the search index admin endpoint
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long searchCount = searches.get();
+        stats.put("enabled", enabled);
+        stats.put("ready", ready);
+        lock.readLock().lock();
+        try {
+            stats.put("users", index.docByUser.size());
+            stats.put("deadDocuments", index.dead);
+            stats.put("trigrams", index.trigrams.size());
+            stats.put("tokens", index.tokens.size());
+            stats.put("facetKeys", index.facetCounts.size());
+            stats.put("facetVersion", index.facetVersion);
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("searches", searchCount);
+        stats.put("avgSearchMs", searchCount == 0 ? 0.0 : searchNanos.get() / 1_000_000.0 / searchCount);
+        stats.put("maxSearchMs", maxSearchNanos.get() / 1_000_000.0);
+        stats.put("databaseFallbacks", fallbacks.get());
+        stats.put("reindexedUsers", reindexed.get());
+        stats.put("rebuilds", rebuilds.get());
+        stats.put("lastRebuild", lastRebuild);
+        stats.put("lastRebuildMs", lastRebuildMillis);
+        stats.put("failures", failures.get());
+        return stats;
+    }
+
+    // Helper methods
+
+    private void queue(List<Long> ids) {
+        pendingIds.addAll(ids);
+        if (drainQueued.compareAndSet(false, true)) {
+            updater.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        drainQueued.set(false);
+        List<Long> ids = new ArrayList<>(pendingIds);
+        pendingIds.removeAll(ids);
+        reindex(ids);
+    }
+
+    private void poll() {
+        pollQueued.set(false);
+        if (lastRebuild == null || lastRebuild.isBefore(LocalDateTime.now().minusMinutes(rebuildIntervalMinutes))) {
+            rebuild();
+            return;
+        }
+        // Overlap the previous poll so rows committed late (or with a skewed clock) are not missed
+        LocalDateTime since = lastPoll.minusNanos(refreshIntervalMs * 2_000_000L);
+        LocalDateTime startedAt = LocalDateTime.now();
+        try {
+            reindex(userRepository.findIdsUpdatedSince(since));
+            lastPoll = startedAt;
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            logger.warn("User search index poll failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Build a new index page by page off-lock, then swap it in
+     */
+    private void rebuild() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.currentTimeMillis();
+        try {
+            Index rebuilt = new Index();
+            long afterId = 0;
+            while (true) {
+                List<UserSearchRow> page = userRepository.findSearchRowsAfter(afterId, PageRequest.of(0, pageSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                for (Doc doc : toDocs(page)) {
+                    rebuilt.put(doc);
+                }
+                afterId = page.get(page.size() - 1).getId();
+            }
+
+            lock.writeLock().lock();
+            try {
+                rebuilt.facetVersion = index.facetVersion + 1;
+                index = rebuilt;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            lastPoll = startedAt;
+            lastRebuild = startedAt;
+            lastRebuildMillis = System.currentTimeMillis() - start;
+            rebuilds.incrementAndGet();
+            ready = true;
+            logger.debug("Built user search index of {} users in {} ms", rebuilt.docByUser.size(), lastRebuildMillis);
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            logger.warn("User search index build failed: {}", e.getMessage());
+        }
+    }
+
+    private void reindex(List<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        try {
+            for (int from = 0; from < userIds.size(); from += pageSize) {
+                List<Long> ids = userIds.subList(from, Math.min(from + pageSize, userIds.size()));
+                List<Doc> docs = toDocs(userRepository.findSearchRowsByIdIn(ids));
+                Set<Long> found = new HashSet<>();
+                lock.writeLock().lock();
+                try {
+                    for (Doc doc : docs) {
+                        index.put(doc);
+                        found.add(doc.userId());
+                    }
+                    for (Long id : ids) {
+                        if (!found.contains(id)) {
+                            index.remove(id); // Deleted
+                        }
+                    }
+                    index.compactIfNeeded();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                reindexed.addAndGet(ids.size());
+            }
+        } catch (Exception e) {
+            // Not lost: the next poll or rebuild reads these users again
+            failures.incrementAndGet();
+            logger.warn("User search index update of {} users failed: {}", userIds.size(), e.getMessage());
+        }
+    }
+
+    private List<Doc> toDocs(List<UserSearchRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Set<String>> roles = new HashMap<>();
+        for (Object[] row : userRepository.findRoleNamesByUserIdIn(rows.stream().map(UserSearchRow::getId).toList())) {
+            roles.computeIfAbsent(((Number) row[0]).longValue(), id -> new HashSet<>()).add((String) row[1]);
+        }
+        List<Doc> docs = new ArrayList<>(rows.size());
+        for (UserSearchRow row : rows) {
+            docs.add(new Doc(row.getId(), row.getFullName(), row.getEmail(), row.getEmployeeId(), row.getPosition(),
+                    row.getDepartment(), row.getProjectSite(), row.getStatus(),
+                    Set.copyOf(roles.getOrDefault(row.getId(), Set.of())),
+                    new String[]{lower(row.getEmployeeId()), lower(row.getEmail()), lower(row.getFullName()),
+                            lower(row.getPosition()), lower(row.getDepartment())}));
+        }
+        return docs;
+    }
+
+    // Case-insensitive, like the column collation the database query compares with
+    private boolean matchesFilters(Doc doc, String status, String role, String department,
+                                   String position, String projectSite) {
+        return (!isSet(status) || doc.status() != null && status.equalsIgnoreCase(doc.status().name()))
+                && (!isSet(role) || doc.roles().stream().anyMatch(role::equalsIgnoreCase))
+                && (!isSet(department) || department.equalsIgnoreCase(doc.department()))
+                && (!isSet(position) || position.equalsIgnoreCase(doc.position()))
+                && (!isSet(projectSite) || projectSite.equalsIgnoreCase(doc.projectSite()));
+    }
+
+    /**
+     * Sum over terms of the best weighted match in any field; 0 if some term does not match
+     */
+    private int score(Doc doc, String[] terms) {
+        int total = 0;
+        for (String term : terms) {
+            int best = 0;
+            for (int field = 0; field < FIELD_WEIGHTS.length; field++) {
+                best = Math.max(best, FIELD_WEIGHTS[field] * matchQuality(doc.fields()[field], term));
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    // 10 exact, 8 prefix, 6 word prefix, 2 substring (terms of 3+ characters only), 0 no match
+    private int matchQuality(String value, String term) {
+        if (value == null) {
+            return 0;
+        }
+        if (value.equals(term)) {
+            return 10;
+        }
+        if (value.startsWith(term)) {
+            return 8;
+        }
+        boolean contains = false;
+        for (int at = value.indexOf(term, 1); at > 0; at = value.indexOf(term, at + 1)) {
+            if (!Character.isLetterOrDigit(value.charAt(at - 1))) {
+                return 6;
+            }
+            contains = true;
+        }
+        return contains && term.length() >= 3 ? 2 : 0;
+    }
+
+    private boolean isSortable(Sort sort) {
+        for (Sort.Order order : sort) {
+            if (!SORT_RELEVANCE.equals(order.getProperty()) && !SORT_FIELDS.containsKey(order.getProperty())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Requested order (text case-insensitive, nulls first like MySQL), then relevance, name and id
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Comparator<Hit> comparator(Sort sort) {
+        Comparator<Hit> comparator = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<Hit> next;
+            if (SORT_RELEVANCE.equals(order.getProperty())) {
+                next = Comparator.comparingInt(Hit::score).reversed();
+            } else {
+                Function<Doc, Comparable<?>> field = SORT_FIELDS.get(order.getProperty());
+                Comparator<Comparable> values = (a, b) -> a instanceof String sa && b instanceof String sb
+                        ? String.CASE_INSENSITIVE_ORDER.compare(sa, sb) : a.compareTo(b);
+                next = Comparator.comparing(hit -> (Comparable) field.apply(hit.doc()), Comparator.nullsFirst(values));
+                if (order.isDescending()) {
+                    next = next.reversed();
+                }
+            }
+            comparator = comparator.thenComparing(next);
+        }
+        return comparator
+                .thenComparing(Comparator.comparingInt(Hit::score).reversed())
+                .thenComparing(hit -> hit.doc().fullName(), Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+                .thenComparing(hit -> hit.doc().userId());
+    }
+
+    private static boolean isSet(String filter) {
+        return filter != null && !filter.equals("all");
+    }
+
+    private static String lower(String value) {
+        return value != null ? value.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private record Doc(Long userId, String fullName, String email, String employeeId, String position,
+                       String department, String projectSite, UserStatus status, Set<String> roles,
+                       String[] fields) {}
+
+    private record Hit(Doc doc, int score) {}
+
+    /**
+     * Matching users in total and the ids of the requested page, in order
+     */
+    public record SearchResult(long total, List<Long> userIds) {}
+
+    /**
+     * Users with this (project site, department, position), or holding this role there when role is set
+     */
+    public record FacetKey(String projectSite, String department, String position, String role) {}
+
+    public record FacetCounts(long version, Map<FacetKey, Integer> counts) {}
+
+    /**
+     * Append-only documents with sorted posting lists. A changed user gets a new document and the
+     * old one is only marked dead; the index is rebuilt from live documents once dead ones pile up.
+     */
+    private static class Index {
+        final List<Doc> docs = new ArrayList<>();
+        final BitSet live = new BitSet();
+        final Map<Long, Integer> docByUser = new HashMap<>();
+        final Map<String, IntList> trigrams = new HashMap<>();
+        final TreeMap<String, IntList> tokens = new TreeMap<>(); // whole values and words, for short prefixes
+        final Map<FacetKey, Integer> facetCounts = new HashMap<>();
+        long facetVersion; // changes only when a count does
+        int dead;
+
+        void put(Doc doc) {
+            Doc previous = unlink(doc.userId());
+            if (previous == null || !sameFacets(previous, doc)) {
+                if (previous != null) {
+                    countFacets(previous, -1);
+                }
+                countFacets(doc, 1);
+                facetVersion++;
+            }
+
+            int docId = docs.size();
+            docs.add(doc);
+            live.set(docId);
+            docByUser.put(doc.userId(), docId);
+
+            Set<String> grams = new HashSet<>();
+            Set<String> words = new HashSet<>();
+            for (String value : doc.fields()) {
+                if (value == null || value.isEmpty()) {
+                    continue;
+                }
+                for (int i = 0; i + 3 <= value.length(); i++) {
+                    String gram = value.substring(i, i + 3);
+                    if (gram.chars().noneMatch(Character::isWhitespace)) {
+                        grams.add(gram);
+                    }
+                }
+                words.add(value);
+                for (String word : value.split("[^\\p{L}\\p{N}]+")) {
+                    if (!word.isEmpty()) {
+                        words.add(word);
+                    }
+                }
+            }
+            for (String gram : grams) {
+                trigrams.computeIfAbsent(gram, key -> new IntList()).add(docId);
+            }
+            for (String word : words) {
+                tokens.computeIfAbsent(word, key -> new IntList()).add(docId);
+            }
+        }
+
+        void remove(Long userId) {
+            Doc removed = unlink(userId);
+            if (removed != null) {
+                countFacets(removed, -1);
+                facetVersion++;
+            }
+        }
+
+        private Doc unlink(Long userId) {
+            Integer docId = docByUser.remove(userId);
+            if (docId == null) {
+                return null;
+            }
+            live.clear(docId);
+            dead++;
+            return docs.get(docId);
+        }
+
+        /**
+         * One count per user for its (site, department, position), and one per role held there
+         */
+        private void countFacets(Doc doc, int delta) {
+            List<FacetKey> keys = new ArrayList<>(doc.roles().size() + 1);
+            keys.add(new FacetKey(doc.projectSite(), doc.department(), doc.position(), null));
+            for (String role : doc.roles()) {
+                keys.add(new FacetKey(doc.projectSite(), doc.department(), doc.position(), role));
+            }
+            for (FacetKey key : keys) {
+                facetCounts.merge(key, delta, (count, change) -> count + change == 0 ? null : count + change);
+            }
+        }
+
+        private static boolean sameFacets(Doc a, Doc b) {
+            return Objects.equals(a.projectSite(), b.projectSite()) && Objects.equals(a.department(), b.department())
+                    && Objects.equals(a.position(), b.position()) && a.roles().equals(b.roles());
+        }
+
+        void compactIfNeeded() {
+            if (dead <= Math.max(1000, docByUser.size() / 4)) {
+                return;
+            }
+            List<Doc> liveDocs = new ArrayList<>(docByUser.size());
+            for (int docId = live.nextSetBit(0); docId >= 0; docId = live.nextSetBit(docId + 1)) {
+                liveDocs.add(docs.get(docId));
+            }
+            long version = facetVersion;
+            docs.clear();
+            live.clear();
+            docByUser.clear();
+            trigrams.clear();
+            tokens.clear();
+            facetCounts.clear();
+            dead = 0;
+            liveDocs.forEach(this::put);
+            facetVersion = version; // Same documents, same counts
+        }
+
+        /**
+         * Live documents that may match every term: from the most selective term's postings,
+         * or all live documents when there is no term
+         */
+        BitSet candidates(String[] terms) {
+            BitSet best = null;
+            for (String term : terms) {
+                BitSet matches = term.length() >= 3 ? trigramCandidates(term) : prefixCandidates(term);
+                if (best == null || matches.cardinality() < best.cardinality()) {
+                    best = matches;
+                }
+                if (best.isEmpty()) {
+                    break;
+                }
+            }
+            BitSet result = best != null ? best : new BitSet();
+            if (best == null) {
+                result.or(live);
+            } else {
+                result.and(live);
+            }
+            return result;
+        }
+
+        private BitSet trigramCandidates(String term) {
+            List<IntList> postings = new ArrayList<>();
+            for (int i = 0; i + 3 <= term.length(); i++) {
+                IntList posting = trigrams.get(term.substring(i, i + 3));
+                if (posting == null) {
+                    return new BitSet();
+                }
+                postings.add(posting);
+            }
+            postings.sort(Comparator.comparingInt(IntList::size));
+            BitSet result = postings.get(0).toBitSet();
+            for (int i = 1; i < postings.size() && !result.isEmpty(); i++) {
+                result.and(postings.get(i).toBitSet());
+            }
+            return result;
+        }
+
+        private BitSet prefixCandidates(String term) {
+            BitSet result = new BitSet();
+            for (IntList posting : tokens.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+                posting.addTo(result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Growable int array of ascending document numbers
+     */
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void addTo(BitSet bits) {
+            for (int i = 0; i < size; i++) {
+                bits.set(values[i]);
+            }
+        }
+
+        BitSet toBitSet() {
+            BitSet bits = new BitSet(size == 0 ? 0 : values[size - 1] + 1);
+            addTo(bits);
+            return bits;
+        }
+    }
+}
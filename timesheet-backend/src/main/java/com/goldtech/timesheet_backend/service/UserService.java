@@ -12,18 +12,25 @@ import com.goldtech.timesheet_backend.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.Predicate;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @Transactional
@@ -43,6 +50,28 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserPrincipalCache principalCache;
+
+    @Autowired
+    private SecurityStampService stampService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private UserSearchIndex searchIndex;
+
+    @Autowired
+    private StorageUsageService storageUsageService;
+
+    @Value("${app.users.stats-cache-seconds:30}")
+    private long statsCacheSeconds;
+
+    // Dashboard statistics, cached briefly; a user change bumps the epoch and the cached entry stops matching
+    private volatile CachedStats cachedStats;
+    private final AtomicLong statsEpoch = new AtomicLong();
+
     // Get all users with advanced filtering
     public Page<UserDto> getAllUsers(
             Pageable pageable,
@@ -53,6 +82,20 @@ public class UserService {
             String position,
             String projectSite
     ) {
+        // Text searches are answered by the in-memory index when it can; only the page is loaded
+        if (search != null && !search.trim().isEmpty()) {
+            UserSearchIndex.SearchResult result = searchIndex.search(search, status, role, department,
+                    position, projectSite, pageable);
+            if (result != null) {
+                return loadPage(result, pageable);
+            }
+        }
+
+        // Relevance only means something for indexed searches; otherwise order by name
+        if (pageable.getSort().getOrderFor(UserSearchIndex.SORT_RELEVANCE) != null) {
+            pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("fullName"));
+        }
+
         Specification<User> spec = createUserSpecification(
                 search, status, role, department, position, projectSite
         );
@@ -151,8 +194,10 @@ public class UserService {
             roleOpt.ifPresent(roles::add);
         }
         user.setRoles(roles);
+        stampService.ensureStamp(user);
 
         User savedUser = userRepository.save(user);
+        userChanged(List.of(savedUser.getId()));
         logger.info("User created successfully: {}", savedUser.getEmail());
 
         return userMapper.toDto(savedUser);
@@ -192,7 +237,9 @@ public class UserService {
             user.setDepartment(request.getDepartment());
         }
         if (request.getProjectSite() != null) {
+            String previousSite = user.getProjectSite();
             user.setProjectSite(request.getProjectSite().isEmpty() ? null : request.getProjectSite());
+            storageUsageService.recordSiteChange(user, previousSite);
         }
         if (request.getJoinDate() != null) {
             user.setJoinDate(request.getJoinDate());
@@ -221,7 +268,9 @@ public class UserService {
             user.setRoles(roles);
         }
 
+        stampService.rotate(user);
         User savedUser = userRepository.save(user);
+        userChanged(List.of(id));
         logger.info("User updated successfully: {}", savedUser.getEmail());
 
         return userMapper.toDto(savedUser);
@@ -239,7 +288,12 @@ public class UserService {
                 User.UserStatus.INACTIVE : User.UserStatus.ACTIVE;
 
         user.setStatus(newStatus);
+        stampService.rotate(user);
         User savedUser = userRepository.save(user);
+        userChanged(List.of(id));
+        if (newStatus != User.UserStatus.ACTIVE) {
+            refreshTokenService.revokeAllForUser(id);
+        }
 
         logger.info("User status toggled: {} - {}", savedUser.getEmail(), newStatus);
         return userMapper.toDto(savedUser);
@@ -261,6 +315,8 @@ public class UserService {
         }
 
         userRepository.delete(user);
+        userChanged(List.of(id));
+        stampService.remove(id);
         logger.info("User deleted: {}", user.getEmail());
         return true;
     }
@@ -293,27 +349,43 @@ public class UserService {
         return roleList;
     }
 
-    // Get user statistics
+    // Get user statistics (two grouped queries, cached for a few seconds)
     public Map<String, Object> getUserStats() {
+        CachedStats cached = cachedStats;
+        if (cached != null && cached.epoch() == statsEpoch.get() && System.nanoTime() - cached.expiresAt() < 0) {
+            return cached.stats();
+        }
+
+        long epoch = statsEpoch.get();
         Map<String, Object> stats = new HashMap<>();
 
-        long totalUsers = userRepository.count();
-        long activeUsers = userRepository.countByStatus(User.UserStatus.ACTIVE);
-        long inactiveUsers = userRepository.countByStatus(User.UserStatus.INACTIVE);
+        long activeUsers = 0;
+        long inactiveUsers = 0;
+        for (Object[] row : userRepository.countGroupedByStatus()) {
+            long count = ((Number) row[1]).longValue();
+            if (row[0] == User.UserStatus.ACTIVE) {
+                activeUsers += count;
+            } else {
+                inactiveUsers += count;
+            }
+        }
 
-        stats.put("total", totalUsers);
+        stats.put("total", activeUsers + inactiveUsers);
         stats.put("active", activeUsers);
         stats.put("inactive", inactiveUsers);
 
-        // Role statistics
+        // Role statistics (roles without users count 0)
         Map<String, Long> roleStats = new HashMap<>();
-        List<Role> roles = roleRepository.findAll();
-        for (Role role : roles) {
-            List<User> usersWithRole = userRepository.findByRoleName(role.getName());
-            roleStats.put(role.getName(), (long) usersWithRole.size());
+        for (Object[] row : roleRepository.countUsersByRole()) {
+            roleStats.put((String) row[0], ((Number) row[1]).longValue());
         }
-        stats.put("roleStats", roleStats);
+        stats.put("roleStats", Collections.unmodifiableMap(roleStats));
 
+        stats = Collections.unmodifiableMap(stats);
+        if (statsCacheSeconds > 0) {
+            // Published with the epoch read before the queries: counts that raced a change never match
+            cachedStats = new CachedStats(epoch, System.nanoTime() + statsCacheSeconds * 1_000_000_000L, stats);
+        }
         return stats;
     }
 
@@ -331,7 +403,9 @@ public class UserService {
                 user.setDepartment((String) updates.get("department"));
             }
             if (updates.containsKey("projectSite")) {
+                String previousSite = user.getProjectSite();
                 user.setProjectSite((String) updates.get("projectSite"));
+                storageUsageService.recordSiteChange(user, previousSite);
             }
             if (updates.containsKey("supervisorId")) {
                 Long supervisorId = Long.valueOf(updates.get("supervisorId").toString());
@@ -342,9 +416,11 @@ public class UserService {
                     supervisorOpt.ifPresent(user::setSupervisor);
                 }
             }
+            stampService.rotate(user);
         }
 
         List<User> savedUsers = userRepository.saveAll(users);
+        userChanged(savedUsers.stream().map(User::getId).toList());
         return userMapper.toDtoList(savedUsers);
     }
 
@@ -357,7 +433,10 @@ public class UserService {
 
         User user = userOpt.get();
         user.setPassword(passwordEncoder.encode(newPassword));
+        stampService.rotate(user);
         userRepository.save(user);
+        userChanged(List.of(id));
+        refreshTokenService.revokeAllForUser(id);
 
         logger.info("Password reset for user: {}", user.getEmail());
         return true;
@@ -395,6 +474,53 @@ public class UserService {
         return userRepository.findRolesByProjectSiteAndDepartment(projectSite, department);
     }
 
+    // Helper methods
+
+    // Load the users of one page of index results, keeping their order
+    private Page<UserDto> loadPage(UserSearchIndex.SearchResult result, Pageable pageable) {
+        List<Long> pageIds = result.userIds();
+
+        Map<Long, User> usersById = new HashMap<>();
+        for (User user : userRepository.findAllById(pageIds)) {
+            usersById.put(user.getId(), user);
+        }
+        List<UserDto> content = new ArrayList<>(pageIds.size());
+        for (Long id : pageIds) {
+            User user = usersById.get(id);
+            if (user != null) {
+                content.add(userMapper.toDto(user));
+            }
+        }
+        return new PageImpl<>(content, pageable, result.total());
+    }
+
+    // Cache maintenance
+
+    /**
+     * Drop what is cached about users, now and again after commit
+     * (so a read of the old rows in between cannot re-cache them);
+     * the search index re-reads them after commit
+     */
+    private void userChanged(Collection<Long> userIds) {
+        principalCache.invalidate(userIds);
+        searchIndex.reindexAfterCommit(userIds);
+        invalidateStats();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidateStats();
+                }
+            });
+        }
+    }
+
+    private void invalidateStats() {
+        statsEpoch.incrementAndGet();
+    }
+
+    private record CachedStats(long epoch, long expiresAt, Map<String, Object> stats) {}
+
     // Validation methods
     private void validateCreateUserRequest(CreateUserRequest request) {
         // Check email uniqueness
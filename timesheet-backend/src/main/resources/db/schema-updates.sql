@@ -0,0 +1,94 @@
+-- Schema changes for timesheet_management (MySQL).
+-- Hibernate runs with ddl-auto=validate, so apply these before deploying the matching code.
+
+-- Tombstones for physical document files deleted after the owning transaction commits
+CREATE TABLE IF NOT EXISTS document_deletions (
+    id           BIGINT       NOT NULL AUTO_INCREMENT,
+    file_path    VARCHAR(500) NOT NULL,
+    attempts     INT          NOT NULL DEFAULT 0,
+    last_error   VARCHAR(500) NULL,
+    requested_at DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id),
+    KEY idx_document_deletions_requested_at (requested_at)
+);
+
+-- Orphan reconciliation looks up stored paths in batches
+CREATE INDEX idx_day_entry_documents_file_path ON day_entry_documents (file_path);
+
+-- Month document listing: documents by entry, entries by user and date
+-- (skip either statement if an equivalent index already exists)
+CREATE INDEX idx_day_entry_documents_day_entry ON day_entry_documents (day_entry_id);
+CREATE INDEX idx_day_entries_user_date ON day_entries (user_id, date);
+
+-- Shared-document linking: find the days that reference a primary day's documents
+CREATE INDEX idx_day_entries_user_primary_day ON day_entries (user_id, primary_document_day);
+
+-- SHA-256 of each stored document, bound into signed download URLs (older rows are backfilled on first use)
+ALTER TABLE day_entry_documents ADD COLUMN content_hash VARCHAR(64) NULL;
+
+-- Running document storage counters per user, project site, month and user-month
+-- (backfill existing documents with POST /documents/usage/rebuild)
+CREATE TABLE IF NOT EXISTS storage_usage (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    scope       VARCHAR(20)  NOT NULL,
+    scope_key   VARCHAR(150) NOT NULL,
+    file_count  BIGINT       NOT NULL DEFAULT 0,
+    total_bytes BIGINT       NOT NULL DEFAULT 0,
+    updated_at  DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_storage_usage_scope_key (scope, scope_key)
+);
+
+-- Background image processing: thumbnail, optionally kept original, and the processed marker
+ALTER TABLE day_entry_documents ADD COLUMN thumbnail_path VARCHAR(500) NULL;
+ALTER TABLE day_entry_documents ADD COLUMN original_path VARCHAR(500) NULL;
+ALTER TABLE day_entry_documents ADD COLUMN image_processed_at DATETIME(6) NULL;
+CREATE INDEX idx_day_entry_documents_image_pending ON day_entry_documents (image_processed_at, id);
+CREATE INDEX idx_day_entry_documents_thumbnail_path ON day_entry_documents (thumbnail_path);
+CREATE INDEX idx_day_entry_documents_original_path ON day_entry_documents (original_path);
+
+-- Security stamp carried in tokens (rotated on every account change); updated_at is polled for stamp changes
+ALTER TABLE users ADD COLUMN security_stamp VARCHAR(36) NULL;
+CREATE INDEX idx_users_updated_at ON users (updated_at);
+
+-- Revoked tokens (logout): rows are kept until the token itself expires
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    id          BIGINT      NOT NULL AUTO_INCREMENT,
+    jti         VARCHAR(64) NOT NULL,
+    user_id     BIGINT      NULL,
+    expires_at  DATETIME(6) NOT NULL,
+    revoked_at  DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_revoked_tokens_jti (jti),
+    KEY idx_revoked_tokens_expires_at (expires_at),
+    KEY idx_revoked_tokens_revoked_at (revoked_at)
+);
+
+-- Refresh tokens: SHA-256 of the opaque token, rotated within a family on every refresh
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    id          BIGINT      NOT NULL AUTO_INCREMENT,
+    token_hash  VARCHAR(64) NOT NULL,
+    user_id     BIGINT      NOT NULL,
+    family_id   VARCHAR(36) NOT NULL,
+    expires_at  DATETIME(6) NOT NULL,
+    used_at     DATETIME(6) NULL,
+    revoked_at  DATETIME(6) NULL,
+    created_at  DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_refresh_tokens_hash (token_hash),
+    KEY idx_refresh_tokens_family (family_id),
+    KEY idx_refresh_tokens_user (user_id),
+    KEY idx_refresh_tokens_expires_at (expires_at)
+);
+
+-- Resumable background jobs (password migration): last processed id per job
+CREATE TABLE IF NOT EXISTS job_checkpoints (
+    job_name    VARCHAR(100) NOT NULL,
+    position    BIGINT       NOT NULL,
+    updated_at  DATETIME(6)  NOT NULL,
+    PRIMARY KEY (job_name)
+);
+
+-- Login audit columns (written behind in batches by LoginAuditService)
+ALTER TABLE users ADD COLUMN last_login_ip VARCHAR(45) NULL;
+ALTER TABLE users ADD COLUMN last_login_user_agent VARCHAR(255) NULL;
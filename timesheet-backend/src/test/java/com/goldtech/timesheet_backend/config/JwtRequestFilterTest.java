@@ -0,0 +1,169 @@
+package com.goldtech.timesheet_backend.config;
+
+import com.goldtech.timesheet_backend.entity.Role;
+import com.goldtech.timesheet_backend.entity.User;
+import com.goldtech.timesheet_backend.repository.UserRepository;
+import com.goldtech.timesheet_backend.service.SecurityStampService;
+import com.goldtech.timesheet_backend.service.TokenRevocationService;
+import com.goldtech.timesheet_backend.service.UserPrincipalCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tokens with a current security stamp and an active status are trusted on their claims;
+ * everything else goes through the user lookup
+ */
+@ExtendWith(MockitoExtension.class)
+class JwtRequestFilterTest {
+
+    private static final String TOKEN = "header.payload.signature";
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private SecurityStampService stampService;
+
+    @Mock
+    private TokenRevocationService revocationService;
+
+    @Mock
+    private JwtUtils jwtUtils;
+
+    private final JwtRequestFilter filter = new JwtRequestFilter();
+
+    @BeforeEach
+    void setUp() {
+        UserPrincipalCache principalCache = new UserPrincipalCache();
+        ReflectionTestUtils.setField(principalCache, "userRepository", userRepository);
+        ReflectionTestUtils.setField(principalCache, "enabled", true);
+        ReflectionTestUtils.setField(principalCache, "ttlSeconds", 30L);
+        ReflectionTestUtils.setField(principalCache, "maxEntries", 100);
+
+        ReflectionTestUtils.setField(filter, "principalCache", principalCache);
+        ReflectionTestUtils.setField(filter, "stampService", stampService);
+        ReflectionTestUtils.setField(filter, "revocationService", revocationService);
+        ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(filter, "claimsEnabled", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void currentStampIsTrustedWithoutTheDatabase() throws Exception {
+        when(jwtUtils.verifyJwtToken(TOKEN)).thenReturn(claims("ACTIVE", "stamp-1", List.of("admin", "Supervisor")));
+        when(stampService.isCurrent(7L, "stamp-1")).thenReturn(true);
+
+        Authentication authentication = filter();
+
+        User user = (User) authentication.getPrincipal();
+        assertThat(user.getId()).isEqualTo(7L);
+        assertThat(user.getEmail()).isEqualTo("user@goldtech.com");
+        assertThat(user.getFullName()).isEqualTo("Test User");
+        assertThat(user.getProjectSite()).isEqualTo("Obuasi");
+        assertThat(user.getRoles()).extracting(Role::getName).containsExactlyInAnyOrder("admin", "Supervisor");
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactlyInAnyOrder("ROLE_ADMIN", "ROLE_SUPERVISOR");
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void staleStampFallsBackToTheDatabase() throws Exception {
+        when(jwtUtils.verifyJwtToken(TOKEN)).thenReturn(claims("ACTIVE", "stamp-old", List.of("admin")));
+        when(stampService.isCurrent(7L, "stamp-old")).thenReturn(false);
+        // The role was taken away since the token was issued
+        when(userRepository.findByEmail("user@goldtech.com")).thenReturn(Optional.of(stored(User.UserStatus.ACTIVE)));
+
+        Authentication authentication = filter();
+
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_EMPLOYEE");
+        verify(userRepository).findByEmail("user@goldtech.com");
+    }
+
+    @Test
+    void nonActiveStatusClaimIsNotTrusted() throws Exception {
+        when(jwtUtils.verifyJwtToken(TOKEN)).thenReturn(claims("INACTIVE", "stamp-1", List.of("admin")));
+        when(userRepository.findByEmail("user@goldtech.com")).thenReturn(Optional.of(stored(User.UserStatus.INACTIVE)));
+
+        assertThat(filter()).isNull();
+        verify(stampService, never()).isCurrent(any(), anyString());
+    }
+
+    @Test
+    void tokenWithoutAStampUsesTheDatabase() throws Exception {
+        when(jwtUtils.verifyJwtToken(TOKEN)).thenReturn(claims("ACTIVE", null, List.of("admin")));
+        when(userRepository.findByEmail("user@goldtech.com")).thenReturn(Optional.of(stored(User.UserStatus.ACTIVE)));
+
+        assertThat(filter().getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_EMPLOYEE");
+        verifyNoInteractions(stampService);
+    }
+
+    @Test
+    void revokedTokenIsNotAuthenticated() throws Exception {
+        when(jwtUtils.verifyJwtToken(TOKEN)).thenReturn(claims("ACTIVE", "stamp-1", List.of("admin")));
+        when(revocationService.isRevoked("jti-1")).thenReturn(true);
+
+        assertThat(filter()).isNull();
+        verifyNoInteractions(stampService, userRepository);
+    }
+
+    // Helper methods
+
+    private Authentication filter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users");
+        request.addHeader("Authorization", "Bearer " + TOKEN);
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        assertThat(chain.getRequest()).isNotNull();
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private Claims claims(String status, String stamp, List<String> roles) {
+        return Jwts.claims()
+                .subject("user@goldtech.com")
+                .id("jti-1")
+                .add(JwtUtils.CLAIM_USER_ID, 7)
+                .add(JwtUtils.CLAIM_STATUS, status)
+                .add(JwtUtils.CLAIM_STAMP, stamp)
+                .add(JwtUtils.CLAIM_NAME, "Test User")
+                .add(JwtUtils.CLAIM_SITE, "Obuasi")
+                .add(JwtUtils.CLAIM_ROLES, roles)
+                .build();
+    }
+
+    private User stored(User.UserStatus status) {
+        User user = new User("user@goldtech.com", "secret", "Test User");
+        user.setId(7L);
+        user.setStatus(status);
+        user.setSecurityStamp("stamp-new");
+        user.setRoles(new HashSet<>(Set.of(new Role("employee", "Employee"))));
+        return user;
+    }
+}
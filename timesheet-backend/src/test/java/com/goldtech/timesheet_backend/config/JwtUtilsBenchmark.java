@@ -0,0 +1,50 @@
+package com.goldtech.timesheet_backend.config;
+
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request token verification: a repeat token answered from the verified-token cache against
+ * a full HMAC check and claims parse. Run main() on the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilsBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cached;
+
+    private JwtUtils jwtUtils;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", JwtUtilsTest.SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3_600_000);
+        ReflectionTestUtils.setField(jwtUtils, "tokenCacheEnabled", cached);
+        ReflectionTestUtils.setField(jwtUtils, "tokenCacheMaxEntries", 10000);
+        jwtUtils.init();
+        token = jwtUtils.generateJwtToken("user@goldtech.com");
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return jwtUtils.verifyJwtToken(token);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(JwtUtilsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,88 @@
+package com.goldtech.timesheet_backend.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilsTest {
+
+    static final String SECRET = "test-secret-that-is-long-enough-for-hs256-signing";
+
+    private final JwtUtils jwtUtils = new JwtUtils();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60_000);
+        ReflectionTestUtils.setField(jwtUtils, "tokenCacheEnabled", true);
+        ReflectionTestUtils.setField(jwtUtils, "tokenCacheMaxEntries", 100);
+        jwtUtils.init();
+    }
+
+    @Test
+    void repeatedTokenIsVerifiedOnce() {
+        String token = jwtUtils.generateJwtToken("user@goldtech.com");
+
+        Claims first = jwtUtils.verifyJwtToken(token);
+        Claims second = jwtUtils.verifyJwtToken(token);
+
+        assertThat(first.getSubject()).isEqualTo("user@goldtech.com");
+        assertThat(first.getId()).isNotBlank();
+        assertThat(second).isSameAs(first);
+        assertThat(jwtUtils.getStats()).containsEntry("signatureChecks", 1L).containsEntry("cacheHits", 1L);
+    }
+
+    @Test
+    void forgedPayloadWithACachedSignatureIsRejected() {
+        String token = jwtUtils.generateJwtToken("user@goldtech.com");
+        assertThat(jwtUtils.verifyJwtToken(token)).isNotNull();
+
+        String[] parts = token.split("\\.");
+        String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8)
+                .replace("user@goldtech.com", "admin@goldtech.com");
+        String forged = parts[0] + "." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + "." + parts[2];
+
+        assertThat(jwtUtils.verifyJwtToken(forged)).isNull();
+        assertThat(jwtUtils.getStats()).containsEntry("rejected", 1L);
+    }
+
+    @Test
+    void expiredAndForeignTokensAreRejected() {
+        String expired = Jwts.builder()
+                .subject("user@goldtech.com")
+                .expiration(new Date(System.currentTimeMillis() - 1000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .compact();
+        String foreign = Jwts.builder()
+                .subject("user@goldtech.com")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor("another-secret-that-is-long-enough-for-hs256".getBytes()))
+                .compact();
+
+        assertThat(jwtUtils.verifyJwtToken(expired)).isNull();
+        assertThat(jwtUtils.verifyJwtToken(foreign)).isNull();
+        assertThat(jwtUtils.verifyJwtToken("not-a-token")).isNull();
+        assertThat(jwtUtils.validateJwtToken("")).isFalse();
+    }
+
+    @Test
+    void disabledCacheChecksEverySignature() {
+        ReflectionTestUtils.setField(jwtUtils, "tokenCacheEnabled", false);
+        String token = jwtUtils.generateJwtToken("user@goldtech.com");
+
+        jwtUtils.verifyJwtToken(token);
+        jwtUtils.verifyJwtToken(token);
+
+        assertThat(jwtUtils.getStats()).containsEntry("signatureChecks", 2L).containsEntry("cachedTokens", 0);
+    }
+}
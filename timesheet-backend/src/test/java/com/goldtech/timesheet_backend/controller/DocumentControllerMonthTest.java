@@ -0,0 +1,176 @@
+package com.goldtech.timesheet_backend.controller;
+
+import com.goldtech.timesheet_backend.entity.DayEntry;
+import com.goldtech.timesheet_backend.entity.User;
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository;
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository.DocumentMetadataRow;
+import com.goldtech.timesheet_backend.repository.DayEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * The month listing's ETag follows the listed content, and linked days show their primary day's documents
+ */
+@ExtendWith(MockitoExtension.class)
+class DocumentControllerMonthTest {
+
+    private static final LocalDate MARCH_1 = LocalDate.of(2026, 3, 1);
+    private static final LocalDate MARCH_31 = LocalDate.of(2026, 3, 31);
+
+    @Mock
+    private DayEntryDocumentRepository documentRepository;
+
+    @Mock
+    private DayEntryRepository dayEntryRepository;
+
+    @InjectMocks
+    private DocumentController controller;
+
+    private User user;
+    private Authentication authentication;
+    private final List<DocumentMetadataRow> rows = new ArrayList<>();
+    private final List<DayEntry> entries = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        user = new User("user@goldtech.com", "secret", "Test User");
+        user.setId(1L);
+        authentication = new UsernamePasswordAuthenticationToken(user, null, List.of());
+        lenient().when(documentRepository.findMetadataByUserIdAndDateBetween(1L, MARCH_1, MARCH_31)).thenReturn(rows);
+        lenient().when(dayEntryRepository.findByUserIdAndDateBetween(1L, MARCH_1, MARCH_31)).thenReturn(entries);
+    }
+
+    @Test
+    void unchangedMonthIsNotModified() throws Exception {
+        rows.add(row(5L, "2026-03-02", "hash-a", 100L, "/uploads/a.pdf"));
+        String etag = get(null).getHeaders().getETag();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ResponseEntity<?> result = controller.getDocumentsByMonth(2026, 3, null, request(etag, response), authentication);
+
+        assertThat(result).isNull();
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(etag);
+    }
+
+    @Test
+    void weakAndListedValidatorsMatch() throws Exception {
+        rows.add(row(5L, "2026-03-02", "hash-a", 100L, "/uploads/a.pdf"));
+        String etag = get(null).getHeaders().getETag();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.getDocumentsByMonth(2026, 3, null, request("\"other\", W/" + etag, response), authentication);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    void replacedContentChangesTheEtag() throws Exception {
+        rows.add(row(5L, "2026-03-02", "hash-a", 100L, "/uploads/a.pdf"));
+        String before = get(null).getHeaders().getETag();
+
+        // Same document id, reprocessed in place: new hash and size
+        rows.set(0, row(5L, "2026-03-02", "hash-b", 80L, "/uploads/a.pdf"));
+        assertThat(get(null).getHeaders().getETag()).isNotEqualTo(before);
+
+        // Moved to another storage tier
+        rows.set(0, row(5L, "2026-03-02", "hash-b", 80L, "/cold/a.pdf"));
+        ResponseEntity<?> moved = get(before);
+        assertThat(moved.getStatusCode().value()).isEqualTo(200);
+    }
+
+    @Test
+    void linkedDaysListThePrimaryDaysDocuments() throws Exception {
+        rows.add(row(5L, "2026-03-02", "hash-a", 100L, "/uploads/a.pdf"));
+        entries.add(linked("2026-03-03", "2026-03-02"));
+        entries.add(linked("2026-03-04", "2026-02-27")); // Primary day in the previous month
+        when(documentRepository.findMetadataByUserIdAndEntryDateIn(1L, Set.of(LocalDate.parse("2026-02-27"))))
+                .thenReturn(List.of(row(6L, "2026-02-27", "hash-c", 50L, "/uploads/c.pdf")));
+
+        ResponseEntity<?> result = get(null);
+
+        Map<String, List<Map<String, Object>>> data = data(result);
+        assertThat(data.keySet()).containsExactly("2026-03-02", "2026-03-03", "2026-03-04");
+        assertThat(data.get("2026-03-03")).extracting(document -> document.get("id")).containsExactly(5L);
+        assertThat(data.get("2026-03-04")).extracting(document -> document.get("id")).containsExactly(6L);
+    }
+
+    @Test
+    void linkingADayChangesTheEtag() throws Exception {
+        rows.add(row(5L, "2026-03-02", "hash-a", 100L, "/uploads/a.pdf"));
+        String before = get(null).getHeaders().getETag();
+
+        entries.add(linked("2026-03-03", "2026-03-02"));
+
+        assertThat(get(null).getHeaders().getETag()).isNotEqualTo(before);
+        verify(documentRepository, never()).findMetadataByUserIdAndEntryDateIn(eq(1L), any());
+    }
+
+    @Test
+    void invalidMonthIsABadRequest() {
+        for (int[] yearMonth : new int[][]{{2024, 13}, {2024, 0}, {0, 3}}) {
+            ResponseEntity<?> result = controller.getDocumentsByMonth(yearMonth[0], yearMonth[1], null,
+                    request(null, new MockHttpServletResponse()), authentication);
+
+            assertThat(result.getStatusCode().value()).isEqualTo(400);
+            assertThat(((Map<?, ?>) result.getBody()).get("success")).isEqualTo(false);
+        }
+        verifyNoInteractions(documentRepository, dayEntryRepository);
+    }
+
+    // Helper methods
+
+    private ResponseEntity<?> get(String ifNoneMatch) {
+        return controller.getDocumentsByMonth(2026, 3, null, request(ifNoneMatch, new MockHttpServletResponse()), authentication);
+    }
+
+    private ServletWebRequest request(String ifNoneMatch, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/documents/month/2026/3");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, response);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, List<Map<String, Object>>> data(ResponseEntity<?> result) {
+        return (Map<String, List<Map<String, Object>>>) ((Map<String, Object>) result.getBody()).get("data");
+    }
+
+    private DayEntry linked(String date, String primaryDay) {
+        DayEntry entry = new DayEntry(user, LocalDate.parse(date), DayEntry.EntryType.working_hours);
+        entry.setPrimaryDocumentDay(LocalDate.parse(primaryDay));
+        entry.setIsPrimaryDocument(false);
+        return entry;
+    }
+
+    private DocumentMetadataRow row(Long id, String date, String contentHash, Long fileSize, String filePath) {
+        return new MetadataRow(id, LocalDate.parse(date), "file-" + id + ".pdf", "application/pdf",
+                fileSize, contentHash, filePath);
+    }
+
+    private record MetadataRow(Long getId, LocalDate getEntryDate, String getOriginalFilename, String getMimeType,
+                               Long getFileSize, String getContentHash, String getFilePath) implements DocumentMetadataRow {}
+}
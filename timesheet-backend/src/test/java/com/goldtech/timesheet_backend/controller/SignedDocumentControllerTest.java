@@ -0,0 +1,126 @@
+package com.goldtech.timesheet_backend.controller;
+
+import com.goldtech.timesheet_backend.service.DocumentContentCache;
+import com.goldtech.timesheet_backend.service.DocumentSignedUrlService;
+import com.goldtech.timesheet_backend.service.DocumentSignedUrlService.VerifiedDocument;
+import com.goldtech.timesheet_backend.service.DocumentValidationService;
+import com.goldtech.timesheet_backend.service.DocumentValidationService.DetectedType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SignedDocumentControllerTest {
+
+    @Mock
+    private DocumentSignedUrlService signedUrlService;
+
+    @Mock
+    private DocumentContentCache contentCache;
+
+    @Mock
+    private DocumentValidationService validationService;
+
+    @InjectMocks
+    private SignedDocumentController controller;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void firstRequestGetsTheContentWithTheSignedHashAsEtag() throws Exception {
+        Path file = Files.writeString(dir.resolve("a.pdf"), "content");
+        when(signedUrlService.verify("token")).thenReturn(document(file));
+        when(contentCache.admits(anyLong())).thenReturn(false);
+        when(validationService.forMimeType("application/pdf")).thenReturn(DetectedType.PDF);
+
+        ResponseEntity<Resource> response = controller.getSignedDocument("token", request(null));
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"abc123\"");
+        assertThat(response.getHeaders().getCacheControl()).contains("private");
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_PDF);
+        assertThat(response.getHeaders().getContentDisposition().isInline()).isTrue();
+        assertThat(response.getHeaders().getFirst("X-Content-Type-Options")).isEqualTo("nosniff");
+        assertThat(response.getBody().getContentAsByteArray()).isEqualTo("content".getBytes());
+    }
+
+    @Test
+    void matchingValidatorIsNotModified() throws Exception {
+        Path file = Files.writeString(dir.resolve("a.pdf"), "content");
+        when(signedUrlService.verify("token")).thenReturn(document(file));
+
+        // Weak and listed validators match too (RFC 9110 weak comparison)
+        for (String ifNoneMatch : new String[]{"\"abc123\"", "W/\"abc123\"", "\"old\", \"abc123\""}) {
+            ResponseEntity<Resource> response = controller.getSignedDocument("token", request(ifNoneMatch));
+
+            assertThat(response.getStatusCode().value()).as(ifNoneMatch).isEqualTo(304);
+            assertThat(response.getHeaders().getCacheControl()).contains("max-age");
+        }
+        verifyNoInteractions(contentCache);
+    }
+
+    @Test
+    void otherValidatorGetsTheContent() throws Exception {
+        Path file = Files.writeString(dir.resolve("a.pdf"), "content");
+        when(signedUrlService.verify("token")).thenReturn(document(file));
+        when(contentCache.admits(anyLong())).thenReturn(true);
+        when(contentCache.read(file)).thenReturn("content".getBytes());
+
+        ResponseEntity<Resource> response = controller.getSignedDocument("token", request("\"old\""));
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+    }
+
+    @Test
+    void unrecognisedTypeIsServedAsAnAttachment() throws Exception {
+        Path file = Files.writeString(dir.resolve("a.html"), "<script>alert(1)</script>");
+        when(signedUrlService.verify("token")).thenReturn(
+                new VerifiedDocument(file, Instant.now().getEpochSecond() + 300, "abc123", "text/html", "a.html"));
+        when(contentCache.admits(anyLong())).thenReturn(false);
+
+        ResponseEntity<Resource> response = controller.getSignedDocument("token", request(null));
+
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_OCTET_STREAM);
+        assertThat(response.getHeaders().getContentDisposition().isAttachment()).isTrue();
+        assertThat(response.getHeaders().getContentDisposition().getFilename()).isEqualTo("a.html");
+        assertThat(response.getHeaders().getFirst("X-Content-Type-Options")).isEqualTo("nosniff");
+    }
+
+    @Test
+    void invalidTokenIsForbidden() throws Exception {
+        assertThat(controller.getSignedDocument("bad", request(null)).getStatusCode().value()).isEqualTo(403);
+    }
+
+    // Helper methods
+
+    private ServletWebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/documents/signed/token");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+
+    private VerifiedDocument document(Path file) {
+        return new VerifiedDocument(file, Instant.now().getEpochSecond() + 300, "abc123", "application/pdf", "a.pdf");
+    }
+}
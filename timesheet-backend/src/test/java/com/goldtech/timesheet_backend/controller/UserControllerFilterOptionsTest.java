@@ -0,0 +1,80 @@
+package com.goldtech.timesheet_backend.controller;
+
+import com.goldtech.timesheet_backend.dto.user.UserResponse;
+import com.goldtech.timesheet_backend.service.UserFilterOptionsService;
+import com.goldtech.timesheet_backend.service.UserFilterOptionsService.FilterOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Conditional requests for the filter options tree
+ */
+@ExtendWith(MockitoExtension.class)
+class UserControllerFilterOptionsTest {
+
+    private static final String ETAG = "\"0123456789abcdef\"";
+
+    @Mock
+    private UserFilterOptionsService filterOptionsService;
+
+    @InjectMocks
+    private UserController controller;
+
+    @BeforeEach
+    void setUp() {
+        when(filterOptionsService.getFilterOptions()).thenReturn(new FilterOptions(3, ETAG, Map.of("total", 2L)));
+    }
+
+    @Test
+    void firstRequestGetsTheTreeWithItsEtag() {
+        ResponseEntity<UserResponse> response = controller.getFilterOptions(request(null));
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getHeaders().getETag()).isEqualTo(ETAG);
+        assertThat(response.getHeaders().getCacheControl()).contains("no-cache", "private");
+        assertThat(response.getBody().getData()).isEqualTo(Map.of("total", 2L));
+    }
+
+    @Test
+    void weakAndListedValidatorsAreNotModified() {
+        for (String ifNoneMatch : new String[]{ETAG, "W/" + ETAG, "\"other\", " + ETAG}) {
+            ResponseEntity<UserResponse> response = controller.getFilterOptions(request(ifNoneMatch));
+
+            assertThat(response.getStatusCode().value()).isEqualTo(304);
+            assertThat(response.getHeaders().getETag()).isEqualTo(ETAG);
+            assertThat(response.getBody()).isNull();
+        }
+    }
+
+    @Test
+    void staleValidatorGetsTheTree() {
+        ResponseEntity<UserResponse> response = controller.getFilterOptions(request("\"stale\""));
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getBody().getData()).isEqualTo(Map.of("total", 2L));
+    }
+
+    // Helper methods
+
+    private ServletWebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/filter-options");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
@@ -0,0 +1,36 @@
+package com.goldtech.timesheet_backend.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DayEntryTest {
+
+    private static final LocalDate DAY_1 = LocalDate.of(2026, 3, 2);
+    private static final LocalDate DAY_2 = LocalDate.of(2026, 3, 3);
+
+    @Test
+    void dayPointingAtAnotherDayIsLinked() {
+        assertThat(entry(DAY_2, DAY_1, false).isLinkedDocumentEntry()).isTrue();
+        assertThat(entry(DAY_2, DAY_1, null).isLinkedDocumentEntry()).isTrue();
+    }
+
+    @Test
+    void primaryAndStandaloneDaysAreNotLinked() {
+        assertThat(entry(DAY_1, DAY_1, true).isLinkedDocumentEntry()).isFalse();
+        assertThat(entry(DAY_1, DAY_1, false).isLinkedDocumentEntry()).isFalse();
+        assertThat(entry(DAY_2, DAY_1, true).isLinkedDocumentEntry()).isFalse();
+        assertThat(entry(DAY_2, null, null).isLinkedDocumentEntry()).isFalse();
+    }
+
+    // Helper methods
+
+    private DayEntry entry(LocalDate date, LocalDate primaryDocumentDay, Boolean isPrimaryDocument) {
+        DayEntry entry = new DayEntry(null, date, DayEntry.EntryType.annual_leave);
+        entry.setPrimaryDocumentDay(primaryDocumentDay);
+        entry.setIsPrimaryDocument(isPrimaryDocument);
+        return entry;
+    }
+}
@@ -0,0 +1,87 @@
+package com.goldtech.timesheet_backend.repository;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login identifier lookups over 100k users in H2: the single-index lookups findLoginUser runs
+ * (a miss on the first column falls back to the second) against the old OR query.
+ * Run main() on the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserLoginLookupBenchmark {
+
+    private Connection connection;
+    private PreparedStatement byEmail;
+    private PreparedStatement byEmployeeId;
+    private PreparedStatement byEither;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = UserLoginLookupPlanTest.createUsers("benchmark", UserLoginLookupPlanTest.USERS);
+        byEmail = connection.prepareStatement(UserLoginLookupPlanTest.BY_EMAIL);
+        byEmployeeId = connection.prepareStatement(UserLoginLookupPlanTest.BY_EMPLOYEE_ID);
+        byEither = connection.prepareStatement(UserLoginLookupPlanTest.BY_EITHER);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public Long emailIdentifier() throws SQLException {
+        return find(byEmail, "user" + randomUser() + "@goldtech.com");
+    }
+
+    @Benchmark
+    public Long employeeIdIdentifier() throws SQLException {
+        return find(byEmployeeId, String.format("EMP%06d", randomUser()));
+    }
+
+    @Benchmark
+    public Long unknownIdentifier() throws SQLException {
+        // Worst case for findLoginUser: both indexes are probed
+        Long id = find(byEmail, "nobody@goldtech.com");
+        return id != null ? id : find(byEmployeeId, "nobody@goldtech.com");
+    }
+
+    @Benchmark
+    public Long orQuery() throws SQLException {
+        String identifier = "user" + randomUser() + "@goldtech.com";
+        byEither.setString(2, identifier);
+        return find(byEither, identifier);
+    }
+
+    // Helper methods
+
+    private int randomUser() {
+        return ThreadLocalRandom.current().nextInt(1, UserLoginLookupPlanTest.USERS + 1);
+    }
+
+    private Long find(PreparedStatement statement, String identifier) throws SQLException {
+        statement.setString(1, identifier);
+        try (ResultSet row = statement.executeQuery()) {
+            return row.next() ? row.getLong(1) : null;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(UserLoginLookupBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,121 @@
+package com.goldtech.timesheet_backend.repository;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query plans of the login lookups (AuthService.findLoginUser) over 100k users in H2: each
+ * single-column equality is answered from its unique index, the old OR form is not.
+ */
+class UserLoginLookupPlanTest {
+
+    static final int USERS = 100_000;
+
+    static final String BY_EMAIL = "SELECT id, email, password, status FROM users WHERE email = ?";
+    static final String BY_EMPLOYEE_ID = "SELECT id, email, password, status FROM users WHERE employee_id = ?";
+    static final String BY_EITHER = "SELECT id, email, password, status FROM users WHERE email = ? OR employee_id = ?";
+
+    private static Connection connection;
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        connection = createUsers("plan", USERS);
+    }
+
+    @AfterAll
+    static void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void emailLookupUsesTheEmailIndex() throws SQLException {
+        assertThat(explain(BY_EMAIL)).contains("UK_USERS_EMAIL").doesNotContain("tableScan");
+    }
+
+    @Test
+    void employeeIdLookupUsesTheEmployeeIdIndex() throws SQLException {
+        assertThat(explain(BY_EMPLOYEE_ID)).contains("UK_USERS_EMPLOYEE_ID").doesNotContain("tableScan");
+    }
+
+    @Test
+    void eitherColumnFormScansTheTable() throws SQLException {
+        // Why findLoginUser no longer asks for "email = ? OR employee_id = ?"
+        assertThat(explain(BY_EITHER)).contains("tableScan");
+    }
+
+    @Test
+    void lookupsFindTheUser() throws SQLException {
+        assertThat(find(BY_EMAIL, "user54321@goldtech.com")).isEqualTo(54321L);
+        assertThat(find(BY_EMPLOYEE_ID, "EMP054321")).isEqualTo(54321L);
+        assertThat(find(BY_EMAIL, "EMP054321")).isNull();
+    }
+
+    // Helper methods
+
+    /**
+     * An in-memory users table (MySQL mode) with the entity's unique keys and the given number of rows
+     */
+    static Connection createUsers(String name, int users) throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE users (" +
+                    "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                    "employee_id VARCHAR(20), " +
+                    "email VARCHAR(255) NOT NULL, " +
+                    "password VARCHAR(255) NOT NULL, " +
+                    "full_name VARCHAR(255) NOT NULL, " +
+                    "status VARCHAR(20) NOT NULL, " +
+                    "CONSTRAINT uk_users_email UNIQUE (email), " +
+                    "CONSTRAINT uk_users_employee_id UNIQUE (employee_id))");
+        }
+
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO users (employee_id, email, password, full_name, status) VALUES (?, ?, ?, ?, 'ACTIVE')")) {
+            for (int i = 1; i <= users; i++) {
+                insert.setString(1, String.format("EMP%06d", i));
+                insert.setString(2, "user" + i + "@goldtech.com");
+                insert.setString(3, "$2a$10$abcdefghijklmnopqrstuu1234567890123456789012345678901");
+                insert.setString(4, "User " + i);
+                insert.addBatch();
+                if (i % 5000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+        }
+        return connection;
+    }
+
+    private String explain(String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 1; i <= statement.getParameterMetaData().getParameterCount(); i++) {
+                statement.setString(i, "x");
+            }
+            try (ResultSet plan = statement.executeQuery()) {
+                plan.next();
+                return plan.getString(1);
+            }
+        }
+    }
+
+    private Long find(String sql, String identifier) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, identifier);
+            try (ResultSet row = statement.executeQuery()) {
+                return row.next() ? row.getLong("id") : null;
+            }
+        }
+    }
+}
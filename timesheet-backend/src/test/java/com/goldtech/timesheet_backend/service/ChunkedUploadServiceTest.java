@@ -0,0 +1,237 @@
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.User;
+import com.goldtech.timesheet_backend.service.ChunkedUploadService.CompletedUpload;
+import com.goldtech.timesheet_backend.service.ChunkedUploadService.UploadStatus;
+import com.goldtech.timesheet_backend.service.DocumentValidationService.DetectedType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChunkedUploadServiceTest {
+
+    private static final byte[] CONTENT = "%PDF-1.4 a small sick note split into chunks".getBytes(StandardCharsets.US_ASCII);
+
+    @Mock
+    private DocumentValidationService validationService;
+
+    @Mock
+    private StorageUsageService storageUsageService;
+
+    @InjectMocks
+    private ChunkedUploadService uploadService;
+
+    @TempDir
+    Path uploadDir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(uploadService, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(uploadService, "chunkSize", 16);
+        ReflectionTestUtils.setField(uploadService, "sessionTtlHours", 24L);
+    }
+
+    @Test
+    void chunksAssembleIntoTheCompletedFile() throws Exception {
+        when(validationService.checkContent(eq("note.pdf"), any(), anyInt())).thenReturn(DetectedType.PDF);
+        String uploadId = start(sha256(CONTENT));
+
+        for (int offset = 0; offset < CONTENT.length; offset += 16) {
+            append(uploadId, offset, Arrays.copyOfRange(CONTENT, offset, Math.min(CONTENT.length, offset + 16)));
+        }
+        UploadStatus status = uploadService.complete(1L, uploadId);
+
+        assertThat(status.isCompleted()).isTrue();
+        assertThat(status.getChunks()).isEqualTo(3);
+        CompletedUpload upload = uploadService.getCompletedUpload(1L, uploadId);
+        assertThat(upload.getType()).isEqualTo("application/pdf");
+        assertThat(upload.getSha256()).isEqualTo(sha256(CONTENT));
+    }
+
+    @Test
+    void resumedUploadContinuesFromTheReportedOffset() throws Exception {
+        String uploadId = start(null);
+        append(uploadId, 0, Arrays.copyOfRange(CONTENT, 0, 16));
+
+        // A retried chunk at an old offset is refused; the client asks where to resume
+        assertThatThrownBy(() -> append(uploadId, 0, Arrays.copyOfRange(CONTENT, 0, 16)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Offset mismatch");
+        assertThat(uploadService.getStatus(1L, uploadId).getOffset()).isEqualTo(16);
+    }
+
+    @Test
+    void corruptChunkIsNotKept() throws Exception {
+        String uploadId = start(null);
+        append(uploadId, 0, Arrays.copyOfRange(CONTENT, 0, 16));
+
+        byte[] chunk = Arrays.copyOfRange(CONTENT, 16, 32);
+        String checksum = sha256(chunk);
+        chunk[0] ^= 1;
+        assertThatThrownBy(() -> uploadService.appendChunk(1L, uploadId, 16, checksum, new ByteArrayInputStream(chunk)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("checksum");
+
+        assertThat(uploadService.getStatus(1L, uploadId).getOffset()).isEqualTo(16);
+        assertThat(Files.size(uploadDir.resolve(".chunked").resolve(uploadId).resolve("data.part"))).isEqualTo(16);
+    }
+
+    @Test
+    void disallowedContentDropsTheSessionOnceTheHeaderIsIn() {
+        when(validationService.checkContent(any(), any(), anyInt()))
+                .thenThrow(new IllegalArgumentException("File type not allowed"));
+        String uploadId = start(null);
+        append(uploadId, 0, Arrays.copyOfRange(CONTENT, 0, 16));
+        append(uploadId, 16, Arrays.copyOfRange(CONTENT, 16, 32));
+
+        // The file is shorter than the sniff window: its end is the end of the header
+        assertThatThrownBy(() -> append(uploadId, 32, Arrays.copyOfRange(CONTENT, 32, CONTENT.length)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> uploadService.getStatus(1L, uploadId))
+                .hasMessage("Upload not found");
+    }
+
+    @Test
+    void shortFirstChunkIsCheckedOnceTheSniffWindowFilled() {
+        ReflectionTestUtils.setField(uploadService, "chunkSize", 4096);
+        byte[] content = new byte[10000];
+        System.arraycopy(CONTENT, 0, content, 0, CONTENT.length);
+        when(validationService.checkContent(any(), any(), anyInt())).thenReturn(DetectedType.PDF);
+        String uploadId = uploadService.initiate(user(), "note.pdf", "application/pdf", (long) content.length, null).getUploadId();
+
+        // "%PD" alone is no signature; it must not be judged yet
+        append(uploadId, 0, Arrays.copyOfRange(content, 0, 3));
+        append(uploadId, 3, Arrays.copyOfRange(content, 3, 4099));
+        verify(validationService, never()).checkContent(any(), any(), anyInt());
+
+        append(uploadId, 4099, Arrays.copyOfRange(content, 4099, 8195));
+        ArgumentCaptor<byte[]> head = ArgumentCaptor.forClass(byte[].class);
+        verify(validationService).checkContent(eq("note.pdf"), head.capture(), eq(DocumentValidationService.SNIFF_BYTES));
+        assertThat(Arrays.copyOf(head.getValue(), CONTENT.length)).isEqualTo(CONTENT);
+
+        append(uploadId, 8195, Arrays.copyOfRange(content, 8195, content.length));
+        uploadService.complete(1L, uploadId);
+        verify(validationService).checkContent(any(), any(), anyInt()); // Not checked again
+        assertThat(uploadService.getCompletedUpload(1L, uploadId).getType()).isEqualTo("application/pdf");
+    }
+
+    @Test
+    void otherUsersCannotSeeTheSession() {
+        String uploadId = start(null);
+
+        assertThatThrownBy(() -> uploadService.getStatus(2L, uploadId)).hasMessage("Upload not found");
+    }
+
+    @Test
+    void claimLeavesTheStagedFileForARetry() throws Exception {
+        when(validationService.checkContent(any(), any(), anyInt())).thenReturn(DetectedType.PDF);
+        String uploadId = completedUpload();
+        Path target = uploadDir.resolve("user_1/2026/3/stored.pdf");
+
+        uploadService.claim(1L, uploadId, target);
+        assertThat(target).hasBinaryContent(CONTENT);
+
+        // The save rolled back: storage removes the target, the session can be claimed again
+        Files.delete(target);
+        uploadService.claim(1L, uploadId, target);
+        assertThat(target).hasBinaryContent(CONTENT);
+
+        uploadService.release(uploadId);
+        assertThat(uploadDir.resolve(".chunked").resolve(uploadId)).doesNotExist();
+        assertThat(target).hasBinaryContent(CONTENT);
+    }
+
+    @Test
+    void incompleteUploadCannotBeClaimed() {
+        String uploadId = start(null);
+        append(uploadId, 0, Arrays.copyOfRange(CONTENT, 0, 16));
+
+        assertThatThrownBy(() -> uploadService.complete(1L, uploadId)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> uploadService.claim(1L, uploadId, uploadDir.resolve("x.pdf")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void uploadOverQuotaIsRefusedBeforeASessionExists() {
+        doThrow(new IllegalArgumentException("Upload would exceed your storage quota"))
+                .when(storageUsageService).checkQuota(any(), isNull(), eq((long) CONTENT.length));
+
+        assertThatThrownBy(() -> start(null)).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("quota");
+        assertThat(uploadDir.resolve(".chunked")).doesNotExist();
+    }
+
+    @Test
+    void invalidIdIsRejectedBeforeTakingALock() {
+        assertThatThrownBy(() -> uploadService.getStatus(1L, "../../etc"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid upload id");
+        assertThatThrownBy(() -> ReflectionTestUtils.invokeMethod(uploadService, "lockFor", "not-a-session"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void sessionKeepsItsLockAfterAbort() {
+        String uploadId = start(null);
+        Object lock = ReflectionTestUtils.invokeMethod(uploadService, "lockFor", uploadId);
+
+        // A thread already waiting on the lock must share it with the next caller
+        uploadService.abort(1L, uploadId);
+
+        assertThat((Object) ReflectionTestUtils.invokeMethod(uploadService, "lockFor", uploadId)).isSameAs(lock);
+        assertThatThrownBy(() -> uploadService.getStatus(1L, uploadId)).hasMessage("Upload not found");
+    }
+
+    // Helper methods
+
+    private String start(String sha256) {
+        return uploadService.initiate(user(), "note.pdf", "application/pdf", (long) CONTENT.length, sha256).getUploadId();
+    }
+
+    private User user() {
+        User user = new User("user@goldtech.com", "secret", "Test User");
+        user.setId(1L);
+        return user;
+    }
+
+    private String completedUpload() {
+        String uploadId = start(null);
+        for (int offset = 0; offset < CONTENT.length; offset += 16) {
+            append(uploadId, offset, Arrays.copyOfRange(CONTENT, offset, Math.min(CONTENT.length, offset + 16)));
+        }
+        uploadService.complete(1L, uploadId);
+        return uploadId;
+    }
+
+    private void append(String uploadId, long offset, byte[] chunk) {
+        uploadService.appendChunk(1L, uploadId, offset, sha256(chunk), new ByteArrayInputStream(chunk));
+    }
+
+    private String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
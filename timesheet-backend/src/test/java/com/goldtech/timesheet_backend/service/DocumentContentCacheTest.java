@@ -0,0 +1,111 @@
+package com.goldtech.timesheet_backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DocumentContentCacheTest {
+
+    private final DocumentContentCache cache = new DocumentContentCache();
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxBytes", 1024L);
+        ReflectionTestUtils.setField(cache, "maxEntryBytes", 512L);
+    }
+
+    @Test
+    void secondReadIsServedFromMemory() throws Exception {
+        Path file = Files.writeString(dir.resolve("a.pdf"), "first");
+
+        cache.read(file);
+        Files.writeString(file, "changed on disk");
+
+        assertThat(cache.read(file)).isEqualTo("first".getBytes());
+        assertThat(cache.getStats()).containsEntry("hits", 1L).containsEntry("misses", 1L);
+    }
+
+    @Test
+    void invalidatedPathIsReadAgain() throws Exception {
+        Path file = Files.writeString(dir.resolve("a.pdf"), "first");
+        cache.read(file);
+
+        Files.writeString(file, "second");
+        cache.invalidate(file.toString());
+
+        assertThat(cache.read(file)).isEqualTo("second".getBytes());
+    }
+
+    @Test
+    void readOverlappingAnInvalidationIsNotCached() throws Exception {
+        Path file = Files.writeString(dir.resolve("a.pdf"), "second");
+        String key = file.toString();
+
+        // A miss read the old bytes from disk, then the path was invalidated before it could cache them
+        Object load = ReflectionTestUtils.invokeMethod(cache, "beginLoad", key);
+        cache.invalidate(key);
+        Boolean cached = ReflectionTestUtils.invokeMethod(cache, "endLoad", key, load, "first".getBytes(), false);
+
+        assertThat(cached).isFalse();
+        assertThat(cache.read(file)).isEqualTo("second".getBytes());
+        assertThat(pendingLoads()).isEmpty();
+    }
+
+    @Test
+    void loadStartedAfterTheInvalidationIsCached() throws Exception {
+        Path file = Files.writeString(dir.resolve("a.pdf"), "second");
+        String key = file.toString();
+
+        Object stale = ReflectionTestUtils.invokeMethod(cache, "beginLoad", key);
+        cache.invalidate(key);
+        Object fresh = ReflectionTestUtils.invokeMethod(cache, "beginLoad", key);
+        ReflectionTestUtils.invokeMethod(cache, "endLoad", key, fresh, "second".getBytes(), false);
+        ReflectionTestUtils.invokeMethod(cache, "endLoad", key, stale, "first".getBytes(), false);
+
+        Files.writeString(file, "third");
+        assertThat(cache.read(file)).isEqualTo("second".getBytes());
+        assertThat(pendingLoads()).isEmpty();
+    }
+
+    @Test
+    void prefetchDoesNotCacheOversizedFiles() throws Exception {
+        Path large = Files.write(dir.resolve("large.pdf"), new byte[600]);
+
+        assertThat(cache.prefetch(large)).isFalse();
+        assertThat(cache.read(large)).hasSize(600);
+        assertThat(cache.getStats()).containsEntry("entries", 0).containsEntry("rejectedTooLarge", 1L);
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvicted() throws Exception {
+        Path a = Files.write(dir.resolve("a.pdf"), new byte[400]);
+        Path b = Files.write(dir.resolve("b.pdf"), new byte[400]);
+        Path c = Files.write(dir.resolve("c.pdf"), new byte[400]);
+
+        cache.read(a);
+        cache.read(b);
+        cache.read(a); // b is now the eldest
+        cache.read(c);
+
+        assertThat(cache.getStats()).containsEntry("entries", 2).containsEntry("usedBytes", 800L)
+                .containsEntry("evictions", 1L);
+    }
+
+    // Helper methods
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> pendingLoads() {
+        return (Map<String, Object>) ReflectionTestUtils.getField(cache, "loads");
+    }
+}
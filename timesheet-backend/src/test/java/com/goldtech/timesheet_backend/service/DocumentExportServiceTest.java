@@ -0,0 +1,101 @@
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository.DocumentExportRow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DocumentExportServiceTest {
+
+    private final DocumentExportService exportService = new DocumentExportService();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void archiveHoldsEveryFileUnderEmployeeAndDate() throws Exception {
+        byte[] photo = new byte[200_000];
+        new Random(1).nextBytes(photo);
+        Path jpg = Files.write(dir.resolve("a.jpg"), photo);
+        Path pdf = Files.writeString(dir.resolve("b.pdf"), "%PDF-1.4 sick note");
+
+        List<DocumentExportRow> rows = List.of(
+                row(jpg, "receipt.jpg", "2026-03-02"),
+                row(pdf, "note.pdf", "2026-03-02"),
+                row(pdf, "note.pdf", "2026-03-02"), // Same name again: gets a suffix
+                row(dir.resolve("gone.pdf"), "gone.pdf", "2026-03-03"));
+
+        Map<String, byte[]> entries = unzip(write(rows));
+
+        assertThat(entries.keySet()).containsExactly(
+                "GT001_Jane Doe/2026-03-02/receipt.jpg",
+                "GT001_Jane Doe/2026-03-02/note.pdf",
+                "GT001_Jane Doe/2026-03-02/note (2).pdf",
+                "MISSING_FILES.txt");
+        assertThat(entries.get("GT001_Jane Doe/2026-03-02/receipt.jpg")).isEqualTo(photo);
+        assertThat(entries.get("GT001_Jane Doe/2026-03-02/note.pdf")).isEqualTo(Files.readAllBytes(pdf));
+        assertThat(new String(entries.get("MISSING_FILES.txt"), StandardCharsets.UTF_8))
+                .isEqualTo("GT001_Jane Doe/2026-03-03/gone.pdf");
+    }
+
+    @Test
+    void alreadyCompressedFilesAreNotStored() throws Exception {
+        // Entries carry size and CRC from the streamed bytes, never from a separate pre-pass
+        Path jpg = Files.write(dir.resolve("c.jpg"), new byte[1024]);
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(write(List.of(row(jpg, "c.jpg", "2026-03-04")))))) {
+            ZipEntry entry = zip.getNextEntry();
+            assertThat(entry.getMethod()).isEqualTo(ZipEntry.DEFLATED);
+            assertThat(zip.readAllBytes()).hasSize(1024);
+        }
+    }
+
+    @Test
+    void invalidMonthIsRejected() {
+        assertThatThrownBy(() -> exportService.getTeamExportRows(1L, 2026, 13))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid month");
+        assertThatThrownBy(() -> exportService.getProjectSiteExportRows("Obuasi", 2026, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Helper methods
+
+    private byte[] write(List<DocumentExportRow> rows) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.writeArchive(rows, out);
+        return out.toByteArray();
+    }
+
+    // ZipInputStream checks every entry's CRC and size while reading
+    private Map<String, byte[]> unzip(byte[] archive) throws Exception {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.put(entry.getName(), zip.readAllBytes());
+            }
+        }
+        return entries;
+    }
+
+    private DocumentExportRow row(Path file, String originalFilename, String date) {
+        return new ExportRow(file.toString(), originalFilename, LocalDate.parse(date), 7L, "GT001", "Jane Doe");
+    }
+
+    private record ExportRow(String getFilePath, String getOriginalFilename, LocalDate getEntryDate,
+                             Long getUserId, String getEmployeeId, String getEmployeeName) implements DocumentExportRow {}
+}
@@ -0,0 +1,120 @@
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.DayEntry;
+import com.goldtech.timesheet_backend.entity.DayEntryDocument;
+import com.goldtech.timesheet_backend.entity.User;
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository;
+import com.goldtech.timesheet_backend.repository.DocumentDeletionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentImageServiceTest {
+
+    @Mock
+    private DayEntryDocumentRepository documentRepository;
+
+    @Mock
+    private DocumentDeletionRepository deletionRepository;
+
+    @Mock
+    private DocumentReconciliationService reconciliationService;
+
+    @Mock
+    private StorageUsageService storageUsageService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private DocumentImageService imageService;
+
+    private final Path source = Path.of("/uploads/user_1/2026/3/original.jpg");
+    private DayEntryDocument document;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(imageService, "transactionTemplate", new TransactionTemplate(transactionManager));
+
+        User user = new User("user@goldtech.com", "secret", "Test User");
+        user.setId(1L);
+        document = new DayEntryDocument();
+        document.setDayEntry(new DayEntry(user, LocalDate.of(2026, 3, 2), DayEntry.EntryType.annual_leave));
+        document.setFilePath(source.toString());
+        document.setFileSize(900L);
+        document.setContentHash("original-hash");
+    }
+
+    @Test
+    void optimizedFileIsHashedFromTheWrittenBytes() throws Exception {
+        when(documentRepository.findById(5L)).thenReturn(Optional.of(document));
+        when(deletionRepository.saveAll(anyList())).thenAnswer(invocation -> List.of());
+        byte[] optimized = {1, 2, 3, 4};
+        // Not on disk: the row must be updated without reading it back
+        Path optimizedPath = source.resolveSibling("optimized.jpg");
+        Path thumbnailPath = source.resolveSibling("optimized_thumb.jpg");
+
+        boolean marked = ReflectionTestUtils.invokeMethod(imageService, "markProcessed",
+                5L, source, optimizedPath, thumbnailPath, optimized);
+
+        assertThat(marked).isTrue();
+        assertThat(document.getFilePath()).isEqualTo(optimizedPath.toString());
+        assertThat(document.getFileSize()).isEqualTo(4L);
+        assertThat(document.getContentHash()).isEqualTo(sha256(optimized));
+        verify(storageUsageService).recordRemoved(any(), any(), eq(0L), eq(896L));
+    }
+
+    @Test
+    void thumbnailOnlyKeepsPathAndHash() {
+        when(documentRepository.findById(5L)).thenReturn(Optional.of(document));
+        when(deletionRepository.saveAll(anyList())).thenAnswer(invocation -> List.of());
+
+        boolean marked = ReflectionTestUtils.invokeMethod(imageService, "markProcessed",
+                5L, source, null, source.resolveSibling("thumb.jpg"), null);
+
+        assertThat(marked).isTrue();
+        assertThat(document.getFilePath()).isEqualTo(source.toString());
+        assertThat(document.getContentHash()).isEqualTo("original-hash");
+        assertThat(document.getImageProcessedAt()).isNotNull();
+        verifyNoInteractions(storageUsageService);
+    }
+
+    @Test
+    void documentMovedMeanwhileIsLeftAlone() {
+        document.setFilePath("/cold/user_1/2026/3/original.jpg");
+        when(documentRepository.findById(5L)).thenReturn(Optional.of(document));
+
+        boolean marked = ReflectionTestUtils.invokeMethod(imageService, "markProcessed",
+                5L, source, source.resolveSibling("optimized.jpg"), null, new byte[]{1});
+
+        assertThat(marked).isFalse();
+        assertThat(document.getContentHash()).isEqualTo("original-hash");
+        verify(documentRepository, never()).save(any());
+    }
+
+    // Helper methods
+
+    private String sha256(byte[] data) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+}
@@ -0,0 +1,116 @@
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentPrefetchServiceTest {
+
+    private static final LocalDate MARCH_1 = LocalDate.of(2026, 3, 1);
+    private static final LocalDate MARCH_31 = LocalDate.of(2026, 3, 31);
+
+    @Mock
+    private DayEntryDocumentRepository documentRepository;
+
+    @Mock
+    private DocumentContentCache contentCache;
+
+    @InjectMocks
+    private DocumentPrefetchService prefetchService;
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(prefetchService, "enabled", true);
+        ReflectionTestUtils.setField(prefetchService, "threads", 1);
+        ReflectionTestUtils.setField(prefetchService, "queueCapacity", 4);
+        ReflectionTestUtils.setField(prefetchService, "maxFiles", 20);
+        ReflectionTestUtils.setField(prefetchService, "maxBytes", 1024L * 1024);
+        prefetchService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        prefetchService.stop();
+    }
+
+    @Test
+    void finishedJobIsForgotten() throws Exception {
+        Path file = Files.writeString(dir.resolve("a.pdf"), "content");
+        when(documentRepository.findFilePathsByUserIdAndDateBetween(7L, MARCH_1, MARCH_31))
+                .thenReturn(List.of(file.toString()));
+        when(contentCache.admits(anyLong())).thenReturn(true);
+        when(contentCache.prefetch(file)).thenReturn(true);
+
+        prefetchService.prefetchMonth(1L, 7L, 2026, 3);
+
+        awaitNoPendingJobs();
+        verify(contentCache).prefetch(file);
+        assertThat(prefetchService.getStats()).containsEntry("filesCached", 1L).containsEntry("jobsSubmitted", 1L);
+    }
+
+    @Test
+    void openingAnotherTimesheetCancelsThePreviousJob() throws Exception {
+        Path file = Files.writeString(dir.resolve("a.pdf"), "content");
+        when(documentRepository.findFilePathsByUserIdAndDateBetween(anyLong(), any(), any()))
+                .thenReturn(List.of(file.toString()));
+        when(contentCache.admits(anyLong())).thenReturn(true);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(contentCache.prefetch(file)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return true;
+        }).thenReturn(false);
+
+        prefetchService.prefetchMonth(1L, 7L, 2026, 3);
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        prefetchService.prefetchMonth(1L, 8L, 2026, 3);
+        release.countDown();
+
+        awaitNoPendingJobs();
+        assertThat(prefetchService.getStats()).containsEntry("jobsCancelled", 1L).containsEntry("jobsSubmitted", 2L);
+    }
+
+    @Test
+    void monthWithoutDocumentsLeavesNothingBehind() {
+        when(documentRepository.findFilePathsByUserIdAndDateBetween(7L, MARCH_1, MARCH_31)).thenReturn(List.of());
+
+        prefetchService.prefetchMonth(1L, 7L, 2026, 3);
+
+        assertThat(prefetchService.getStats()).containsEntry("pendingJobs", 0).containsEntry("jobsSubmitted", 0L);
+    }
+
+    // Helper methods
+
+    private void awaitNoPendingJobs() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!Integer.valueOf(0).equals(prefetchService.getStats().get("pendingJobs")) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(prefetchService.getStats()).containsEntry("pendingJobs", 0);
+    }
+}
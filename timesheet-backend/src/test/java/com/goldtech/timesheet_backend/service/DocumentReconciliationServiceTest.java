@@ -0,0 +1,203 @@
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.DocumentDeletion;
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository;
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository.DocumentDerivedPathRow;
+import com.goldtech.timesheet_backend.repository.DocumentDeletionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentReconciliationServiceTest {
+
+    @Mock
+    private DayEntryDocumentRepository documentRepository;
+
+    @Mock
+    private DocumentDeletionRepository deletionRepository;
+
+    @Mock
+    private DocumentContentCache contentCache;
+
+    @InjectMocks
+    private DocumentReconciliationService service;
+
+    @TempDir
+    Path uploadDir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(service, "filesPerRun", 5000);
+        ReflectionTestUtils.setField(service, "filesPerSecond", 0);
+        ReflectionTestUtils.setField(service, "orphanGraceMinutes", 60L);
+        ReflectionTestUtils.setField(service, "maxDeleteAttempts", 10);
+    }
+
+    @Test
+    void processDeletionsRemovesFileAndTombstone() throws Exception {
+        Path file = Files.writeString(uploadDir.resolve("a.pdf"), "content");
+        DocumentDeletion tombstone = tombstone(1L, file);
+        when(deletionRepository.findAllById(List.of(1L))).thenReturn(List.of(tombstone));
+
+        service.processDeletions(List.of(1L));
+
+        assertThat(file).doesNotExist();
+        verify(contentCache).invalidate(file.toString());
+        verify(deletionRepository).delete(tombstone);
+    }
+
+    @Test
+    void failedDeleteKeepsTombstoneAndCountsAttempt() throws Exception {
+        // A non-empty directory cannot be deleted, which stands in for an I/O error
+        Path blocked = Files.createDirectories(uploadDir.resolve("blocked"));
+        Files.writeString(blocked.resolve("child"), "x");
+        DocumentDeletion tombstone = tombstone(2L, blocked);
+        when(deletionRepository.findAllById(List.of(2L))).thenReturn(List.of(tombstone));
+
+        service.processDeletions(List.of(2L));
+
+        assertThat(blocked).exists();
+        assertThat(tombstone.getAttempts()).isEqualTo(1);
+        assertThat(tombstone.getLastError()).isNotBlank();
+        verify(deletionRepository).save(tombstone);
+        verify(deletionRepository, never()).delete(any());
+    }
+
+    @Test
+    void tombstoneOfAPathInUseAgainIsDroppedWithoutDeleting() throws Exception {
+        Path file = Files.writeString(uploadDir.resolve("a.pdf"), "promoted back");
+        DocumentDeletion tombstone = tombstone(3L, file);
+        when(deletionRepository.findAllById(List.of(3L))).thenReturn(List.of(tombstone));
+        when(documentRepository.findExistingFilePaths(List.of(file.toString()))).thenReturn(List.of(file.toString()));
+
+        service.processDeletions(List.of(3L));
+
+        assertThat(file).hasContent("promoted back");
+        verify(deletionRepository).delete(tombstone);
+        verifyNoInteractions(contentCache);
+    }
+
+    @Test
+    void sweepSkipsPathsThatAreADerivedFileAgain() throws Exception {
+        Path file = Files.writeString(uploadDir.resolve("a_thumb.jpg"), "thumb");
+        DocumentDeletion tombstone = tombstone(4L, file);
+        when(deletionRepository.findPendingBefore(any(), anyInt(), any())).thenReturn(List.of(tombstone));
+        when(documentRepository.findExistingDerivedPaths(List.of(file.toString())))
+                .thenReturn(List.of(new DerivedPathRow(file.toString(), null)));
+
+        service.sweepTombstones();
+
+        assertThat(file).exists();
+        verify(deletionRepository).delete(tombstone);
+    }
+
+    @Test
+    void reconcileAlsoScansTheColdRoot(@TempDir Path coldDir) throws Exception {
+        ReflectionTestUtils.setField(service, "coldDir", coldDir.toString());
+        ReflectionTestUtils.setField(service, "deleteOrphans", true);
+        Path hotOrphan = old(Files.writeString(Files.createDirectories(uploadDir.resolve("user_1")).resolve("a.pdf"), "a"));
+        Path coldOrphan = old(Files.writeString(Files.createDirectories(coldDir.resolve("user_1/2025/1")).resolve("b.pdf"), "b"));
+        Path coldKept = old(Files.writeString(coldDir.resolve("user_1/2025/1/c.pdf"), "c"));
+        when(documentRepository.findExistingFilePaths(anyCollection())).thenReturn(List.of(coldKept.toString()));
+        when(documentRepository.findExistingDerivedPaths(anyCollection())).thenReturn(List.of());
+
+        service.reconcileUploadDirectory();
+
+        assertThat(hotOrphan).doesNotExist();
+        assertThat(coldOrphan).doesNotExist();
+        assertThat(coldKept).exists();
+        assertThat(Files.readString(coldDir.resolve(".reconcile-checkpoint"))).isEqualTo("user_1");
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> report = (Map<String, Object>) service.getStatus().get("lastReconciliation");
+        assertThat(report).containsEntry("filesScanned", 3).containsEntry("orphansDeleted", 2)
+                .containsEntry("checkpoints", Map.of(uploadDir.toString(), "user_1", coldDir.toString(), "user_1"));
+    }
+
+    @Test
+    void reconcileDeletesOnlyOldUnreferencedFiles() throws Exception {
+        ReflectionTestUtils.setField(service, "deleteOrphans", true);
+        Path monthDir = Files.createDirectories(uploadDir.resolve("user_1/2026/3"));
+        Path referenced = old(Files.writeString(monthDir.resolve("kept.pdf"), "kept"));
+        Path orphan = old(Files.writeString(monthDir.resolve("orphan.pdf"), "orphan"));
+        Path fresh = Files.writeString(monthDir.resolve("fresh.pdf"), "fresh");
+
+        when(documentRepository.findExistingFilePaths(anyCollection())).thenReturn(List.of(referenced.toString()));
+        when(documentRepository.findExistingDerivedPaths(anyCollection())).thenReturn(List.of());
+
+        service.reconcileUploadDirectory();
+
+        assertThat(referenced).exists();
+        assertThat(orphan).doesNotExist();
+        assertThat(fresh).exists(); // Inside the grace period: may belong to an open transaction
+        assertThat(Files.readString(uploadDir.resolve(".reconcile-checkpoint"))).isEqualTo("user_1");
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> report = (Map<String, Object>) service.getStatus().get("lastReconciliation");
+        assertThat(report).containsEntry("filesScanned", 3).containsEntry("orphansFound", 1).containsEntry("orphansDeleted", 1);
+    }
+
+    @Test
+    void reconcileOnlyReportsOrphansByDefault() throws Exception {
+        Path monthDir = Files.createDirectories(uploadDir.resolve("user_2/2026/3"));
+        Path orphan = old(Files.writeString(monthDir.resolve("orphan.pdf"), "orphan"));
+        when(documentRepository.findExistingFilePaths(anyCollection())).thenReturn(List.of());
+        when(documentRepository.findExistingDerivedPaths(anyCollection())).thenReturn(List.of());
+
+        service.reconcileUploadDirectory();
+
+        assertThat(orphan).exists();
+    }
+
+    @Test
+    void reconcileResumesAfterCheckpoint() throws Exception {
+        ReflectionTestUtils.setField(service, "filesPerRun", 1);
+        old(Files.writeString(Files.createDirectories(uploadDir.resolve("user_1")).resolve("a.pdf"), "a"));
+        old(Files.writeString(Files.createDirectories(uploadDir.resolve("user_2")).resolve("b.pdf"), "b"));
+        when(documentRepository.findExistingFilePaths(anyCollection()))
+                .thenAnswer(invocation -> List.copyOf(invocation.<List<String>>getArgument(0)));
+        when(documentRepository.findExistingDerivedPaths(anyCollection())).thenReturn(List.of());
+
+        service.reconcileUploadDirectory();
+        assertThat(Files.readString(uploadDir.resolve(".reconcile-checkpoint"))).isEqualTo("user_1");
+
+        service.reconcileUploadDirectory();
+        assertThat(Files.readString(uploadDir.resolve(".reconcile-checkpoint"))).isEqualTo("user_2");
+    }
+
+    // Helper methods
+
+    private DocumentDeletion tombstone(Long id, Path file) {
+        DocumentDeletion tombstone = new DocumentDeletion(file.toString());
+        tombstone.setId(id);
+        return tombstone;
+    }
+
+    private Path old(Path file) throws Exception {
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(2, ChronoUnit.HOURS)));
+        return file;
+    }
+
+    private record DerivedPathRow(String getThumbnailPath, String getOriginalPath) implements DocumentDerivedPathRow {}
+}
@@ -0,0 +1,126 @@
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository;
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository.DocumentSigningRow;
+import com.goldtech.timesheet_backend.service.DocumentSignedUrlService.SignedDocument;
+import com.goldtech.timesheet_backend.service.DocumentSignedUrlService.VerifiedDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentSignedUrlServiceTest {
+
+    @Mock
+    private DayEntryDocumentRepository documentRepository;
+
+    @InjectMocks
+    private DocumentSignedUrlService signedUrlService;
+
+    @TempDir
+    Path uploadDir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(signedUrlService, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(signedUrlService, "coldDir", "");
+        ReflectionTestUtils.setField(signedUrlService, "secret", "test-secret-test-secret-test-secret");
+        ReflectionTestUtils.setField(signedUrlService, "ttlSeconds", 300L);
+        signedUrlService.init();
+    }
+
+    @Test
+    void signedTokenResolvesToTheFileAndItsHash() throws Exception {
+        Path file = write("user_1/2026/3/a.pdf", "content");
+
+        SignedDocument signed = sign(row(1L, file, "abc123"));
+        VerifiedDocument verified = signedUrlService.verify(signed.getToken());
+
+        assertThat(verified.getFilePath()).isEqualTo(file);
+        assertThat(verified.getContentHash()).isEqualTo("abc123");
+        assertThat(verified.getFilename()).isEqualTo("a.pdf");
+        assertThat(verified.getExpiresAt()).isEqualTo(signed.getExpiresAt());
+        verifyNoInteractions(documentRepository);
+    }
+
+    @Test
+    void missingContentHashIsComputedAndStored() throws Exception {
+        Path file = write("user_1/2026/3/b.pdf", "content");
+        String expected = HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest("content".getBytes(StandardCharsets.UTF_8)));
+
+        SignedDocument signed = sign(row(2L, file, null));
+
+        assertThat(signedUrlService.verify(signed.getToken()).getContentHash()).isEqualTo(expected);
+        verify(documentRepository).updateContentHash(2L, expected);
+    }
+
+    @Test
+    void tamperedTokenIsRejected() throws Exception {
+        Path file = write("user_1/2026/3/c.pdf", "content");
+        String token = sign(row(3L, file, "abc123")).getToken();
+        String payload = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))),
+                StandardCharsets.UTF_8);
+
+        String forged = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                payload.replace("c.pdf", "d.pdf").getBytes(StandardCharsets.UTF_8)) + token.substring(token.indexOf('.'));
+
+        assertThat(signedUrlService.verify(forged)).isNull();
+        assertThat(signedUrlService.verify("not-a-token")).isNull();
+        assertThat(signedUrlService.verify("%%%.%%%")).isNull();
+    }
+
+    @Test
+    void expiredTokenIsRejected() throws Exception {
+        ReflectionTestUtils.setField(signedUrlService, "ttlSeconds", -1L);
+        Path file = write("user_1/2026/3/e.pdf", "content");
+
+        assertThat(signedUrlService.verify(sign(row(4L, file, "abc123")).getToken())).isNull();
+    }
+
+    @Test
+    void filesOutsideTheStorageRootsAreNotSigned() throws Exception {
+        Path outside = Files.writeString(Files.createTempFile("outside", ".pdf"), "x");
+        try {
+            assertThat(signedUrlService.sign(List.of(row(5L, outside, "abc123")))).isEmpty();
+        } finally {
+            Files.deleteIfExists(outside);
+        }
+    }
+
+    // Helper methods
+
+    private SignedDocument sign(DocumentSigningRow row) throws Exception {
+        return signedUrlService.sign(List.of(row)).get(row.getId());
+    }
+
+    private Path write(String relativePath, String content) throws Exception {
+        Path file = uploadDir.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+
+    private DocumentSigningRow row(Long id, Path file, String contentHash) {
+        return new SigningRow(id, file.toString(), file.getFileName().toString(), "application/pdf", contentHash, 1L, null);
+    }
+
+    private record SigningRow(Long getId, String getFilePath, String getOriginalFilename, String getMimeType,
+                              String getContentHash, Long getUserId, Long getSupervisorId) implements DocumentSigningRow {}
+}
@@ -0,0 +1,124 @@
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.DayEntry;
+import com.goldtech.timesheet_backend.entity.DayEntryDocument;
+import com.goldtech.timesheet_backend.entity.DocumentDeletion;
+import com.goldtech.timesheet_backend.entity.User;
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository;
+import com.goldtech.timesheet_backend.repository.DocumentDeletionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Deleting documents tombstones their files in the transaction and removes them only after commit
+ */
+@ExtendWith(MockitoExtension.class)
+class DocumentStorageServiceDeleteTest {
+
+    @Mock
+    private DayEntryDocumentRepository documentRepository;
+
+    @Mock
+    private DocumentDeletionRepository deletionRepository;
+
+    @Mock
+    private DocumentReconciliationService reconciliationService;
+
+    @Mock
+    private DocumentContentCache contentCache;
+
+    @Mock
+    private StorageUsageService storageUsageService;
+
+    @InjectMocks
+    private DocumentStorageService storageService;
+
+    @BeforeEach
+    void beginTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void endTransaction() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void filesAreDeletedOnlyAfterCommit() {
+        DayEntryDocument document = document("/uploads/user_1/2026/3/a.pdf", "/uploads/user_1/2026/3/a_thumb.jpg");
+        when(documentRepository.findByDayEntryId(10L)).thenReturn(List.of(document));
+        List<DocumentDeletion> saved = new ArrayList<>();
+        when(deletionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<DocumentDeletion> tombstones = invocation.getArgument(0);
+            for (DocumentDeletion tombstone : tombstones) {
+                tombstone.setId((long) saved.size() + 1);
+                saved.add(tombstone);
+            }
+            return tombstones;
+        });
+
+        storageService.deleteDocuments(10L);
+
+        // The file and its thumbnail are tombstoned, the row is gone, nothing is removed yet
+        assertThat(saved).extracting(DocumentDeletion::getFilePath)
+                .containsExactly("/uploads/user_1/2026/3/a.pdf", "/uploads/user_1/2026/3/a_thumb.jpg");
+        verify(documentRepository).deleteByDayEntryId(10L);
+        verifyNoInteractions(reconciliationService);
+
+        commit();
+        verify(reconciliationService).processDeletions(List.of(1L, 2L));
+    }
+
+    @Test
+    void rolledBackDeleteLeavesFilesToTheSweeper() {
+        DayEntryDocument document = document("/uploads/user_1/2026/3/b.pdf", null);
+        when(documentRepository.findByDayEntryId(11L)).thenReturn(List.of(document));
+        when(deletionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        storageService.deleteDocuments(11L);
+        rollback();
+
+        verifyNoInteractions(reconciliationService);
+    }
+
+    // Helper methods
+
+    private DayEntryDocument document(String filePath, String thumbnailPath) {
+        User user = new User("user@goldtech.com", "secret", "Test User");
+        user.setId(1L);
+        DayEntry dayEntry = new DayEntry(user, LocalDate.of(2026, 3, 2), DayEntry.EntryType.working_hours);
+        DayEntryDocument document = new DayEntryDocument();
+        document.setDayEntry(dayEntry);
+        document.setFilePath(filePath);
+        document.setThumbnailPath(thumbnailPath);
+        document.setFileSize(100L);
+        return document;
+    }
+
+    private void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    private void rollback() {
+        TransactionSynchronizationUtils.invokeAfterCompletion(
+                TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+    }
+}
@@ -0,0 +1,184 @@
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.DocumentDeletion;
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository;
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository.DocumentPathRow;
+import com.goldtech.timesheet_backend.repository.DocumentDeletionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentTieringServiceTest {
+
+    @Mock
+    private DayEntryDocumentRepository documentRepository;
+
+    @Mock
+    private DocumentDeletionRepository deletionRepository;
+
+    @Mock
+    private DocumentReconciliationService reconciliationService;
+
+    @Mock
+    private DurableFileWriter durableFileWriter;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private DocumentTieringService tieringService;
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void tearDown() {
+        if (ReflectionTestUtils.getField(tieringService, "promoter") != null) {
+            tieringService.stop();
+        }
+    }
+
+    @Test
+    void wildcardsInTheRootAreMatchedLiterally() {
+        assertThat(DocumentTieringService.likePrefix("/srv/time_sheet/100%/")).isEqualTo("/srv/time!_sheet/100!%/%");
+        assertThat(DocumentTieringService.likePrefix("/srv/uploads!/")).isEqualTo("/srv/uploads!!/%");
+        assertThat(DocumentTieringService.likePrefix("C:\\uploads\\")).isEqualTo("C:\\uploads\\%");
+    }
+
+    @Test
+    void demotionQueriesWithTheEscapedHotRoot() {
+        init("/srv/time_sheet", "/mnt/cold", false);
+        when(documentRepository.findTieringCandidates(anyLong(), any(), any(), any())).thenReturn(List.of());
+
+        tieringService.demoteOldDocuments();
+
+        String expected = "/srv/time!_sheet".replace("/", File.separator) + File.separator + "%";
+        verify(documentRepository).findTieringCandidates(eq(0L), any(), eq(expected), any());
+    }
+
+    @Test
+    void demotionCopiesToTheColdRootAndTombstonesTheHotFile() throws Exception {
+        init(dir.resolve("hot").toString(), dir.resolve("cold").toString(), false);
+        Path source = old(write(dir.resolve("hot/user_1/2025/1/a.pdf")));
+        Path target = dir.resolve("cold/user_1/2025/1/a.pdf");
+        when(documentRepository.findTieringCandidates(anyLong(), any(), any(), any()))
+                .thenReturn(List.of(pathRow(5L, source)), List.of());
+        when(documentRepository.updateFilePath(source.toString(), target.toString(), "a.pdf")).thenReturn(1);
+        when(deletionRepository.save(any())).thenAnswer(invocation -> tombstone(invocation.getArgument(0), 7L));
+
+        tieringService.demoteOldDocuments();
+
+        assertThat(target).hasContent("content");
+        ArgumentCaptor<DocumentDeletion> tombstone = ArgumentCaptor.forClass(DocumentDeletion.class);
+        verify(deletionRepository).save(tombstone.capture());
+        assertThat(tombstone.getValue().getFilePath()).isEqualTo(source.toString());
+        verify(reconciliationService).processDeletions(List.of(7L));
+        assertThat(tieringService.getStats()).containsEntry("demoted", 1L);
+    }
+
+    @Test
+    void promotionWritesAFreshHotFilename() throws Exception {
+        init(dir.resolve("hot").toString(), dir.resolve("cold").toString(), true);
+        Path source = write(dir.resolve("cold/user_1/2025/1/a.pdf"));
+        when(documentRepository.updateFilePath(eq(source.toString()), anyString(), anyString())).thenReturn(1);
+        when(deletionRepository.save(any())).thenAnswer(invocation -> tombstone(invocation.getArgument(0), 8L));
+
+        tieringService.requestPromotion(source);
+        awaitPromotions();
+
+        // Not the path it was demoted from, which may still carry a pending tombstone
+        ArgumentCaptor<String> target = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> storedFilename = ArgumentCaptor.forClass(String.class);
+        verify(documentRepository).updateFilePath(eq(source.toString()), target.capture(), storedFilename.capture());
+        Path promoted = Path.of(target.getValue());
+        assertThat(promoted.getParent()).isEqualTo(dir.resolve("hot/user_1/2025/1"));
+        assertThat(promoted.getFileName().toString()).isNotEqualTo("a.pdf").endsWith(".pdf").isEqualTo(storedFilename.getValue());
+        assertThat(promoted).hasContent("content");
+        verify(reconciliationService).processDeletions(List.of(8L));
+        assertThat(tieringService.getStats()).containsEntry("promoted", 1L);
+    }
+
+    @Test
+    void rowDeletedMeanwhileRemovesTheCopy() throws Exception {
+        init(dir.resolve("hot").toString(), dir.resolve("cold").toString(), false);
+        Path source = old(write(dir.resolve("hot/user_1/2025/1/a.pdf")));
+        when(documentRepository.findTieringCandidates(anyLong(), any(), any(), any()))
+                .thenReturn(List.of(pathRow(5L, source)), List.of());
+        when(documentRepository.updateFilePath(anyString(), anyString(), anyString())).thenReturn(0);
+
+        tieringService.demoteOldDocuments();
+
+        try (Stream<Path> files = Files.walk(dir.resolve("cold"))) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+        assertThat(source).exists(); // Left to the document delete's own tombstone
+        verify(deletionRepository, never()).save(any());
+        verifyNoInteractions(reconciliationService);
+        assertThat(tieringService.getStats()).containsEntry("demoted", 0L);
+    }
+
+    // Helper methods
+
+    private void init(String uploadDir, String coldDir, boolean promoteOnRead) {
+        ReflectionTestUtils.setField(tieringService, "uploadDir", uploadDir);
+        ReflectionTestUtils.setField(tieringService, "coldDir", coldDir);
+        ReflectionTestUtils.setField(tieringService, "hotMonths", 2);
+        ReflectionTestUtils.setField(tieringService, "minHotDays", 30L);
+        ReflectionTestUtils.setField(tieringService, "filesPerRun", 100);
+        ReflectionTestUtils.setField(tieringService, "promoteOnRead", promoteOnRead);
+        tieringService.init();
+    }
+
+    private void awaitPromotions() throws InterruptedException {
+        ExecutorService promoter = (ExecutorService) ReflectionTestUtils.getField(tieringService, "promoter");
+        promoter.shutdown();
+        assertThat(promoter.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private Path write(Path file) throws Exception {
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, "content");
+    }
+
+    private Path old(Path file) throws Exception {
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(90, ChronoUnit.DAYS)));
+        return file;
+    }
+
+    private DocumentDeletion tombstone(DocumentDeletion deletion, Long id) {
+        deletion.setId(id);
+        return deletion;
+    }
+
+    private DocumentPathRow pathRow(Long id, Path filePath) {
+        return new PathRow(id, filePath.toString());
+    }
+
+    private record PathRow(Long getId, String getFilePath) implements DocumentPathRow {}
+}
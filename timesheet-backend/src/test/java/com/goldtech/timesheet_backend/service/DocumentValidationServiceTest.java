@@ -0,0 +1,166 @@
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.service.DocumentValidationService.DetectedType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Types come from the leading bytes only; base64 is sized before it is decoded
+ */
+class DocumentValidationServiceTest {
+
+    private static final byte[] PDF = "%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JPEG = bytes(0xFF, 0xD8, 0xFF, 0xE0, 0x00, 0x10);
+    private static final byte[] PNG = bytes(0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A, 0x00);
+    private static final byte[] OLE2 = bytes(0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1, 0x00);
+
+    private final DocumentValidationService validationService = new DocumentValidationService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(validationService, "allowedTypesProperty", "pdf, jpg,jpeg,png,doc,docx,");
+        ReflectionTestUtils.setField(validationService, "maxFileSize", 1024L);
+        validationService.init();
+    }
+
+    @Test
+    void eachTypeIsDetectedFromItsSignature() throws IOException {
+        assertThat(check("a.pdf", PDF)).isEqualTo(DetectedType.PDF);
+        assertThat(check("a.jpg", JPEG)).isEqualTo(DetectedType.JPEG);
+        assertThat(check("a.png", PNG)).isEqualTo(DetectedType.PNG);
+        assertThat(check("a.doc", OLE2)).isEqualTo(DetectedType.DOC);
+        assertThat(check("a.docx", zip("[Content_Types].xml", "word/document.xml"))).isEqualTo(DetectedType.DOCX);
+        assertThat(validationService.getStats()).containsEntry("accepted", 5L);
+    }
+
+    @Test
+    void declaredNameDoesNotDecideTheType() {
+        assertThat(check("scan.png", PDF)).isEqualTo(DetectedType.PDF);
+        assertThatThrownBy(() -> check("note.pdf", "<html><script>".getBytes(StandardCharsets.US_ASCII)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("File type not allowed: note.pdf");
+    }
+
+    @Test
+    void onlyWordPackagesPassAsZip() throws IOException {
+        assertThat(check("a.docx", zip("word/document.xml"))).isEqualTo(DetectedType.DOCX);
+
+        for (byte[] zip : new byte[][]{
+                zip("[Content_Types].xml", "xl/workbook.xml"),
+                zip("[Content_Types].xml", "ppt/presentation.xml"),
+                zip("readme.txt")}) {
+            assertThatThrownBy(() -> check("a.docx", zip)).isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThat(validationService.getStats()).containsEntry("rejectedType", 3L);
+    }
+
+    @Test
+    void truncatedSignatureIsNotAMatch() {
+        assertThatThrownBy(() -> validationService.checkContent("a.png", PNG, 4)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> validationService.checkContent("a.doc", OLE2, 7)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void typeOutsideTheAllowedListIsRejected() {
+        ReflectionTestUtils.setField(validationService, "allowedTypesProperty", "pdf");
+        validationService.init();
+
+        assertThatThrownBy(() -> check("a.doc", OLE2)).hasMessageContaining("(allowed: pdf)");
+        // Either extension of a type allows it
+        ReflectionTestUtils.setField(validationService, "allowedTypesProperty", "jpeg");
+        validationService.init();
+        assertThat(check("a.jpg", JPEG)).isEqualTo(DetectedType.JPEG);
+    }
+
+    @Test
+    void decodedLengthAccountsForPadding() {
+        for (int length = 1; length <= 6; length++) {
+            byte[] data = Arrays.copyOf(PDF, length);
+            String padded = Base64.getEncoder().encodeToString(data);
+            String unpadded = Base64.getEncoder().withoutPadding().encodeToString(data);
+
+            assertThat(decodedLength(padded)).as(padded).isEqualTo(length);
+            assertThat(decodedLength(unpadded)).as(unpadded).isEqualTo(length);
+        }
+    }
+
+    @Test
+    void base64IsTypedFromItsPrefix() {
+        byte[] content = Arrays.copyOf(PDF, 1000);
+
+        assertThat(validationService.checkBase64("a.pdf", Base64.getEncoder().encodeToString(content)))
+                .isEqualTo(DetectedType.PDF);
+    }
+
+    @Test
+    void oversizeBase64IsRejectedBeforeItIsDecoded() {
+        // Not even valid base64: the size check must come first
+        String oversize = "*".repeat(2000);
+
+        assertThatThrownBy(() -> validationService.checkBase64("big.pdf", oversize))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("maximum size");
+        assertThat(validationService.getStats()).containsEntry("rejectedSize", 1L).containsEntry("rejectedType", 0L);
+    }
+
+    @Test
+    void invalidOrMissingBase64IsRejected() {
+        assertThatThrownBy(() -> validationService.checkBase64("a.pdf", "JVBE*Rg=="))
+                .hasMessage("Document content is not valid base64: a.pdf");
+        assertThatThrownBy(() -> validationService.checkBase64("a.pdf", ""))
+                .hasMessage("Document content is missing: a.pdf");
+        assertThatThrownBy(() -> validationService.checkBase64("a.pdf", "===="))
+                .hasMessage("Document content is not valid base64: a.pdf");
+    }
+
+    @Test
+    void recordedMimeTypesResolveBack() {
+        for (DetectedType type : DetectedType.values()) {
+            assertThat(validationService.forMimeType(type.getMimeType())).isEqualTo(type);
+        }
+        assertThat(validationService.forMimeType("text/html")).isNull();
+        assertThat(validationService.forMimeType(null)).isNull();
+    }
+
+    // Helper methods
+
+    private DetectedType check(String name, byte[] content) {
+        return validationService.checkContent(name, content, content.length);
+    }
+
+    private long decodedLength(String base64Data) {
+        return ReflectionTestUtils.<Long>invokeMethod(validationService, "decodedLength", base64Data);
+    }
+
+    private static byte[] zip(String... entries) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (String entry : entries) {
+                zip.putNextEntry(new ZipEntry(entry));
+                zip.write("<xml/>".getBytes(StandardCharsets.US_ASCII));
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+}
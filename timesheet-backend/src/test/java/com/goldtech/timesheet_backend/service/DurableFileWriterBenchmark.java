@@ -0,0 +1,95 @@
+package com.goldtech.timesheet_backend.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Concurrent document writes: group-committed directory fsyncs against write+fsync+rename+dir-fsync inline.
+ * Run main() on the test classpath, on the disk the uploads live on (-Dbenchmark.dir):
+ * on a tmpfs or a cache-backed overlay every fsync is nearly free and inline wins.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+public class DurableFileWriterBenchmark {
+
+    private static final int DIRECTORIES = 8;
+
+    private final byte[] content = new byte[200 * 1024];
+    private Path root;
+    private DurableFileWriter writer;
+
+    @Setup
+    public void setUp() throws IOException {
+        new Random(1).nextBytes(content);
+        root = Files.createTempDirectory(Paths.get(System.getProperty("benchmark.dir", System.getProperty("java.io.tmpdir"))),
+                "durable-bench");
+        for (int i = 0; i < DIRECTORIES; i++) {
+            Files.createDirectories(root.resolve("d" + i));
+        }
+
+        writer = new DurableFileWriter();
+        ReflectionTestUtils.setField(writer, "enabled", true);
+        ReflectionTestUtils.setField(writer, "groupWindowMs", 2L);
+        ReflectionTestUtils.setField(writer, "maxBatch", 64);
+        ReflectionTestUtils.setField(writer, "awaitTimeoutMs", 30000L);
+        writer.start();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        writer.stop();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void groupCommit() throws IOException {
+        writer.write(nextTarget(), content);
+    }
+
+    @Benchmark
+    public void inline() throws IOException {
+        Path target = nextTarget();
+        Path temp = target.resolveSibling("." + target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            channel.write(java.nio.ByteBuffer.wrap(content));
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        try (FileChannel directory = FileChannel.open(target.getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        }
+    }
+
+    // Helper methods
+
+    private Path nextTarget() {
+        UUID id = UUID.randomUUID();
+        return root.resolve("d" + Math.floorMod(id.hashCode(), DIRECTORIES)).resolve(id.toString());
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(DurableFileWriterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,147 @@
+package com.goldtech.timesheet_backend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DurableFileWriterTest {
+
+    private final DurableFileWriter writer = new DurableFileWriter();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(writer, "enabled", true);
+        ReflectionTestUtils.setField(writer, "groupWindowMs", 2L);
+        ReflectionTestUtils.setField(writer, "maxBatch", 64);
+        ReflectionTestUtils.setField(writer, "awaitTimeoutMs", 5000L);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        writer.stop();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrentWritesArePublishedAndShareBatches() throws Exception {
+        writer.start();
+        CountDownLatch go = new CountDownLatch(1);
+        Future<?>[] writes = new Future<?>[8];
+        for (int i = 0; i < writes.length; i++) {
+            Path target = dir.resolve("file" + i);
+            byte[] content = ("content " + i).getBytes();
+            writes[i] = callers.submit(() -> {
+                go.await();
+                writer.write(target, content);
+                return null;
+            });
+        }
+        go.countDown();
+        for (Future<?> write : writes) {
+            write.get(10, TimeUnit.SECONDS);
+        }
+
+        for (int i = 0; i < writes.length; i++) {
+            assertThat(dir.resolve("file" + i)).hasContent("content " + i);
+        }
+        try (var files = Files.list(dir)) {
+            assertThat(files).noneMatch(file -> file.getFileName().toString().endsWith(".tmp"));
+        }
+
+        // Average over committed entries and non-empty batches only
+        long batches = (Long) writer.getStats().get("batches");
+        assertThat(batches).isBetween(1L, 8L);
+        assertThat((Double) writer.getStats().get("averageBatchSize")).isEqualTo(8.0 / batches);
+    }
+
+    @Test
+    void writesAfterStopAreRejected() throws Exception {
+        writer.start();
+        writer.stop();
+
+        assertThatThrownBy(() -> writer.write(dir.resolve("late"), new byte[]{1}))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("not running");
+        assertThat(dir.resolve("late")).doesNotExist();
+        try (var files = Files.list(dir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void stopFailsEverythingStillQueued() throws Exception {
+        startWithoutCommitter();
+        Future<?> write = callers.submit(() -> {
+            writer.write(dir.resolve("queued"), new byte[]{1});
+            return null;
+        });
+        awaitQueued(1);
+
+        writer.stop();
+
+        assertThatThrownBy(() -> write.get(10, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IOException.class)
+                .hasMessageContaining("stopped");
+        try (var files = Files.list(dir)) {
+            assertThat(files).isEmpty(); // The temp file is removed by the failed caller
+        }
+    }
+
+    @Test
+    void waitingIsBounded() throws Exception {
+        startWithoutCommitter();
+        ReflectionTestUtils.setField(writer, "awaitTimeoutMs", 50L);
+
+        assertThatThrownBy(() -> writer.write(dir.resolve("slow"), new byte[]{1}))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Timed out");
+        assertThat(writer.getStats()).containsEntry("timeouts", 1L);
+        try (var files = Files.list(dir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void failedBatchDoesNotStopTheCommitter() throws Exception {
+        writer.start();
+
+        // A path without a parent makes the directory sync throw
+        assertThatThrownBy(() -> writer.syncDirectoryOf(Path.of("no-parent")))
+                .isInstanceOf(IOException.class);
+
+        writer.write(dir.resolve("after"), new byte[]{1});
+        assertThat(dir.resolve("after")).exists();
+        assertThat(writer.getStats()).containsEntry("failedBatches", 1L);
+    }
+
+    // Helper methods
+
+    // Accepts submissions that nothing commits, so they stay queued
+    private void startWithoutCommitter() {
+        ReflectionTestUtils.setField(writer, "running", true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void awaitQueued(int count) throws InterruptedException {
+        BlockingQueue<Object> queue = (BlockingQueue<Object>) ReflectionTestUtils.getField(writer, "queue");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (queue.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(queue).hasSize(count);
+    }
+}
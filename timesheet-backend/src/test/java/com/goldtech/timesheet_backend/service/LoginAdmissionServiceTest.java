@@ -0,0 +1,176 @@
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.dto.auth.LoginResponse;
+import com.goldtech.timesheet_backend.service.LoginAdmissionService.LoginRejectedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginAdmissionServiceTest {
+
+    private final LoginAdmissionService admission = new LoginAdmissionService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(admission, "threads", 2);
+        ReflectionTestUtils.setField(admission, "queueCapacity", 4);
+        ReflectionTestUtils.setField(admission, "busyRetryAfterSeconds", 2L);
+        ReflectionTestUtils.setField(admission, "ipMaxFailures", 10);
+        ReflectionTestUtils.setField(admission, "ipWindowSeconds", 60L);
+        ReflectionTestUtils.setField(admission, "identifierMaxFailures", 3);
+        ReflectionTestUtils.setField(admission, "identifierWindowSeconds", 900L);
+        ReflectionTestUtils.setField(admission, "maxTrackedKeys", 1000);
+        admission.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        admission.stop();
+    }
+
+    @Test
+    void failuresLockTheIdentifierOnlyFromThatAddress() {
+        for (int i = 0; i < 3; i++) {
+            login("User@Goldtech.com", "10.0.0.1", false);
+        }
+
+        assertThatThrownBy(() -> login("user@goldtech.com ", "10.0.0.1", true))
+                .isInstanceOf(LoginRejectedException.class)
+                .satisfies(e -> assertThat(((LoginRejectedException) e).getRetryAfterSeconds()).isPositive());
+        // The account owner elsewhere is not locked out by someone else's failures
+        assertThat(login("user@goldtech.com", "10.0.0.2", true).isSuccess()).isTrue();
+        assertThat(admission.getStats()).containsEntry("throttledByIdentifier", 1L);
+    }
+
+    @Test
+    void successClearsTheIdentifierFailures() {
+        login("user@goldtech.com", "10.0.0.1", false);
+        login("user@goldtech.com", "10.0.0.1", false);
+        login("user@goldtech.com", "10.0.0.1", true);
+
+        login("user@goldtech.com", "10.0.0.1", false);
+        login("user@goldtech.com", "10.0.0.1", false);
+        assertThat(login("user@goldtech.com", "10.0.0.1", true).isSuccess()).isTrue();
+    }
+
+    @Test
+    void successfulLoginsFromOneAddressAreNotThrottled() {
+        // A site office behind one NAT address: more logins than the failure limit
+        for (int i = 0; i < 25; i++) {
+            assertThat(login("user" + i + "@goldtech.com", "10.0.0.1", true).isSuccess()).isTrue();
+        }
+        assertThat(admission.getStats()).containsEntry("throttledByIp", 0L);
+    }
+
+    @Test
+    void failuresAcrossIdentifiersThrottleTheAddress() {
+        for (int i = 0; i < 10; i++) {
+            login("user" + i + "@goldtech.com", "10.0.0.1", false);
+        }
+
+        assertThatThrownBy(() -> login("other@goldtech.com", "10.0.0.1", true))
+                .isInstanceOf(LoginRejectedException.class)
+                .hasMessageContaining("Too many login attempts");
+        assertThat(login("other@goldtech.com", "10.0.0.2", true).isSuccess()).isTrue();
+    }
+
+    @Test
+    void concurrentBurstGetsNoMoreGuessesThanTheLimit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger verifications = new AtomicInteger();
+        List<CompletableFuture<LoginResponse>> admitted = new ArrayList<>();
+        int rejected = 0;
+        // The pool and queue take 6; the identifier limit is 3 and applies before any result is in
+        for (int i = 0; i < 6; i++) {
+            try {
+                admitted.add(admission.submit("user@goldtech.com", "10.0.0.1", () -> {
+                    verifications.incrementAndGet();
+                    await(release);
+                    return LoginResponse.failure("Invalid credentials");
+                }));
+            } catch (LoginRejectedException e) {
+                rejected++;
+            }
+        }
+
+        assertThat(admitted).hasSize(3);
+        assertThat(rejected).isEqualTo(3);
+        release.countDown();
+        CompletableFuture.allOf(admitted.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        assertThat(verifications).hasValue(3);
+
+        // The reservations became failures: locked for the window now
+        assertThatThrownBy(() -> login("user@goldtech.com", "10.0.0.1", true))
+                .isInstanceOf(LoginRejectedException.class)
+                .satisfies(e -> assertThat(((LoginRejectedException) e).getRetryAfterSeconds()).isGreaterThan(60L));
+    }
+
+    @Test
+    void concurrentAttemptsCountAgainstTheAddressUntilTheySucceed() throws Exception {
+        ReflectionTestUtils.setField(admission, "ipMaxFailures", 4);
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<LoginResponse>> admitted = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            admitted.add(admission.submit("user" + i + "@goldtech.com", "10.0.0.1", () -> {
+                await(release);
+                return LoginResponse.success("token", "refresh", null);
+            }));
+        }
+
+        assertThatThrownBy(() -> admission.submit("user9@goldtech.com", "10.0.0.1", () -> LoginResponse.failure("x")))
+                .isInstanceOf(LoginRejectedException.class)
+                .hasMessageContaining("Too many login attempts");
+
+        release.countDown();
+        CompletableFuture.allOf(admitted.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        // Successes give their slots back
+        assertThat(login("user9@goldtech.com", "10.0.0.1", true).isSuccess()).isTrue();
+    }
+
+    @Test
+    void fullPoolRefusesWithARetryHint() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<?>[] blocked = new CompletableFuture<?>[6];
+        for (int i = 0; i < blocked.length; i++) {
+            blocked[i] = admission.submit("user" + i, "10.0.0." + i, () -> {
+                await(release);
+                return LoginResponse.failure("Invalid credentials");
+            });
+        }
+
+        assertThatThrownBy(() -> admission.submit("late", "10.0.0.9", () -> LoginResponse.failure("x")))
+                .isInstanceOf(LoginRejectedException.class)
+                .satisfies(e -> assertThat(((LoginRejectedException) e).getRetryAfterSeconds()).isEqualTo(2L));
+        assertThat(admission.getStats()).containsEntry("saturated", 1L);
+
+        release.countDown();
+        CompletableFuture.allOf(blocked).get(10, TimeUnit.SECONDS);
+    }
+
+    // Helper methods
+
+    private LoginResponse login(String identifier, String clientIp, boolean success) {
+        return admission.submit(identifier, clientIp,
+                () -> success ? LoginResponse.success("token", "refresh", null) : LoginResponse.failure("Invalid credentials"))
+                .join();
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
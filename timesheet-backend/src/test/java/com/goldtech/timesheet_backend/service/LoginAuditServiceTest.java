@@ -0,0 +1,123 @@
+package com.goldtech.timesheet_backend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Buffered login audits against an in-memory users table (MySQL mode)
+ */
+class LoginAuditServiceTest {
+
+    private static final LocalDateTime NINE = LocalDateTime.of(2026, 3, 2, 9, 0);
+
+    private final JdbcTemplate jdbcTemplate = spy(new JdbcTemplate(
+            new DriverManagerDataSource("jdbc:h2:mem:login_audit;MODE=MySQL;DB_CLOSE_DELAY=-1")));
+    private final LoginAuditService auditService = new LoginAuditService();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, last_login_at TIMESTAMP, " +
+                "last_login_ip VARCHAR(45), last_login_user_agent VARCHAR(255), updated_at TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO users (id, updated_at) VALUES (1, ?), (2, ?)", NINE.minusDays(1), NINE.minusDays(1));
+        ReflectionTestUtils.setField(auditService, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE users");
+    }
+
+    @Test
+    void loginsAreCoalescedPerUserAndTheLatestWins() {
+        auditService.record(1L, NINE, "10.0.0.1", "first");
+        auditService.record(1L, NINE.plusMinutes(5), "10.0.0.3", "latest");
+        auditService.record(1L, NINE.plusMinutes(2), "10.0.0.2", "arrived late");
+        auditService.record(2L, NINE, "10.0.0.9", "other user");
+
+        auditService.flush();
+
+        assertThat(row(1L)).containsEntry("LAST_LOGIN_AT", timestamp(NINE.plusMinutes(5)))
+                .containsEntry("LAST_LOGIN_IP", "10.0.0.3")
+                .containsEntry("LAST_LOGIN_USER_AGENT", "latest")
+                .containsEntry("UPDATED_AT", timestamp(NINE.minusDays(1)));
+        assertThat(row(2L)).containsEntry("LAST_LOGIN_IP", "10.0.0.9");
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+        assertThat(auditService.getStats()).containsEntry("recorded", 4L).containsEntry("coalesced", 2L)
+                .containsEntry("rowsWritten", 2L).containsEntry("pending", 0);
+    }
+
+    @Test
+    void laterLoginAlreadyStoredIsNotOverwritten() {
+        // Another instance flushed a newer login first
+        jdbcTemplate.update("UPDATE users SET last_login_at = ?, last_login_ip = '10.0.0.7' WHERE id = 1", NINE.plusHours(1));
+
+        auditService.record(1L, NINE, "10.0.0.1", "older");
+        auditService.flush();
+
+        assertThat(row(1L)).containsEntry("LAST_LOGIN_AT", timestamp(NINE.plusHours(1)))
+                .containsEntry("LAST_LOGIN_IP", "10.0.0.7");
+        assertThat(auditService.getStats()).containsEntry("rowsWritten", 0L);
+    }
+
+    @Test
+    void failedFlushKeepsItsEntriesAndNewerLoginsStillWin() {
+        auditService.record(1L, NINE, "10.0.0.1", "before the failure");
+        auditService.record(2L, NINE, "10.0.0.9", "other user");
+        doAnswer(invocation -> {
+            // A newer login of user 1 arrives while the failing batch is in flight
+            auditService.record(1L, NINE.plusMinutes(1), "10.0.0.2", "during the failure");
+            throw new TransientDataAccessResourceException("connection lost");
+        }).doCallRealMethod().when(jdbcTemplate).batchUpdate(anyString(), anyList());
+
+        auditService.flush();
+
+        assertThat(row(1L).get("LAST_LOGIN_AT")).isNull();
+        assertThat(auditService.getStats()).containsEntry("failures", 1L).containsEntry("pending", 2);
+
+        auditService.flush();
+
+        assertThat(row(1L)).containsEntry("LAST_LOGIN_USER_AGENT", "during the failure");
+        assertThat(row(2L)).containsEntry("LAST_LOGIN_USER_AGENT", "other user");
+        assertThat(auditService.getStats()).containsEntry("pending", 0).containsEntry("flushes", 1L);
+    }
+
+    @Test
+    void shutdownFlushesWhatIsBuffered() {
+        auditService.record(1L, NINE, "10.0.0.1", "x".repeat(300));
+
+        auditService.shutdown();
+
+        assertThat(row(1L)).containsEntry("LAST_LOGIN_USER_AGENT", "x".repeat(255));
+    }
+
+    @Test
+    void nothingBufferedWritesNothing() {
+        auditService.flush();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    // Helper methods
+
+    private Map<String, Object> row(Long id) {
+        return jdbcTemplate.queryForMap("SELECT * FROM users WHERE id = ?", id);
+    }
+
+    private Timestamp timestamp(LocalDateTime time) {
+        return Timestamp.valueOf(time);
+    }
+}
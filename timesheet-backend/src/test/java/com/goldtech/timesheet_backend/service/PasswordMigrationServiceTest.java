@@ -0,0 +1,168 @@
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.JobCheckpoint;
+import com.goldtech.timesheet_backend.repository.JobCheckpointRepository;
+import com.goldtech.timesheet_backend.repository.UserRepository;
+import com.goldtech.timesheet_backend.repository.UserRepository.UserPasswordRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PasswordMigrationServiceTest {
+
+    private static final String HASHED = new BCryptPasswordEncoder(4).encode("already-hashed");
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private JobCheckpointRepository checkpointRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private PasswordMigrationService migrationService;
+
+    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+    private final TreeMap<Long, String> passwords = new TreeMap<>();
+    private final Map<String, JobCheckpoint> checkpoints = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(migrationService, "passwordEncoder", passwordEncoder);
+        ReflectionTestUtils.setField(migrationService, "pageSize", 3);
+        ReflectionTestUtils.setField(migrationService, "batchSize", 2);
+        ReflectionTestUtils.setField(migrationService, "threads", 2);
+
+        when(userRepository.findPasswordsAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            Pageable pageable = invocation.getArgument(1);
+            return passwords.tailMap(afterId, false).entrySet().stream()
+                    .limit(pageable.getPageSize())
+                    .map(entry -> (UserPasswordRow) new PasswordRow(entry.getKey(), entry.getValue()))
+                    .toList();
+        });
+        when(userRepository.replacePassword(anyLong(), anyString(), anyString())).thenAnswer(invocation -> {
+            Long id = invocation.getArgument(0);
+            if (!invocation.getArgument(1).equals(passwords.get(id))) {
+                return 0;
+            }
+            passwords.put(id, invocation.getArgument(2));
+            return 1;
+        });
+        when(checkpointRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(checkpoints.get(invocation.<String>getArgument(0))));
+        when(checkpointRepository.save(any(JobCheckpoint.class))).thenAnswer(invocation -> {
+            JobCheckpoint checkpoint = invocation.getArgument(0);
+            checkpoints.put(checkpoint.getJobName(), checkpoint);
+            return checkpoint;
+        });
+        doAnswer(invocation -> checkpoints.remove(invocation.<String>getArgument(0)))
+                .when(checkpointRepository).deleteById(anyString());
+    }
+
+    @Test
+    void plaintextPasswordsAreHashedAndHashedOnesLeftAlone() {
+        passwords.put(1L, "secret1");
+        passwords.put(2L, HASHED);
+        passwords.put(3L, "secret3");
+        passwords.put(5L, "secret5");
+        passwords.put(8L, HASHED);
+
+        migrate();
+
+        assertThat(passwordEncoder.matches("secret1", passwords.get(1L))).isTrue();
+        assertThat(passwordEncoder.matches("secret3", passwords.get(3L))).isTrue();
+        assertThat(passwordEncoder.matches("secret5", passwords.get(5L))).isTrue();
+        assertThat(passwords.get(2L)).isEqualTo(HASHED);
+        verify(userRepository, never()).replacePassword(eq(2L), any(), any());
+        verify(userRepository, never()).replacePassword(eq(8L), any(), any());
+        assertThat(checkpoints).isEmpty(); // A completed pass clears its checkpoint
+    }
+
+    @Test
+    void pagesFollowTheLastIdOfThePreviousPage() {
+        for (long id = 1; id <= 7; id++) {
+            passwords.put(id * 10, HASHED);
+        }
+
+        migrate();
+
+        ArgumentCaptor<Long> afterIds = ArgumentCaptor.forClass(Long.class);
+        verify(userRepository, times(4)).findPasswordsAfter(afterIds.capture(), any(Pageable.class));
+        assertThat(afterIds.getAllValues()).containsExactly(0L, 30L, 60L, 70L);
+    }
+
+    @Test
+    void interruptedPassResumesAfterTheCheckpoint() {
+        passwords.put(1L, "secret1");
+        passwords.put(2L, "secret2");
+        passwords.put(3L, "secret3");
+        passwords.put(4L, "secret4");
+        checkpoints.put("password-migration", new JobCheckpoint("password-migration", 2L));
+
+        migrate();
+
+        assertThat(passwords.get(1L)).isEqualTo("secret1");
+        assertThat(passwords.get(2L)).isEqualTo("secret2");
+        assertThat(passwordEncoder.matches("secret3", passwords.get(3L))).isTrue();
+        assertThat(passwordEncoder.matches("secret4", passwords.get(4L))).isTrue();
+        verify(userRepository).findPasswordsAfter(eq(2L), any(Pageable.class));
+    }
+
+    @Test
+    void failureKeepsTheLastCommittedPosition() {
+        for (long id = 1; id <= 6; id++) {
+            passwords.put(id, "secret" + id);
+        }
+        when(userRepository.findPasswordsAfter(eq(3L), any(Pageable.class)))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"));
+
+        migrate();
+
+        assertThat(checkpoints.get("password-migration").getPosition()).isEqualTo(3L);
+        assertThat(passwords.get(4L)).isEqualTo("secret4");
+    }
+
+    @Test
+    void passwordChangedMeanwhileIsNotOverwritten() {
+        passwords.put(1L, "secret1");
+        when(userRepository.replacePassword(eq(1L), eq("secret1"), anyString())).thenAnswer(invocation -> {
+            passwords.put(1L, "changed-by-the-user"); // Reset between read and write
+            return 0;
+        });
+
+        migrate();
+
+        assertThat(passwords.get(1L)).isEqualTo("changed-by-the-user");
+    }
+
+    // Helper methods
+
+    private void migrate() {
+        ReflectionTestUtils.invokeMethod(migrationService, "migrate");
+    }
+
+    private record PasswordRow(Long getId, String getPassword) implements UserPasswordRow {}
+}
@@ -0,0 +1,136 @@
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.RefreshToken;
+import com.goldtech.timesheet_backend.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Rotation and reuse detection against an in-memory token table
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RefreshTokenServiceTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @InjectMocks
+    private RefreshTokenService refreshTokenService;
+
+    private final Map<String, RefreshToken> tokens = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(refreshTokenService, "ttlDays", 14L);
+        when(refreshTokenRepository.save(any(RefreshToken.class))).thenAnswer(invocation -> {
+            RefreshToken token = invocation.getArgument(0);
+            tokens.put(token.getTokenHash(), token);
+            return token;
+        });
+        when(refreshTokenRepository.findByTokenHashForUpdate(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(tokens.get(invocation.<String>getArgument(0))));
+        when(refreshTokenRepository.revokeFamily(anyString(), any())).thenAnswer(invocation -> {
+            String familyId = invocation.getArgument(0);
+            LocalDateTime now = invocation.getArgument(1);
+            int revoked = 0;
+            for (RefreshToken token : tokens.values()) {
+                if (token.getFamilyId().equals(familyId) && token.getRevokedAt() == null) {
+                    token.setRevokedAt(now);
+                    revoked++;
+                }
+            }
+            return revoked;
+        });
+    }
+
+    @Test
+    void rotationSpendsTheTokenAndIssuesASuccessor() {
+        String first = refreshTokenService.issue(7L);
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(first);
+
+        assertThat(rotation.userId()).isEqualTo(7L);
+        assertThat(rotation.refreshToken()).isNotEqualTo(first);
+        assertThat(refreshTokenService.rotate(rotation.refreshToken())).isNotNull();
+        assertThat(tokens.values()).extracting(RefreshToken::getFamilyId).containsOnly(familyOf(first));
+    }
+
+    @Test
+    void reusingASpentTokenRevokesTheWholeFamily() {
+        String stolen = refreshTokenService.issue(7L);
+        String current = refreshTokenService.rotate(stolen).refreshToken();
+
+        // The copy is presented after the legitimate client already rotated it
+        assertThat(refreshTokenService.rotate(stolen)).isNull();
+
+        assertThat(refreshTokenService.rotate(current)).isNull();
+        assertThat(tokens.values()).allMatch(token -> token.getRevokedAt() != null);
+        assertThat(refreshTokenService.getStats()).containsEntry("reuseDetected", 2L);
+    }
+
+    @Test
+    void reuseLeavesOtherSessionsAlone() {
+        String laptop = refreshTokenService.issue(7L);
+        String phone = refreshTokenService.issue(7L);
+        refreshTokenService.rotate(laptop);
+
+        refreshTokenService.rotate(laptop);
+
+        assertThat(refreshTokenService.rotate(phone)).isNotNull();
+    }
+
+    @Test
+    void revokedFamilyCannotRefresh() {
+        String token = refreshTokenService.issue(7L);
+
+        refreshTokenService.revokeFamily(token);
+
+        assertThat(refreshTokenService.rotate(token)).isNull();
+        assertThat(refreshTokenService.getStats()).containsEntry("reuseDetected", 1L);
+    }
+
+    @Test
+    void unknownBlankAndExpiredTokensAreRejectedWithoutRevoking() {
+        String token = refreshTokenService.issue(7L);
+        tokens.values().forEach(stored -> stored.setExpiresAt(LocalDateTime.now().minusMinutes(1)));
+
+        assertThat(refreshTokenService.rotate(token)).isNull();
+        assertThat(refreshTokenService.rotate("unknown")).isNull();
+        assertThat(refreshTokenService.rotate(" ")).isNull();
+
+        verify(refreshTokenRepository, never()).revokeFamily(anyString(), any());
+        assertThat(refreshTokenService.getStats()).containsEntry("rejected", 3L).containsEntry("reuseDetected", 0L);
+    }
+
+    @Test
+    void onlyTheHashIsStored() {
+        String token = refreshTokenService.issue(7L);
+
+        assertThat(tokens).doesNotContainKey(token);
+        assertThat(tokens.keySet()).allMatch(hash -> hash.matches("[0-9a-f]{64}"));
+    }
+
+    // Helper methods
+
+    private String familyOf(String rawToken) {
+        String hash = ReflectionTestUtils.invokeMethod(refreshTokenService, "hash", rawToken);
+        return tokens.get(hash).getFamilyId();
+    }
+}
@@ -0,0 +1,119 @@
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.User;
+import com.goldtech.timesheet_backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SecurityStampServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private SecurityStampService stampService;
+
+    private final List<Object[]> storedStamps = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(stampService, "refreshIntervalMs", 10000L);
+        storedStamps.add(new Object[]{7L, "stamp-1"});
+        storedStamps.add(new Object[]{8L, "stamp-2"});
+        when(userRepository.findAllSecurityStamps()).thenReturn(storedStamps);
+        stampService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void onlyTheStoredStampIsCurrent() {
+        assertThat(stampService.isCurrent(7L, "stamp-1")).isTrue();
+        assertThat(stampService.isCurrent(7L, "stamp-2")).isFalse();
+        assertThat(stampService.isCurrent(9L, "stamp-1")).isFalse();
+        assertThat(stampService.getStats()).containsEntry("currentStamps", 1L).containsEntry("staleStamps", 2L);
+    }
+
+    @Test
+    void rotationDropsTheOldStampAtOnceAndPublishesTheNewOneAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        User user = user(7L, "stamp-1");
+
+        stampService.rotate(user);
+
+        // Old tokens stop being trusted on this instance before the change is even committed
+        assertThat(stampService.isCurrent(7L, "stamp-1")).isFalse();
+        assertThat(stampService.isCurrent(7L, user.getSecurityStamp())).isFalse();
+
+        TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        assertThat(stampService.isCurrent(7L, user.getSecurityStamp())).isTrue();
+    }
+
+    @Test
+    void rolledBackRotationIsNeverPublished() {
+        TransactionSynchronizationManager.initSynchronization();
+        User user = user(7L, "stamp-1");
+
+        stampService.rotate(user);
+        TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+                TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(stampService.isCurrent(7L, user.getSecurityStamp())).isFalse();
+    }
+
+    @Test
+    void otherInstancesSeeTheRotationOnlyThroughThePoll() {
+        // The rotation was committed on another instance
+        when(userRepository.findSecurityStampsUpdatedSince(any())).thenReturn(List.<Object[]>of(new Object[]{7L, "stamp-9"}));
+        assertThat(stampService.isCurrent(7L, "stamp-1")).isTrue();
+
+        stampService.refresh();
+
+        assertThat(stampService.isCurrent(7L, "stamp-1")).isFalse();
+        assertThat(stampService.isCurrent(7L, "stamp-9")).isTrue();
+        assertThat(stampService.isCurrent(8L, "stamp-2")).isTrue();
+        verify(userRepository, times(1)).findAllSecurityStamps();
+    }
+
+    @Test
+    void fullReloadDropsDeletedUsers() {
+        storedStamps.remove(1);
+        ReflectionTestUtils.setField(stampService, "lastFullReload", null);
+
+        stampService.refresh();
+
+        assertThat(stampService.isCurrent(8L, "stamp-2")).isFalse();
+        assertThat(stampService.isCurrent(7L, "stamp-1")).isTrue();
+    }
+
+    // Helper methods
+
+    private User user(Long id, String stamp) {
+        User user = new User("user@goldtech.com", "secret", "Test User");
+        user.setId(id);
+        user.setSecurityStamp(stamp);
+        return user;
+    }
+}
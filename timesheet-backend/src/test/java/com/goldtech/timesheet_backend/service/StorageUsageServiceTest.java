@@ -0,0 +1,120 @@
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.StorageUsage;
+import com.goldtech.timesheet_backend.entity.User;
+import com.goldtech.timesheet_backend.repository.DayEntryDocumentRepository;
+import com.goldtech.timesheet_backend.repository.StorageUsageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StorageUsageServiceTest {
+
+    @Mock
+    private StorageUsageRepository usageRepository;
+
+    @Mock
+    private DayEntryDocumentRepository documentRepository;
+
+    @InjectMocks
+    private StorageUsageService usageService;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void userUsageReadsOnlyThatUsersMonths() {
+        when(usageRepository.findByScopeAndScopeKey(StorageUsage.Scope.USER, "7"))
+                .thenReturn(Optional.of(new StorageUsage(StorageUsage.Scope.USER, "7", 3L, 300L)));
+        when(usageRepository.findByScopeAndScopeKeyStartingWithOrderByTotalBytesDesc(StorageUsage.Scope.USER_MONTH, "7:"))
+                .thenReturn(List.of(new StorageUsage(StorageUsage.Scope.USER_MONTH, "7:2026-03", 3L, 300L)));
+
+        Map<String, Object> usage = usageService.getUserUsage(7L);
+
+        assertThat(usage).containsEntry("fileCount", 3L).containsEntry("totalBytes", 300L);
+        assertThat((List<?>) usage.get("months")).hasSize(1);
+        verify(usageRepository, never()).findByScopeOrderByTotalBytesDesc(any());
+    }
+
+    @Test
+    void changesAreAppliedBeforeCommitInKeyOrder() {
+        TransactionSynchronizationManager.initSynchronization();
+        User user = user(7L, "Obuasi");
+
+        usageService.recordAdded(user, LocalDate.of(2026, 3, 2), 100);
+        usageService.recordAdded(user, LocalDate.of(2026, 3, 3), 50);
+        verifyNoInteractions(usageRepository);
+
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+
+        InOrder order = inOrder(usageRepository);
+        order.verify(usageRepository).addUsage("MONTH", "2026-03", 2, 150);
+        order.verify(usageRepository).addUsage("SITE", "Obuasi", 2, 150);
+        order.verify(usageRepository).addUsage("USER_MONTH", "7:2026-03", 2, 150);
+        order.verify(usageRepository).addUsage("USER", "7", 2, 150);
+        TransactionSynchronizationUtils.invokeAfterCompletion(
+                TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    @Test
+    void siteChangeMovesTheUsersFilesToTheNewSite() {
+        when(usageRepository.findByScopeAndScopeKey(StorageUsage.Scope.USER, "7"))
+                .thenReturn(Optional.of(new StorageUsage(StorageUsage.Scope.USER, "7", 3L, 300L)));
+
+        usageService.recordSiteChange(user(7L, "Tarkwa"), "Obuasi");
+
+        verify(usageRepository).addUsage("SITE", "Obuasi", -3, -300);
+        verify(usageRepository).addUsage("SITE", "Tarkwa", 3, 300);
+    }
+
+    @Test
+    void siteChangeToAndFromUnassigned() {
+        when(usageRepository.findByScopeAndScopeKey(StorageUsage.Scope.USER, "7"))
+                .thenReturn(Optional.of(new StorageUsage(StorageUsage.Scope.USER, "7", 1L, 10L)));
+
+        usageService.recordSiteChange(user(7L, null), "Obuasi");
+
+        verify(usageRepository).addUsage("SITE", "Obuasi", -1, -10);
+        verify(usageRepository).addUsage("SITE", "unassigned", 1, 10);
+    }
+
+    @Test
+    void unchangedSiteOrNoFilesMovesNothing() {
+        usageService.recordSiteChange(user(7L, "Obuasi"), "Obuasi");
+        usageService.recordSiteChange(user(7L, ""), null); // Both unassigned
+        when(usageRepository.findByScopeAndScopeKey(StorageUsage.Scope.USER, "8")).thenReturn(Optional.empty());
+        usageService.recordSiteChange(user(8L, "Tarkwa"), "Obuasi");
+
+        verify(usageRepository, never()).addUsage(anyString(), anyString(), anyLong(), anyLong());
+    }
+
+    // Helper methods
+
+    private User user(Long id, String projectSite) {
+        User user = new User("user" + id + "@goldtech.com", "secret", "User " + id);
+        user.setId(id);
+        user.setProjectSite(projectSite);
+        return user;
+    }
+}
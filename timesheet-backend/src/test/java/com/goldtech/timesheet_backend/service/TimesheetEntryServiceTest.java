@@ -0,0 +1,180 @@
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.dto.timesheet.SaveEntryRequestDto;
+import com.goldtech.timesheet_backend.entity.DayEntry;
+import com.goldtech.timesheet_backend.entity.User;
+import com.goldtech.timesheet_backend.repository.DayEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Removing or re-typing a primary day hands its documents to the earliest day linked to it
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TimesheetEntryServiceTest {
+
+    private static final LocalDate MARCH_2 = LocalDate.of(2026, 3, 2);
+    private static final LocalDate MARCH_3 = LocalDate.of(2026, 3, 3);
+    private static final LocalDate MARCH_4 = LocalDate.of(2026, 3, 4);
+
+    @Mock
+    private DayEntryRepository dayEntryRepository;
+
+    @Mock
+    private DocumentStorageService documentStorageService;
+
+    @Mock
+    private TimesheetValidationService validationService;
+
+    @InjectMocks
+    private TimesheetEntryService entryService;
+
+    private final List<DayEntry> entries = new ArrayList<>();
+    private final Set<Long> owners = new HashSet<>();
+    private final User user = new User("user@goldtech.com", "secret", "Test User");
+
+    private DayEntry primary;
+    private DayEntry march3;
+    private DayEntry march4;
+
+    @BeforeEach
+    void setUp() {
+        user.setId(1L);
+        when(dayEntryRepository.findByUserIdAndPrimaryDocumentDay(eq(1L), any())).thenAnswer(invocation -> entries.stream()
+                .filter(entry -> invocation.getArgument(1).equals(entry.getPrimaryDocumentDay()))
+                .toList());
+        when(documentStorageService.hasDocuments(anyLong()))
+                .thenAnswer(invocation -> owners.contains(invocation.<Long>getArgument(0)));
+
+        primary = entry(10L, MARCH_2, MARCH_2, true);
+        // Returned out of date order: the earliest linked day still takes over
+        march4 = entry(12L, MARCH_4, MARCH_2, false);
+        march3 = entry(11L, MARCH_3, MARCH_2, false);
+        owners.add(10L);
+    }
+
+    @Test
+    void deletedPrimaryHandsItsDocumentsToTheEarliestLinkedDay() {
+        entryService.deleteExistingDocuments(primary);
+
+        verify(documentStorageService).transferDocuments(primary, march3);
+        verify(documentStorageService, never()).deleteDocuments(10L);
+        assertThat(march3.getIsPrimaryDocument()).isTrue();
+        assertThat(march3.getPrimaryDocumentDay()).isEqualTo(MARCH_3);
+        assertThat(march3.isLinkedDocumentEntry()).isFalse();
+        // The other linked days follow the documents
+        assertThat(march4.getPrimaryDocumentDay()).isEqualTo(MARCH_3);
+        verify(dayEntryRepository).saveAll(List.of(march3, march4));
+    }
+
+    @Test
+    void linkedDaysOwnCopyIsDroppedBeforeTheHandOff() {
+        owners.add(11L);
+
+        entryService.deleteExistingDocuments(primary);
+
+        var order = inOrder(documentStorageService);
+        order.verify(documentStorageService).deleteDocuments(11L);
+        order.verify(documentStorageService).transferDocuments(primary, march3);
+        verify(documentStorageService, never()).deleteDocuments(12L);
+    }
+
+    @Test
+    void primaryWithoutLinkedDaysDeletesItsDocuments() {
+        entries.remove(march3);
+        entries.remove(march4);
+
+        entryService.deleteExistingDocuments(primary);
+
+        verify(documentStorageService).deleteDocuments(10L);
+        verify(documentStorageService, never()).transferDocuments(any(), any());
+        verify(dayEntryRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void primaryWithoutDocumentsLeavesTheLinkedDaysAlone() {
+        owners.clear();
+
+        entryService.deleteExistingDocuments(primary);
+
+        verify(documentStorageService).deleteDocuments(10L);
+        verify(documentStorageService, never()).transferDocuments(any(), any());
+        assertThat(march4.getPrimaryDocumentDay()).isEqualTo(MARCH_2);
+    }
+
+    @Test
+    void primaryThatStaysPrimaryReplacesItsOwnDocuments() {
+        // The update re-sends the day's documents, so the stored ones go
+        entryService.deleteExistingDocuments(primary, request(MARCH_2, "annual_leave", MARCH_2, true));
+
+        verify(documentStorageService).deleteDocuments(10L);
+        verify(documentStorageService, never()).transferDocuments(any(), any());
+        verify(dayEntryRepository, never()).findByUserIdAndPrimaryDocumentDay(anyLong(), any());
+    }
+
+    @Test
+    void primaryBecomingWorkingHoursHandsOff() {
+        entryService.deleteExistingDocuments(primary, request(MARCH_2, "working_hours", null, null));
+
+        verify(documentStorageService).transferDocuments(primary, march3);
+        verify(documentStorageService, never()).deleteDocuments(10L);
+        assertThat(march4.getPrimaryDocumentDay()).isEqualTo(MARCH_3);
+    }
+
+    @Test
+    void primaryLinkingToAnotherDayHandsOff() {
+        entryService.deleteExistingDocuments(primary, request(MARCH_2, "annual_leave", LocalDate.of(2026, 2, 27), false));
+
+        verify(documentStorageService).transferDocuments(primary, march3);
+        verify(documentStorageService, never()).deleteDocuments(10L);
+    }
+
+    @Test
+    void newEntryHasNothingToDelete() {
+        DayEntry entry = new DayEntry(user, MARCH_2, DayEntry.EntryType.annual_leave);
+
+        entryService.deleteExistingDocuments(entry);
+        entryService.deleteExistingDocuments(entry, request(MARCH_2, "working_hours", null, null));
+
+        verifyNoInteractions(documentStorageService);
+    }
+
+    // Helper methods
+
+    private DayEntry entry(Long id, LocalDate date, LocalDate primaryDay, boolean isPrimary) {
+        DayEntry entry = new DayEntry(user, date, DayEntry.EntryType.annual_leave);
+        entry.setId(id);
+        entry.setPrimaryDocumentDay(primaryDay);
+        entry.setIsPrimaryDocument(isPrimary);
+        entries.add(entry);
+        return entry;
+    }
+
+    private SaveEntryRequestDto request(LocalDate date, String type, LocalDate primaryDay, Boolean isPrimary) {
+        SaveEntryRequestDto request = new SaveEntryRequestDto();
+        request.setDate(date.toString());
+        request.setType(type);
+        request.setPrimaryDocumentDay(primaryDay != null ? primaryDay.toString() : null);
+        request.setIsPrimaryDocument(isPrimary);
+        return request;
+    }
+}
@@ -0,0 +1,208 @@
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.dto.timesheet.SaveEntryRequestDto;
+import com.goldtech.timesheet_backend.dto.timesheet.SaveEntryRequestDto.SupportingDocumentDto;
+import com.goldtech.timesheet_backend.entity.DayEntry;
+import com.goldtech.timesheet_backend.entity.User;
+import com.goldtech.timesheet_backend.repository.DayEntryRepository;
+import com.goldtech.timesheet_backend.repository.MonthlyTimesheetRepository;
+import com.goldtech.timesheet_backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Bulk saves run the document hand-off per entry, then store primary days' documents before linked days'
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TimesheetServiceTest {
+
+    private static final LocalDate MARCH_2 = LocalDate.of(2026, 3, 2);
+    private static final LocalDate MARCH_3 = LocalDate.of(2026, 3, 3);
+    private static final LocalDate MARCH_4 = LocalDate.of(2026, 3, 4);
+    private static final LocalDate MARCH_10 = LocalDate.of(2026, 3, 10);
+    private static final LocalDate MARCH_11 = LocalDate.of(2026, 3, 11);
+
+    @Mock
+    private DayEntryRepository dayEntryRepository;
+
+    @Mock
+    private MonthlyTimesheetRepository monthlyTimesheetRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TimesheetMapper timesheetMapper;
+
+    @Mock
+    private TimesheetBusinessRulesService businessRulesService;
+
+    @Mock
+    private TimesheetValidationService validationService;
+
+    @Mock
+    private DocumentStorageService documentStorageService;
+
+    @InjectMocks
+    private TimesheetService timesheetService;
+
+    private final List<DayEntry> entries = new ArrayList<>();
+    private final Set<Long> owners = new HashSet<>();
+    private final AtomicLong ids = new AtomicLong(100);
+    private final User user = new User("user@goldtech.com", "secret", "Test User");
+
+    @BeforeEach
+    void setUp() {
+        TimesheetEntryService entryService = new TimesheetEntryService();
+        ReflectionTestUtils.setField(entryService, "dayEntryRepository", dayEntryRepository);
+        ReflectionTestUtils.setField(entryService, "documentStorageService", documentStorageService);
+        ReflectionTestUtils.setField(entryService, "validationService", validationService);
+        ReflectionTestUtils.setField(timesheetService, "entryService", entryService);
+
+        user.setId(1L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(businessRulesService.canEditTimesheet(eq(1L), anyInt(), anyInt())).thenReturn(true);
+        when(monthlyTimesheetRepository.findCurrentVersionByUserIdAndYearAndMonth(eq(1L), anyInt(), anyInt()))
+                .thenReturn(Optional.empty());
+
+        // The repository and document storage keep their state across the batch, as the database would
+        when(dayEntryRepository.findByUserIdAndDate(eq(1L), any())).thenAnswer(invocation -> entries.stream()
+                .filter(entry -> entry.getDate().equals(invocation.getArgument(1)))
+                .findFirst());
+        when(dayEntryRepository.findByUserIdAndPrimaryDocumentDay(eq(1L), any())).thenAnswer(invocation -> entries.stream()
+                .filter(entry -> invocation.getArgument(1).equals(entry.getPrimaryDocumentDay()))
+                .toList());
+        when(dayEntryRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<DayEntry> saved = new ArrayList<>();
+            for (DayEntry entry : invocation.<Iterable<DayEntry>>getArgument(0)) {
+                if (entry.getId() == null) {
+                    entry.setId(ids.incrementAndGet());
+                    entries.add(entry);
+                }
+                saved.add(entry);
+            }
+            return saved;
+        });
+        when(documentStorageService.hasDocuments(anyLong()))
+                .thenAnswer(invocation -> owners.contains(invocation.<Long>getArgument(0)));
+        doAnswer(invocation -> owners.remove(invocation.<Long>getArgument(0)))
+                .when(documentStorageService).deleteDocuments(anyLong());
+        doAnswer(invocation -> {
+            owners.remove(invocation.<DayEntry>getArgument(0).getId());
+            return owners.add(invocation.<DayEntry>getArgument(1).getId()) ? 1 : 0;
+        }).when(documentStorageService).transferDocuments(any(), any());
+        doAnswer(invocation -> owners.add(invocation.<DayEntry>getArgument(0).getId()))
+                .when(documentStorageService).saveDocuments(any(), anyList());
+    }
+
+    @Test
+    void primaryBecomingWorkingHoursInABatchHandsItsDocumentsOn() {
+        DayEntry primary = entry(10L, MARCH_2, MARCH_2, true);
+        DayEntry march3 = entry(11L, MARCH_3, MARCH_2, false);
+        DayEntry march4 = entry(12L, MARCH_4, MARCH_2, false);
+        owners.add(10L);
+
+        SaveEntryRequestDto workingDay = request(MARCH_2, "working_hours", null, null);
+        workingDay.setStartTime("08:00");
+        workingDay.setEndTime("17:00");
+        timesheetService.saveBulkEntries(1L, List.of(
+                workingDay,
+                // The linked day comes first in the batch; its primary's file is still stored first
+                request(MARCH_11, "annual_leave", MARCH_10, false, document("note.pdf")),
+                request(MARCH_10, "annual_leave", MARCH_10, true, document("note.pdf"))));
+
+        // The documents survive on the earliest linked day, and the other linked day follows them
+        verify(documentStorageService).transferDocuments(primary, march3);
+        verify(documentStorageService, never()).deleteDocuments(10L);
+        assertThat(owners).contains(11L).doesNotContain(10L);
+        assertThat(primary.getEntryType()).isEqualTo(DayEntry.EntryType.working_hours);
+        assertThat(march3.isLinkedDocumentEntry()).isFalse();
+        assertThat(march4.getPrimaryDocumentDay()).isEqualTo(MARCH_3);
+
+        // The new primary in the batch stores its file; the day linked to it does not store a copy
+        DayEntry march10 = entries.stream().filter(entry -> entry.getDate().equals(MARCH_10)).findFirst().orElseThrow();
+        DayEntry march11 = entries.stream().filter(entry -> entry.getDate().equals(MARCH_11)).findFirst().orElseThrow();
+        var order = inOrder(documentStorageService);
+        order.verify(documentStorageService).saveDocuments(eq(march10), anyList());
+        order.verify(documentStorageService).hasDocuments(march10.getId());
+        verify(documentStorageService, never()).saveDocuments(eq(march11), anyList());
+    }
+
+    @Test
+    void editingAPrimaryThatStaysPrimaryReplacesItsDocuments() {
+        DayEntry primary = entry(10L, MARCH_2, MARCH_2, true);
+        entry(11L, MARCH_3, MARCH_2, false);
+        owners.add(10L);
+
+        timesheetService.saveBulkEntries(1L, List.of(request(MARCH_2, "annual_leave", MARCH_2, true, document("new.pdf"))));
+
+        var order = inOrder(documentStorageService);
+        order.verify(documentStorageService).deleteDocuments(10L);
+        order.verify(documentStorageService).saveDocuments(eq(primary), anyList());
+        verify(documentStorageService, never()).transferDocuments(any(), any());
+    }
+
+    @Test
+    void batchOnALockedMonthSavesNothing() {
+        when(businessRulesService.canEditTimesheet(1L, 2026, 3)).thenReturn(false);
+
+        assertThatThrownBy(() -> timesheetService.saveBulkEntries(1L, List.of(request(MARCH_2, "working_hours", null, null))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Cannot edit");
+
+        verify(dayEntryRepository, never()).saveAll(any());
+        verifyNoInteractions(documentStorageService);
+    }
+
+    // Helper methods
+
+    private DayEntry entry(Long id, LocalDate date, LocalDate primaryDay, boolean isPrimary) {
+        DayEntry entry = new DayEntry(user, date, DayEntry.EntryType.annual_leave);
+        entry.setId(id);
+        entry.setPrimaryDocumentDay(primaryDay);
+        entry.setIsPrimaryDocument(isPrimary);
+        entries.add(entry);
+        return entry;
+    }
+
+    private SaveEntryRequestDto request(LocalDate date, String type, LocalDate primaryDay, Boolean isPrimary,
+                                        SupportingDocumentDto... documents) {
+        SaveEntryRequestDto request = new SaveEntryRequestDto();
+        request.setDate(date.toString());
+        request.setType(type);
+        request.setPrimaryDocumentDay(primaryDay != null ? primaryDay.toString() : null);
+        request.setIsPrimaryDocument(isPrimary);
+        request.setSupportingDocuments(documents.length > 0 ? List.of(documents) : null);
+        return request;
+    }
+
+    private SupportingDocumentDto document(String name) {
+        SupportingDocumentDto document = new SupportingDocumentDto();
+        document.setName(name);
+        document.setType("application/pdf");
+        document.setSize(7L);
+        document.setBase64Data("Y29udGVudA==");
+        return document;
+    }
+}
@@ -0,0 +1,142 @@
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.RevokedToken;
+import com.goldtech.timesheet_backend.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @InjectMocks
+    private TokenRevocationService revocationService;
+
+    private final Date inAnHour = new Date(System.currentTimeMillis() + 3_600_000);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(revocationService, "bloomBits", 4096);
+        ReflectionTestUtils.setField(revocationService, "bloomHashes", 5);
+        ReflectionTestUtils.setField(revocationService, "refreshIntervalMs", 10000L);
+        when(revokedTokenRepository.findByExpiresAtAfter(any())).thenReturn(List.of(
+                new RevokedToken("loaded", 1L, LocalDateTime.now().plusHours(1))));
+        revocationService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void persistedRevocationsAreLoadedAtStartup() {
+        assertThat(revocationService.isRevoked("loaded")).isTrue();
+        assertThat(revocationService.isRevoked("other")).isFalse();
+        assertThat(revocationService.isRevoked(null)).isFalse();
+    }
+
+    @Test
+    void revokedTokenIsDeniedOnceStored() {
+        revocationService.revoke("jti-1", 7L, inAnHour);
+
+        verify(revokedTokenRepository).insertIfAbsent(eq("jti-1"), eq(7L), any());
+        assertThat(revocationService.isRevoked("jti-1")).isTrue();
+        assertThat(revocationService.getStats()).containsEntry("revocations", 1L);
+    }
+
+    @Test
+    void denialWaitsForTheCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        revocationService.revoke("jti-1", 7L, inAnHour);
+        assertThat(revocationService.isRevoked("jti-1")).isFalse();
+
+        TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        assertThat(revocationService.isRevoked("jti-1")).isTrue();
+    }
+
+    @Test
+    void rolledBackRevocationIsNotDenied() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        revocationService.revoke("jti-1", 7L, inAnHour);
+        TransactionSynchronizationUtils.invokeAfterCompletion(
+                TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(revocationService.isRevoked("jti-1")).isFalse();
+    }
+
+    @Test
+    void failedInsertLeavesMemoryUntouched() {
+        when(revokedTokenRepository.insertIfAbsent(any(), any(), any()))
+                .thenThrow(new DataAccessResourceFailureException("database down"));
+
+        assertThatThrownBy(() -> revocationService.revoke("jti-1", 7L, inAnHour))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(revocationService.isRevoked("jti-1")).isFalse();
+    }
+
+    @Test
+    void repeatedRevocationIsHarmless() {
+        revocationService.revoke("jti-1", 7L, inAnHour);
+        revocationService.revoke("jti-1", 7L, inAnHour);
+
+        verify(revokedTokenRepository, times(2)).insertIfAbsent(eq("jti-1"), eq(7L), any());
+        assertThat(revocationService.isRevoked("jti-1")).isTrue();
+    }
+
+    @Test
+    void tokensWithoutIdOrAlreadyExpiredAreIgnored() {
+        revocationService.revoke(null, 7L, inAnHour);
+        revocationService.revoke("jti-1", 7L, new Date(System.currentTimeMillis() - 1000));
+        revocationService.revoke("jti-2", 7L, null);
+
+        verify(revokedTokenRepository, never()).insertIfAbsent(any(), any(), any());
+        assertThat(revocationService.isRevoked("jti-1")).isFalse();
+    }
+
+    @Test
+    void revocationsFromOtherInstancesArePickedUp() {
+        when(revokedTokenRepository.findRevokedSince(any(), any())).thenReturn(List.of(
+                new RevokedToken("remote", 2L, LocalDateTime.now().plusHours(1))));
+
+        revocationService.refresh();
+
+        assertThat(revocationService.isRevoked("remote")).isTrue();
+    }
+
+    @Test
+    void cleanupForgetsExpiredEntries() {
+        ReflectionTestUtils.invokeMethod(revocationService, "add", "stale", System.currentTimeMillis() - 1000);
+
+        revocationService.cleanup();
+
+        assertThat(revocationService.isRevoked("stale")).isFalse();
+        assertThat(revocationService.isRevoked("loaded")).isTrue();
+        assertThat(revocationService.getStats()).containsEntry("revokedTokens", 1);
+    }
+}
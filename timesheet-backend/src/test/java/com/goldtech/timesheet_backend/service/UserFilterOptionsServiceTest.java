@@ -0,0 +1,124 @@
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.User.UserStatus;
+import com.goldtech.timesheet_backend.repository.UserRepository;
+import com.goldtech.timesheet_backend.repository.UserRepository.UserSearchRow;
+import com.goldtech.timesheet_backend.service.UserFilterOptionsService.FilterOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.goldtech.timesheet_backend.service.UserSearchIndexTest.row;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The filter options tree lists what the single-level endpoints list, and its ETag follows the content only
+ */
+class UserFilterOptionsServiceTest {
+
+    private final List<UserSearchRow> rows = new ArrayList<>();
+    private final Map<Long, String> roles = new HashMap<>();
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    @BeforeEach
+    void setUp() {
+        rows.add(row(1L, "Ama Owusu", "ama@goldtech.com", "GT001", "Driver", "", "Tarkwa", UserStatus.ACTIVE));
+        rows.add(row(2L, "Kofi Mensah", "kofi@goldtech.com", "GT002", null, "IT", "Tarkwa", UserStatus.INACTIVE));
+        rows.add(row(3L, "Ana Lopez", "ana@goldtech.com", "GT003", "Engineer", "IT", "Tarkwa", UserStatus.ACTIVE));
+        rows.add(row(4L, "Zed Brown", "zed@goldtech.com", "GT004", "Engineer", "IT", null, UserStatus.ACTIVE));
+        roles.put(1L, "EMPLOYEE");
+        roles.put(2L, "SUPERVISOR");
+        roles.put(3L, "ADMIN");
+        roles.put(4L, "EMPLOYEE");
+    }
+
+    @Test
+    void emptyValuesAreListedAndInactiveUsersCounted() {
+        Map<String, Object> tree = service(UserSearchIndexTest.indexOf(rows, roles)).getFilterOptions().tree();
+
+        assertThat(tree.get("total")).isEqualTo(4L);
+        assertThat(values(tree, "roles")).containsExactly("ADMIN=1", "EMPLOYEE=2", "SUPERVISOR=1");
+
+        Map<String, Object> site = children(tree, "projectSites").get(0);
+        assertThat(values(tree, "projectSites")).containsExactly("Tarkwa=3"); // No site: counted in the total only
+        assertThat(values(site, "departments")).containsExactly("=1", "IT=2");
+
+        // The inactive supervisor has no position: listed at the site and department, not under a position
+        Map<String, Object> it = children(site, "departments").get(1);
+        assertThat(values(site, "roles")).containsExactly("ADMIN=1", "EMPLOYEE=1", "SUPERVISOR=1");
+        assertThat(values(it, "roles")).containsExactly("ADMIN=1", "SUPERVISOR=1");
+        assertThat(values(it, "positions")).containsExactly("Engineer=1");
+        assertThat(values(children(it, "positions").get(0), "roles")).containsExactly("ADMIN=1");
+    }
+
+    @Test
+    void databaseCountsGiveTheSameTreeAndEtag() {
+        FilterOptions fromIndex = service(UserSearchIndexTest.indexOf(rows, roles)).getFilterOptions();
+        when(userRepository.countGroupedByProjectSiteDepartmentPosition()).thenReturn(List.of(
+                new Object[]{"Tarkwa", "", "Driver", 1L},
+                new Object[]{"Tarkwa", "IT", null, 1L},
+                new Object[]{"Tarkwa", "IT", "Engineer", 1L},
+                new Object[]{null, "IT", "Engineer", 1L}));
+        when(userRepository.countRolesGroupedByProjectSiteDepartmentPosition()).thenReturn(List.of(
+                new Object[]{"Tarkwa", "", "Driver", "EMPLOYEE", 1L},
+                new Object[]{"Tarkwa", "IT", null, "SUPERVISOR", 1L},
+                new Object[]{"Tarkwa", "IT", "Engineer", "ADMIN", 1L},
+                new Object[]{null, "IT", "Engineer", "EMPLOYEE", 1L}));
+
+        FilterOptions fromDatabase = service(new UserSearchIndex()).getFilterOptions();
+
+        assertThat(fromDatabase.version()).isEqualTo(-1);
+        assertThat(fromDatabase.tree()).isEqualTo(fromIndex.tree());
+        assertThat(fromDatabase.etag()).isEqualTo(fromIndex.etag());
+    }
+
+    @Test
+    void roleRowsForASiteTheUserCountsMissedAreListed() {
+        // A user moved to Obuasi between the two fallback queries
+        when(userRepository.countGroupedByProjectSiteDepartmentPosition()).thenReturn(List.<Object[]>of(
+                new Object[]{"Tarkwa", "IT", "Engineer", 1L}));
+        when(userRepository.countRolesGroupedByProjectSiteDepartmentPosition()).thenReturn(List.<Object[]>of(
+                new Object[]{"Obuasi", "IT", "Engineer", "ADMIN", 1L}));
+
+        Map<String, Object> tree = service(new UserSearchIndex()).getFilterOptions().tree();
+
+        assertThat(values(tree, "projectSites")).containsExactly("Obuasi=0", "Tarkwa=1");
+        assertThat(values(children(tree, "projectSites").get(0), "roles")).containsExactly("ADMIN=1");
+    }
+
+    @Test
+    void renameKeepsTheEtagAndMoveChangesIt() {
+        String before = service(UserSearchIndexTest.indexOf(rows, roles)).getFilterOptions().etag();
+
+        rows.set(2, row(3L, "Ana Lopez-Mensah", "ana@goldtech.com", "GT003", "Engineer", "IT", "Tarkwa", UserStatus.ACTIVE));
+        assertThat(service(UserSearchIndexTest.indexOf(rows, roles)).getFilterOptions().etag()).isEqualTo(before);
+
+        rows.set(2, row(3L, "Ana Lopez", "ana@goldtech.com", "GT003", "Engineer", "IT", "Obuasi", UserStatus.ACTIVE));
+        assertThat(service(UserSearchIndexTest.indexOf(rows, roles)).getFilterOptions().etag()).isNotEqualTo(before);
+    }
+
+    // Helper methods
+
+    private UserFilterOptionsService service(UserSearchIndex searchIndex) {
+        UserFilterOptionsService service = new UserFilterOptionsService();
+        ReflectionTestUtils.setField(service, "searchIndex", searchIndex);
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+        return service;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> children(Map<String, Object> node, String level) {
+        return (List<Map<String, Object>>) node.get(level);
+    }
+
+    private List<String> values(Map<String, Object> node, String level) {
+        return children(node, level).stream().map(option -> option.get("value") + "=" + option.get("count")).toList();
+    }
+}
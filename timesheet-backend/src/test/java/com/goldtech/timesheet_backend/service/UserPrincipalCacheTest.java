@@ -0,0 +1,91 @@
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.Role;
+import com.goldtech.timesheet_backend.entity.User;
+import com.goldtech.timesheet_backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserPrincipalCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private UserPrincipalCache principalCache;
+
+    private User stored;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(principalCache, "enabled", true);
+        ReflectionTestUtils.setField(principalCache, "ttlSeconds", 30L);
+        ReflectionTestUtils.setField(principalCache, "maxEntries", 100);
+
+        stored = new User("user@goldtech.com", "secret", "Test User");
+        stored.setId(7L);
+        stored.setProjectSite("Obuasi");
+        stored.setRoles(new HashSet<>(Set.of(new Role("supervisor", "Supervisor"))));
+        when(userRepository.findByEmail("user@goldtech.com")).thenReturn(Optional.of(stored));
+    }
+
+    @Test
+    void hitsShareTheSnapshotButNotTheUser() {
+        UserPrincipalCache.CachedPrincipal first = principalCache.get("user@goldtech.com");
+        UserPrincipalCache.CachedPrincipal second = principalCache.get("user@goldtech.com");
+
+        assertThat(second).isSameAs(first);
+        verify(userRepository, times(1)).findByEmail("user@goldtech.com");
+
+        User a = first.newUser();
+        User b = second.newUser();
+        assertThat(a).isNotSameAs(b).isNotSameAs(stored);
+        assertThat(a.getId()).isEqualTo(7L);
+        assertThat(a.getProjectSite()).isEqualTo("Obuasi");
+        assertThat(a.getRoles()).extracting(Role::getName).containsExactly("supervisor");
+        assertThat(first.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_SUPERVISOR");
+    }
+
+    @Test
+    void changesToAUserOrTheLoadedEntityDoNotLeakIntoTheCache() {
+        UserPrincipalCache.CachedPrincipal principal = principalCache.get("user@goldtech.com");
+
+        // One request modifies its principal; the loaded entity is changed too
+        User mine = principal.newUser();
+        mine.setProjectSite("Tarkwa");
+        mine.getRoles().clear();
+        stored.setFullName("Renamed");
+        stored.setStatus(User.UserStatus.INACTIVE);
+
+        User next = principalCache.get("user@goldtech.com").newUser();
+        assertThat(next.getProjectSite()).isEqualTo("Obuasi");
+        assertThat(next.getRoles()).hasSize(1);
+        assertThat(next.getFullName()).isEqualTo("Test User");
+        assertThat(principal.isActive()).isTrue();
+    }
+
+    @Test
+    void invalidationReloadsTheUser() {
+        principalCache.get("user@goldtech.com");
+        stored.setStatus(User.UserStatus.INACTIVE);
+
+        principalCache.invalidate(7L);
+
+        assertThat(principalCache.get("user@goldtech.com").isActive()).isFalse();
+        verify(userRepository, times(2)).findByEmail("user@goldtech.com");
+    }
+}
@@ -0,0 +1,98 @@
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.User.UserStatus;
+import com.goldtech.timesheet_backend.repository.UserRepository.UserSearchRow;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One page of a /users search over 50k synthetic users: the index against a LIKE '%term%'-style
+ * scan of the five searchable fields (the work the database query does, without the I/O).
+ * Run main() on the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserSearchIndexBenchmark {
+
+    private static final int USERS = 50_000;
+    private static final String[] FIRST = {"john", "maria", "ahmed", "li", "sofia", "peter", "anna", "kwame", "yuki", "carlos"};
+    private static final String[] LAST = {"smith", "garcia", "khan", "wang", "rossi", "nowak", "mensah", "tanaka", "silva", "brown"};
+    private static final String[] POSITIONS = {"Engineer", "Site Supervisor", "Accountant", "Driver", "Geologist", "Electrician"};
+    private static final String[] DEPARTMENTS = {"Engineering", "Operations", "Finance", "Logistics", "Exploration"};
+
+    // Short prefix, name, two terms, employee id, and a term every user matches
+    @Param({"jo", "mensah", "john smith", "gt012345", "goldtech"})
+    public String search;
+
+    @Param({"relevance", "fullName"})
+    public String sortBy;
+
+    private List<UserSearchRow> rows;
+    private UserSearchIndex index;
+    private Pageable pageable;
+
+    @Setup
+    public void setUp() {
+        rows = new ArrayList<>(USERS);
+        Map<Long, String> roles = new HashMap<>();
+        Random random = new Random(1);
+        for (long id = 1; id <= USERS; id++) {
+            String name = FIRST[random.nextInt(FIRST.length)] + " " + LAST[random.nextInt(LAST.length)];
+            rows.add(UserSearchIndexTest.row(id, name, name.replace(' ', '.') + id + "@goldtech.com",
+                    String.format("GT%06d", id), POSITIONS[random.nextInt(POSITIONS.length)],
+                    DEPARTMENTS[random.nextInt(DEPARTMENTS.length)],
+                    random.nextInt(10) == 0 ? UserStatus.INACTIVE : UserStatus.ACTIVE));
+            roles.put(id, id % 20 == 0 ? "SUPERVISOR" : "EMPLOYEE");
+        }
+        index = UserSearchIndexTest.indexOf(rows, roles);
+        pageable = PageRequest.of(0, 20, Sort.by(sortBy));
+    }
+
+    @Benchmark
+    public UserSearchIndex.SearchResult index() {
+        return index.search(search, null, null, null, null, null, pageable);
+    }
+
+    @Benchmark
+    public List<UserSearchRow> likeScan() {
+        // The specification query matches the whole search string as one pattern
+        String term = search.toLowerCase(Locale.ROOT);
+        List<UserSearchRow> matches = new ArrayList<>();
+        for (UserSearchRow row : rows) {
+            if (contains(row, term)) {
+                matches.add(row);
+            }
+        }
+        matches.sort(Comparator.comparing(UserSearchRow::getFullName, String.CASE_INSENSITIVE_ORDER));
+        return matches.subList(0, Math.min(20, matches.size()));
+    }
+
+    // Helper methods
+
+    private static boolean contains(UserSearchRow row, String term) {
+        for (String value : new String[]{row.getFullName(), row.getEmail(), row.getEmployeeId(),
+                row.getPosition(), row.getDepartment()}) {
+            if (value.toLowerCase(Locale.ROOT).contains(term)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(UserSearchIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,151 @@
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.User.UserStatus;
+import com.goldtech.timesheet_backend.repository.UserRepository;
+import com.goldtech.timesheet_backend.repository.UserRepository.UserSearchRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ranking, filters and paging of the in-memory user search
+ */
+class UserSearchIndexTest {
+
+    private static final Sort RELEVANCE = Sort.by(UserSearchIndex.SORT_RELEVANCE);
+
+    private final List<UserSearchRow> rows = new ArrayList<>();
+    private final Map<Long, String> roles = new HashMap<>();
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        rows.add(row(1L, "Ana Lopez", "alopez@goldtech.com", "GT001", "Engineer", "IT", UserStatus.ACTIVE));
+        rows.add(row(2L, "Zed Brown", "ana@goldtech.com", "GT002", "Engineer", "IT", UserStatus.ACTIVE));
+        rows.add(row(3L, "Diana Ross", "dross@goldtech.com", "GT003", "Driver", "Logistics", UserStatus.ACTIVE));
+        rows.add(row(4L, "Mary Ana", "mary@goldtech.com", "GT004", "Driver", "Logistics", UserStatus.INACTIVE));
+        rows.add(row(5L, "Kofi Mensah", "kofi@goldtech.com", "ANA", "Engineer", "IT", UserStatus.ACTIVE));
+        roles.put(1L, "ADMIN");
+        roles.put(2L, "EMPLOYEE");
+        roles.put(3L, "EMPLOYEE");
+        roles.put(4L, "EMPLOYEE");
+        roles.put(5L, "SUPERVISOR");
+        index = indexOf(rows, roles);
+    }
+
+    @Test
+    void bestWeightedMatchRanksFirst() {
+        // employee id exact 50, email prefix 32, name prefix 24, name word prefix 18, name substring 6
+        assertThat(search("ana", PageRequest.of(0, 20, RELEVANCE)).userIds()).containsExactly(5L, 2L, 1L, 4L, 3L);
+    }
+
+    @Test
+    void everyTermMustMatch() {
+        assertThat(search("ana lopez", PageRequest.of(0, 20, RELEVANCE)).userIds()).containsExactly(1L);
+        assertThat(search("ana zzz", PageRequest.of(0, 20, RELEVANCE)).total()).isZero();
+    }
+
+    @Test
+    void shortTermsOnlyMatchTheStartOfAValueOrWord() {
+        // "ro" is a word prefix in "Diana Ross" but only a substring of "dross@goldtech.com" elsewhere
+        assertThat(search("ro", PageRequest.of(0, 20, RELEVANCE)).userIds()).containsExactly(3L);
+        assertThat(search("na", PageRequest.of(0, 20, RELEVANCE)).total()).isZero();
+    }
+
+    @Test
+    void filtersIgnoreCase() {
+        UserSearchIndex.SearchResult result = index.search("ana", "active", "admin", "it", "engineer", null,
+                PageRequest.of(0, 20, RELEVANCE));
+
+        assertThat(result.userIds()).containsExactly(1L);
+        assertThat(index.search("ana", "Inactive", "all", null, null, null, PageRequest.of(0, 20, RELEVANCE))
+                .userIds()).containsExactly(4L);
+    }
+
+    @Test
+    void pagesFollowTheRequestedSort() {
+        Pageable second = PageRequest.of(1, 2, Sort.by("fullName"));
+
+        UserSearchIndex.SearchResult result = search("goldtech", second);
+
+        // Ana Lopez, Diana Ross | Kofi Mensah, Mary Ana | Zed Brown
+        assertThat(result.total()).isEqualTo(5);
+        assertThat(result.userIds()).containsExactly(5L, 4L);
+        assertThat(search("goldtech", PageRequest.of(3, 2, Sort.by("fullName"))).userIds()).isEmpty();
+    }
+
+    @Test
+    void relevanceTiesAreOrderedByName() {
+        // Every email contains "goldtech" as a word: all score alike
+        assertThat(search("goldtech", PageRequest.of(0, 20, RELEVANCE)).userIds()).containsExactly(1L, 3L, 5L, 4L, 2L);
+    }
+
+    @Test
+    void sortsTheIndexDoesNotHoldFallBackToTheDatabase() {
+        assertThat(search("ana", PageRequest.of(0, 20, Sort.by("createdAt")))).isNull();
+        assertThat(new UserSearchIndex().search("ana", null, null, null, null, null, PageRequest.of(0, 20))).isNull();
+    }
+
+    // Helper methods
+
+    private UserSearchIndex.SearchResult search(String search, Pageable pageable) {
+        return index.search(search, null, null, null, null, null, pageable);
+    }
+
+    /**
+     * A built index over these rows, each user holding the role given for it (if any)
+     */
+    static UserSearchIndex indexOf(List<UserSearchRow> rows, Map<Long, String> roles) {
+        UserRepository repository = mock(UserRepository.class);
+        when(repository.findSearchRowsAfter(anyLong(), any())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            int size = invocation.<Pageable>getArgument(1).getPageSize();
+            return rows.stream().filter(row -> row.getId() > afterId).limit(size).toList();
+        });
+        when(repository.findRoleNamesByUserIdIn(anyCollection())).thenAnswer(invocation -> {
+            List<Object[]> pairs = new ArrayList<>();
+            for (Object id : invocation.<Collection<?>>getArgument(0)) {
+                if (roles.containsKey(id)) {
+                    pairs.add(new Object[]{id, roles.get(id)});
+                }
+            }
+            return pairs;
+        });
+
+        UserSearchIndex index = new UserSearchIndex();
+        ReflectionTestUtils.setField(index, "userRepository", repository);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "pageSize", 1000);
+        ReflectionTestUtils.invokeMethod(index, "rebuild");
+        return index;
+    }
+
+    static UserSearchRow row(Long id, String fullName, String email, String employeeId, String position,
+                             String department, UserStatus status) {
+        return row(id, fullName, email, employeeId, position, department, "Tarkwa", status);
+    }
+
+    static UserSearchRow row(Long id, String fullName, String email, String employeeId, String position,
+                             String department, String projectSite, UserStatus status) {
+        return new SearchRow(id, fullName, email, employeeId, position, department, projectSite, status);
+    }
+
+    private record SearchRow(Long getId, String getFullName, String getEmail, String getEmployeeId, String getPosition,
+                             String getDepartment, String getProjectSite, UserStatus getStatus) implements UserSearchRow {}
+}
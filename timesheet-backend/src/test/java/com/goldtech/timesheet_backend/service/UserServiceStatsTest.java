@@ -0,0 +1,97 @@
+package com.goldtech.timesheet_backend.service;
+
+import com.goldtech.timesheet_backend.entity.User;
+import com.goldtech.timesheet_backend.repository.RoleRepository;
+import com.goldtech.timesheet_backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Dashboard statistics come from two grouped queries and are cached until the next user change
+ */
+@ExtendWith(MockitoExtension.class)
+class UserServiceStatsTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RoleRepository roleRepository;
+
+    @Mock
+    private UserPrincipalCache principalCache;
+
+    @Mock
+    private UserSearchIndex searchIndex;
+
+    @InjectMocks
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userService, "statsCacheSeconds", 30L);
+        when(userRepository.countGroupedByStatus()).thenReturn(List.of(
+                new Object[]{User.UserStatus.ACTIVE, 3L},
+                new Object[]{User.UserStatus.INACTIVE, 1L}));
+        when(roleRepository.countUsersByRole()).thenReturn(List.of(
+                new Object[]{"ADMIN", 1L},
+                new Object[]{"EMPLOYEE", 3L},
+                new Object[]{"SUPERVISOR", 0L}));
+    }
+
+    @Test
+    void groupedCountsMakeTheStats() {
+        Map<String, Object> stats = userService.getUserStats();
+
+        assertThat(stats).containsEntry("total", 4L).containsEntry("active", 3L).containsEntry("inactive", 1L);
+        assertThat(stats.get("roleStats")).isEqualTo(Map.of("ADMIN", 1L, "EMPLOYEE", 3L, "SUPERVISOR", 0L));
+    }
+
+    @Test
+    void statsAreCachedUntilAUserChanges() {
+        Map<String, Object> first = userService.getUserStats();
+        assertThat(userService.getUserStats()).isSameAs(first);
+        verify(userRepository, times(1)).countGroupedByStatus();
+
+        ReflectionTestUtils.invokeMethod(userService, "userChanged", List.of(1L));
+
+        assertThat(userService.getUserStats()).isNotSameAs(first).isEqualTo(first);
+        verify(userRepository, times(2)).countGroupedByStatus();
+    }
+
+    @Test
+    void countsThatRacedAChangeAreNotServedFromTheCache() {
+        // A user is changed while the counts are being read
+        when(userRepository.countGroupedByStatus()).thenAnswer(invocation -> {
+            ReflectionTestUtils.invokeMethod(userService, "userChanged", List.of(1L));
+            return List.<Object[]>of(new Object[]{User.UserStatus.ACTIVE, 3L});
+        }).thenReturn(List.<Object[]>of(new Object[]{User.UserStatus.ACTIVE, 4L}));
+
+        assertThat(userService.getUserStats()).containsEntry("active", 3L);
+
+        assertThat(userService.getUserStats()).containsEntry("active", 4L);
+        assertThat(userService.getUserStats()).containsEntry("active", 4L);
+        verify(userRepository, times(2)).countGroupedByStatus();
+    }
+
+    @Test
+    void zeroSecondsDisablesTheCache() {
+        ReflectionTestUtils.setField(userService, "statsCacheSeconds", 0L);
+
+        userService.getUserStats();
+        userService.getUserStats();
+
+        verify(userRepository, times(2)).countGroupedByStatus();
+    }
+}